@@ -2,6 +2,7 @@ package bt.game.core.container;
 
 import bt.game.core.container.abstr.GameContainer;
 import bt.game.core.ctrl.spec.mouse.obj.Cursor;
+import bt.game.resource.render.batch.TiledRenderBackend;
 import bt.game.util.unit.Unit;
 import bt.log.Log;
 
@@ -27,6 +28,10 @@ public class ContainerSettings
     private String title;
     private boolean debugRendering;
     private Cursor cursor;
+    private int renderWidth;
+    private int renderHeight;
+    private int renderThreads = 1;
+    private long preloadMemoryReserve = 64L * 1024 * 1024;
 
     /**
      * Sets the measurements of the the game canvas in {@link Unit units}. This has no effect on the actual window size,
@@ -144,6 +149,66 @@ public class ContainerSettings
         return this;
     }
 
+    /**
+     * Sets a fixed resolution that the game is rendered in. The rendered frame is scaled onto the canvas afterwards
+     * while keeping its aspect ratio.
+     *
+     * <p>
+     * The pixel to {@link Unit} ratio is calculated from this resolution instead of the size of the window. Changing
+     * the window size or switching to fullscreen therefore does not require any images or texts to be rescaled. Lower
+     * resolutions render faster at the cost of quality.
+     * </p>
+     *
+     * <p>
+     * A width or height of 0 (the default) renders directly onto the canvas in the size of the window.
+     * </p>
+     *
+     * @param width  The width of the rendered frame in pixels.
+     * @param height The height of the rendered frame in pixels.
+     *
+     * @return This instance for chaining.
+     */
+    public ContainerSettings renderResolution(int width, int height)
+    {
+        this.renderWidth = width;
+        this.renderHeight = height;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that draw the images of a frame.
+     *
+     * <p>
+     * With more than one thread, scenes draw their images via a {@link TiledRenderBackend}, which splits the frame into
+     * horizontal bands that are drawn in parallel. This mainly helps scenes with many sprites, since Java2D draws with
+     * a single core otherwise.
+     * </p>
+     *
+     * @param threads The number of threads. 1 (the default) draws on the render thread only.
+     *
+     * @return This instance for chaining.
+     */
+    public ContainerSettings renderThreads(int threads)
+    {
+        this.renderThreads = Math.max(threads, 1);
+        return this;
+    }
+
+    /**
+     * Sets the amount of heap memory that has to be available for a scene to be preloaded via
+     * {@link bt.game.core.container.abstr.GameContainer#preloadScene(String) preloadScene}. Preloading keeps the
+     * resources of two scenes in memory at the same time, so preloads are skipped if less memory is left.
+     *
+     * @param bytes The memory in bytes. The default is 64 MB, 0 always allows preloading.
+     *
+     * @return This instance for chaining.
+     */
+    public ContainerSettings preloadMemoryReserve(long bytes)
+    {
+        this.preloadMemoryReserve = Math.max(bytes, 0);
+        return this;
+    }
+
     public float getUnitWidth()
     {
         return this.unitWidth;
@@ -164,6 +229,36 @@ public class ContainerSettings
         return this.frameHeight;
     }
 
+    public int getRenderWidth()
+    {
+        return this.renderWidth;
+    }
+
+    public int getRenderHeight()
+    {
+        return this.renderHeight;
+    }
+
+    public int getRenderThreads()
+    {
+        return this.renderThreads;
+    }
+
+    public long getPreloadMemoryReserve()
+    {
+        return this.preloadMemoryReserve;
+    }
+
+    /**
+     * Indicates whether a fixed render resolution was set via {@link #renderResolution(int, int)}.
+     *
+     * @return true if the game is rendered in a fixed resolution.
+     */
+    public boolean hasRenderResolution()
+    {
+        return this.renderWidth > 0 && this.renderHeight > 0;
+    }
+
     public boolean isUndecorated()
     {
         return this.undecorated;
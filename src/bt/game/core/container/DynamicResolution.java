@@ -0,0 +1,152 @@
+package bt.game.core.container;
+
+import bt.game.core.container.abstr.GameContainer;
+import bt.game.core.loop.GameLoop;
+
+/**
+ * Adjusts the scale that a {@link GameContainer} renders at based on how long rendering a frame takes.
+ *
+ * <p>
+ * Render times are reported via {@link #update(long)} by the container that this instance is set on:
+ *
+ * <pre>
+ * container.setDynamicResolution(new DynamicResolution(0.5, 1, 60));
+ * </pre>
+ *
+ * Only the time that drawing the scene takes is reported. The total duration of a {@link GameLoop} render call is not
+ * suitable, since it includes waiting for vsync and loading scenes.
+ * </p>
+ *
+ * <p>
+ * The reported times are averaged over a number of frames. If the average exceeds the frame budget the scale is
+ * lowered by one step. It is only raised again once the average drops clearly below the budget, so that the scale
+ * does not flip back and forth when the render time is close to the budget. After every change a few frames are
+ * ignored to let the new scale take effect.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class DynamicResolution
+{
+    /** The number of frames that are averaged before the scale is adjusted. */
+    public static final int SAMPLE_FRAMES = 30;
+
+    private double minScale;
+    private double maxScale;
+    private double step = 0.1;
+    private long frameBudget;
+    private double lowerAbove = 0.95;
+    private double raiseBelow = 0.75;
+    private volatile double scale;
+    private long sampleSum;
+    private int samples;
+    private int cooldown;
+
+    /**
+     * Creates a new instance that starts at the maximum scale.
+     *
+     * @param minScale        The lowest scale that may be used, i.e. 0.5 for half the resolution.
+     * @param maxScale        The highest scale that may be used, usually 1.
+     * @param framesPerSecond The frame rate that rendering should be able to keep up with.
+     */
+    public DynamicResolution(double minScale, double maxScale, int framesPerSecond)
+    {
+        this.minScale = Math.max(Math.min(minScale, maxScale), 0.1);
+        this.maxScale = Math.max(maxScale, this.minScale);
+        this.frameBudget = (long)(1.0e9 / framesPerSecond);
+        this.scale = this.maxScale;
+    }
+
+    /**
+     * Reports the time that rendering the last frame took.
+     *
+     * @param renderNanos The render time in nano seconds.
+     */
+    public synchronized void update(long renderNanos)
+    {
+        if (this.cooldown > 0)
+        {
+            this.cooldown--;
+            return;
+        }
+
+        this.sampleSum += renderNanos;
+
+        if (++this.samples < SAMPLE_FRAMES)
+        {
+            return;
+        }
+
+        double average = this.sampleSum / (double)this.samples;
+        double newScale = this.scale;
+        this.sampleSum = 0;
+        this.samples = 0;
+
+        if (average > this.frameBudget * this.lowerAbove)
+        {
+            newScale = Math.max(this.scale - this.step, this.minScale);
+        }
+        else if (average < this.frameBudget * this.raiseBelow)
+        {
+            newScale = Math.min(this.scale + this.step, this.maxScale);
+        }
+
+        if (newScale != this.scale)
+        {
+            this.scale = newScale;
+            this.cooldown = SAMPLE_FRAMES / 2;
+        }
+    }
+
+    /**
+     * Gets the scale that the next frame should be rendered at.
+     *
+     * @return The scale between the configured minimum and maximum.
+     */
+    public double getScale()
+    {
+        return this.scale;
+    }
+
+    /**
+     * Sets the amount that the scale is changed by in a single adjustment.
+     *
+     * @param step The step, i.e. 0.1 for 10%.
+     */
+    public void setStep(double step)
+    {
+        this.step = step;
+    }
+
+    /**
+     * Sets the fractions of the frame budget at which the scale is changed.
+     *
+     * @param lower The scale is lowered if the average render time exceeds this fraction of the budget, i.e. 0.95.
+     * @param raise The scale is raised if the average render time is below this fraction of the budget, i.e. 0.75.
+     */
+    public void setThresholds(double lower, double raise)
+    {
+        this.lowerAbove = lower;
+        this.raiseBelow = Math.min(raise, lower);
+    }
+
+    /**
+     * Sets the frame rate that rendering should be able to keep up with.
+     *
+     * @param framesPerSecond The target frame rate.
+     */
+    public void setFrameRate(int framesPerSecond)
+    {
+        this.frameBudget = (long)(1.0e9 / framesPerSecond);
+    }
+
+    public double getMinScale()
+    {
+        return this.minScale;
+    }
+
+    public double getMaxScale()
+    {
+        return this.maxScale;
+    }
+}
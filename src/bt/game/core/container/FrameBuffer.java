@@ -0,0 +1,219 @@
+package bt.game.core.container;
+
+import bt.game.core.container.abstr.GameContainer;
+
+import java.awt.*;
+import java.awt.image.VolatileImage;
+
+/**
+ * An offscreen image with a fixed size that a {@link GameContainer} renders into before the result is scaled onto the
+ * canvas.
+ *
+ * <p>
+ * The image is kept in video memory. It is validated whenever new graphics are requested and recreated if it became
+ * incompatible with the screen. Callers render again while {@link #contentsLost()} reports that the content was lost. The image is scaled with bilinear interpolation and centered on the target so that
+ * its aspect ratio is kept. The remaining area is filled black.
+ * </p>
+ *
+ * <p>
+ * A {@link #setScale(double) scale} below 1 renders only into a proportionally smaller area of the image. The returned
+ * graphics are scaled accordingly, so callers still draw in the full resolution of the buffer.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class FrameBuffer
+{
+    private int width;
+    private int height;
+    private VolatileImage image;
+    private Rectangle destination;
+    private double scale = 1;
+
+    /**
+     * Creates a new buffer. The image is created on the first call to {@link #createGraphics(GraphicsConfiguration)}.
+     *
+     * @param width  The width in pixels.
+     * @param height The height in pixels.
+     */
+    public FrameBuffer(int width, int height)
+    {
+        this.width = Math.max(width, 1);
+        this.height = Math.max(height, 1);
+        this.destination = new Rectangle(0, 0, this.width, this.height);
+    }
+
+    /**
+     * Creates graphics that draw on this buffer. The buffer is cleared to black.
+     *
+     * <p>
+     * The caller has to dispose the returned graphics.
+     * </p>
+     *
+     * @param config The configuration of the canvas that the buffer will be shown on.
+     * @return The graphics.
+     */
+    public Graphics2D createGraphics(GraphicsConfiguration config)
+    {
+        if (this.image == null || this.image.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE)
+        {
+            if (this.image != null)
+            {
+                this.image.flush();
+            }
+
+            this.image = config.createCompatibleVolatileImage(this.width, this.height);
+        }
+
+        Graphics2D g = this.image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, getScaledWidth(), getScaledHeight());
+
+        if (this.scale != 1)
+        {
+            g.scale(this.scale, this.scale);
+        }
+
+        return g;
+    }
+
+    /**
+     * Draws the content of this buffer onto the given graphics, scaled to fit into an area of the given size.
+     *
+     * @param g            The graphics of the canvas.
+     * @param targetWidth  The width of the canvas in pixels.
+     * @param targetHeight The height of the canvas in pixels.
+     */
+    public void show(Graphics2D g, int targetWidth, int targetHeight)
+    {
+        if (this.image == null)
+        {
+            return;
+        }
+
+        updateDestination(targetWidth, targetHeight);
+
+        Rectangle dest = this.destination;
+
+        g.setColor(Color.BLACK);
+
+        if (dest.x > 0)
+        {
+            g.fillRect(0, 0, dest.x, targetHeight);
+            g.fillRect(dest.x + dest.width, 0, targetWidth - dest.x - dest.width, targetHeight);
+        }
+
+        if (dest.y > 0)
+        {
+            g.fillRect(0, 0, targetWidth, dest.y);
+            g.fillRect(0, dest.y + dest.height, targetWidth, targetHeight - dest.y - dest.height);
+        }
+
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                           RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(this.image,
+                    dest.x,
+                    dest.y,
+                    dest.x + dest.width,
+                    dest.y + dest.height,
+                    0,
+                    0,
+                    getScaledWidth(),
+                    getScaledHeight(),
+                    null);
+    }
+
+    /**
+     * Converts an x position on the canvas into the matching x position on this buffer, based on the area that the
+     * buffer was last shown in.
+     *
+     * @param x The x position on the canvas in pixels.
+     * @return The x position on this buffer in pixels.
+     */
+    public double toBufferX(double x)
+    {
+        return (x - this.destination.x) * this.width / this.destination.width;
+    }
+
+    /**
+     * Converts a y position on the canvas into the matching y position on this buffer, based on the area that the
+     * buffer was last shown in.
+     *
+     * @param y The y position on the canvas in pixels.
+     * @return The y position on this buffer in pixels.
+     */
+    public double toBufferY(double y)
+    {
+        return (y - this.destination.y) * this.height / this.destination.height;
+    }
+
+    /**
+     * Sets the scale of the area that is rendered into. Lower values render fewer pixels which are then stretched when
+     * the buffer is shown.
+     *
+     * @param scale The scale between 0 (exclusive) and 1.
+     */
+    public void setScale(double scale)
+    {
+        this.scale = Math.min(Math.max(scale, 0.01), 1);
+    }
+
+    public double getScale()
+    {
+        return this.scale;
+    }
+
+    /**
+     * Indicates whether the content of the buffer was lost since the last call to
+     * {@link #createGraphics(GraphicsConfiguration)}, i.e. because the display mode changed. The frame has to be
+     * rendered again in that case.
+     *
+     * @return true if the content was lost.
+     */
+    public boolean contentsLost()
+    {
+        return this.image == null || this.image.contentsLost();
+    }
+
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * Releases the video memory of this buffer. It is recreated on the next call to
+     * {@link #createGraphics(GraphicsConfiguration)}.
+     */
+    public void flush()
+    {
+        if (this.image != null)
+        {
+            this.image.flush();
+            this.image = null;
+        }
+    }
+
+    private int getScaledWidth()
+    {
+        return Math.max((int)Math.round(this.width * this.scale), 1);
+    }
+
+    private int getScaledHeight()
+    {
+        return Math.max((int)Math.round(this.height * this.scale), 1);
+    }
+
+    private void updateDestination(int targetWidth, int targetHeight)
+    {
+        double scale = Math.min(targetWidth / (double)this.width, targetHeight / (double)this.height);
+        int w = Math.max((int)Math.round(this.width * scale), 1);
+        int h = Math.max((int)Math.round(this.height * scale), 1);
+
+        this.destination.setBounds((targetWidth - w) / 2, (targetHeight - h) / 2, w, h);
+    }
+}
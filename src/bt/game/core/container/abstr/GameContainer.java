@@ -1,23 +1,33 @@
 package bt.game.core.container.abstr;
 
 import bt.game.core.container.ContainerSettings;
+import bt.game.core.container.DynamicResolution;
+import bt.game.core.container.FrameBuffer;
 import bt.game.core.ctrl.spec.key.KeyController;
 import bt.game.core.ctrl.spec.mouse.MouseController;
 import bt.game.core.ctrl.spec.mouse.obj.Cursor;
 import bt.game.core.scene.intf.Scene;
+import bt.game.resource.render.batch.RenderBackend;
+import bt.game.resource.render.batch.TiledRenderBackend;
+import bt.game.resource.render.damage.DamageTracker;
 import bt.game.util.unit.Unit;
 import bt.io.sound.Sound;
 import bt.log.Log;
 import bt.scheduler.Threads;
+import bt.types.Killable;
 import bt.utils.Exceptions;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A frame including a canvas to display a game. This class handles the starting and ending of {@link Scene scenes}.
@@ -52,6 +62,11 @@ public abstract class GameContainer extends Canvas
      */
     private Map<String, Entry<Scene, Scene>> scenes;
 
+    /**
+     * The scenes that are being or have been loaded in the background, mapped by their names.
+     */
+    private Map<String, Preload> preloads;
+
     /**
      * The pixel to {@link Unit} ratio that is calcualted when the frame is set up.
      */
@@ -87,6 +102,35 @@ public abstract class GameContainer extends Canvas
      */
     protected volatile boolean isPaused;
 
+    /**
+     * The offscreen buffer that the game is rendered into if a fixed render resolution or a dynamic resolution is set.
+     * Null otherwise.
+     */
+    protected FrameBuffer frameBuffer;
+
+    /**
+     * The controller that adjusts the render scale to the render time. Null if the scale is fixed.
+     */
+    protected DynamicResolution dynamicResolution;
+
+    /**
+     * Collects the areas that changed since the last frame. Null if every frame is rendered completely.
+     */
+    protected DamageTracker damageTracker;
+
+    /**
+     * Keeps the last rendered frame if {@link #setDirtyRendering(boolean) dirty rendering} is used, so that only
+     * damaged areas have to be rendered again.
+     */
+    protected BufferedImage persistentBuffer;
+
+    private Rectangle damagedArea = new Rectangle();
+
+    /**
+     * The backend that scenes use to draw their images. Null if images are drawn directly.
+     */
+    protected RenderBackend renderBackend;
+
     /**
      * The width in units.
      */
@@ -129,6 +173,12 @@ public abstract class GameContainer extends Canvas
         this.unitWidth = settings.getUnitWidth();
         this.unitHeight = settings.getUnitHeight();
         this.scenes = new HashMap<>();
+        this.preloads = new ConcurrentHashMap<>();
+
+        if (settings.getRenderThreads() > 1)
+        {
+            this.renderBackend = new TiledRenderBackend(settings.getRenderThreads());
+        }
 
         setIgnoreRepaint(true);
 
@@ -144,26 +194,51 @@ public abstract class GameContainer extends Canvas
      * {@link ContainerSettings settings} given to the constructor. This method will call {@link Unit#setRatio(float)}
      * with the result.
      *
+     * <p>
+     * If a {@link ContainerSettings#renderResolution(int, int) render resolution} is set, that resolution is used
+     * instead of the size of the component.
+     * </p>
+     *
      * @param comp The component whichs width and height are used to calculate the ration.
      */
     protected void calculateRatio(Component comp)
     {
         Log.entry(comp);
 
-        if ((comp.getWidth() / comp.getHeight()) / (this.settings.getUnitWidth() / this.settings.getUnitHeight()) == 1f)
+        if (this.settings.hasRenderResolution())
+        {
+            calculateRatio(this.settings.getRenderWidth(), this.settings.getRenderHeight());
+        }
+        else
+        {
+            calculateRatio(comp.getWidth(), comp.getHeight());
+        }
+
+        Log.exit();
+    }
+
+    /**
+     * Calculates the pixel per unit ratio for an area of the given size and the units set in the
+     * {@link ContainerSettings settings} given to the constructor. This method will call {@link Unit#setRatio(float)}
+     * with the result.
+     *
+     * @param width  The width of the area in pixels.
+     * @param height The height of the area in pixels.
+     */
+    protected void calculateRatio(int width, int height)
+    {
+        if ((width / height) / (this.settings.getUnitWidth() / this.settings.getUnitHeight()) == 1f)
         {
-            this.ratio = comp.getWidth() / this.settings.getUnitWidth();
+            this.ratio = width / this.settings.getUnitWidth();
         }
         else
         {
-            double difX = comp.getWidth() / this.settings.getUnitWidth();
-            double difY = comp.getHeight() / this.settings.getUnitHeight();
+            double difX = width / this.settings.getUnitWidth();
+            double difY = height / this.settings.getUnitHeight();
             this.ratio = difX < difY ? difX : difY;
         }
 
         Unit.setRatio(this.ratio);
-
-        Log.exit();
     }
 
     /**
@@ -212,6 +287,20 @@ public abstract class GameContainer extends Canvas
 
         this.frame.setVisible(true);
 
+        if (this.settings.hasRenderResolution())
+        {
+            if (this.frameBuffer == null)
+            {
+                this.frameBuffer = new FrameBuffer(this.settings.getRenderWidth(), this.settings.getRenderHeight());
+            }
+        }
+        else if (this.frameBuffer != null)
+        {
+            // the buffer has the size of the canvas, it is recreated on the next render call
+            this.frameBuffer.flush();
+            this.frameBuffer = null;
+        }
+
         calculateRatio(this.frame.getContentPane());
 
         Log.exit();
@@ -227,6 +316,132 @@ public abstract class GameContainer extends Canvas
         return this.frame;
     }
 
+    /**
+     * Gets the offscreen buffer that the game is rendered into.
+     *
+     * @return The buffer or null if no fixed {@link ContainerSettings#renderResolution(int, int) render resolution} is
+     *         set.
+     */
+    public FrameBuffer getFrameBuffer()
+    {
+        return this.frameBuffer;
+    }
+
+    /**
+     * Sets the controller that adjusts the resolution that the game is rendered in to the time that rendering takes.
+     *
+     * <p>
+     * The game is rendered into an offscreen buffer which is scaled onto the canvas. If no fixed
+     * {@link ContainerSettings#renderResolution(int, int) render resolution} is set, the buffer has the size of the
+     * canvas. The unit ratio is not affected, so images and texts are not rescaled when the render scale changes.
+     * </p>
+     *
+     * <p>
+     * The time that drawing the scene into the buffer takes is reported to the controller after every frame.
+     * </p>
+     *
+     * @param dynamicResolution The controller or null to always render at full scale.
+     */
+    public void setDynamicResolution(DynamicResolution dynamicResolution)
+    {
+        this.dynamicResolution = dynamicResolution;
+
+        if (this.frameBuffer != null)
+        {
+            this.frameBuffer.setScale(1);
+        }
+    }
+
+    public DynamicResolution getDynamicResolution()
+    {
+        return this.dynamicResolution;
+    }
+
+    /**
+     * Gets the backend that scenes should use to draw their images.
+     *
+     * @return The backend or null if no {@link ContainerSettings#renderThreads(int) render threads} were configured.
+     */
+    public RenderBackend getRenderBackend()
+    {
+        return this.renderBackend;
+    }
+
+    /**
+     * Sets whether only the areas of the screen that changed since the last frame are rendered.
+     *
+     * <p>
+     * The game is rendered into a persistent buffer that keeps its content between frames. Each frame only the union
+     * of the areas reported to the {@link DamageTracker} is cleared and rendered again, all drawing outside of it is
+     * clipped. Frames without any damage are skipped entirely. This is meant for mostly static scenes like menus, where
+     * renderables report their own changes. Content that changes without being reported (i.e. custom drawing in
+     * {@link Scene#render(Graphics2D, boolean) render}) needs to call {@link DamageTracker#reportAll()} or it will not
+     * be updated on the screen.
+     * </p>
+     *
+     * @param dirtyRendering true to only render damaged areas, false to render every frame completely.
+     */
+    public synchronized void setDirtyRendering(boolean dirtyRendering)
+    {
+        if (dirtyRendering)
+        {
+            if (this.damageTracker == null)
+            {
+                this.damageTracker = new DamageTracker();
+            }
+        }
+        else
+        {
+            this.damageTracker = null;
+
+            if (this.persistentBuffer != null)
+            {
+                this.persistentBuffer.flush();
+                this.persistentBuffer = null;
+            }
+        }
+
+        DamageTracker.setActive(this.damageTracker);
+    }
+
+    public boolean isDirtyRendering()
+    {
+        return this.damageTracker != null;
+    }
+
+    /**
+     * Gets the scale that the game is currently rendered at.
+     *
+     * @return The scale of the render resolution, 1 if no {@link #setDynamicResolution(DynamicResolution) dynamic
+     *         resolution} is used.
+     */
+    public double getRenderScale()
+    {
+        return this.frameBuffer == null ? 1 : this.frameBuffer.getScale();
+    }
+
+    /**
+     * Converts an x position on the canvas (i.e. of a mouse event) into the pixel space that the game is rendered in.
+     *
+     * @param x The x position on the canvas in pixels.
+     * @return The x position in rendered pixels. This is the given value unless a fixed render resolution is set.
+     */
+    public double toRenderX(double x)
+    {
+        return this.frameBuffer == null ? x : this.frameBuffer.toBufferX(x);
+    }
+
+    /**
+     * Converts a y position on the canvas (i.e. of a mouse event) into the pixel space that the game is rendered in.
+     *
+     * @param y The y position on the canvas in pixels.
+     * @return The y position in rendered pixels. This is the given value unless a fixed render resolution is set.
+     */
+    public double toRenderY(double y)
+    {
+        return this.frameBuffer == null ? y : this.frameBuffer.toBufferY(y);
+    }
+
     /**
      * Gets whether this container is currently in full screen mode.
      *
@@ -243,6 +458,8 @@ public abstract class GameContainer extends Canvas
     protected synchronized void createFrame()
     {
         Log.entry();
+        DamageTracker.reportAll();
+
         if (this.frame != null)
         {
             this.frame.dispose();
@@ -366,6 +583,11 @@ public abstract class GameContainer extends Canvas
      * exists).
      * </p>
      *
+     * <p>
+     * If the scene was {@link #preloadScene(String) preloaded} successfully, it is started right away without showing
+     * the loading scene.
+     * </p>
+     *
      * @param name
      */
     public void requestScene(String name)
@@ -388,14 +610,41 @@ public abstract class GameContainer extends Canvas
     protected void setScene(String name)
     {
         Log.entry(name);
-        if (this.currentScene != null)
-        {
-            this.currentScene.kill();
-        }
 
         Entry<Scene, Scene> entry = this.scenes.get(name);
         Scene mainScene = entry.getKey();
         Scene loadingScene = entry.getValue();
+        Preload preload = this.preloads.remove(name);
+
+        if (preload != null)
+        {
+            // a cancelled preload that is still running is used after all
+            preload.resume();
+        }
+
+        if (preload != null && preload.isLoaded())
+        {
+            // the resources were loaded in the background, only the setup of the scene is left
+            try
+            {
+                mainScene.load(name);
+            }
+            catch (Exception e)
+            {
+                Log.error("Error", e);
+                exit();
+            }
+
+            setScene(mainScene);
+            mainScene.start();
+            Log.exit();
+            return;
+        }
+
+        if (this.currentScene != null)
+        {
+            this.currentScene.kill();
+        }
 
         if (loadingScene != null)
         {
@@ -410,6 +659,7 @@ public abstract class GameContainer extends Canvas
             }
 
             this.currentScene = loadingScene;
+            DamageTracker.reportAll();
             loadingScene.start();
         }
 
@@ -417,6 +667,13 @@ public abstract class GameContainer extends Canvas
                                     {
                                         try
                                         {
+                                            // a preload that is still running is awaited. a failed one was killed
+                                            // and is repeated entirely by the load
+                                            if (preload != null)
+                                            {
+                                                preload.await();
+                                            }
+
                                             mainScene.load(name);
                                         }
                                         catch (Exception e)
@@ -432,6 +689,147 @@ public abstract class GameContainer extends Canvas
         Log.exit();
     }
 
+    /**
+     * {@link Scene#preload(String) Preloads} the main scene with the given name in the background while the current
+     * scene keeps running. A later {@link #requestScene(String) request} of that scene then starts it without showing
+     * its loading scene. The setup of the scene, which may register objects and mouse targets, is still done at the
+     * switch.
+     *
+     * <p>
+     * The scene is loaded on a thread with the lowest priority. Since the resources of both scenes are kept in memory
+     * until the switch, the preload is only started if at least the
+     * {@link ContainerSettings#preloadMemoryReserve(long) preload memory reserve} is available. A preload that is not
+     * wanted anymore should be {@link #cancelPreload(String) cancelled} to free its resources.
+     * </p>
+     *
+     * @param name The name of the scene.
+     * @return true if the preload was started or a cancelled one that is still running was resumed, false if the scene
+     *         does not exist, is the current scene, is already being preloaded or there is not enough memory.
+     */
+    public boolean preloadScene(String name)
+    {
+        Log.entry(name);
+
+        Entry<Scene, Scene> entry = this.scenes.get(name);
+
+        if (entry == null || entry.getKey().equals(this.currentScene) || name.equals(this.currentSceneName))
+        {
+            Log.exit();
+            return false;
+        }
+
+        Preload existing = this.preloads.get(name);
+
+        if (existing != null)
+        {
+            boolean resumed = existing.resume();
+            Log.exit();
+            return resumed;
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+
+        if (available < this.settings.getPreloadMemoryReserve())
+        {
+            Log.info(String.format("Not preloading scene '%s', only %d MB of memory are available.",
+                                   name,
+                                   available / (1024 * 1024)));
+            Log.exit();
+            return false;
+        }
+
+        Scene mainScene = entry.getKey();
+        Preload preload = new Preload(mainScene);
+        Preload running = this.preloads.putIfAbsent(name, preload);
+
+        if (running != null)
+        {
+            // another thread started a preload of the same scene meanwhile
+            boolean resumed = running.resume();
+            Log.exit();
+            return resumed;
+        }
+
+        Threads.get().executeCached(() ->
+                                    {
+                                        Thread thread = Thread.currentThread();
+                                        int priority = thread.getPriority();
+                                        thread.setPriority(Thread.MIN_PRIORITY);
+                                        boolean loaded = false;
+
+                                        try
+                                        {
+                                            mainScene.preload(name);
+                                            loaded = true;
+                                        }
+                                        catch (Exception e)
+                                        {
+                                            Log.error("Failed to preload scene " + name, e);
+                                        }
+                                        finally
+                                        {
+                                            // the thread is pooled
+                                            thread.setPriority(priority);
+
+                                            if (preload.finish(loaded))
+                                            {
+                                                this.preloads.remove(name, preload);
+                                            }
+                                        }
+                                    }, "Preload-" + name);
+
+        Log.exit();
+        return true;
+    }
+
+    /**
+     * Cancels the preload of the scene with the given name. If the scene has already been loaded, it is
+     * {@link Scene#kill() killed} to free its resources, otherwise it is killed as soon as its loading finishes.
+     *
+     * @param name The name of the scene.
+     * @return true if a preload was cancelled.
+     */
+    public boolean cancelPreload(String name)
+    {
+        Log.entry(name);
+
+        AtomicReference<Preload> cancelled = new AtomicReference<>();
+
+        // the preload is cancelled while it is mapped, so that setScene either takes it before or not at all afterwards.
+        // a running preload stays mapped until it is done, so that the scene is not loaded twice at the same time
+        this.preloads.computeIfPresent(name, (key, preload) ->
+                                       {
+                                           cancelled.set(preload);
+                                           preload.cancel();
+                                           return preload.isDone() ? null : preload;
+                                       });
+
+        Preload preload = cancelled.get();
+
+        if (preload != null)
+        {
+            // killing can take a while and is therefore done outside of the map
+            preload.killIfCancelled();
+        }
+
+        Log.exit();
+        return preload != null;
+    }
+
+    /**
+     * Indicates whether the scene with the given name has been preloaded successfully and can be started without
+     * loading.
+     *
+     * @param name The name of the scene.
+     * @return true if the scene is preloaded.
+     */
+    public boolean isPreloaded(String name)
+    {
+        Preload preload = this.preloads.get(name);
+        return preload != null && preload.isLoaded();
+    }
+
     /**
      * Sets the given scene. This kills the current scene if it does not equal the given one.
      *
@@ -447,6 +845,7 @@ public abstract class GameContainer extends Canvas
         }
 
         this.currentScene = scene;
+        DamageTracker.reportAll();
 
         Log.exit();
     }
@@ -544,22 +943,70 @@ public abstract class GameContainer extends Canvas
                 return;
             }
 
-            Graphics2D g = (Graphics2D)bs.getDrawGraphics();
+            if (this.damageTracker != null && !this.damageTracker.hasDamage())
+            {
+                // nothing changed, the last shown frame is still valid
+                switchScene();
+                return;
+            }
 
-            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
-                               RenderingHints.VALUE_STROKE_PURE);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                               RenderingHints.VALUE_ANTIALIAS_ON);
+            Graphics2D canvasGraphics = (Graphics2D)bs.getDrawGraphics();
+            Graphics2D g = canvasGraphics;
 
-            if (this.currentScene != null && this.currentScene.isLoaded())
+            if (this.dynamicResolution != null
+                    && !this.settings.hasRenderResolution()
+                    && (this.frameBuffer == null
+                    || this.frameBuffer.getWidth() != getWidth()
+                    || this.frameBuffer.getHeight() != getHeight()))
             {
-                this.currentScene.render(g, this.settings.isDebugRendering());
+                // without a fixed render resolution the buffer follows the size of the canvas
+                if (this.frameBuffer != null)
+                {
+                    this.frameBuffer.flush();
+                }
+
+                this.frameBuffer = new FrameBuffer(getWidth(), getHeight());
             }
 
-            render(g, this.settings.isDebugRendering());
+            if (this.frameBuffer != null)
+            {
+                if (this.dynamicResolution != null)
+                {
+                    this.frameBuffer.setScale(this.dynamicResolution.getScale());
+                }
+
+                long start = System.nanoTime();
+
+                // the buffer lives in video memory and can lose its content while it is rendered into
+                do
+                {
+                    g = this.frameBuffer.createGraphics(getGraphicsConfiguration());
+                    renderFrame(g);
+                    g.dispose();
+                }
+                while (this.frameBuffer.contentsLost());
+
+                if (this.dynamicResolution != null)
+                {
+                    // only drawing is measured, since showing the frame can wait for vsync and switching scenes can
+                    // load them, which does not depend on the scale
+                    this.dynamicResolution.update(System.nanoTime() - start);
+                }
+
+                this.frameBuffer.show(canvasGraphics, getWidth(), getHeight());
+            }
+            else
+            {
+                renderFrame(g);
+            }
 
-            g.dispose();
+            canvasGraphics.dispose();
             bs.show();
+
+            if (this.damageTracker != null && bs.contentsLost())
+            {
+                this.damageTracker.damageAll();
+            }
         }
         else
         {
@@ -570,6 +1017,92 @@ public abstract class GameContainer extends Canvas
             }
         }
 
+        switchScene();
+    }
+
+    /**
+     * Renders the damaged area if dirty rendering is used and the whole scene otherwise.
+     *
+     * @param g
+     */
+    private void renderFrame(Graphics2D g)
+    {
+        if (this.damageTracker != null)
+        {
+            renderDamage(g);
+        }
+        else
+        {
+            renderScene(g);
+        }
+    }
+
+    /**
+     * Renders the current scene and the global {@link #render(Graphics2D, boolean) overlay} onto the given graphics.
+     *
+     * @param g
+     */
+    private void renderScene(Graphics2D g)
+    {
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
+                           RenderingHints.VALUE_STROKE_PURE);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                           RenderingHints.VALUE_ANTIALIAS_ON);
+
+        if (this.currentScene != null && this.currentScene.isLoaded())
+        {
+            this.currentScene.render(g, this.settings.isDebugRendering());
+        }
+
+        render(g, this.settings.isDebugRendering());
+    }
+
+    /**
+     * Renders the damaged area into the {@link #persistentBuffer} and draws the buffer onto the given graphics.
+     *
+     * @param g
+     */
+    private void renderDamage(Graphics2D g)
+    {
+        int width = this.frameBuffer == null ? getWidth() : this.frameBuffer.getWidth();
+        int height = this.frameBuffer == null ? getHeight() : this.frameBuffer.getHeight();
+
+        if (this.persistentBuffer == null
+                || this.persistentBuffer.getWidth() != width
+                || this.persistentBuffer.getHeight() != height)
+        {
+            if (this.persistentBuffer != null)
+            {
+                this.persistentBuffer.flush();
+            }
+
+            this.persistentBuffer = getGraphicsConfiguration().createCompatibleImage(Math.max(width, 1),
+                                                                                    Math.max(height, 1),
+                                                                                    Transparency.OPAQUE);
+            this.damageTracker.damageAll();
+        }
+
+        this.damagedArea.setBounds(0, 0, width, height);
+        Rectangle area = this.damageTracker.takeDamage(this.damagedArea);
+
+        if (!area.isEmpty())
+        {
+            Graphics2D pg = this.persistentBuffer.createGraphics();
+            pg.clip(area);
+            pg.setColor(Color.BLACK);
+            pg.fill(area);
+            renderScene(pg);
+            pg.dispose();
+        }
+
+        g.drawImage(this.persistentBuffer, 0, 0, null);
+    }
+
+    /**
+     * Switches to the requested scene if {@link #requestScene(String)} was called.
+     */
+    private void switchScene()
+    {
         // if a new scene was requested switch now
         // to avoid complications during the current render process and the killing of the old scene at the same time
         if (this.sceneRequested)
@@ -629,6 +1162,11 @@ public abstract class GameContainer extends Canvas
             Exceptions.ignoreThrow(this::wait, 500);
         }
 
+        if (this.renderBackend instanceof Killable)
+        {
+            ((Killable)this.renderBackend).kill();
+        }
+
         Log.exit();
 
         System.exit(0);
@@ -690,4 +1228,95 @@ public abstract class GameContainer extends Canvas
      * Defines the scenes that are used within this game.
      */
     protected abstract void createScenes();
-}
\ No newline at end of file
+
+    /**
+     * The state of a scene that is loaded in the background.
+     */
+    private static class Preload
+    {
+        private Scene scene;
+        private CountDownLatch finished;
+        private boolean loaded;
+        private boolean cancelled;
+
+        private Preload(Scene scene)
+        {
+            this.scene = scene;
+            this.finished = new CountDownLatch(1);
+        }
+
+        /**
+         * Called by the loading thread. Scenes that failed to load or whose preload was cancelled meanwhile are killed.
+         *
+         * @return true if the preload is of no further use.
+         */
+        private synchronized boolean finish(boolean loaded)
+        {
+            this.finished.countDown();
+
+            if (this.cancelled || !loaded)
+            {
+                this.scene.kill();
+                return true;
+            }
+
+            this.loaded = true;
+            return false;
+        }
+
+        private synchronized void cancel()
+        {
+            this.cancelled = true;
+        }
+
+        /**
+         * Kills the scene if the preload was cancelled after the scene finished loading. Scenes that are still loading
+         * are killed by {@link #finish(boolean)} instead.
+         */
+        private synchronized void killIfCancelled()
+        {
+            if (this.cancelled && this.loaded)
+            {
+                this.scene.kill();
+                this.loaded = false;
+            }
+        }
+
+        /**
+         * Reverts a cancellation if the scene is still loading.
+         *
+         * @return true if the preload was cancelled and is running again.
+         */
+        private synchronized boolean resume()
+        {
+            if (!this.cancelled || isDone())
+            {
+                return false;
+            }
+
+            this.cancelled = false;
+            return true;
+        }
+
+        private boolean isDone()
+        {
+            return this.finished.getCount() == 0;
+        }
+
+        private synchronized boolean isLoaded()
+        {
+            return this.loaded && !this.cancelled;
+        }
+
+        /**
+         * Waits until the loading thread is done.
+         *
+         * @return true if the scene was loaded successfully.
+         */
+        private boolean await() throws InterruptedException
+        {
+            this.finished.await();
+            return isLoaded();
+        }
+    }
+}
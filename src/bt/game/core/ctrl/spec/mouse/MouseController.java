@@ -5,9 +5,11 @@ import bt.game.core.ctrl.spec.mouse.intf.MouseListener;
 import bt.game.core.ctrl.spec.mouse.intf.MouseTarget;
 import bt.game.core.scene.cam.Camera;
 import bt.game.core.scene.intf.Scene;
+import bt.game.resource.render.damage.DamageTracker;
 import bt.game.util.unit.Unit;
 import bt.log.Log;
 import bt.scheduler.Threads;
+import org.dyn4j.geometry.AABB;
 import org.dyn4j.geometry.Vector2;
 
 import java.awt.*;
@@ -164,8 +166,8 @@ public class MouseController extends MouseAdapter
             Point p = this.component.getMousePosition();
             if (p != null)
             {
-                double mx = p.getX();
-                double my = p.getY();
+                double mx = this.component.toRenderX(p.getX());
+                double my = this.component.toRenderY(p.getY());
 
                 double camX = 0;
                 double camY = 0;
@@ -175,8 +177,8 @@ public class MouseController extends MouseAdapter
 
                 if (Camera.currentCamera != null)
                 {
-                    camX = Camera.currentCamera.getX().pixels();
-                    camY = Camera.currentCamera.getY().pixels();
+                    camX = Unit.toPixels(Camera.currentCamera.getXUnits());
+                    camY = Unit.toPixels(Camera.currentCamera.getYUnits());
                 }
 
                 this.mouseX = mx + camX;
@@ -214,10 +216,12 @@ public class MouseController extends MouseAdapter
                             if (this.lastHoveredTarget != null)
                             {
                                 this.lastHoveredTarget.afterHover();
+                                reportDamage(this.lastHoveredTarget);
                             }
 
                             this.lastHoveredTarget = target;
                             target.onHover();
+                            reportDamage(target);
                         }
                         foundOne = true;
                         break;
@@ -227,6 +231,7 @@ public class MouseController extends MouseAdapter
                 if (!foundOne && this.lastHoveredTarget != null)
                 {
                     this.lastHoveredTarget.afterHover();
+                    reportDamage(this.lastHoveredTarget);
                     this.lastHoveredTarget = null;
                 }
             }
@@ -243,8 +248,8 @@ public class MouseController extends MouseAdapter
     @Override
     public void mousePressed(MouseEvent e)
     {
-        this.lastClickMouseX = e.getX();
-        this.lastClickMouseY = e.getY();
+        this.lastClickMouseX = renderX(e);
+        this.lastClickMouseY = renderY(e);
 
         Point pBase = new Point(this.lastClickMouseX,
                                 this.lastClickMouseY);
@@ -253,8 +258,8 @@ public class MouseController extends MouseAdapter
 
         if (Camera.currentCamera != null)
         {
-            pCam = new Point((int)(this.lastClickMouseX + Camera.currentCamera.getX().pixels()),
-                             (int)(this.lastClickMouseY + Camera.currentCamera.getY().pixels()));
+            pCam = new Point((int)(this.lastClickMouseX + Unit.toPixels(Camera.currentCamera.getXUnits())),
+                             (int)(this.lastClickMouseY + Unit.toPixels(Camera.currentCamera.getYUnits())));
         }
         else
         {
@@ -266,8 +271,8 @@ public class MouseController extends MouseAdapter
 
         if (Camera.currentCamera != null)
         {
-            camX = Camera.currentCamera.getX().pixels();
-            camY = Camera.currentCamera.getY().pixels();
+            camX = Unit.toPixels(Camera.currentCamera.getXUnits());
+            camY = Unit.toPixels(Camera.currentCamera.getYUnits());
         }
 
         if (e.getButton() == MouseEvent.BUTTON1)
@@ -363,16 +368,16 @@ public class MouseController extends MouseAdapter
         }
         else
         {
-            this.lastClickMouseX = e.getX();
-            this.lastClickMouseY = e.getY();
+            this.lastClickMouseX = renderX(e);
+            this.lastClickMouseY = renderY(e);
 
             Point p = new Point(this.lastClickMouseX,
                                 this.lastClickMouseY);
 
             if (Camera.currentCamera != null)
             {
-                p = new Point((int)(this.lastClickMouseX + Camera.currentCamera.getX().pixels()),
-                              (int)(this.lastClickMouseY + Camera.currentCamera.getY().pixels()));
+                p = new Point((int)(this.lastClickMouseX + Unit.toPixels(Camera.currentCamera.getXUnits())),
+                              (int)(this.lastClickMouseY + Unit.toPixels(Camera.currentCamera.getYUnits())));
             }
 
             sortTargets();
@@ -403,8 +408,8 @@ public class MouseController extends MouseAdapter
         for (MouseListener listener : this.mouseListeners)
         {
             listener.onDrag(e,
-                            Unit.forPixels(e.getX() - this.lastClickMouseX),
-                            Unit.forPixels(e.getY() - this.lastClickMouseY));
+                            Unit.forPixels(renderX(e) - this.lastClickMouseX),
+                            Unit.forPixels(renderY(e) - this.lastClickMouseY));
         }
 
         if (this.lastClickedTarget != null)
@@ -412,15 +417,59 @@ public class MouseController extends MouseAdapter
             if (!this.component.isPaused() || this.lastClickedTarget.enabledDuringPause())
             {
                 this.lastClickedTarget.onDrag(e,
-                                              Unit.forPixels(e.getX() - this.lastClickMouseX),
-                                              Unit.forPixels(e.getY() - this.lastClickMouseY));
+                                              Unit.forPixels(renderX(e) - this.lastClickMouseX),
+                                              Unit.forPixels(renderY(e) - this.lastClickMouseY));
 
-                this.lastClickMouseX = e.getX();
-                this.lastClickMouseY = e.getY();
+                this.lastClickMouseX = renderX(e);
+                this.lastClickMouseY = renderY(e);
             }
         }
     }
 
+    /**
+     * Gets the x position of the given event in the pixel space that the game is rendered in.
+     *
+     * @see GameContainer#toRenderX(double)
+     */
+    private int renderX(MouseEvent e)
+    {
+        return (int)this.component.toRenderX(e.getX());
+    }
+
+    /**
+     * Gets the y position of the given event in the pixel space that the game is rendered in.
+     *
+     * @see GameContainer#toRenderY(double)
+     */
+    private int renderY(MouseEvent e)
+    {
+        return (int)this.component.toRenderY(e.getY());
+    }
+
+    /**
+     * Reports the area of the given target as damaged, since hover effects usually change its appearance.
+     *
+     * @see DamageTracker
+     */
+    private void reportDamage(MouseTarget target)
+    {
+        if (DamageTracker.getActive() == null || target.getShape() == null)
+        {
+            return;
+        }
+
+        AABB bounds = target.getShape().createAABB();
+
+        if (target.affectedByCamera())
+        {
+            DamageTracker.reportWorldPixels(bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight());
+        }
+        else
+        {
+            DamageTracker.reportScreenPixels(bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight());
+        }
+    }
+
     private synchronized void sortTargets()
     {
         this.mouseTargets.sort(this.zComparator);
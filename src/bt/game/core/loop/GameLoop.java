@@ -8,6 +8,7 @@ import bt.utils.Null;
 import bt.utils.ThrowRunnable;
 
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * A simple game loop that will try to call tick and render methods at set rates.
@@ -106,6 +107,16 @@ public class GameLoop implements Killable, Runnable
      */
     protected Consumer<Integer> onFpsUpdate;
 
+    /**
+     * The set consumer that receives the duration of every render call in nano seconds.
+     */
+    protected LongConsumer onRenderTime;
+
+    /**
+     * The duration of the last render call in nano seconds.
+     */
+    protected volatile long lastRenderTime;
+
     /**
      * Creates a new instance and sets the runnables for tick and render methods.
      *
@@ -241,6 +252,19 @@ public class GameLoop implements Killable, Runnable
         this.onFpsUpdate = onUpdate;
     }
 
+    /**
+     * Defines an action that is executed after every render call.
+     * <p>
+     * The duration includes everything that the render runnable does, i.e. waiting for vsync, so it is not suitable for
+     * a {@link bt.game.core.container.DynamicResolution DynamicResolution}, which measures drawing by itself.
+     *
+     * @param onRenderTime A consumer which will receive the duration of the render call in nano seconds.
+     */
+    public void onRenderTime(LongConsumer onRenderTime)
+    {
+        this.onRenderTime = onRenderTime;
+    }
+
     /**
      * Sets how many times the current frame and tick rate are calculated and the intervals between tick and render calls are adjusted.
      *
@@ -285,6 +309,16 @@ public class GameLoop implements Killable, Runnable
         return this.currentFramesPerSecond;
     }
 
+    /**
+     * Gets the time that the last render call took.
+     *
+     * @return The duration in nano seconds.
+     */
+    public long getLastRenderTime()
+    {
+        return this.lastRenderTime;
+    }
+
     /**
      * Gets the last delta value (in seconds) that was given to the tick call.
      * <p>
@@ -329,14 +363,23 @@ public class GameLoop implements Killable, Runnable
     }
 
     /**
-     * Runs the render runnable if it is not null.
+     * Runs the render runnable if it is not null and measures how long it took.
      *
      * @author Lukas Hartwig
      * @since 28.10.2021
      */
     protected void runRender()
     {
+        long start = System.nanoTime();
+
         Null.checkRun(this.render);
+
+        this.lastRenderTime = System.nanoTime() - start;
+
+        if (this.onRenderTime != null)
+        {
+            this.onRenderTime.accept(this.lastRenderTime);
+        }
     }
 
     /**
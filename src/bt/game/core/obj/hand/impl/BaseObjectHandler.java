@@ -6,7 +6,13 @@ import bt.game.core.obj.gravity.GravityAffected;
 import bt.game.core.obj.hand.intf.ObjectHandler;
 import bt.game.core.obj.intf.Refreshable;
 import bt.game.core.obj.intf.Tickable;
+import bt.game.core.scene.cam.Camera;
 import bt.game.core.scene.intf.Scene;
+import bt.game.resource.render.batch.RenderBackend;
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.resource.render.batch.SequentialRenderBackend;
+import bt.game.resource.render.cache.StaticLayerCache;
+import bt.game.resource.render.impl.anim.Animation;
 import bt.game.resource.render.intf.Renderable;
 import bt.game.resource.render.light.intf.LightSource;
 import bt.game.resource.render.light.mask.LightMask;
@@ -36,6 +42,7 @@ import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -154,6 +161,26 @@ public class BaseObjectHandler implements ObjectHandler, CollisionListener, Cont
      */
     protected Scene scene;
 
+    /**
+     * The buffer that images are submitted to during rendering or null if renderables draw directly.
+     */
+    protected RenderCommandBuffer commandBuffer;
+
+    /**
+     * The layers that cache {@link Renderable#isStatic() static} renderables, mapped to the Z value of their members.
+     */
+    protected Map<Double, StaticLayerCache> staticLayers;
+
+    /**
+     * The number of the current frame, used to draw every static layer only once per frame.
+     */
+    protected long renderFrame;
+
+    /**
+     * The visible area of the world in pixels during the current frame.
+     */
+    protected Rectangle visibleArea;
+
     /**
      * Creates a new instance.
      */
@@ -174,21 +201,23 @@ public class BaseObjectHandler implements ObjectHandler, CollisionListener, Cont
         this.constraintColliders = new Hashtable<>();
         this.contacters = new Hashtable<>();
         this.timeOfImpactColliders = new Hashtable<>();
+        this.staticLayers = new ConcurrentHashMap<>();
+        this.visibleArea = new Rectangle();
 
         this.zComparator = new Comparator<>()
         {
             @Override
             public int compare(Renderable o1, Renderable o2)
             {
-                if (o1.getZ().units() == o2.getZ().units())
+                if (o1.getZUnits() == o2.getZUnits())
                 {
                     return 0;
                 }
-                else if (o1.getZ().units() < o2.getZ().units())
+                else if (o1.getZUnits() < o2.getZUnits())
                 {
                     return -1;
                 }
-                else if (o1.getZ().units() > o2.getZ().units())
+                else if (o1.getZUnits() > o2.getZUnits())
                 {
                     return 1;
                 }
@@ -273,7 +302,14 @@ public class BaseObjectHandler implements ObjectHandler, CollisionListener, Cont
 
             if (object instanceof Renderable)
             {
-                this.renderables.add(Renderable.class.cast(object));
+                Renderable renderable = Renderable.class.cast(object);
+                this.renderables.add(renderable);
+
+                if (renderable.isStatic())
+                {
+                    this.staticLayers.computeIfAbsent(renderable.getZUnits(), z -> new StaticLayerCache())
+                                     .add(renderable);
+                }
             }
 
             if (object instanceof Killable)
@@ -409,6 +445,17 @@ public class BaseObjectHandler implements ObjectHandler, CollisionListener, Cont
             if (object instanceof Renderable)
             {
                 this.renderables.remove(object);
+
+                for (StaticLayerCache layer : this.staticLayers.values())
+                {
+                    layer.remove(Renderable.class.cast(object));
+                }
+            }
+
+            if (object instanceof Animation)
+            {
+                // the animation system of the scene would keep advancing it otherwise
+                Animation.class.cast(object).stop();
             }
 
             if (object instanceof Killable)
@@ -515,9 +562,117 @@ public class BaseObjectHandler implements ObjectHandler, CollisionListener, Cont
     {
         sortObjects();
 
-        this.renderables.stream()
-                        .filter(Renderable::shouldRender)
-                        .forEach(r -> r.render(g, debugRendering));
+        this.renderFrame++;
+        StaticLayerCache.getVisibleArea(Camera.currentCamera, this.visibleArea);
+
+        if (this.commandBuffer == null)
+        {
+            this.renderables.stream()
+                            .filter(Renderable::shouldRender)
+                            .forEach(r -> render(g, r, debugRendering));
+        }
+        else
+        {
+            this.commandBuffer.begin(g);
+
+            try
+            {
+                for (Renderable r : this.renderables)
+                {
+                    if (r.shouldRender())
+                    {
+                        this.commandBuffer.setZ(r.getZUnits());
+                        render(g, r, debugRendering);
+                    }
+                }
+            }
+            finally
+            {
+                this.commandBuffer.end();
+            }
+        }
+    }
+
+    /**
+     * Renders a single renderable. {@link Renderable#isStatic() Static} renderables are not rendered themselves,
+     * instead the cached layer of their Z value is drawn when the first of them is reached.
+     *
+     * @param g              The graphics to draw on.
+     * @param r              The renderable.
+     * @param debugRendering true to render debug information.
+     */
+    protected void render(Graphics2D g, Renderable r, boolean debugRendering)
+    {
+        StaticLayerCache layer = r.isStatic() ? this.staticLayers.get(r.getZUnits()) : null;
+
+        if (layer == null)
+        {
+            r.render(g, debugRendering);
+        }
+        else
+        {
+            layer.renderOnce(g, this.visibleArea, this.renderFrame, debugRendering);
+        }
+    }
+
+    /**
+     * Notifies this handler that a {@link Renderable#isStatic() static} renderable has moved or changed its
+     * appearance. The cached chunks that it overlaps are rebuilt before they are drawn next.
+     *
+     * <p>
+     * If the Z value of the renderable has changed, it is moved to the layer of its new Z value.
+     * </p>
+     *
+     * @param renderable The changed renderable.
+     */
+    public void invalidateStatic(Renderable renderable)
+    {
+        StaticLayerCache target = this.staticLayers.computeIfAbsent(renderable.getZUnits(), z -> new StaticLayerCache());
+
+        for (StaticLayerCache layer : this.staticLayers.values())
+        {
+            if (layer != target)
+            {
+                layer.remove(renderable);
+            }
+        }
+
+        if (target.contains(renderable))
+        {
+            target.invalidate(renderable);
+        }
+        else if (this.renderables.contains(renderable))
+        {
+            target.add(renderable);
+        }
+    }
+
+    /**
+     * Sets the backend that executes the image draw commands of this handlers renderables.
+     *
+     * <p>
+     * If a backend is set, {@link bt.game.resource.render.impl.RenderableImage RenderableImages} no longer draw
+     * directly during {@link #render(Graphics2D, boolean)} but submit commands to a {@link RenderCommandBuffer}. The
+     * backend then draws them in Z order while avoiding redundant changes of the transform and composite of the
+     * graphics. Renderables that draw directly on the graphics need to call {@link RenderCommandBuffer#flushActive()}
+     * before doing so.
+     * </p>
+     *
+     * @param backend The backend, i.e. {@link SequentialRenderBackend}, or null to let renderables draw directly.
+     */
+    public void setRenderBackend(RenderBackend backend)
+    {
+        this.commandBuffer = backend == null ? null : new RenderCommandBuffer(backend);
+    }
+
+    /**
+     * Gets the buffer that images are submitted to during rendering.
+     *
+     * @return The buffer or null if no {@link #setRenderBackend(RenderBackend) backend} is set.
+     */
+    public RenderCommandBuffer getCommandBuffer()
+    {
+        return this.commandBuffer;
     }
 
     @Override
@@ -599,6 +754,13 @@ public class BaseObjectHandler implements ObjectHandler, CollisionListener, Cont
         this.refreshables.clear();
         this.renderables.clear();
         this.killables.clear();
+
+        for (StaticLayerCache layer : this.staticLayers.values())
+        {
+            layer.kill();
+        }
+
+        this.staticLayers.clear();
         this.gravityAffecteds.clear();
         this.broadColliders.clear();
         this.narrowColliders.clear();
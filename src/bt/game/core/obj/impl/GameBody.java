@@ -91,8 +91,7 @@ public class GameBody extends Body implements GameObject
     @Override
     public void setX(Unit x)
     {
-        x = x.subtractUnits(getX());
-        translate(x.units(),
+        translate(x.units() - getXUnits(),
                   0);
     }
 
@@ -102,8 +101,7 @@ public class GameBody extends Body implements GameObject
     @Override
     public void setY(Unit y)
     {
-        y = y.subtractUnits(getY());
-        translate(0, y.units());
+        translate(0, y.units() - getYUnits());
     }
 
     /**
@@ -142,6 +140,60 @@ public class GameBody extends Body implements GameObject
         return Unit.forUnits(this.getWorldCenter().y);
     }
 
+    /**
+     * @see bt.game.core.obj.intf.GameObject#getWUnits()
+     */
+    @Override
+    public double getWUnits()
+    {
+        return this.w.units();
+    }
+
+    /**
+     * @see bt.game.core.obj.intf.GameObject#getHUnits()
+     */
+    @Override
+    public double getHUnits()
+    {
+        return this.h.units();
+    }
+
+    /**
+     * @see bt.game.core.obj.intf.GameObject#getXUnits()
+     */
+    @Override
+    public double getXUnits()
+    {
+        return this.transform.getTranslationX();
+    }
+
+    /**
+     * @see bt.game.core.obj.intf.GameObject#getYUnits()
+     */
+    @Override
+    public double getYUnits()
+    {
+        return this.transform.getTranslationY();
+    }
+
+    /**
+     * @see bt.game.core.obj.intf.GameObject#getCenterXUnits()
+     */
+    @Override
+    public double getCenterXUnits()
+    {
+        return this.transform.getTransformedX(this.getLocalCenter());
+    }
+
+    /**
+     * @see bt.game.core.obj.intf.GameObject#getCenterYUnits()
+     */
+    @Override
+    public double getCenterYUnits()
+    {
+        return this.transform.getTransformedY(this.getLocalCenter());
+    }
+
     /**
      * Returns the x coordinate of the center relative to the body.
      *
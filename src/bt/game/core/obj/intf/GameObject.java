@@ -86,4 +86,64 @@ public interface GameObject
      * @return
      */
     public Unit getCenterY();
+
+    /**
+     * Gets the width of this object in units without creating a {@link Unit} instance.
+     * 
+     * @return
+     */
+    public default double getWUnits()
+    {
+        return getW().units();
+    }
+
+    /**
+     * Gets the height of this object in units without creating a {@link Unit} instance.
+     * 
+     * @return
+     */
+    public default double getHUnits()
+    {
+        return getH().units();
+    }
+
+    /**
+     * Gets the x position of this object in units without creating a {@link Unit} instance.
+     * 
+     * @return
+     */
+    public default double getXUnits()
+    {
+        return getX().units();
+    }
+
+    /**
+     * Gets the y position of this object in units without creating a {@link Unit} instance.
+     * 
+     * @return
+     */
+    public default double getYUnits()
+    {
+        return getY().units();
+    }
+
+    /**
+     * Gets the x position of the center of this object in units without creating a {@link Unit} instance.
+     * 
+     * @return
+     */
+    public default double getCenterXUnits()
+    {
+        return getCenterX().units();
+    }
+
+    /**
+     * Gets the y position of the center of this object in units without creating a {@link Unit} instance.
+     * 
+     * @return
+     */
+    public default double getCenterYUnits()
+    {
+        return getCenterY().units();
+    }
 }
\ No newline at end of file
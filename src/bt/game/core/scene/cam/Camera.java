@@ -3,6 +3,8 @@ package bt.game.core.scene.cam;
 import bt.game.core.container.abstr.GameContainer;
 import bt.game.core.ctrl.spec.mouse.MouseController;
 import bt.game.core.scene.intf.Scene;
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.resource.render.damage.DamageTracker;
 import bt.game.util.unit.Unit;
 
 import java.awt.*;
@@ -20,14 +22,14 @@ public class Camera
     protected Scene scene;
 
     /**
-     * The X position of this instance.
+     * The X position of this instance in units.
      */
-    protected Unit x;
+    protected double x;
 
     /**
-     * The Y position of this instance.
+     * The Y position of this instance in units.
      */
-    protected Unit y;
+    protected double y;
 
     /**
      * Indicates that this camera should never move out of the bounds of the set scene. Indicated by the scenes
@@ -40,6 +42,12 @@ public class Camera
      */
     public static Camera currentCamera;
 
+    /**
+     * Indicates whether graphics are currently translated by this camera, i.e. whether world or screen content is
+     * rendered.
+     */
+    protected boolean translated;
+
     /**
      * Creates a new instance at the position 0|0.
      *
@@ -48,8 +56,6 @@ public class Camera
     public Camera(Scene scene)
     {
         this.scene = scene;
-        this.x = Unit.zero();
-        this.y = Unit.zero();
     }
 
     /**
@@ -76,29 +82,55 @@ public class Camera
      */
     public void moveTo(Unit x, Unit y)
     {
+        moveTo(x.units(),
+               y.units());
+    }
+
+    /**
+     * Moves the camera to the given position in units.
+     *
+     * <p>
+     * If {@link #clipToBorders(boolean) clipToBorders} is set to true this method will correct its position immediately
+     * if needed.
+     * </p>
+     *
+     * @param x
+     * @param y
+     */
+    public void moveTo(double x, double y)
+    {
+        double oldX = this.x;
+        double oldY = this.y;
+
         this.x = x;
         this.y = y;
 
         if (this.clipToBorder)
         {
-            if (this.x.pixels() > this.scene.getWidth().pixels() - GameContainer.width().pixels())
+            if (this.x > this.scene.getWidth().units() - GameContainer.width().units())
             {
-                this.x = Unit.forPixels(this.scene.getWidth().pixels() - GameContainer.width().pixels());
+                this.x = this.scene.getWidth().units() - GameContainer.width().units();
             }
-            else if (this.x.pixels() < 0)
+            else if (this.x < 0)
             {
-                this.x = Unit.zero();
+                this.x = 0;
             }
 
-            if (this.y.pixels() > this.scene.getHeight().pixels() - GameContainer.height().pixels())
+            if (this.y > this.scene.getHeight().units() - GameContainer.height().units())
             {
-                this.y = Unit.forPixels(this.scene.getHeight().pixels() - GameContainer.height().pixels());
+                this.y = this.scene.getHeight().units() - GameContainer.height().units();
             }
-            else if (this.y.pixels() < 0)
+            else if (this.y < 0)
             {
-                this.y = Unit.zero();
+                this.y = 0;
             }
         }
+
+        if (this.x != oldX || this.y != oldY)
+        {
+            // everything on the screen moved
+            DamageTracker.reportAll();
+        }
     }
 
     /**
@@ -108,7 +140,7 @@ public class Camera
      */
     public Unit getX()
     {
-        return this.x;
+        return Unit.forUnits(this.x);
     }
 
     /**
@@ -117,6 +149,26 @@ public class Camera
      * @return
      */
     public Unit getY()
+    {
+        return Unit.forUnits(this.y);
+    }
+
+    /**
+     * Gets the X position of this instance in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public double getXUnits()
+    {
+        return this.x;
+    }
+
+    /**
+     * Gets the Y position of this instance in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public double getYUnits()
     {
         return this.y;
     }
@@ -129,14 +181,29 @@ public class Camera
     public void render(Graphics2D g, boolean debugRendering)
     {
         updatePosition();
-        g.translate((int)-this.x.pixels(),
-                    (int)-this.y.pixels());
+        g.translate((int)-Unit.toPixels(this.x),
+                    (int)-Unit.toPixels(this.y));
+        RenderCommandBuffer.transformChangedActive();
+        this.translated = true;
     }
 
     public void resetTranslation(Graphics2D g)
     {
-        g.translate((int)this.x.pixels(),
-                    (int)this.y.pixels());
+        g.translate((int)Unit.toPixels(this.x),
+                    (int)Unit.toPixels(this.y));
+        RenderCommandBuffer.transformChangedActive();
+        this.translated = false;
+    }
+
+    /**
+     * Indicates whether graphics are currently translated by this camera, meaning that everything that is rendered is
+     * positioned in the world rather than on the screen.
+     *
+     * @return true between {@link #render(Graphics2D, boolean) render} and {@link #resetTranslation(Graphics2D)}.
+     */
+    public boolean isTranslated()
+    {
+        return this.translated;
     }
 
     public void updatePosition()
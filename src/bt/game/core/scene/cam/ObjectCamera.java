@@ -66,18 +66,18 @@ public class ObjectCamera extends Camera
      * Moves the camera to keep the object inside the area defined by the offsets.
      * 
      * <p>
-     * This method calls {@link #moveTo(Unit, Unit) moveTo}, so the {@link #clipToBorders(boolean) clipToBorders}
+     * This method calls {@link #moveTo(double, double) moveTo}, so the {@link #clipToBorders(boolean) clipToBorders}
      * behavior is handled there.
      * </p>
      */
     @Override
     public void updatePosition()
     {
-        double objectX = this.object.getCenterX().units();
-        double objectY = this.object.getCenterY().units();
+        double objectX = this.object.getCenterXUnits();
+        double objectY = this.object.getCenterYUnits();
 
-        double camX = getX().units() + GameContainer.width().units() / 2;
-        double camY = getY().units() + GameContainer.height().units() / 2;
+        double camX = this.x + GameContainer.width().units() / 2;
+        double camY = this.y + GameContainer.height().units() / 2;
 
         double xMove = 0;
         double yMove = 0;
@@ -100,7 +100,7 @@ public class ObjectCamera extends Camera
             yMove = objectY - camY + this.movementOffsetY.units();
         }
 
-        moveTo(getX().addUnits(xMove),
-               getY().addUnits(yMove));
+        moveTo(this.x + xMove,
+               this.y + yMove);
     }
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import bt.game.core.scene.intf.Scene;
 import bt.game.core.scene.map.MapComponentLoader;
 import bt.game.resource.load.impl.BaseResourceLoader;
 import bt.game.resource.load.intf.ResourceLoader;
+import bt.game.resource.render.cache.StaticLayerCache;
+import bt.game.resource.render.impl.anim.AnimationSystem;
 import bt.game.util.unit.Unit;
 import bt.io.text.impl.BaseTextLoader;
 import bt.io.text.intf.TextLoader;
@@ -31,11 +33,15 @@ public abstract class BaseScene implements Scene
     protected GameContainer gameContainer;
     protected boolean isLoaded;
     protected String name;
+    private String preloadedName;
     protected World world;
     protected Camera camera;
     protected Unit width;
     protected Unit height;
     protected boolean sceneLit;
+    protected StaticLayerCache backgroundLayer;
+    protected AnimationSystem animationSystem;
+    protected Rectangle visibleArea = new Rectangle();
 
     public BaseScene(GameContainer gameContainer, ResourceLoader resourceLoader)
     {
@@ -54,6 +60,7 @@ public abstract class BaseScene implements Scene
         }
 
         this.textLoader = new BaseTextLoader();
+        this.animationSystem = new AnimationSystem();
 
         this.world = new World();
         this.world.setGravity(World.ZERO_GRAVITY);
@@ -61,7 +68,14 @@ public abstract class BaseScene implements Scene
         this.world.getSettings().setPositionConstraintSolverIterations(70);
         this.world.getSettings().setMaximumTranslation(Integer.MAX_VALUE);
 
-        this.gameObjectHandler = new BaseObjectHandler(this);
+        BaseObjectHandler handler = new BaseObjectHandler(this);
+
+        if (gameContainer != null && gameContainer.getRenderBackend() != null)
+        {
+            handler.setRenderBackend(gameContainer.getRenderBackend());
+        }
+
+        this.gameObjectHandler = handler;
     }
 
     public BaseScene(GameContainer gameContainer)
@@ -85,6 +99,15 @@ public abstract class BaseScene implements Scene
         return this.gameObjectHandler;
     }
 
+    /**
+     * @see bt.game.core.scene.intf.Scene#getAnimationSystem()
+     */
+    @Override
+    public AnimationSystem getAnimationSystem()
+    {
+        return this.animationSystem;
+    }
+
     /**
      * @see bt.game.core.scene.intf.Scene#getResourceLoader()
      */
@@ -119,19 +142,49 @@ public abstract class BaseScene implements Scene
     }
 
     /**
+     * Loads the texts and resources of this scene. {@link #setup()} and the map are left to {@link #load(String)}, since
+     * they register objects and mouse targets that would become active while another scene is shown.
+     *
+     * @see bt.game.core.scene.intf.Scene#preload(java.lang.String)
+     */
+    @Override
+    public void preload(String name)
+    {
+        Log.entry(name);
+        this.isLoaded = false;
+        this.preloadedName = null;
+        this.name = name;
+        loadTextLoader(name);
+        load();
+        loadResourceLoader(name);
+        this.preloadedName = name;
+        Log.exit();
+    }
+
+    /**
+     * Loads this scene. If it was {@link #preload(String) preloaded} with the same name, only the remaining steps are
+     * executed.
+     *
      * @see bt.game.core.scene.intf.Scene#load(java.lang.String)
      */
     @Override
     public void load(String name)
     {
         Log.entry(name);
+        boolean preloaded = name.equals(this.preloadedName);
+        this.preloadedName = null;
         this.isLoaded = false;
         this.gameObjectHandler.init();
         InstanceKiller.killOnShutdown(this, Integer.MIN_VALUE + 100);
         this.name = name;
-        loadTextLoader(name);
-        load();
-        loadResourceLoader(name);
+
+        if (!preloaded)
+        {
+            loadTextLoader(name);
+            load();
+            loadResourceLoader(name);
+        }
+
         setup();
         loadMapLoader(name);
         this.resourceLoader.finishLoad();
@@ -187,6 +240,7 @@ public abstract class BaseScene implements Scene
     public void kill()
     {
         this.isLoaded = false;
+        this.preloadedName = null;
         Log.debug(this.name == null ? "Killing scene." : "Killing scene '" + this.name + "'.");
 
         // kill resource loader if instance killer is not already doing it or if the loader is not registered for
@@ -208,6 +262,7 @@ public abstract class BaseScene implements Scene
         }
 
         this.textLoader.kill();
+        this.animationSystem.kill();
 
         Null.checkKill(this.mapLoader);
 
@@ -224,6 +279,11 @@ public abstract class BaseScene implements Scene
         {
             Camera.currentCamera = null;
         }
+
+        if (this.backgroundLayer != null)
+        {
+            this.backgroundLayer.invalidateAll();
+        }
     }
 
     /**
@@ -236,6 +296,7 @@ public abstract class BaseScene implements Scene
         {
             this.gameObjectHandler.updateGravityVelocities(delta);
             this.gameObjectHandler.tick(delta);
+            this.animationSystem.tick(delta);
             this.world.update(delta);
         }
     }
@@ -253,7 +314,16 @@ public abstract class BaseScene implements Scene
                 this.camera.render(g, debugRendering);
             }
 
-            renderBackground(g, debugRendering);
+            if (this.backgroundLayer != null)
+            {
+                this.backgroundLayer.render(g,
+                                            StaticLayerCache.getVisibleArea(this.camera, this.visibleArea),
+                                            debugRendering);
+            }
+            else
+            {
+                renderBackground(g, debugRendering);
+            }
 
             this.gameObjectHandler.render(g, debugRendering);
 
@@ -263,6 +333,7 @@ public abstract class BaseScene implements Scene
             }
 
             renderForeground(g, debugRendering);
+            this.animationSystem.frameRendered();
         }
     }
 
@@ -320,6 +391,61 @@ public abstract class BaseScene implements Scene
         return this.sceneLit;
     }
 
+    /**
+     * Sets whether the background is static.
+     *
+     * <p>
+     * A static background is rendered into cached chunk images via {@link #renderBackground(Graphics2D, boolean)} once
+     * and only those images are drawn every frame. The graphics passed to renderBackground are clipped to a single
+     * chunk and debug rendering is always disabled. If the background changes, {@link #invalidateBackground()} needs to
+     * be called.
+     * </p>
+     *
+     * @param staticBackground true to cache the background.
+     */
+    public void setStaticBackground(boolean staticBackground)
+    {
+        if (this.backgroundLayer != null)
+        {
+            this.backgroundLayer.kill();
+            this.backgroundLayer = null;
+        }
+
+        if (staticBackground)
+        {
+            this.backgroundLayer = new StaticLayerCache()
+            {
+                @Override
+                protected void renderContent(Graphics2D g, Rectangle chunkBounds)
+                {
+                    renderBackground(g, false);
+                }
+            };
+        }
+    }
+
+    /**
+     * Indicates whether the background is cached.
+     *
+     * @return true if the background is static.
+     */
+    public boolean isStaticBackground()
+    {
+        return this.backgroundLayer != null;
+    }
+
+    /**
+     * Discards the cached images of a {@link #setStaticBackground(boolean) static} background, so that it is rendered
+     * again before it is drawn next.
+     */
+    public void invalidateBackground()
+    {
+        if (this.backgroundLayer != null)
+        {
+            this.backgroundLayer.invalidateAll();
+        }
+    }
+
     /**
      * Supposed to render the background.
      *
@@ -1,6 +1,7 @@
 package bt.game.core.scene.impl;
 
 import bt.game.core.container.abstr.GameContainer;
+import bt.game.resource.render.damage.DamageTracker;
 import bt.game.util.unit.Unit;
 import bt.log.Log;
 import bt.runtime.InstanceKiller;
@@ -121,6 +122,7 @@ public class LoadingScene extends BaseScene
                 this.highlight = 0;
             }
             this.count = 0;
+            DamageTracker.reportAll();
         }
     }
 
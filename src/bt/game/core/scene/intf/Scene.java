@@ -6,6 +6,7 @@ import bt.game.core.scene.cam.Camera;
 import bt.game.core.scene.map.MapComponentLoader;
 import bt.game.resource.load.intf.Loader;
 import bt.game.resource.load.intf.ResourceLoader;
+import bt.game.resource.render.impl.anim.AnimationSystem;
 import bt.game.util.unit.Unit;
 import bt.io.text.intf.TextLoader;
 import bt.types.Killable;
@@ -26,6 +27,8 @@ public interface Scene extends Killable, Loader
 
     public MapComponentLoader getMapComponentLoader();
 
+    public AnimationSystem getAnimationSystem();
+
     public GameContainer getGameContainer();
 
     public World getWorld();
@@ -40,6 +43,17 @@ public interface Scene extends Killable, Loader
 
     public boolean isLoaded();
 
+    /**
+     * Loads the parts of this scene that do not affect the running game, so that a later {@link #load(String)} with the
+     * same name has less to do. This can be called on a background thread while another scene is active, so nothing
+     * may be registered globally, i.e. as a mouse target.
+     *
+     * @param name The name of the scene.
+     */
+    public default void preload(String name)
+    {
+    }
+
     public void start();
 
     public void tick(double delta);
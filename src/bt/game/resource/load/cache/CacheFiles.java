@@ -0,0 +1,105 @@
+package bt.game.resource.load.cache;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Naming of the files of disk caches that keep one entry per named resource, such as
+ * {@link bt.game.resource.render.impl.atlas.AtlasCache atlas} and
+ * {@link bt.game.resource.render.impl.text.bitmap.BitmapFontCache bitmap font} caches.
+ *
+ * <p>
+ * All files of an entry start with <i>namespace.name_hash-key</i>. The namespace identifies the kind of cache, so that
+ * different caches can share a directory without deleting each others entries when an outdated entry is replaced. The
+ * name is reduced to characters that are valid in file names and followed by a short hash of the full name, so names
+ * that only differ in other characters do not share entries either.
+ * </p>
+ *
+ * @author &#8904
+ */
+public final class CacheFiles
+{
+    private CacheFiles()
+    {
+    }
+
+    /**
+     * Creates a key by hashing the given parts.
+     *
+     * @param parts Anything that describes the source of an entry, i.e. paths, sizes and modification times.
+     * @return The hex string of the hash.
+     */
+    public static String createKey(String... parts)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+
+            for (String part : parts)
+            {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte)0);
+            }
+
+            StringBuilder sb = new StringBuilder();
+
+            for (byte b : digest.digest())
+            {
+                sb.append(String.format("%02x", b));
+            }
+
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the base file name of the entry with the given name and key. Files of the entry append their own suffixes
+     * to it.
+     *
+     * @param namespace The kind of cache, i.e. 'atlas'.
+     * @param name      The name of the cached resource.
+     * @param key       The key of the entry.
+     * @return The file name without ending.
+     */
+    public static String fileName(String namespace, String name, String key)
+    {
+        return prefix(namespace, name) + key;
+    }
+
+    /**
+     * Deletes all entries of exactly the given name, regardless of their key.
+     *
+     * @param directory The cache directory.
+     * @param namespace The kind of cache.
+     * @param name      The name of the cached resource.
+     */
+    public static void deleteEntries(File directory, String namespace, String name)
+    {
+        String prefix = prefix(namespace, name);
+        File[] oldFiles = directory.listFiles((dir, fileName) -> fileName.startsWith(prefix));
+
+        if (oldFiles != null)
+        {
+            for (File oldFile : oldFiles)
+            {
+                oldFile.delete();
+            }
+        }
+    }
+
+    private static String prefix(String namespace, String name)
+    {
+        return sanitize(namespace) + "." + sanitize(name) + "_" + createKey(name).substring(0, 8) + "-";
+    }
+
+    private static String sanitize(String name)
+    {
+        return name.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+}
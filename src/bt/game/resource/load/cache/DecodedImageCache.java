@@ -0,0 +1,451 @@
+package bt.game.resource.load.cache;
+
+import bt.game.resource.render.impl.atlas.AtlasCache;
+import bt.log.Log;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Stores decoded and transformed images on disk so that later startups can skip decoding them.
+ *
+ * <p>
+ * Entries are identified by a hash of the content of the source file and a description of the transformations that
+ * were applied to it, i.e. a cropping ratio. The content hash of every source is remembered together with its size and
+ * modification time, so unchanged sources are not read at all. If the size or modification time of a source changed, its
+ * content is hashed again, and only if the content changed as well the image is decoded again.
+ * </p>
+ *
+ * <p>
+ * The remembered hashes are only kept in memory while images are loaded. {@link #save()} writes them once loading is
+ * done and deletes entries whose content is not referenced by any source anymore. If the entries take more than
+ * {@link #setMaxBytes(long) a limit} afterwards, the least recently used ones are deleted as well.
+ * </p>
+ *
+ * <p>
+ * There is one instance per directory, which is shared by all loaders that {@link #get(File) use} it. Otherwise the
+ * loaders would overwrite each others index and delete each others entries whenever they save.
+ * </p>
+ *
+ * <p>
+ * Entries are stored uncompressed as a small header followed by one little endian ARGB int per pixel, so loading one
+ * only costs reading the file. This trades disk space for load time and is meant for development and modding setups
+ * that work with plain image files; shipped games should prefer
+ * {@link bt.game.resource.load.pack.ResourcePack resource packs}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class DecodedImageCache
+{
+    private static final int MAGIC = 0x42544943;
+    private static final String INDEX_FILE = "sources.properties";
+    private static final String ENTRY_ENDING = ".img";
+
+    /** The default size limit of all entries in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final Map<String, DecodedImageCache> instances = new HashMap<>();
+
+    private File directory;
+    private Properties sources;
+    private boolean sourcesChanged;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    /**
+     * Gets the cache that uses the given directory, creating it if no cache uses that directory yet.
+     *
+     * @param directory The cache directory.
+     * @return The cache.
+     */
+    public static DecodedImageCache get(File directory)
+    {
+        String path;
+
+        try
+        {
+            path = directory.getCanonicalPath();
+        }
+        catch (IOException e)
+        {
+            path = directory.getAbsolutePath();
+        }
+
+        synchronized (instances)
+        {
+            return instances.computeIfAbsent(path, p -> new DecodedImageCache(new File(p)));
+        }
+    }
+
+    /**
+     * Creates a new cache that uses the given directory. The directory is created if it does not exist.
+     *
+     * @param directory The cache directory.
+     */
+    private DecodedImageCache(File directory)
+    {
+        this.directory = directory;
+        this.directory.mkdirs();
+        this.sources = new Properties();
+
+        File indexFile = new File(this.directory, INDEX_FILE);
+
+        if (indexFile.exists())
+        {
+            try (InputStream in = new FileInputStream(indexFile))
+            {
+                this.sources.load(in);
+            }
+            catch (IOException e)
+            {
+                // the index is only an optimization, sources are hashed again without it
+                Log.error("Failed to read image cache index " + indexFile.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * Loads the cached image for the given source and transformation or decodes and caches it if there is no valid
+     * entry.
+     *
+     * <p>
+     * This method is thread safe. Failures to read or write cache entries are logged and the image is decoded instead.
+     * </p>
+     *
+     * @param source    The source file of the image.
+     * @param transform A description of every transformation that the decoder applies, i.e. a cropping ratio.
+     * @param decoder   The function that decodes and transforms the source.
+     * @return The image.
+     * @throws Exception if the image had to be decoded and the decoder failed.
+     */
+    public BufferedImage load(URL source, String transform, Callable<BufferedImage> decoder) throws Exception
+    {
+        String hash;
+
+        try
+        {
+            hash = getContentHash(source);
+        }
+        catch (IOException e)
+        {
+            Log.error("Failed to hash image source " + source, e);
+            return decoder.call();
+        }
+
+        File entryFile = new File(this.directory, hash + "-" + AtlasCache.createKey(transform) + ENTRY_ENDING);
+
+        if (entryFile.exists())
+        {
+            try
+            {
+                BufferedImage image = read(entryFile);
+
+                // the modification time orders entries by their last use when the size limit is exceeded
+                entryFile.setLastModified(System.currentTimeMillis());
+                return image;
+            }
+            catch (IOException e)
+            {
+                Log.error("Failed to read cached image " + entryFile.getAbsolutePath(), e);
+            }
+        }
+
+        BufferedImage image = decoder.call();
+
+        try
+        {
+            write(image, entryFile);
+        }
+        catch (IOException e)
+        {
+            Log.error("Failed to cache image " + entryFile.getAbsolutePath(), e);
+        }
+
+        return image;
+    }
+
+    /**
+     * Gets the content hash of the given source. The remembered hash is used if the size and modification time of the
+     * source did not change.
+     */
+    private String getContentHash(URL source) throws IOException
+    {
+        URLConnection connection = source.openConnection();
+        String stamp = connection.getLastModified() + "," + connection.getContentLengthLong();
+        String sourceKey = source.toExternalForm();
+        String known;
+
+        synchronized (this.sources)
+        {
+            known = this.sources.getProperty(sourceKey);
+        }
+
+        if (known != null && known.startsWith(stamp + ","))
+        {
+            connection.getInputStream().close();
+            return known.substring(stamp.length() + 1);
+        }
+
+        String hash = hash(connection);
+
+        synchronized (this.sources)
+        {
+            this.sources.setProperty(sourceKey, stamp + "," + hash);
+            this.sourcesChanged = true;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Writes the remembered source hashes and deletes outdated entries. This should be called once after a batch of
+     * images was loaded instead of after every image. Failures are logged.
+     *
+     * <p>
+     * Entries are deleted if no source has their content hash anymore, and then from the least recently used on while
+     * all entries together are larger than the {@link #setMaxBytes(long) limit}.
+     * </p>
+     */
+    public synchronized void save()
+    {
+        Set<String> usedHashes = new HashSet<>();
+
+        synchronized (this.sources)
+        {
+            if (this.sourcesChanged)
+            {
+                saveIndex();
+                this.sourcesChanged = false;
+            }
+
+            for (String sourceKey : this.sources.stringPropertyNames())
+            {
+                String known = this.sources.getProperty(sourceKey);
+                usedHashes.add(known.substring(known.lastIndexOf(',') + 1));
+            }
+        }
+
+        File[] entryFiles = this.directory.listFiles((dir, fileName) -> fileName.endsWith(ENTRY_ENDING));
+
+        if (entryFiles == null)
+        {
+            return;
+        }
+
+        List<File> remaining = new ArrayList<>();
+        long bytes = 0;
+
+        for (File entryFile : entryFiles)
+        {
+            String fileName = entryFile.getName();
+            String hash = fileName.substring(0, Math.max(fileName.indexOf('-'), 0));
+
+            if (!usedHashes.contains(hash))
+            {
+                entryFile.delete();
+            }
+            else
+            {
+                remaining.add(entryFile);
+                bytes += entryFile.length();
+            }
+        }
+
+        if (bytes > this.maxBytes)
+        {
+            remaining.sort(Comparator.comparingLong(File::lastModified));
+
+            for (File entryFile : remaining)
+            {
+                if (bytes <= this.maxBytes)
+                {
+                    break;
+                }
+
+                bytes -= entryFile.length();
+                entryFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Sets the size that all entries together may take before the least recently used ones are deleted by
+     * {@link #save()}.
+     *
+     * @param maxBytes The limit in bytes.
+     */
+    public void setMaxBytes(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+
+    private String hash(URLConnection connection) throws IOException
+    {
+        MessageDigest digest;
+
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream in = new DigestInputStream(connection.getInputStream(), digest))
+        {
+            byte[] buffer = new byte[8192];
+
+            while (in.read(buffer) != -1)
+            {
+                // the digest is updated while reading
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (byte b : digest.digest())
+        {
+            sb.append(String.format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes the index to a temporary file first and moves it afterwards, so that an interrupted write does not lose the
+     * previous index.
+     */
+    private void saveIndex()
+    {
+        File tempFile = null;
+
+        try
+        {
+            tempFile = File.createTempFile("sources", ".tmp", this.directory);
+
+            try (OutputStream out = new FileOutputStream(tempFile))
+            {
+                this.sources.store(out, "Image sources: modification time, size, content hash");
+            }
+
+            Files.move(tempFile.toPath(),
+                       new File(this.directory, INDEX_FILE).toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            Log.error("Failed to write image cache index", e);
+        }
+        finally
+        {
+            if (tempFile != null)
+            {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private BufferedImage read(File file) throws IOException
+    {
+        // entries are read into memory instead of being mapped, since mapped files can not be deleted on all platforms
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC)
+        {
+            throw new IOException("Not a cached image.");
+        }
+
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+
+        if (width <= 0 || height <= 0 || buffer.remaining() != (long)width * height * 4)
+        {
+            throw new IOException("Cached image is truncated.");
+        }
+
+        IntBuffer pixels = buffer.asIntBuffer();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        WritableRaster raster = image.getRaster();
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++)
+        {
+            pixels.get(row);
+            raster.setDataElements(0, y, width, 1, row);
+        }
+
+        return image;
+    }
+
+    /**
+     * Writes the image to a temporary file first and moves it afterwards, so that an interrupted write or a concurrent
+     * read never sees a partial entry.
+     */
+    private void write(BufferedImage image, File file) throws IOException
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        File tempFile = File.createTempFile("image", ".tmp", this.directory);
+
+        try
+        {
+            ByteBuffer row = ByteBuffer.allocate(width * 4).order(ByteOrder.LITTLE_ENDIAN);
+            int[] pixels = new int[width];
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                out.writeInt(Integer.reverseBytes(MAGIC));
+                out.writeInt(Integer.reverseBytes(width));
+                out.writeInt(Integer.reverseBytes(height));
+
+                for (int y = 0; y < height; y++)
+                {
+                    image.getRGB(0, y, width, 1, pixels, 0, width);
+                    row.clear();
+                    row.asIntBuffer().put(pixels);
+                    out.write(row.array());
+                }
+            }
+
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            tempFile.delete();
+        }
+    }
+}
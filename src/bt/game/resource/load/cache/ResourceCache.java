@@ -0,0 +1,435 @@
+package bt.game.resource.load.cache;
+
+import bt.game.resource.render.impl.RenderableImage;
+import bt.game.resource.render.impl.anim.AnimationClip;
+import bt.io.sound.SoundSupplier;
+import bt.log.Log;
+import bt.types.Killable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A process wide cache of decoded resources that can be shared by the resource loaders of multiple scenes.
+ *
+ * <p>
+ * Resources are mapped by a key that should contain their path and every parameter that they were loaded with. A
+ * loader {@link #acquire(String, Callable) acquires} a {@link Lease} for each resource it uses and releases it once it
+ * is killed. A resource is decoded only once, even if multiple threads acquire it at the same time.
+ * </p>
+ *
+ * <p>
+ * Resources without any lease are not disposed right away. They are kept in a least recently used order until their
+ * combined size exceeds the {@link #setMaxBytes(long) memory limit} or more than {@link #setMaxUnreferenced(int) a
+ * number} of them are kept. Acquiring a kept resource again does not decode it, so switching between scenes that share
+ * most of their resources only loads the difference.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ResourceCache
+{
+    /** The default memory limit for unreferenced resources in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /** The default number of unreferenced resources that are kept. */
+    public static final int DEFAULT_MAX_UNREFERENCED = 512;
+
+    private static final ResourceCache instance = new ResourceCache();
+
+    /**
+     * Gets the cache that is shared by all scenes.
+     *
+     * @return The instance.
+     */
+    public static ResourceCache get()
+    {
+        return ResourceCache.instance;
+    }
+
+    private Map<String, Entry<?>> entries;
+    private LinkedHashMap<String, Entry<?>> unreferenced;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private int maxUnreferenced = DEFAULT_MAX_UNREFERENCED;
+    private long unreferencedBytes;
+
+    /**
+     * Creates a new, empty cache.
+     */
+    public ResourceCache()
+    {
+        this.entries = new HashMap<>();
+        this.unreferenced = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Acquires a lease for the resource with the given key. If the resource is not cached, it is created by the given
+     * loader on the calling thread. Other threads that acquire the same key meanwhile wait for the result.
+     *
+     * @param key    The key of the resource.
+     * @param loader The function that creates the resource.
+     * @return The lease.
+     * @throws Exception if the loader failed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Lease<T> acquire(String key, Callable<T> loader) throws Exception
+    {
+        Entry<T> entry;
+
+        synchronized (this)
+        {
+            entry = (Entry<T>)this.entries.get(key);
+
+            if (entry == null)
+            {
+                entry = new Entry<>(loader);
+                this.entries.put(key, entry);
+            }
+            else if (entry.references == 0 && this.unreferenced.remove(key) != null)
+            {
+                this.unreferencedBytes -= entry.bytes;
+            }
+
+            entry.references++;
+        }
+
+        boolean leased = false;
+
+        try
+        {
+            entry.task.run();
+            T value = entry.task.get();
+
+            synchronized (this)
+            {
+                if (entry.bytes < 0)
+                {
+                    entry.bytes = estimateBytes(value);
+                }
+            }
+
+            Lease<T> lease = new Lease<>(this, key, entry, value);
+            leased = true;
+            return lease;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof Exception)
+            {
+                throw (Exception)e.getCause();
+            }
+
+            throw e;
+        }
+        finally
+        {
+            if (!leased)
+            {
+                // i.e. the loader failed or the thread was interrupted while it waited for the loader of another thread
+                unreference(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Takes back the reference of an acquire that did not return a lease. Entries whose loader failed or was cancelled
+     * are removed, all others are released like a lease.
+     */
+    private synchronized void unreference(String key, Entry<?> entry)
+    {
+        if (entry.task.isDone() && isFailed(entry))
+        {
+            entry.references--;
+
+            if (this.entries.get(key) == entry)
+            {
+                this.entries.remove(key);
+            }
+        }
+        else
+        {
+            // the loader succeeded or is still running on another thread, which holds a reference of its own
+            release(key, entry);
+        }
+    }
+
+    /**
+     * Indicates whether the loader of the given entry, which has to be done, failed or was cancelled.
+     */
+    private static boolean isFailed(Entry<?> entry)
+    {
+        try
+        {
+            entry.task.get();
+            return false;
+        }
+        catch (InterruptedException | ExecutionException | CancellationException e)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Indicates whether a resource is cached for the given key.
+     *
+     * @param key The key.
+     * @return true if the resource is cached, with or without leases.
+     */
+    public synchronized boolean contains(String key)
+    {
+        return this.entries.containsKey(key);
+    }
+
+    /**
+     * Gets the number of leases of the resource with the given key.
+     *
+     * @param key The key.
+     * @return The number of leases or 0 if the resource is not cached.
+     */
+    public synchronized int getReferences(String key)
+    {
+        Entry<?> entry = this.entries.get(key);
+        return entry == null ? 0 : entry.references;
+    }
+
+    /**
+     * Sets the combined size of unreferenced resources after which the least recently used ones are disposed.
+     *
+     * @param maxBytes The limit in bytes.
+     */
+    public synchronized void setMaxBytes(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    public synchronized long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+
+    /**
+     * Sets the number of unreferenced resources after which the least recently used ones are disposed.
+     *
+     * @param maxUnreferenced The number of resources. 0 disposes resources as soon as their last lease is released.
+     */
+    public synchronized void setMaxUnreferenced(int maxUnreferenced)
+    {
+        this.maxUnreferenced = maxUnreferenced;
+        trim();
+    }
+
+    public synchronized int getMaxUnreferenced()
+    {
+        return this.maxUnreferenced;
+    }
+
+    /**
+     * Gets the combined size of all resources that have no lease.
+     *
+     * @return The estimated size in bytes.
+     */
+    public synchronized long getUnreferencedBytes()
+    {
+        return this.unreferencedBytes;
+    }
+
+    /**
+     * Disposes all resources that have no lease.
+     */
+    public synchronized void clear()
+    {
+        for (String key : this.unreferenced.keySet())
+        {
+            dispose(this.entries.remove(key));
+        }
+
+        this.unreferenced.clear();
+        this.unreferencedBytes = 0;
+    }
+
+    private synchronized void release(String key, Entry<?> entry)
+    {
+        if (--entry.references > 0 || this.entries.get(key) != entry)
+        {
+            return;
+        }
+
+        this.unreferenced.put(key, entry);
+        this.unreferencedBytes += Math.max(entry.bytes, 0);
+        trim();
+    }
+
+    private void trim()
+    {
+        Iterator<Map.Entry<String, Entry<?>>> ite = this.unreferenced.entrySet().iterator();
+
+        while ((this.unreferencedBytes > this.maxBytes || this.unreferenced.size() > this.maxUnreferenced) && ite.hasNext())
+        {
+            Map.Entry<String, Entry<?>> eldest = ite.next();
+            Entry<?> entry = eldest.getValue();
+            ite.remove();
+            this.entries.remove(eldest.getKey());
+            this.unreferencedBytes -= Math.max(entry.bytes, 0);
+            dispose(entry);
+        }
+    }
+
+    private void dispose(Entry<?> entry)
+    {
+        if (entry == null || !entry.task.isDone())
+        {
+            return;
+        }
+
+        Object value;
+
+        try
+        {
+            value = entry.task.get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            return;
+        }
+
+        if (value instanceof SoundSupplier)
+        {
+            ((SoundSupplier)value).kill();
+        }
+        else if (value instanceof AnimationClip)
+        {
+            AnimationClip clip = (AnimationClip)value;
+
+            for (int i = 0; i < clip.getFrameCount(); i++)
+            {
+                clip.getFrame(i).kill();
+            }
+        }
+        else if (value instanceof Killable)
+        {
+            ((Killable)value).kill();
+        }
+        else if (value instanceof Closeable)
+        {
+            try
+            {
+                ((Closeable)value).close();
+            }
+            catch (IOException e)
+            {
+                Log.error("Failed to close cached resource", e);
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory used by the pixel data of the given resource. Resources without pixel data count as 0.
+     */
+    private static long estimateBytes(Object value)
+    {
+        if (value instanceof RenderableImage)
+        {
+            return estimateBytes(((RenderableImage)value).getImage());
+        }
+
+        if (value instanceof AnimationClip)
+        {
+            AnimationClip clip = (AnimationClip)value;
+            long bytes = 0;
+
+            for (int i = 0; i < clip.getFrameCount(); i++)
+            {
+                bytes += estimateBytes(clip.getFrame(i));
+            }
+
+            return bytes;
+        }
+
+        if (value instanceof BufferedImage)
+        {
+            BufferedImage image = (BufferedImage)value;
+            return (long)image.getWidth() * image.getHeight() * 4;
+        }
+
+        if (value instanceof Image)
+        {
+            Image image = (Image)value;
+            return (long)Math.max(image.getWidth(null), 0) * Math.max(image.getHeight(null), 0) * 4;
+        }
+
+        return 0;
+    }
+
+    /**
+     * A reference to a cached resource. The resource stays cached at least until the lease is released.
+     *
+     * @author &#8904
+     */
+    public static class Lease<T>
+    {
+        private ResourceCache cache;
+        private String key;
+        private Entry<?> entry;
+        private T value;
+        private boolean released;
+
+        private Lease(ResourceCache cache, String key, Entry<?> entry, T value)
+        {
+            this.cache = cache;
+            this.key = key;
+            this.entry = entry;
+            this.value = value;
+        }
+
+        public T get()
+        {
+            return this.value;
+        }
+
+        public String getKey()
+        {
+            return this.key;
+        }
+
+        /**
+         * Releases this lease. Further calls have no effect.
+         */
+        public void release()
+        {
+            synchronized (this)
+            {
+                if (this.released)
+                {
+                    return;
+                }
+
+                this.released = true;
+            }
+
+            this.cache.release(this.key, this.entry);
+        }
+    }
+
+    private static class Entry<T>
+    {
+        private FutureTask<T> task;
+        private int references;
+        private long bytes = -1;
+
+        private Entry(Callable<T> loader)
+        {
+            this.task = new FutureTask<>(loader);
+        }
+    }
+}
@@ -2,10 +2,15 @@ package bt.game.resource.load.impl;
 
 import bt.game.core.ctrl.spec.mouse.obj.Cursor;
 import bt.game.core.obj.intf.Animated;
+import bt.game.resource.load.cache.ResourceCache;
 import bt.game.resource.load.container.ResourceContainer;
+import bt.game.resource.load.exc.LoadException;
 import bt.game.resource.load.intf.Loadable;
 import bt.game.resource.load.intf.ResourceLoader;
+import bt.game.resource.render.impl.RenderableImage;
+import bt.game.resource.render.impl.StreamedImage;
 import bt.game.resource.render.impl.anim.Animation;
+import bt.game.resource.render.impl.anim.AnimationClip;
 import bt.game.resource.render.intf.Renderable;
 import bt.io.sound.Sound;
 import bt.io.sound.SoundSupplier;
@@ -19,14 +24,36 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A basic implementation of the {@link ResourceLoader} interface. This implementation is fully functional and is
  * focused on loading resources from {@link Loadable}s that were {@link #register(Loadable) registered}.
  *
+ * <p>
+ * Images, sounds and fonts can also be added lazily (see {@link #addLazyImage(String, Callable, int)}). Lazy resources
+ * are decoded by background threads in the order of their priority, or on the requesting thread if they are requested
+ * before a background thread got to them. Requested images that are still being decoded are returned as a
+ * {@link StreamedImage} that shows a {@link #setPlaceholder(RenderableImage) placeholder} in the meantime.
+ * </p>
+ *
+ * <p>
+ * Resources can be {@link #lease(ResourceCache, String, Callable) leased} from a {@link ResourceCache} to share them
+ * with the loaders of other scenes. Leased resources are not disposed when this loader is killed, their leases are
+ * released instead.
+ * </p>
+ *
  * @author &#8904
  */
 public class BaseResourceLoader implements ResourceLoader
@@ -39,9 +66,18 @@ public class BaseResourceLoader implements ResourceLoader
     private Map<String, Cursor> cursors;
     private Map<String, Object> objects;
     private Map<String, Animation> animations;
+    private Map<String, AnimationClip> clips;
     private List<Loadable> loadables;
     private List<Animated> animated;
     private List<Runnable> closingOpeartions;
+    private Map<String, LazyResource<RenderableImage>> lazyImages;
+    private Map<String, LazyResource<SoundSupplier>> lazySounds;
+    private Map<String, LazyResource<Font>> lazyFonts;
+    private ThreadPoolExecutor prefetchExecutor;
+    private RenderableImage placeholder;
+    private List<ResourceCache.Lease<?>> leases;
+    private Set<Object> shared;
+    private int generation;
 
     /**
      * Creates a new instance and initializes its maps and lists.
@@ -56,16 +92,23 @@ public class BaseResourceLoader implements ResourceLoader
      */
     public BaseResourceLoader()
     {
-        this.renderables = new HashMap<>();
-        this.sounds = new HashMap<>();
+        // lazy resources are published from whichever thread requests them first
+        this.renderables = new ConcurrentHashMap<>();
+        this.sounds = new ConcurrentHashMap<>();
         this.files = new HashMap<>();
-        this.fonts = new HashMap<>();
+        this.fonts = new ConcurrentHashMap<>();
         this.cursors = new HashMap<>();
         this.objects = new HashMap<>();
         this.animations = new HashMap<>();
+        this.clips = new ConcurrentHashMap<>();
         this.loadables = new ArrayList<>();
         this.animated = new ArrayList<>();
         this.closingOpeartions = new ArrayList<>();
+        this.lazyImages = new ConcurrentHashMap<>();
+        this.lazySounds = new ConcurrentHashMap<>();
+        this.lazyFonts = new ConcurrentHashMap<>();
+        this.leases = new ArrayList<>();
+        this.shared = Collections.newSetFromMap(new IdentityHashMap<>());
     }
 
     /**
@@ -73,7 +116,8 @@ public class BaseResourceLoader implements ResourceLoader
      *
      * <p>
      * If an object resource implements {@link Closeable} its {@link Closeable#close() close} method is called. If an
-     * object resource implements {@link Killable} its {@link Killable#kill() kill} method is called.
+     * object resource implements {@link Killable} its {@link Killable#kill() kill} method is called. Resources that
+     * were {@link #lease(ResourceCache, String, Callable) leased} are not disposed, their leases are released.
      * </p>
      *
      * @see bt.runtime.Killable#kill()
@@ -86,15 +130,37 @@ public class BaseResourceLoader implements ResourceLoader
 
         this.killed = true;
 
+        synchronized (this)
+        {
+            if (this.prefetchExecutor != null)
+            {
+                this.prefetchExecutor.shutdownNow();
+                this.prefetchExecutor = null;
+            }
+        }
+
+        this.lazyImages.values().forEach(resource -> resource.cancel(this::isDisposable));
+        this.lazySounds.values().forEach(resource -> resource.cancel(this::isDisposable));
+        this.lazyFonts.values().forEach(resource -> resource.cancel(this::isDisposable));
+        this.lazyImages.clear();
+        this.lazySounds.clear();
+        this.lazyFonts.clear();
+
         this.renderables.values()
                         .stream()
                         .parallel()
                         .filter(Killable.class::isInstance)
+                        .filter(this::isDisposable)
                         .map(Killable.class::cast)
                         .forEach(killable -> killable.kill());
 
         for (Object obj : this.objects.values())
         {
+            if (!isDisposable(obj))
+            {
+                continue;
+            }
+
             if (obj instanceof Closeable)
             {
                 try
@@ -120,7 +186,27 @@ public class BaseResourceLoader implements ResourceLoader
 
         for (SoundSupplier supplier : this.sounds.values())
         {
-            supplier.kill();
+            if (isDisposable(supplier))
+            {
+                supplier.kill();
+            }
+        }
+
+        for (Animation animation : this.animations.values())
+        {
+            animation.kill();
+        }
+
+        synchronized (this.shared)
+        {
+            for (ResourceCache.Lease<?> lease : this.leases)
+            {
+                lease.release();
+            }
+
+            this.leases.clear();
+            this.shared.clear();
+            this.generation++;
         }
 
         this.renderables.clear();
@@ -130,6 +216,7 @@ public class BaseResourceLoader implements ResourceLoader
         this.cursors.clear();
         this.objects.clear();
         this.animations.clear();
+        this.clips.clear();
         this.loadables.clear();
         this.animated.clear();
         this.closingOpeartions.clear();
@@ -207,6 +294,339 @@ public class BaseResourceLoader implements ResourceLoader
     public void add(String resourceName, Animation value)
     {
         this.animations.put(resourceName.toUpperCase(), value);
+        this.clips.remove(resourceName.toUpperCase());
+    }
+
+    /**
+     * Acquires the resource with the given key from the given cache, creating it with the given loader if it is not
+     * cached yet. The lease is held until this loader is killed, so the resource is not disposed by either.
+     *
+     * <p>
+     * This method is thread safe and can be called from loading threads. The returned resource still has to be mapped
+     * via one of the add methods.
+     * </p>
+     *
+     * @param cache  The cache.
+     * @param key    The cache key that identifies the resource by its path and load parameters.
+     * @param loader The function that creates the resource.
+     * @return The cached resource.
+     * @throws Exception if the loader failed.
+     * @throws IllegalStateException if this loader was killed while the resource was acquired, i.e. while a lazy
+     *         resource was decoded. The lease is released right away in that case.
+     */
+    public <T> T lease(ResourceCache cache, String key, Callable<T> loader) throws Exception
+    {
+        int acquiredGeneration;
+
+        synchronized (this.shared)
+        {
+            acquiredGeneration = this.generation;
+        }
+
+        ResourceCache.Lease<T> lease = cache.acquire(key, loader);
+        T value = lease.get();
+
+        synchronized (this.shared)
+        {
+            // kill releases the leases while holding the same lock, so a lease taken across a kill would never be
+            // released. the killed flag can not be used for this, since it is still set while a killed loader loads again
+            if (this.generation != acquiredGeneration)
+            {
+                lease.release();
+                throw new IllegalStateException("Killed ResourceLoader can't lease resources.");
+            }
+
+            this.leases.add(lease);
+            this.shared.add(value);
+
+            if (value instanceof AnimationClip)
+            {
+                AnimationClip clip = (AnimationClip)value;
+
+                for (int i = 0; i < clip.getFrameCount(); i++)
+                {
+                    this.shared.add(clip.getFrame(i));
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Marks the given resource as shared, so that it is not disposed when this loader is killed. This is used for
+     * resources that wrap {@link #lease(ResourceCache, String, Callable) leased} data.
+     *
+     * @param resource The resource.
+     */
+    public void share(Object resource)
+    {
+        synchronized (this.shared)
+        {
+            this.shared.add(resource);
+        }
+    }
+
+    private boolean isDisposable(Object resource)
+    {
+        if (resource instanceof StreamedImage)
+        {
+            // a streamed image only kills the image it delegates to
+            resource = ((StreamedImage)resource).getCurrent();
+        }
+
+        synchronized (this.shared)
+        {
+            return !this.shared.contains(resource);
+        }
+    }
+
+    /**
+     * Maps an image that is decoded by the given loader once it is first requested or prefetched.
+     *
+     * <p>
+     * The image is queued for prefetching right away. Images with higher priorities are prefetched first, images with a
+     * negative priority are only decoded when they are requested. If an image was mapped by the same name before, it
+     * is shown instead of the {@link #setPlaceholder(RenderableImage) placeholder} until the new one is decoded and
+     * killed afterwards, unless it is shared.
+     * </p>
+     *
+     * @param resourceName The unique resource name for the image.
+     * @param loader       The function that decodes the image.
+     * @param priority     The prefetch priority.
+     */
+    public void addLazyImage(String resourceName, Callable<RenderableImage> loader, int priority)
+    {
+        String key = resourceName.toUpperCase();
+        Renderable previous = this.renderables.remove(key);
+
+        // an image that is still streaming shows a placeholder that belongs to someone else
+        boolean ownsPrevious = !(previous instanceof StreamedImage) || ((StreamedImage)previous).isLoaded();
+
+        if (previous instanceof StreamedImage)
+        {
+            previous = ((StreamedImage)previous).getCurrent();
+        }
+
+        RenderableImage fallback = previous instanceof RenderableImage ? (RenderableImage)previous : null;
+        LazyResource<RenderableImage> resource = new LazyResource<>(resourceName, loader, priority, fallback);
+
+        if (fallback != null && ownsPrevious && fallback != this.placeholder)
+        {
+            // the previous image is only shown until the new one is decoded
+            resource.onLoaded(image ->
+                              {
+                                  if (image != fallback && isDisposable(fallback))
+                                  {
+                                      fallback.kill();
+                                  }
+                              });
+        }
+
+        this.lazyImages.put(key, resource);
+        prefetch(resource);
+    }
+
+    /**
+     * Maps a sound that is decoded by the given loader once it is first requested or prefetched.
+     *
+     * @param resourceName The unique resource name for the sound.
+     * @param loader       The function that creates the sound supplier.
+     * @param priority     The prefetch priority. Negative values disable prefetching.
+     * @see #addLazyImage(String, Callable, int)
+     */
+    public void addLazySound(String resourceName, Callable<SoundSupplier> loader, int priority)
+    {
+        String key = resourceName.toUpperCase();
+        LazyResource<SoundSupplier> resource = new LazyResource<>(resourceName, loader, priority, this.sounds.remove(key));
+        this.lazySounds.put(key, resource);
+        prefetch(resource);
+    }
+
+    /**
+     * Maps a font that is decoded by the given loader once it is first requested or prefetched.
+     *
+     * @param resourceName The unique resource name for the font.
+     * @param loader       The function that creates the font.
+     * @param priority     The prefetch priority. Negative values disable prefetching.
+     * @see #addLazyImage(String, Callable, int)
+     */
+    public void addLazyFont(String resourceName, Callable<Font> loader, int priority)
+    {
+        String key = resourceName.toUpperCase();
+        LazyResource<Font> resource = new LazyResource<>(resourceName, loader, priority, this.fonts.remove(key));
+        this.lazyFonts.put(key, resource);
+        prefetch(resource);
+    }
+
+    /**
+     * Moves the lazy resource with the given name in the prefetch queue. This has no effect if the resource is already
+     * decoded or not lazy.
+     *
+     * @param resourceName The name of the resource.
+     * @param priority     The new priority.
+     */
+    public void prefetch(String resourceName, int priority)
+    {
+        String key = resourceName.toUpperCase();
+
+        for (Map<String, ? extends LazyResource<?>> lazyResources : List.of(this.lazyImages, this.lazySounds, this.lazyFonts))
+        {
+            LazyResource<?> resource = lazyResources.get(key);
+
+            if (resource != null)
+            {
+                synchronized (this)
+                {
+                    if (this.prefetchExecutor != null)
+                    {
+                        this.prefetchExecutor.remove(resource);
+                    }
+                }
+
+                resource.setPriority(priority);
+                prefetch(resource);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of lazy resources that have not been decoded yet.
+     *
+     * @return The number of pending resources.
+     */
+    public int getPendingCount()
+    {
+        int count = 0;
+
+        for (Map<String, ? extends LazyResource<?>> lazyResources : List.of(this.lazyImages, this.lazySounds, this.lazyFonts))
+        {
+            for (LazyResource<?> resource : lazyResources.values())
+            {
+                if (!resource.isDone())
+                {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Sets the image that is shown for lazy images which are requested before they are decoded. If no placeholder is
+     * set, requesting such an image blocks until it is decoded.
+     *
+     * @param placeholder The placeholder or null.
+     */
+    public void setPlaceholder(RenderableImage placeholder)
+    {
+        this.placeholder = placeholder;
+    }
+
+    public RenderableImage getPlaceholder()
+    {
+        return this.placeholder;
+    }
+
+    /**
+     * Queues the given resource for decoding on a background thread, unless its priority is negative.
+     */
+    private synchronized void prefetch(LazyResource<?> resource)
+    {
+        if (this.killed || resource.getPriority() < 0 || resource.isDone())
+        {
+            return;
+        }
+
+        if (this.prefetchExecutor == null)
+        {
+            int threads = Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
+            AtomicInteger threadNumber = new AtomicInteger();
+
+            this.prefetchExecutor = new ThreadPoolExecutor(threads,
+                                                           threads,
+                                                           5,
+                                                           TimeUnit.SECONDS,
+                                                           new PriorityBlockingQueue<>(),
+                                                           r ->
+                                                           {
+                                                               Thread thread = new Thread(r, "Resource-Prefetch-" + threadNumber.incrementAndGet());
+                                                               thread.setDaemon(true);
+                                                               return thread;
+                                                           });
+            this.prefetchExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        this.prefetchExecutor.execute(resource);
+    }
+
+    /**
+     * Maps the lazy image with the given key. If it has not been decoded yet and a placeholder is available, a
+     * {@link StreamedImage} is mapped and the image is moved to the front of the prefetch queue.
+     *
+     * <p>
+     * Without a placeholder the image is decoded on the calling thread, but outside of the lock of this loader, so that
+     * lookups of other resources are not blocked meanwhile. Threads requesting the same image wait for the same decode.
+     * </p>
+     *
+     * @return The mapped renderable or null if there is no lazy image with the given key.
+     */
+    private Renderable resolveLazyImage(String key)
+    {
+        LazyResource<RenderableImage> resource;
+
+        synchronized (this)
+        {
+            resource = this.lazyImages.get(key);
+
+            if (resource == null)
+            {
+                return this.renderables.get(key);
+            }
+
+            RenderableImage placeholder = resource.getPrevious() != null ? resource.getPrevious() : this.placeholder;
+
+            if (!resource.isDone() && placeholder != null)
+            {
+                StreamedImage streamed = new StreamedImage(placeholder);
+                resource.onLoaded(streamed::complete);
+
+                if (this.prefetchExecutor != null)
+                {
+                    this.prefetchExecutor.remove(resource);
+                }
+
+                resource.setPriority(Integer.MAX_VALUE);
+                prefetch(resource);
+
+                this.lazyImages.remove(key);
+                this.renderables.put(key, streamed);
+                return streamed;
+            }
+        }
+
+        return publish(key, resource, resource.get(), this.lazyImages, this.renderables);
+    }
+
+    /**
+     * Maps a decoded lazy resource unless another thread has already done so or the lazy resource was replaced or
+     * removed meanwhile.
+     *
+     * @return The mapped resource.
+     */
+    private synchronized <T> T publish(String key,
+                                       LazyResource<?> resource,
+                                       T value,
+                                       Map<String, ? extends LazyResource<?>> lazyResources,
+                                       Map<String, ? super T> resources)
+    {
+        if (lazyResources.remove(key, resource))
+        {
+            resources.put(key, value);
+        }
+
+        return value;
     }
 
     /**
@@ -232,7 +652,16 @@ public class BaseResourceLoader implements ResourceLoader
             throw new IllegalStateException("Killed ResourceLoader can't supply resources.");
         }
 
-        return Exceptions.logThrowGet(() -> castTraget.cast(this.renderables.get(resourceName.toUpperCase())));
+        String key = resourceName.toUpperCase();
+        Renderable renderable = this.renderables.get(key);
+
+        if (renderable == null && this.lazyImages.containsKey(key))
+        {
+            renderable = resolveLazyImage(key);
+        }
+
+        Renderable result = renderable;
+        return Exceptions.logThrowGet(() -> castTraget.cast(result));
     }
 
     /**
@@ -246,6 +675,12 @@ public class BaseResourceLoader implements ResourceLoader
             throw new IllegalStateException("Killed ResourceLoader can't supply resources.");
         }
         SoundSupplier supplier = this.sounds.get(resourceName.toUpperCase());
+
+        if (supplier == null)
+        {
+            supplier = resolveLazy(resourceName.toUpperCase(), this.lazySounds, this.sounds);
+        }
+
         Sound sound = null;
 
         if (supplier != null)
@@ -282,7 +717,33 @@ public class BaseResourceLoader implements ResourceLoader
             throw new IllegalStateException("Killed ResourceLoader can't supply resources.");
         }
 
-        return this.fonts.get(resourceName.toUpperCase());
+        Font font = this.fonts.get(resourceName.toUpperCase());
+
+        if (font == null)
+        {
+            font = resolveLazy(resourceName.toUpperCase(), this.lazyFonts, this.fonts);
+        }
+
+        return font;
+    }
+
+    /**
+     * Maps the lazy resource with the given key, decoding it on the calling thread if necessary.
+     *
+     * @return The resource or null if there is no lazy resource with the given key.
+     * @throws LoadException if the resource could not be decoded.
+     */
+    private <T> T resolveLazy(String key, Map<String, LazyResource<T>> lazyResources, Map<String, T> resources)
+    {
+        LazyResource<T> resource = lazyResources.get(key);
+
+        if (resource == null)
+        {
+            return resources.get(key);
+        }
+
+        // decoded without holding the lock of this loader
+        return publish(key, resource, resource.get(), lazyResources, resources);
     }
 
     @Override
@@ -297,28 +758,44 @@ public class BaseResourceLoader implements ResourceLoader
     }
 
     /**
-     * Creates a new animation with the interval and images of the mapped one.
+     * Creates a new animation that plays the shared clip of the mapped one.
      *
      * @see bt.game.resource.load.intf.ResourceLoader#getAnimation(java.lang.String)
      */
     @Override
     public Animation getAnimation(String resourceName)
+    {
+        AnimationClip clip = getAnimationClip(resourceName);
+        return clip == null ? null : new Animation(clip);
+    }
+
+    /**
+     * Gets the clip of the mapped animation. The images of the clip are looked up on the first call only, later calls
+     * return the same clip.
+     *
+     * @see bt.game.resource.load.intf.ResourceLoader#getAnimationClip(java.lang.String)
+     */
+    @Override
+    public AnimationClip getAnimationClip(String resourceName)
     {
         if (this.killed)
         {
             throw new IllegalStateException("Killed ResourceLoader can't supply resources.");
         }
-        Animation mappedAnim = this.animations.get(resourceName.toUpperCase());
-        Animation createdAnim = null;
 
-        if (mappedAnim != null)
+        return this.clips.computeIfAbsent(resourceName.toUpperCase(), key ->
         {
-            createdAnim = new Animation(this,
-                                        mappedAnim.getTime(),
-                                        mappedAnim.getImageNames());
-        }
+            Animation mappedAnim = this.animations.get(key);
+
+            if (mappedAnim == null)
+            {
+                return null;
+            }
 
-        return createdAnim;
+            return mappedAnim.getClip() != null ? mappedAnim.getClip() : AnimationClip.resolve(this,
+                                                                                                mappedAnim.getTime(),
+                                                                                                mappedAnim.getImageNames());
+        });
     }
 
     /**
@@ -346,6 +823,9 @@ public class BaseResourceLoader implements ResourceLoader
     {
         Log.entry(name);
 
+        // scenes are loaded again on the same loader after they were killed, which must not suppress prefetching
+        this.killed = false;
+
         InstanceKiller.killOnShutdown(this, Integer.MIN_VALUE + 101);
 
         Map<String, Renderable> loadedRenderables;
@@ -1,26 +1,51 @@
 package bt.game.resource.load.impl;
 
+import bt.game.resource.load.cache.DecodedImageCache;
+import bt.game.resource.load.cache.ResourceCache;
 import bt.game.resource.load.exc.LoadException;
 import bt.game.resource.load.intf.Loadable;
 import bt.game.resource.load.intf.ResourceLoader;
 import bt.game.resource.render.impl.Cropping;
+import bt.game.resource.render.impl.ImageAcceleration;
 import bt.game.resource.render.impl.RenderableGif;
 import bt.game.resource.render.impl.RenderableImage;
+import bt.game.resource.render.impl.StreamedImage;
 import bt.game.resource.render.impl.anim.Animation;
+import bt.game.resource.render.impl.anim.AnimationClip;
+import bt.game.resource.render.impl.anim.GifDecoder;
+import bt.game.resource.render.impl.atlas.AtlasBuilder;
+import bt.game.resource.render.impl.atlas.AtlasCache;
+import bt.game.resource.render.impl.atlas.AtlasRegion;
+import bt.game.resource.render.impl.atlas.TextureAtlas;
+import bt.game.resource.render.impl.text.bitmap.BitmapFont;
+import bt.game.resource.render.impl.text.bitmap.BitmapFontCache;
 import bt.io.json.JSON;
 import bt.io.sound.SoundSupplier;
 import bt.log.Log;
 import bt.runtime.InstanceKiller;
 import bt.types.Killable;
-import bt.utils.ImageUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -30,7 +55,7 @@ import java.util.stream.Collectors;
  * <h3>The json (.res) file needs to be in the following format:</h3>
  *
  * <p>
- * The arrays 'images', 'gifs', 'sounds', 'files', 'fonts' and 'animations' are all optional. They can be empty, contain
+ * The arrays 'images', 'gifs', 'sounds', 'files', 'fonts', 'bitmapfonts' and 'animations' are all optional. They can be empty, contain
  * multiple entries or not exist at all. <br>
  * The alias will be the resource name that the resource is mapped by.
  * </p>
@@ -48,7 +73,15 @@ import java.util.stream.Collectors;
  * {
  * "path":"resource/images/test.png",
  * "alias":"test_image",
- * "ratio":"width:16:9"
+ * "ratio":"width:16:9",
+ * "acceleration":"volatile", //either 'none', 'compatible' (default) or 'volatile'
+ * "mipmap":true, //optional, use halved versions when the image is drawn much smaller than its size
+ * "priority":10 //optional, the order in which entries are streamed in lazy mode
+ * },
+ * {
+ * "path":"resource/images/player_walk_1.png",
+ * "alias":"player_walk_1",
+ * "atlas":"player" //images with the same atlas name are packed into shared sheets
  * },
  * ...
  * ],
@@ -56,7 +89,8 @@ import java.util.stream.Collectors;
  * [
  * {
  * "path":"resource/images/test.gif",
- * "alias":"test_gif"
+ * "alias":"test_gif", //the frames are mapped as 'test_gif#0', 'test_gif#1', ... and played via getAnimation("test_gif") or, on the wall clock, getRenderable("test_gif")
+ * "atlas":true //optional, packs the frames into an atlas named after the alias
  * },
  * ...
  * ],
@@ -87,6 +121,16 @@ import java.util.stream.Collectors;
  * },
  * ...
  * ],
+ * "bitmapfonts":
+ * [
+ * {
+ * "font":"test_font", //the alias of a font
+ * "alias":"test_bitmap_font",
+ * "size":32, //the pixel size that the glyphs are rendered in
+ * "characters":"0123456789:" //optional, all printable ASCII characters by default
+ * },
+ * ...
+ * ],
  * "animations":
  * [
  * {
@@ -104,13 +148,37 @@ import java.util.stream.Collectors;
  * }
  * </pre>
  *
+ * <p>
+ * Sounds, images, gifs and fonts are decoded concurrently, by up to {@link #setParallelism(int) a configurable number}
+ * of threads. They are added to this loader in the order in which they are defined once all of them have been read. If
+ * any of them fails, a single {@link LoadException} describing all failures is thrown.
+ * </p>
+ *
+ * <p>
+ * In {@link #setLazyLoading(boolean) lazy mode} sounds, images outside of atlases and fonts are not decoded while
+ * loading. They are streamed in the background by priority instead and decoded on demand if they are requested first.
+ * </p>
+ *
+ * <p>
+ * If a {@link #setResourceCache(ResourceCache) resource cache} is set, sounds, images outside of atlases, gifs and fonts
+ * are leased from it by their path and load parameters. Scenes that use the same cache then share those resources,
+ * including global ones, and a scene transition only decodes the resources that are not cached yet.
+ * </p>
+ *
  * @author &#8904
  */
 public class JsonResourceLoader extends BaseResourceLoader
 {
     private String resourceDir;
-    private File lastResourceFile;
+    protected File lastResourceFile;
     private String[] globalResNames;
+    private AtlasCache atlasCache;
+    private DecodedImageCache imageCache;
+    private BitmapFontCache bitmapFontCache;
+    private Map<String, JSONObject> fontEntries;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean lazyLoading;
+    private ResourceCache resourceCache;
 
     /**
      * Creates a new instance and sets the directory that contains the json files for the {@link #load(String)}
@@ -150,6 +218,7 @@ public class JsonResourceLoader extends BaseResourceLoader
     public JsonResourceLoader(String resourcePath)
     {
         this.resourceDir = resourcePath;
+        this.fontEntries = new HashMap<>();
     }
 
     /**
@@ -195,6 +264,7 @@ public class JsonResourceLoader extends BaseResourceLoader
     {
         this.resourceDir = resourcePath;
         this.globalResNames = globalResNames;
+        this.fontEntries = new HashMap<>();
     }
 
     /**
@@ -209,7 +279,7 @@ public class JsonResourceLoader extends BaseResourceLoader
      * <h3>The json (.res) file needs to be in the following format:</h3>
      *
      * <p>
-     * The arrays 'images', 'gifs', 'sounds', 'files', 'fonts' and 'animations' are all optional. They can be empty,
+     * The arrays 'images', 'gifs', 'sounds', 'files', 'fonts', 'bitmapfonts' and 'animations' are all optional. They can be empty,
      * contain multiple entries or not exist at all. <br>
      * The alias will be the resource name that the resource is mapped by. This is case insensitive.
      * </p>
@@ -227,7 +297,15 @@ public class JsonResourceLoader extends BaseResourceLoader
      * {
      * "path":"resource/images/test.png",
      * "alias":"test_image",
-     * "ratio":"width:16:9"
+     * "ratio":"width:16:9",
+     * "acceleration":"volatile", //either 'none', 'compatible' (default) or 'volatile'
+     * "mipmap":true, //optional, use halved versions when the image is drawn much smaller than its size
+     * "priority":10 //optional, the order in which entries are streamed in lazy mode
+     * },
+     * {
+     * "path":"resource/images/player_walk_1.png",
+     * "alias":"player_walk_1",
+     * "atlas":"player" //images with the same atlas name are packed into shared sheets
      * },
      * ...
      * ],
@@ -235,7 +313,8 @@ public class JsonResourceLoader extends BaseResourceLoader
      * [
      * {
      * "path":"resource/images/test.gif",
-     * "alias":"test_gif"
+     * "alias":"test_gif", //the frames are mapped as 'test_gif#0', 'test_gif#1', ... and played via getAnimation("test_gif") or, on the wall clock, getRenderable("test_gif")
+     * "atlas":true //optional, packs the frames into an atlas named after the alias
      * },
      * ...
      * ],
@@ -266,6 +345,16 @@ public class JsonResourceLoader extends BaseResourceLoader
      * },
      * ...
      * ],
+     * "bitmapfonts":
+     * [
+     * {
+     * "font":"test_font", //the alias of a font
+     * "alias":"test_bitmap_font",
+     * "size":32, //the pixel size that the glyphs are rendered in
+     * "characters":"0123456789:" //optional, all printable ASCII characters by default
+     * },
+     * ...
+     * ],
      * "animations":
      * [
      * {
@@ -296,6 +385,24 @@ public class JsonResourceLoader extends BaseResourceLoader
         Log.exit();
     }
 
+    /**
+     * Saves the {@link #setImageCacheDir(File) image cache} as well, so that the sources of images that were resolved
+     * lazily are not hashed again on the next start.
+     *
+     * @see bt.game.resource.load.impl.BaseResourceLoader#kill()
+     */
+    @Override
+    public void kill()
+    {
+        super.kill();
+        this.fontEntries.clear();
+
+        if (this.imageCache != null)
+        {
+            this.imageCache.save();
+        }
+    }
+
     protected void loadFromJson(String name, boolean globalLoading)
     {
         Log.entry(name, globalLoading);
@@ -311,119 +418,169 @@ public class JsonResourceLoader extends BaseResourceLoader
         JSONObject obj;
         String alias;
         String path;
-        float volume;
-        int concurrentPlays;
+        Map<JSONObject, Future<SoundSupplier>> sounds = new LinkedHashMap<>();
+        Map<JSONObject, Future<RenderableImage>> images = new LinkedHashMap<>();
+        Map<String, List<JSONObject>> atlasEntries = new LinkedHashMap<>();
+        Map<String, AtlasEntry> atlases = new LinkedHashMap<>();
+        Map<JSONObject, Future<AnimationClip>> gifs = new LinkedHashMap<>();
+        Map<JSONObject, Future<Font>> fonts = new LinkedHashMap<>();
 
-        if (json.has("sounds"))
+        // all entries are decoded concurrently first and then added in the order in which they are defined
+        try (LoadTasks tasks = new LoadTasks(this.parallelism))
         {
-            JSONArray soundArray = json.getJSONArray("sounds");
+            if (json.has("sounds"))
+            {
+                JSONArray soundArray = json.getJSONArray("sounds");
 
-            for (int i = 0; i < soundArray.length(); i++)
+                for (int i = 0; i < soundArray.length(); i++)
+                {
+                    JSONObject soundObj = soundArray.getJSONObject(i);
+
+                    if (this.lazyLoading)
+                    {
+                        addLazySound(soundObj.getString("alias"), () -> readCached("sound", soundObj, () -> readSound(soundObj), "concurrentplays", "volume", "volumecategory"), soundObj.optInt("priority", 0));
+                        continue;
+                    }
+
+                    sounds.put(soundObj,
+                               tasks.submit(String.format("[%s] Failed to load sound '%s' from path '%s'.",
+                                                          name,
+                                                          soundObj.getString("alias"),
+                                                          soundObj.getString("path")),
+                                            () -> readCached("sound", soundObj, () -> readSound(soundObj), "concurrentplays", "volume", "volumecategory")));
+                }
+            }
+
+            if (json.has("images"))
             {
-                obj = soundArray.getJSONObject(i);
-                alias = obj.getString("alias");
-                path = obj.getString("path");
-                volume = Float.parseFloat(obj.has("volume") ? obj.getString("volume") : "1.0");
-                concurrentPlays = Integer.parseInt(obj.getString("concurrentplays"));
+                JSONArray imageArray = json.getJSONArray("images");
 
-                try
+                for (int i = 0; i < imageArray.length(); i++)
                 {
-                    SoundSupplier supplier = new SoundSupplier(JsonResourceLoader.class.getResource(path), concurrentPlays);
+                    JSONObject imageObj = imageArray.getJSONObject(i);
 
-                    if (obj.has("volumecategory"))
+                    if (imageObj.has("atlas"))
                     {
-                        supplier.setSoundCategory(obj.getString("volumecategory"));
+                        atlasEntries.computeIfAbsent(imageObj.getString("atlas"), k -> new ArrayList<>()).add(imageObj);
+                        continue;
                     }
 
-                    supplier.setVolume(volume);
+                    if (this.lazyLoading)
+                    {
+                        addLazyImage(imageObj.getString("alias"), () -> readCached("image", imageObj, () -> readAcceleratedImage(imageObj), "ratio", "acceleration", "mipmap"), imageObj.optInt("priority", 0));
+                        continue;
+                    }
 
-                    add(alias, supplier);
-                    Log.info(String.format("[%s] Loaded sound '%s' from path '%s'.",
-                                           name,
-                                           alias,
-                                           path));
+                    images.put(imageObj,
+                               tasks.submit(String.format("[%s] Failed to load image '%s' from path '%s'.",
+                                                          name,
+                                                          imageObj.getString("alias"),
+                                                          imageObj.getString("path")),
+                                            () -> readCached("image", imageObj, () -> readAcceleratedImage(imageObj), "ratio", "acceleration", "mipmap")));
                 }
-                catch (Exception e)
+
+                for (Entry<String, List<JSONObject>> atlas : atlasEntries.entrySet())
                 {
-                    throw new LoadException(String.format("[%s] Failed to load sound '%s' from path '%s'.", name, alias, path), e);
+                    atlases.put(atlas.getKey(), prepareAtlas(name, atlas.getKey(), atlas.getValue(), tasks));
                 }
             }
-        }
-
-        if (json.has("images"))
-        {
-            JSONArray imageArray = json.getJSONArray("images");
-            String ratio = null;
-            String[] ratioParts = null;
-            RenderableImage image = null;
 
-            for (int i = 0; i < imageArray.length(); i++)
+            if (json.has("gifs"))
             {
-                obj = imageArray.getJSONObject(i);
-                alias = obj.getString("alias");
-                path = obj.getString("path");
-                ratio = null;
-                ratioParts = null;
+                JSONArray gifArray = json.getJSONArray("gifs");
 
-                if (obj.has("ratio"))
+                for (int i = 0; i < gifArray.length(); i++)
                 {
-                    ratio = obj.getString("ratio");
-                    ratioParts = ratio.split(":");
+                    JSONObject gifObj = gifArray.getJSONObject(i);
+                    gifs.put(gifObj,
+                             tasks.submit(String.format("[%s] Failed to load gif '%s' from path '%s'.",
+                                                        name,
+                                                        gifObj.getString("alias"),
+                                                        gifObj.getString("path")),
+                                          () -> readCached("gif",
+                                                           gifObj,
+                                                           () -> GifDecoder.decode(JsonResourceLoader.class.getResourceAsStream(gifObj.getString("path")),
+                                                                                   gifObj.getString("alias")),
+                                                           "alias")));
                 }
+            }
 
-                try
+            if (json.has("fonts"))
+            {
+                JSONArray fontArray = json.getJSONArray("fonts");
+
+                for (int i = 0; i < fontArray.length(); i++)
                 {
-                    image = new RenderableImage(ImageIO.read(JsonResourceLoader.class.getResourceAsStream(path)));
+                    JSONObject fontObj = fontArray.getJSONObject(i);
+
+                    // bitmap fonts use the source of their font to detect outdated cache entries
+                    this.fontEntries.put(fontObj.getString("alias").toUpperCase(), fontObj);
 
-                    if (ratio != null)
+                    if (this.lazyLoading)
                     {
-                        if (ratioParts[0].equalsIgnoreCase("height"))
-                        {
-                            image = image.crop(Cropping.MAINTAIN_HEIGHT, Integer.parseInt(ratioParts[1]), Integer.parseInt(ratioParts[2]));
-                        }
-                        else
-                        {
-                            image = image.crop(Cropping.MAINTAIN_WIDTH, Integer.parseInt(ratioParts[1]), Integer.parseInt(ratioParts[2]));
-                        }
+                        addLazyFont(fontObj.getString("alias"), () -> readCached("font", fontObj, () -> readFont(fontObj), "type"), fontObj.optInt("priority", 0));
+                        continue;
                     }
 
-                    add(alias, image);
-                    Log.info(String.format("[%s] Loaded image '%s' from path '%s'.",
-                                           name,
-                                           alias,
-                                           path));
-                }
-                catch (Exception e)
-                {
-                    throw new LoadException(String.format("[%s] Failed to load image '%s' from path '%s'.", name, alias, path), e);
+                    fonts.put(fontObj,
+                              tasks.submit(String.format("[%s] Failed to load font '%s' from path '%s'.",
+                                                         name,
+                                                         fontObj.getString("alias"),
+                                                         fontObj.getString("path")),
+                                           () -> readCached("font", fontObj, () -> readFont(fontObj), "type")));
                 }
             }
-        }
 
-        if (json.has("gifs"))
-        {
-            JSONArray imageArray = json.getJSONArray("gifs");
+            tasks.await(name);
 
-            for (int i = 0; i < imageArray.length(); i++)
+            for (Entry<JSONObject, Future<SoundSupplier>> sound : sounds.entrySet())
             {
-                obj = imageArray.getJSONObject(i);
-                alias = obj.getString("alias");
-                path = obj.getString("path");
+                alias = sound.getKey().getString("alias");
+                path = sound.getKey().getString("path");
+                add(alias, tasks.get(sound.getValue()));
+                Log.info(String.format("[%s] Loaded sound '%s' from path '%s'.",
+                                       name,
+                                       alias,
+                                       path));
+            }
 
-                try
-                {
-                    add(alias,
-                        new RenderableGif(ImageUtils.getImageIcon(JsonResourceLoader.class.getResourceAsStream(path))));
-                    Log.info(String.format("[%s] Loaded gif '%s' from path '%s'.",
-                                           name,
-                                           alias,
-                                           path));
-                }
-                catch (Exception e)
-                {
-                    throw new LoadException(String.format("[%s] Failed to load gif '%s' from path '%s'.", name, alias, path), e);
-                }
+            for (Entry<JSONObject, Future<RenderableImage>> image : images.entrySet())
+            {
+                alias = image.getKey().getString("alias");
+                path = image.getKey().getString("path");
+                add(alias, tasks.get(image.getValue()));
+                Log.info(String.format("[%s] Loaded image '%s' from path '%s'.",
+                                       name,
+                                       alias,
+                                       path));
+            }
+
+            for (AtlasEntry atlas : atlases.values())
+            {
+                loadAtlas(name, atlas, tasks);
             }
+
+            for (Entry<JSONObject, Future<AnimationClip>> gif : gifs.entrySet())
+            {
+                loadGif(name, gif.getKey(), tasks.get(gif.getValue()));
+            }
+
+            for (Entry<JSONObject, Future<Font>> font : fonts.entrySet())
+            {
+                alias = font.getKey().getString("alias");
+                path = font.getKey().getString("path");
+                add(alias, tasks.get(font.getValue()));
+                Log.info(String.format("[%s] Loaded font '%s' from path '%s'.",
+                                       name,
+                                       alias,
+                                       path));
+            }
+        }
+
+        if (this.imageCache != null)
+        {
+            // images that are resolved lazily later on are remembered by the next save
+            this.imageCache.save();
         }
 
         if (json.has("files"))
@@ -444,32 +601,13 @@ public class JsonResourceLoader extends BaseResourceLoader
             }
         }
 
-        if (json.has("fonts"))
+        if (json.has("bitmapfonts"))
         {
-            JSONArray fontArray = json.getJSONArray("fonts");
-            String type;
+            JSONArray fontArray = json.getJSONArray("bitmapfonts");
 
             for (int i = 0; i < fontArray.length(); i++)
             {
-                obj = fontArray.getJSONObject(i);
-                alias = obj.getString("alias");
-                path = obj.getString("path");
-                type = obj.getString("type");
-
-                try
-                {
-                    add(alias,
-                        Font.createFont(type.equalsIgnoreCase("truetype") ? Font.TRUETYPE_FONT : Font.TYPE1_FONT,
-                                        JsonResourceLoader.class.getResourceAsStream(path)));
-                    Log.info(String.format("[%s] Loaded font '%s' from path '%s'.",
-                                           name,
-                                           alias,
-                                           path));
-                }
-                catch (Exception e)
-                {
-                    throw new LoadException(String.format("[%s] Failed to load font '%s' from path '%s'.", name, alias, path), e);
-                }
+                loadBitmapFont(name, fontArray.getJSONObject(i));
             }
         }
 
@@ -480,7 +618,7 @@ public class JsonResourceLoader extends BaseResourceLoader
             JSONObject jsonImage;
             String type;
             int interval = 0;
-            String[] images;
+            String[] imageNames;
 
             for (int i = 0; i < animationArray.length(); i++)
             {
@@ -488,11 +626,11 @@ public class JsonResourceLoader extends BaseResourceLoader
                 alias = obj.getString("alias");
                 interval = obj.getInt("interval");
                 imageArray = obj.getJSONArray("images");
-                images = new String[imageArray.length()];
+                imageNames = new String[imageArray.length()];
 
                 for (int j = 0; j < imageArray.length(); j++)
                 {
-                    images[j] = imageArray.getString(j);
+                    imageNames[j] = imageArray.getString(j);
                 }
 
                 try
@@ -500,7 +638,7 @@ public class JsonResourceLoader extends BaseResourceLoader
                     add(alias,
                         new Animation(this,
                                       interval,
-                                      images));
+                                      imageNames));
                     Log.info(String.format("[%s] Loaded animation '%s' defined in '%s'.",
                                            name,
                                            alias,
@@ -527,6 +665,610 @@ public class JsonResourceLoader extends BaseResourceLoader
         Log.exit();
     }
 
+    /**
+     * Maps the frames and the clip of a decoded gif and a {@link RenderableGif} showing its first frame.
+     *
+     * <p>
+     * The frames are mapped as <i>alias#index</i> and packed into an atlas named after the gif if the entry has an
+     * 'atlas' value of true. The clip is mapped as an animation under the alias of the gif.
+     * </p>
+     */
+    private void loadGif(String name, JSONObject obj, AnimationClip clip)
+    {
+        String alias = obj.getString("alias");
+        String path = obj.getString("path");
+        String[] frameNames = clip.getImageNames();
+
+        if (obj.optBoolean("atlas", false))
+        {
+            AtlasBuilder builder = new AtlasBuilder(alias);
+
+            for (int i = 0; i < frameNames.length; i++)
+            {
+                builder.add(frameNames[i], (BufferedImage)clip.getFrame(i).getImage());
+            }
+
+            RenderableImage[] frames = new RenderableImage[frameNames.length];
+            long[] frameTimes = new long[frameNames.length];
+
+            for (TextureAtlas atlas : builder.build())
+            {
+                add(atlas.getName(), atlas);
+
+                for (String regionName : atlas.getRegionNames())
+                {
+                    int index = Integer.parseInt(regionName.substring(regionName.lastIndexOf('#') + 1));
+                    frames[index] = atlas.getRegion(regionName);
+                    frameTimes[index] = clip.getFrameTime(index);
+                }
+            }
+
+            clip = new AnimationClip(frameNames, frames, frameTimes);
+        }
+
+        for (int i = 0; i < frameNames.length; i++)
+        {
+            add(frameNames[i], clip.getFrame(i));
+        }
+
+        RenderableGif gif = new RenderableGif(clip);
+
+        if (this.resourceCache != null && !obj.optBoolean("atlas", false))
+        {
+            // the gif shows the first frame of the cached clip
+            share(gif);
+        }
+
+        add(alias, gif);
+        add(alias, new Animation(clip));
+        Log.info(String.format("[%s] Loaded gif '%s' with %d frames from path '%s'.",
+                               name,
+                               alias,
+                               frameNames.length,
+                               path));
+    }
+
+    /**
+     * Reads a resource through the {@link #setResourceCache(ResourceCache) resource cache} if one is set and directly
+     * via the given reader otherwise.
+     *
+     * @param type   The resource type, part of the cache key.
+     * @param obj    The json object of the entry.
+     * @param reader The function that reads the resource.
+     * @param params The names of the json values that change the read resource and are thus part of the cache key.
+     * @return The resource.
+     * @throws Exception if the resource could not be read.
+     */
+    private <T> T readCached(String type, JSONObject obj, Callable<T> reader, String... params) throws Exception
+    {
+        if (this.resourceCache == null)
+        {
+            return reader.call();
+        }
+
+        StringBuilder key = new StringBuilder(type).append(':').append(obj.getString("path"));
+
+        for (String param : params)
+        {
+            key.append('|').append(param).append('=').append(obj.opt(param));
+        }
+
+        return lease(this.resourceCache, key.toString(), reader);
+    }
+
+    /**
+     * Gets the URL of the file of the given sound or font entry.
+     *
+     * <p>
+     * The default implementation resolves the 'path' on the classpath. Subclasses can override this to read sounds and
+     * fonts from a different source. Caching, lazy loading and priorities are applied by the caller.
+     * </p>
+     *
+     * @param obj The json object of the entry.
+     * @return The URL.
+     * @throws IOException if there is no such resource.
+     */
+    protected URL getResourceUrl(JSONObject obj) throws IOException
+    {
+        URL url = JsonResourceLoader.class.getResource(obj.getString("path"));
+
+        if (url == null)
+        {
+            throw new IOException("Resource not found: " + obj.getString("path"));
+        }
+
+        return url;
+    }
+
+    /**
+     * Creates the sound supplier defined by the given json object.
+     */
+    private SoundSupplier readSound(JSONObject obj) throws Exception
+    {
+        float volume = Float.parseFloat(obj.has("volume") ? obj.getString("volume") : "1.0");
+        int concurrentPlays = Integer.parseInt(obj.getString("concurrentplays"));
+        SoundSupplier supplier = new SoundSupplier(getResourceUrl(obj), concurrentPlays);
+
+        if (obj.has("volumecategory"))
+        {
+            supplier.setSoundCategory(obj.getString("volumecategory"));
+        }
+
+        supplier.setVolume(volume);
+        return supplier;
+    }
+
+    /**
+     * Reads the image defined by the given json object and applies its 'acceleration' and 'mipmap' settings.
+     */
+    private RenderableImage readAcceleratedImage(JSONObject obj) throws IOException
+    {
+        ImageAcceleration acceleration = ImageAcceleration.COMPATIBLE;
+
+        if (obj.has("acceleration"))
+        {
+            String value = obj.getString("acceleration");
+
+            try
+            {
+                acceleration = ImageAcceleration.valueOf(value.toUpperCase());
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new LoadException(String.format("Failed to load image '%s'. Unknown acceleration '%s', allowed values are %s.",
+                                                      obj.getString("alias"),
+                                                      value,
+                                                      Arrays.toString(ImageAcceleration.values())),
+                                        e);
+            }
+        }
+
+        RenderableImage image = readImage(obj).accelerated(acceleration);
+
+        if (obj.has("mipmap"))
+        {
+            image.setMipmapped(obj.getBoolean("mipmap"));
+        }
+
+        return image;
+    }
+
+    /**
+     * Reads the font defined by the given json object.
+     */
+    private Font readFont(JSONObject obj) throws IOException, FontFormatException
+    {
+        String type = obj.getString("type");
+
+        try (InputStream in = getResourceUrl(obj).openStream())
+        {
+            return Font.createFont(type.equalsIgnoreCase("truetype") ? Font.TRUETYPE_FONT : Font.TYPE1_FONT, in);
+        }
+    }
+
+    /**
+     * Reads the image defined by the given json object and applies the optional 'ratio' cropping. If an
+     * {@link #setImageCacheDir(File) image cache} is set, the cropped image is taken from it if the source did not
+     * change.
+     *
+     * <p>
+     * Subclasses can override this to read images from a different source. The 'acceleration' and 'mipmap' settings,
+     * caching, lazy loading and priorities are applied by the caller.
+     * </p>
+     *
+     * @param obj The json object of the image entry.
+     * @return The read image.
+     * @throws IOException if the image could not be read.
+     */
+    protected RenderableImage readImage(JSONObject obj) throws IOException
+    {
+        if (this.imageCache == null)
+        {
+            return decodeImage(obj);
+        }
+
+        URL url = JsonResourceLoader.class.getResource(obj.getString("path"));
+
+        if (url == null)
+        {
+            throw new IOException("Resource not found: " + obj.getString("path"));
+        }
+
+        try
+        {
+            return new RenderableImage(this.imageCache.load(url,
+                                                            "ratio=" + (obj.has("ratio") ? obj.getString("ratio") : ""),
+                                                            () -> (BufferedImage)decodeImage(obj).getImage()));
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException("Failed to read image '" + obj.getString("path") + "'.", e);
+        }
+    }
+
+    /**
+     * Decodes the image defined by the given json object and applies the optional 'ratio' cropping.
+     */
+    private RenderableImage decodeImage(JSONObject obj) throws IOException
+    {
+        return decodeImage(obj.getString("path"), obj.has("ratio") ? obj.getString("ratio") : null);
+    }
+
+    /**
+     * Decodes the image at the given classpath location and applies a 'ratio' cropping in the format of .res image
+     * entries. The {@link bt.game.resource.load.pack.ResourcePackCompiler ResourcePackCompiler} uses this as well, so
+     * packed images are cropped exactly like loaded ones.
+     *
+     * @param path  The classpath location of the image.
+     * @param ratio The ratio, i.e. 'width:16:9', or null to keep the image as it is.
+     * @return The decoded image.
+     * @throws IOException if the image could not be found or decoded.
+     */
+    public static RenderableImage decodeImage(String path, String ratio) throws IOException
+    {
+        BufferedImage decoded;
+
+        try (InputStream in = JsonResourceLoader.class.getResourceAsStream(path))
+        {
+            if (in == null)
+            {
+                throw new IOException("Resource not found: " + path);
+            }
+
+            decoded = ImageIO.read(in);
+        }
+
+        if (decoded == null)
+        {
+            throw new IOException("No image reader for '" + path + "'.");
+        }
+
+        RenderableImage image = new RenderableImage(decoded);
+
+        if (ratio != null)
+        {
+            String[] ratioParts = ratio.split(":");
+
+            if (ratioParts[0].equalsIgnoreCase("height"))
+            {
+                image = image.crop(Cropping.MAINTAIN_HEIGHT, Integer.parseInt(ratioParts[1]), Integer.parseInt(ratioParts[2]));
+            }
+            else
+            {
+                image = image.crop(Cropping.MAINTAIN_WIDTH, Integer.parseInt(ratioParts[1]), Integer.parseInt(ratioParts[2]));
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Looks up the cached atlases for the given image entries. If there are none, the images are submitted to the given
+     * tasks, so that they are read concurrently with the other resources.
+     *
+     * <p>
+     * Cached atlases are only used if an atlas cache directory was set via {@link #setAtlasCacheDir(File)} and the
+     * cache contains an entry for the same images.
+     * </p>
+     *
+     * @param name      The context name.
+     * @param atlasName The name of the atlas.
+     * @param entries   The json objects of the image entries.
+     * @param tasks     The tasks to submit image reads to.
+     * @return The prepared atlas.
+     */
+    private AtlasEntry prepareAtlas(String name, String atlasName, List<JSONObject> entries, LoadTasks tasks)
+    {
+        AtlasEntry atlas = new AtlasEntry(atlasName);
+
+        try
+        {
+            if (this.atlasCache != null)
+            {
+                atlas.key = createAtlasKey(entries);
+                atlas.atlases = this.atlasCache.load(name, atlasName, atlas.key);
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error(String.format("[%s] Failed to read cached atlas '%s'. Packing images again.", name, atlasName), e);
+        }
+
+        if (atlas.atlases == null)
+        {
+            for (JSONObject obj : entries)
+            {
+                atlas.images.put(obj.getString("alias"),
+                                 tasks.submit(String.format("[%s] Failed to load image '%s' from path '%s'.",
+                                                            name,
+                                                            obj.getString("alias"),
+                                                            obj.getString("path")),
+                                              () -> (BufferedImage)readImage(obj).getImage()));
+            }
+        }
+
+        return atlas;
+    }
+
+    /**
+     * Packs the read images of the given atlas into one or more {@link TextureAtlas atlases}, unless cached atlases
+     * were found, and adds an {@link AtlasRegion} for each entry. The atlases themselves are added as objects by their
+     * names.
+     *
+     * @param name  The context name.
+     * @param atlas The prepared atlas.
+     * @param tasks The tasks that the images were read by.
+     */
+    private void loadAtlas(String name, AtlasEntry atlas, LoadTasks tasks)
+    {
+        List<TextureAtlas> atlases = atlas.atlases;
+
+        if (atlases == null)
+        {
+            AtlasBuilder builder = new AtlasBuilder(atlas.name);
+
+            for (Entry<String, Future<BufferedImage>> image : atlas.images.entrySet())
+            {
+                builder.add(image.getKey(), tasks.get(image.getValue()));
+            }
+
+            atlases = builder.build();
+
+            if (this.atlasCache != null)
+            {
+                try
+                {
+                    this.atlasCache.save(name, atlas.name, atlas.key, atlases);
+                }
+                catch (IOException e)
+                {
+                    Log.error(String.format("[%s] Failed to cache atlas '%s'.", name, atlas.name), e);
+                }
+            }
+        }
+
+        for (TextureAtlas textureAtlas : atlases)
+        {
+            add(textureAtlas.getName(), textureAtlas);
+
+            for (String regionName : textureAtlas.getRegionNames())
+            {
+                add(regionName, textureAtlas.getRegion(regionName));
+            }
+
+            Log.info(String.format("[%s] Loaded atlas '%s' with %d images.",
+                                   name,
+                                   textureAtlas.getName(),
+                                   textureAtlas.getRegionNames().size()));
+        }
+    }
+
+    /**
+     * Creates the cache key for the given atlas entries from their attributes and the size and modification time of
+     * their source files.
+     */
+    private String createAtlasKey(List<JSONObject> entries) throws IOException
+    {
+        List<String> parts = new ArrayList<>();
+
+        for (JSONObject obj : entries)
+        {
+            String path = obj.getString("path");
+            URL url = JsonResourceLoader.class.getResource(path);
+
+            if (url == null)
+            {
+                throw new IOException("Resource not found: " + path);
+            }
+
+            URLConnection connection = url.openConnection();
+
+            try (InputStream in = connection.getInputStream())
+            {
+                parts.add(obj.getString("alias"));
+                parts.add(path);
+                parts.add(obj.has("ratio") ? obj.getString("ratio") : "");
+                parts.add(String.valueOf(connection.getLastModified()));
+                parts.add(String.valueOf(connection.getContentLengthLong()));
+            }
+        }
+
+        return AtlasCache.createKey(parts.toArray(new String[parts.size()]));
+    }
+
+    /**
+     * Creates the cache key of a bitmap font. Besides the font, size and characters it contains the path, modification
+     * time and size of the source of the font, if the font was loaded from a resource file, so that replacing the font
+     * file invalidates the baked sheet.
+     */
+    private String createBitmapFontKey(String fontAlias, Font font, float size, String characters) throws IOException
+    {
+        List<String> parts = new ArrayList<>();
+        parts.add(font.getFontName());
+        parts.add(String.valueOf(font.getStyle()));
+        parts.add(String.valueOf(size));
+        parts.add(characters);
+
+        JSONObject fontObj = this.fontEntries.get(fontAlias.toUpperCase());
+
+        if (fontObj != null)
+        {
+            URL url = getResourceUrl(fontObj);
+            URLConnection connection = url.openConnection();
+
+            try (InputStream in = connection.getInputStream())
+            {
+                parts.add(url.toExternalForm());
+                parts.add(String.valueOf(connection.getLastModified()));
+                parts.add(String.valueOf(connection.getContentLengthLong()));
+            }
+        }
+
+        return AtlasCache.createKey(parts.toArray(new String[parts.size()]));
+    }
+
+    /**
+     * Bakes the bitmap font of the given entry from a previously loaded font and adds it as an object by its alias.
+     *
+     * <p>
+     * If a bitmap font cache directory was set via {@link #setBitmapFontCacheDir(File)} and the cache contains an entry
+     * for the same font file, size and characters, the cached font is used instead.
+     * </p>
+     *
+     * @param name The context name.
+     * @param obj  The json object of the entry.
+     */
+    private void loadBitmapFont(String name, JSONObject obj)
+    {
+        String alias = obj.getString("alias");
+        String fontAlias = obj.getString("font");
+        float size = (float)obj.getDouble("size");
+        String characters = obj.has("characters") ? obj.getString("characters") : BitmapFont.DEFAULT_CHARACTERS;
+        Font font = getFont(fontAlias);
+
+        if (font == null)
+        {
+            throw new LoadException(String.format("[%s] Failed to load bitmap font '%s'. Font '%s' does not exist.", name, alias, fontAlias));
+        }
+
+        BitmapFont bitmapFont = null;
+        String key = null;
+
+        try
+        {
+            if (this.bitmapFontCache != null)
+            {
+                key = createBitmapFontKey(fontAlias, font, size, characters);
+                bitmapFont = this.bitmapFontCache.load(alias, key, font);
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error(String.format("[%s] Failed to read cached bitmap font '%s'. Baking it again.", name, alias), e);
+        }
+
+        if (bitmapFont == null)
+        {
+            bitmapFont = BitmapFont.bake(font, size, characters);
+
+            if (this.bitmapFontCache != null && key != null)
+            {
+                try
+                {
+                    this.bitmapFontCache.save(alias, key, bitmapFont);
+                }
+                catch (IOException e)
+                {
+                    Log.error(String.format("[%s] Failed to cache bitmap font '%s'.", name, alias), e);
+                }
+            }
+        }
+
+        add(alias, bitmapFont);
+        Log.info(String.format("[%s] Loaded bitmap font '%s' from font '%s' with size %s.",
+                               name,
+                               alias,
+                               fontAlias,
+                               size));
+    }
+
+    /**
+     * Sets the directory in which baked bitmap fonts are cached. Without a cache directory bitmap fonts are baked on
+     * every load.
+     *
+     * @param bitmapFontCacheDir The cache directory or null to disable caching.
+     */
+    public void setBitmapFontCacheDir(File bitmapFontCacheDir)
+    {
+        this.bitmapFontCache = bitmapFontCacheDir == null ? null : new BitmapFontCache(bitmapFontCacheDir);
+    }
+
+    /**
+     * Sets the maximum number of resources that are decoded at the same time. Defaults to the number of available
+     * processors.
+     *
+     * @param parallelism The number of resources. 1 to load all resources one after another on the loading thread.
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets whether sounds, images that are not part of an atlas and fonts are decoded lazily.
+     *
+     * <p>
+     * In lazy mode these entries are only registered while loading and are decoded in the background, ordered by the
+     * optional 'priority' value of their entry (higher first, negative values are only decoded on demand). Requesting
+     * an entry that has not been decoded yet decodes it immediately, or returns a {@link StreamedImage} showing the
+     * {@link #setPlaceholder(RenderableImage) placeholder} for images if one is set.
+     * </p>
+     *
+     * @param lazyLoading true to decode entries lazily.
+     */
+    public void setLazyLoading(boolean lazyLoading)
+    {
+        this.lazyLoading = lazyLoading;
+    }
+
+    public boolean isLazyLoading()
+    {
+        return this.lazyLoading;
+    }
+
+    /**
+     * Sets the cache that sounds, images outside of atlases, gifs and fonts are leased from. Use
+     * {@link ResourceCache#get()} to share resources with the loaders of all other scenes.
+     *
+     * <p>
+     * Leased resources are not disposed when this loader is killed. They stay in the cache until no loader uses them
+     * anymore and the cache runs out of space for unused resources.
+     * </p>
+     *
+     * @param resourceCache The cache or null to decode all resources for this loader only.
+     */
+    public void setResourceCache(ResourceCache resourceCache)
+    {
+        this.resourceCache = resourceCache;
+    }
+
+    public ResourceCache getResourceCache()
+    {
+        return this.resourceCache;
+    }
+
+    /**
+     * Sets the directory in which packed atlases are cached. Without a cache directory atlases are packed on every
+     * load.
+     *
+     * @param atlasCacheDir The cache directory or null to disable caching.
+     */
+    public void setAtlasCacheDir(File atlasCacheDir)
+    {
+        this.atlasCache = atlasCacheDir == null ? null : new AtlasCache(atlasCacheDir);
+    }
+
+    /**
+     * Sets the directory in which decoded and cropped images are cached. Without a cache directory images are decoded
+     * on every load.
+     *
+     * @param imageCacheDir The cache directory or null to disable caching.
+     * @see DecodedImageCache
+     */
+    public void setImageCacheDir(File imageCacheDir)
+    {
+        this.imageCache = imageCacheDir == null ? null : DecodedImageCache.get(imageCacheDir);
+    }
+
     /**
      * Attempts to find a file with the given name inside the defined directory (see the constructor). The first file
      * with the correct (case insensitive) name will be used. This method will try to parse the file content as json and
@@ -540,7 +1282,7 @@ public class JsonResourceLoader extends BaseResourceLoader
      *
      * @return The parsed json from the file or null if parsing failed for any reason.
      */
-    private JSONObject getJsonForName(String name)
+    protected JSONObject getJsonForName(String name)
     {
         String jsonString = null;
         String path = this.resourceDir + "/" + name + ".res";
@@ -559,4 +1301,20 @@ public class JsonResourceLoader extends BaseResourceLoader
 
         return JSON.parse(jsonString);
     }
-}
\ No newline at end of file
+
+    /**
+     * The state of an atlas between reading its images and packing them.
+     */
+    private static class AtlasEntry
+    {
+        private String name;
+        private String key;
+        private List<TextureAtlas> atlases;
+        private Map<String, Future<BufferedImage>> images = new LinkedHashMap<>();
+
+        private AtlasEntry(String name)
+        {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package bt.game.resource.load.impl;
+
+import bt.game.resource.load.exc.LoadException;
+import bt.log.Log;
+import bt.types.Killable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A resource that is only decoded when it is first requested or when a background thread gets to prefetch it.
+ *
+ * <p>
+ * The resource is decoded at most once, no matter how many threads request it. A thread that requests a resource that
+ * is currently being decoded by another thread waits for the result.
+ * </p>
+ *
+ * <p>
+ * Instances are ordered by their priority, higher priorities first. Resources with the same priority keep the order in
+ * which they were created.
+ * </p>
+ *
+ * @author &#8904
+ */
+class LazyResource<T> implements Runnable, Comparable<LazyResource<?>>
+{
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private String name;
+    private Task task;
+    private T previous;
+    private volatile int priority;
+    private long order;
+    private List<Consumer<T>> listeners;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name     The resource name used in error messages.
+     * @param loader   The function that decodes the resource.
+     * @param priority The prefetch priority.
+     * @param previous The resource that was previously mapped by the same name or null.
+     */
+    LazyResource(String name, Callable<T> loader, int priority, T previous)
+    {
+        this.name = name;
+        this.task = new Task(loader);
+        this.priority = priority;
+        this.previous = previous;
+        this.order = sequence.incrementAndGet();
+        this.listeners = new ArrayList<>();
+    }
+
+    /**
+     * Decodes the resource if that has not happened yet.
+     *
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run()
+    {
+        this.task.run();
+    }
+
+    /**
+     * Gets the resource and decodes it on the calling thread if no other thread has started yet.
+     *
+     * @return The resource.
+     * @throws LoadException if the resource could not be decoded.
+     */
+    T get()
+    {
+        this.task.run();
+
+        try
+        {
+            return this.task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new LoadException(String.format("Interrupted while loading resource '%s'.", this.name), e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new LoadException(String.format("Failed to load resource '%s'.", this.name), e.getCause());
+        }
+    }
+
+    boolean isDone()
+    {
+        return this.task.isDone();
+    }
+
+    /**
+     * Adds an action that receives the resource once it has been decoded successfully. If it already has been, the
+     * action is executed immediately.
+     *
+     * @param listener The action.
+     */
+    void onLoaded(Consumer<T> listener)
+    {
+        synchronized (this.listeners)
+        {
+            if (!this.task.isDone())
+            {
+                this.listeners.add(listener);
+                return;
+            }
+        }
+
+        T value = this.task.getValue();
+
+        if (value != null)
+        {
+            listener.accept(value);
+        }
+    }
+
+    /**
+     * Stops a pending decode and kills the resource if it has already been decoded and is disposable.
+     *
+     * @param disposable Tests whether the decoded resource may be killed, i.e. is not shared.
+     */
+    void cancel(Predicate<Object> disposable)
+    {
+        this.task.cancel(true);
+
+        T value = this.task.getValue();
+
+        if (value instanceof Killable && disposable.test(value))
+        {
+            ((Killable)value).kill();
+        }
+    }
+
+    /**
+     * Gets the resource that was mapped by the same name before this one was added.
+     *
+     * @return The previous resource or null.
+     */
+    T getPrevious()
+    {
+        return this.previous;
+    }
+
+    int getPriority()
+    {
+        return this.priority;
+    }
+
+    void setPriority(int priority)
+    {
+        this.priority = priority;
+    }
+
+    /**
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(LazyResource<?> other)
+    {
+        int result = Integer.compare(other.priority, this.priority);
+        return result != 0 ? result : Long.compare(this.order, other.order);
+    }
+
+    private class Task extends FutureTask<T>
+    {
+        private Task(Callable<T> loader)
+        {
+            super(loader);
+        }
+
+        /**
+         * Gets the result if the task has completed successfully.
+         *
+         * @return The result or null.
+         */
+        private T getValue()
+        {
+            if (!isDone() || isCancelled())
+            {
+                return null;
+            }
+
+            try
+            {
+                return get();
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                return null;
+            }
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#done()
+         */
+        @Override
+        protected void done()
+        {
+            List<Consumer<T>> listeners;
+
+            synchronized (LazyResource.this.listeners)
+            {
+                listeners = new ArrayList<>(LazyResource.this.listeners);
+                LazyResource.this.listeners.clear();
+            }
+
+            T value = getValue();
+
+            if (value == null)
+            {
+                if (!isCancelled())
+                {
+                    try
+                    {
+                        get();
+                    }
+                    catch (InterruptedException | ExecutionException e)
+                    {
+                        Log.error(String.format("Failed to load resource '%s'.", LazyResource.this.name), e);
+                    }
+                }
+
+                return;
+            }
+
+            for (Consumer<T> listener : listeners)
+            {
+                listener.accept(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package bt.game.resource.load.impl;
+
+import bt.game.resource.load.exc.LoadException;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the decoding work of a resource file concurrently.
+ *
+ * <p>
+ * Tasks are executed on virtual threads if the runtime supports them and on a pool of daemon threads otherwise. In both
+ * cases no more than the given number of tasks run at the same time. With a parallelism of 1 tasks are run directly on
+ * the calling thread when they are submitted.
+ * </p>
+ *
+ * <p>
+ * Failures do not stop the remaining tasks. {@link #await(String)} waits for all tasks and reports every failure in a
+ * single {@link LoadException}.
+ * </p>
+ *
+ * @author &#8904
+ */
+class LoadTasks implements AutoCloseable
+{
+    private static final Method virtualExecutorFactory = findVirtualExecutorFactory();
+
+    private ExecutorService executor;
+    private Semaphore permits;
+    private List<Task<?>> tasks;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param parallelism The maximum number of tasks that run at the same time.
+     */
+    LoadTasks(int parallelism)
+    {
+        this.tasks = new ArrayList<>();
+
+        if (parallelism > 1)
+        {
+            this.executor = createExecutor(parallelism);
+            this.permits = new Semaphore(parallelism);
+        }
+    }
+
+    /**
+     * Submits the given task.
+     *
+     * @param errorMessage The message that describes a failure of the task.
+     * @param task         The task.
+     * @return The future result of the task.
+     */
+    <T> Future<T> submit(String errorMessage, Callable<T> task)
+    {
+        FutureTask<T> future = new FutureTask<>(() ->
+                                                {
+                                                    if (this.permits == null)
+                                                    {
+                                                        return task.call();
+                                                    }
+
+                                                    this.permits.acquire();
+
+                                                    try
+                                                    {
+                                                        return task.call();
+                                                    }
+                                                    finally
+                                                    {
+                                                        this.permits.release();
+                                                    }
+                                                });
+
+        this.tasks.add(new Task<>(errorMessage, future));
+
+        if (this.executor == null)
+        {
+            future.run();
+        }
+        else
+        {
+            this.executor.execute(future);
+        }
+
+        return future;
+    }
+
+    /**
+     * Waits for all submitted tasks.
+     *
+     * @param name The context name used in the exception message.
+     * @throws LoadException if at least one task failed. The first failure is the cause, all further ones are
+     *                       suppressed exceptions.
+     */
+    void await(String name)
+    {
+        LoadException exception = null;
+        int failures = 0;
+
+        for (Task<?> task : this.tasks)
+        {
+            try
+            {
+                task.future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new LoadException(String.format("[%s] Interrupted while loading resources.", name), e);
+            }
+            catch (ExecutionException e)
+            {
+                LoadException failure = new LoadException(task.errorMessage, e.getCause());
+                failures++;
+
+                if (exception == null)
+                {
+                    exception = failure;
+                }
+                else
+                {
+                    exception.addSuppressed(failure);
+                }
+            }
+        }
+
+        if (failures == 1)
+        {
+            throw exception;
+        }
+        else if (failures > 1)
+        {
+            LoadException aggregated = new LoadException(String.format("[%s] Failed to load %d resources. First failure: %s",
+                                                                       name,
+                                                                       failures,
+                                                                       exception.getMessage()),
+                                                         exception.getCause());
+
+            for (Throwable suppressed : exception.getSuppressed())
+            {
+                aggregated.addSuppressed(suppressed);
+            }
+
+            throw aggregated;
+        }
+    }
+
+    /**
+     * Gets the result of a task that finished successfully. Must only be called after {@link #await(String)}.
+     *
+     * @param future The future returned by {@link #submit(String, Callable)}.
+     * @return The result.
+     */
+    <T> T get(Future<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            throw new IllegalStateException("Task has not finished successfully.", e);
+        }
+    }
+
+    /**
+     * Stops the worker threads. Tasks that are still running are interrupted.
+     *
+     * @see java.lang.AutoCloseable#close()
+     */
+    @Override
+    public void close()
+    {
+        if (this.executor != null)
+        {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService createExecutor(int parallelism)
+    {
+        if (virtualExecutorFactory != null)
+        {
+            try
+            {
+                return (ExecutorService)virtualExecutorFactory.invoke(null);
+            }
+            catch (ReflectiveOperationException e)
+            {
+                // fall through to platform threads
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(parallelism,
+                                            r ->
+                                            {
+                                                Thread thread = new Thread(r, "Resource-Loader-" + threadNumber.incrementAndGet());
+                                                thread.setDaemon(true);
+                                                return thread;
+                                            });
+    }
+
+    /**
+     * Virtual threads are looked up reflectively, so that the library still runs on runtimes without them.
+     */
+    private static Method findVirtualExecutorFactory()
+    {
+        try
+        {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+
+    private static class Task<T>
+    {
+        private String errorMessage;
+        private Future<T> future;
+
+        private Task(String errorMessage, Future<T> future)
+        {
+            this.errorMessage = errorMessage;
+            this.future = future;
+        }
+    }
+}
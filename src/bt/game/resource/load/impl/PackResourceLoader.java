@@ -0,0 +1,277 @@
+package bt.game.resource.load.impl;
+
+import bt.game.resource.load.exc.LoadException;
+import bt.game.resource.load.pack.ResourcePack;
+import bt.game.resource.load.pack.ResourcePackCompiler;
+import bt.game.resource.render.impl.RenderableImage;
+import bt.log.Log;
+import bt.runtime.InstanceKiller;
+import bt.types.Killable;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link JsonResourceLoader} that reads resources from binary {@link ResourcePack}s instead of .res files where
+ * possible.
+ *
+ * <p>
+ * When a context is loaded, the pack <i>name.pack</i> in the pack directory is used if it exists. Its images, sounds
+ * and fonts are read directly from the memory mapped pack without decoding. Apart from that they are treated exactly
+ * like .res entries, so lazy loading, priorities and the {@link JsonResourceLoader#setResourceCache resource cache}
+ * apply to them as well. All entries that are not part of the pack are loaded from the json resource file that the
+ * pack contains, just like a .res file. If there is no pack for a context, its .res file is loaded instead, so packs
+ * can be {@link ResourcePackCompiler compiled} for some contexts only. Global resource files are resolved the same way.
+ * </p>
+ *
+ * <p>
+ * Packs stay open until this loader is killed, since sounds stream their data from the pack whenever they are played.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class PackResourceLoader extends JsonResourceLoader
+{
+    private File packDir;
+    private Map<String, ResourcePack> packs;
+    private Map<JSONObject, PackedEntry> packedEntries;
+
+    /**
+     * Creates a new instance.
+     *
+     * <p>
+     * This constructor will add the instance to the {@link InstanceKiller} via
+     * {@link InstanceKiller#killOnShutdown(Killable) killOnShutdown} to close resources on application shutdown. The
+     * one controlling this resource loader should however call {@link #kill()} and
+     * {@link InstanceKiller#unregister(Killable) unregister} the instance as soon as the resources are not needed
+     * anymore.
+     * </p>
+     *
+     * @param packDir        The directory which contains the pack files.
+     * @param resourcePath   The directory path which contains the json (.res) files for contexts without a pack.
+     * @param globalResNames The names of global resource files that will be loaded as well.
+     */
+    public PackResourceLoader(File packDir, String resourcePath, String... globalResNames)
+    {
+        super(resourcePath, globalResNames);
+        this.packDir = packDir;
+        this.packs = new ConcurrentHashMap<>();
+        this.packedEntries = Collections.synchronizedMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Opens the pack of the given context if it has one and then loads its entries like the ones of a .res file.
+     *
+     * @see bt.game.resource.load.impl.JsonResourceLoader#loadFromJson(java.lang.String, boolean)
+     */
+    @Override
+    protected void loadFromJson(String name, boolean globalLoading)
+    {
+        File packFile = new File(this.packDir, name + ".pack");
+
+        if (packFile.isFile() && !this.packs.containsKey(name))
+        {
+            loadPack(name, packFile);
+        }
+
+        super.loadFromJson(name, globalLoading);
+    }
+
+    /**
+     * Gets the json resource file of the pack of the given context or the .res file if there is no pack.
+     *
+     * @see bt.game.resource.load.impl.JsonResourceLoader#getJsonForName(java.lang.String)
+     */
+    @Override
+    protected JSONObject getJsonForName(String name)
+    {
+        ResourcePack pack = this.packs.get(name);
+
+        if (pack == null)
+        {
+            return super.getJsonForName(name);
+        }
+
+        try
+        {
+            JSONObject json = pack.getResourceJson();
+
+            if (json == null)
+            {
+                json = new JSONObject();
+                json.put("resource", new JSONObject());
+            }
+
+            addPackedEntries(pack, json.getJSONObject("resource"));
+            this.lastResourceFile = pack.getFile();
+            return json;
+        }
+        catch (IOException e)
+        {
+            throw new LoadException(String.format("[%s] Failed to read resource file of pack '%s'.",
+                                                  name,
+                                                  pack.getFile().getAbsolutePath()),
+                                    e);
+        }
+    }
+
+    /**
+     * Reads packed images from their pack and all others like {@link JsonResourceLoader} does.
+     *
+     * @see bt.game.resource.load.impl.JsonResourceLoader#readImage(org.json.JSONObject)
+     */
+    @Override
+    protected RenderableImage readImage(JSONObject obj) throws IOException
+    {
+        PackedEntry packed = this.packedEntries.get(obj);
+
+        if (packed == null)
+        {
+            return super.readImage(obj);
+        }
+
+        // the pixels were cropped when the pack was compiled
+        return new RenderableImage(packed.pack.readImage(packed.entry));
+    }
+
+    /**
+     * Gets a URL into the pack for packed sounds and fonts and resolves all others like {@link JsonResourceLoader}
+     * does.
+     *
+     * @see bt.game.resource.load.impl.JsonResourceLoader#getResourceUrl(org.json.JSONObject)
+     */
+    @Override
+    protected URL getResourceUrl(JSONObject obj) throws IOException
+    {
+        PackedEntry packed = this.packedEntries.get(obj);
+
+        if (packed == null)
+        {
+            return super.getResourceUrl(obj);
+        }
+
+        return packed.pack.getUrl(packed.entry);
+    }
+
+    private void loadPack(String name, File packFile)
+    {
+        ResourcePack pack;
+
+        try
+        {
+            pack = new ResourcePack(packFile);
+        }
+        catch (IOException e)
+        {
+            throw new LoadException(String.format("[%s] Failed to open pack '%s'.", name, packFile.getAbsolutePath()), e);
+        }
+
+        this.packs.put(name, pack);
+
+        registerClosingOperation(() ->
+                                 {
+                                     try
+                                     {
+                                         pack.close();
+                                     }
+                                     catch (IOException e)
+                                     {
+                                         Log.error("Failed to close pack " + packFile.getAbsolutePath(), e);
+                                     }
+                                 });
+
+        Log.info(String.format("[%s] Opened pack '%s' with %d resources.",
+                               name,
+                               packFile.getAbsolutePath(),
+                               pack.getEntries().size()));
+    }
+
+    /**
+     * Adds the .res entries of all packed resources to the given json, so that they are loaded, cached and lazily
+     * resolved like any other entry. Packed entries come before the ones of the same type that were not packed.
+     */
+    private void addPackedEntries(ResourcePack pack, JSONObject json)
+    {
+        Map<String, JSONArray> arrays = new LinkedHashMap<>();
+
+        for (ResourcePack.Entry entry : pack.getEntries())
+        {
+            String arrayName = getArrayName(entry.getType());
+
+            if (arrayName == null)
+            {
+                continue;
+            }
+
+            JSONObject obj = entry.getMetadata();
+            this.packedEntries.put(obj, new PackedEntry(pack, entry));
+            arrays.computeIfAbsent(arrayName, k -> new JSONArray()).put(obj);
+        }
+
+        for (Map.Entry<String, JSONArray> packed : arrays.entrySet())
+        {
+            if (json.has(packed.getKey()))
+            {
+                JSONArray others = json.getJSONArray(packed.getKey());
+
+                for (int i = 0; i < others.length(); i++)
+                {
+                    packed.getValue().put(others.getJSONObject(i));
+                }
+            }
+
+            json.put(packed.getKey(), packed.getValue());
+        }
+    }
+
+    private static String getArrayName(byte type)
+    {
+        switch (type)
+        {
+            case ResourcePack.TYPE_IMAGE:
+                return "images";
+            case ResourcePack.TYPE_SOUND:
+                return "sounds";
+            case ResourcePack.TYPE_FONT:
+                return "fonts";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Closes all packs.
+     *
+     * @see bt.game.resource.load.impl.BaseResourceLoader#kill()
+     */
+    @Override
+    public void kill()
+    {
+        super.kill();
+        this.packs.clear();
+        this.packedEntries.clear();
+    }
+
+    /**
+     * The pack entry that a json entry was created from.
+     */
+    private static class PackedEntry
+    {
+        private ResourcePack pack;
+        private ResourcePack.Entry entry;
+
+        private PackedEntry(ResourcePack pack, ResourcePack.Entry entry)
+        {
+            this.pack = pack;
+            this.entry = entry;
+        }
+    }
+}
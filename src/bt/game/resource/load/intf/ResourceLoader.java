@@ -2,6 +2,7 @@ package bt.game.resource.load.intf;
 
 import bt.game.core.ctrl.spec.mouse.obj.Cursor;
 import bt.game.resource.render.impl.anim.Animation;
+import bt.game.resource.render.impl.anim.AnimationClip;
 import bt.game.resource.render.intf.Renderable;
 import bt.io.sound.Sound;
 import bt.types.Killable;
@@ -104,4 +105,13 @@ public interface ResourceLoader extends Killable, Loader
      * @return The animation or null if no mapping for the recource name exists.
      */
     public Animation getAnimation(String resourceName);
+
+    /**
+     * Gets the shared clip of the animation with the given resource name. Animations created from the clip via
+     * {@link Animation#Animation(AnimationClip)} do not need any further lookups.
+     *
+     * @param resourceName The unique name that the animation was loaded with.
+     * @return The clip or null if no mapping for the recource name exists.
+     */
+    public AnimationClip getAnimationClip(String resourceName);
 }
\ No newline at end of file
@@ -0,0 +1,474 @@
+package bt.game.resource.load.pack;
+
+import bt.io.json.JSON;
+import org.json.JSONObject;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read only view of a binary resource pack as written by {@link ResourcePackCompiler}.
+ *
+ * <p>
+ * Only the index is read when a pack is opened. The data of an entry is memory mapped when it is first accessed, so
+ * reading a resource only costs touching the pages that contain it. Images are stored as raw ARGB pixels and sounds as
+ * PCM, neither needs to be decoded.
+ * </p>
+ *
+ * <h3>Format</h3>
+ *
+ * <pre>
+ * int    magic ('BTPK')
+ * int    version
+ * int    entry count
+ * entries:
+ *   byte   type
+ *   UTF    alias
+ *   UTF    metadata (the json entry of the .res file)
+ *   long   offset
+ *   long   length
+ * data, every entry aligned to {@link #ALIGNMENT} bytes
+ * </pre>
+ *
+ * <p>
+ * Pixels are stored as little endian ints, one per pixel, row by row. The {@link #TYPE_RESOURCE_FILE resource file}
+ * entry contains the UTF-8 json of all entries that could not be packed.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ResourcePack implements Closeable
+{
+    /** The first four bytes of every pack. */
+    public static final int MAGIC = 0x4254504B;
+
+    /** The format version written by this implementation. */
+    public static final int VERSION = 1;
+
+    /** The alignment of entry data in bytes. */
+    public static final int ALIGNMENT = 64;
+
+    /** The json of all .res entries that are not part of the pack. */
+    public static final byte TYPE_RESOURCE_FILE = 0;
+
+    /** Raw ARGB pixels. The metadata contains 'width' and 'height'. */
+    public static final byte TYPE_IMAGE = 1;
+
+    /** A PCM encoded WAVE file. */
+    public static final byte TYPE_SOUND = 2;
+
+    /** The unchanged font file. */
+    public static final byte TYPE_FONT = 3;
+
+    private static final String PROTOCOL = "btpack";
+
+    private File file;
+    private FileChannel channel;
+    private Map<String, Entry> entries;
+    private List<Entry> indexedEntries;
+    private Entry resourceFile;
+    private URLStreamHandler urlHandler;
+
+    /**
+     * Opens the given pack and reads its index.
+     *
+     * @param file The pack file.
+     * @throws IOException if the file could not be read or is not a pack.
+     */
+    public ResourcePack(File file) throws IOException
+    {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.entries = new LinkedHashMap<>();
+        this.indexedEntries = new ArrayList<>();
+        this.urlHandler = new PackUrlHandler();
+
+        try
+        {
+            readIndex();
+        }
+        catch (IOException e)
+        {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private void readIndex() throws IOException
+    {
+        // not closed, since that would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel.position(0))));
+
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("File '" + this.file.getAbsolutePath() + "' is not a resource pack.");
+        }
+
+        int version = in.readInt();
+
+        if (version != VERSION)
+        {
+            throw new IOException("Resource pack '" + this.file.getAbsolutePath() + "' has unsupported version " + version + ".");
+        }
+
+        int count = in.readInt();
+
+        for (int i = 0; i < count; i++)
+        {
+            Entry entry = new Entry(i, in.readByte(), in.readUTF(), in.readUTF(), in.readLong(), in.readLong());
+
+            if (entry.offset < 0 || entry.length < 0 || entry.offset + entry.length > this.channel.size())
+            {
+                throw new IOException("Resource pack '" + this.file.getAbsolutePath() + "' is truncated.");
+            }
+
+            this.indexedEntries.add(entry);
+
+            if (entry.type == TYPE_RESOURCE_FILE)
+            {
+                this.resourceFile = entry;
+            }
+            else
+            {
+                this.entries.put(entry.type + ":" + entry.alias.toUpperCase(), entry);
+            }
+        }
+    }
+
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Gets all packed resources in the order in which they were defined.
+     *
+     * @return An unmodifiable list of the entries.
+     */
+    public List<Entry> getEntries()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(this.entries.values()));
+    }
+
+    /**
+     * Gets the packed resource with the given type and (case insensitive) alias.
+     *
+     * @param type  One of the TYPE constants.
+     * @param alias The alias.
+     * @return The entry or null.
+     */
+    public Entry getEntry(byte type, String alias)
+    {
+        return this.entries.get(type + ":" + alias.toUpperCase());
+    }
+
+    /**
+     * Gets the resource file json that contains all entries that are not part of this pack.
+     *
+     * @return The json in the format of a .res file or null if the pack does not contain one.
+     * @throws IOException if the entry could not be read.
+     */
+    public JSONObject getResourceJson() throws IOException
+    {
+        if (this.resourceFile == null)
+        {
+            return null;
+        }
+
+        ByteBuffer buffer = map(this.resourceFile);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return JSON.parse(new String(bytes, "UTF-8"));
+    }
+
+    /**
+     * Creates an image from the pixels of the given entry. The pixels are copied row by row from the mapped file into
+     * the raster of the image, so the image stays eligible for acceleration.
+     *
+     * @param entry An entry of type {@link #TYPE_IMAGE}.
+     * @return The image.
+     * @throws IOException if the entry could not be read.
+     */
+    public BufferedImage readImage(Entry entry) throws IOException
+    {
+        JSONObject metadata = entry.getMetadata();
+        int width = metadata.getInt("width");
+        int height = metadata.getInt("height");
+
+        if ((long)width * height * 4 != entry.length)
+        {
+            throw new IOException("Image '" + entry.alias + "' in resource pack '" + this.file.getAbsolutePath() + "' has an invalid size.");
+        }
+
+        IntBuffer pixels = map(entry).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        WritableRaster raster = image.getRaster();
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++)
+        {
+            pixels.get(row);
+            raster.setDataElements(0, y, width, 1, row);
+        }
+
+        return image;
+    }
+
+    /**
+     * Opens a stream over the data of the given entry.
+     *
+     * @param entry The entry.
+     * @return The stream. Closing it has no effect on this pack.
+     * @throws IOException if the entry could not be mapped.
+     */
+    public InputStream openStream(Entry entry) throws IOException
+    {
+        return new BufferInputStream(map(entry));
+    }
+
+    /**
+     * Gets a URL that reads the data of the given entry. This is meant for APIs that only accept URLs, such as
+     * {@link bt.io.sound.SoundSupplier SoundSupplier}. The data is mapped when the URL is created, so the URL stays
+     * readable after this pack is closed, i.e. by resources that are shared through a
+     * {@link bt.game.resource.load.cache.ResourceCache ResourceCache}.
+     *
+     * @param entry The entry.
+     * @return The URL.
+     * @throws IOException if the URL could not be created or this pack is closed.
+     */
+    public URL getUrl(Entry entry) throws IOException
+    {
+        map(entry);
+        // the position in the index is used instead of the alias, which may contain characters that are not valid in URLs
+        return new URL(PROTOCOL, null, -1, "/" + entry.index, this.urlHandler);
+    }
+
+    /**
+     * Maps the data of the given entry. The mapping is created once and shared by all callers, every call returns an
+     * independent view of it.
+     */
+    private ByteBuffer map(Entry entry) throws IOException
+    {
+        synchronized (entry)
+        {
+            if (entry.data == null)
+            {
+                if (!this.channel.isOpen())
+                {
+                    throw new IOException("Resource pack '" + this.file.getAbsolutePath() + "' is closed.");
+                }
+
+                entry.data = this.channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+            }
+
+            return entry.data.duplicate();
+        }
+    }
+
+    /**
+     * Closes the file. Data that has already been mapped stays readable until it is garbage collected.
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.channel.close();
+    }
+
+    /**
+     * A resource in a pack.
+     *
+     * @author &#8904
+     */
+    public static class Entry
+    {
+        private int index;
+        private byte type;
+        private String alias;
+        private String metadata;
+        private long offset;
+        private long length;
+        private ByteBuffer data;
+
+        Entry(int index, byte type, String alias, String metadata, long offset, long length)
+        {
+            this.index = index;
+            this.type = type;
+            this.alias = alias;
+            this.metadata = metadata;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public byte getType()
+        {
+            return this.type;
+        }
+
+        public String getAlias()
+        {
+            return this.alias;
+        }
+
+        /**
+         * Gets the json entry that this resource was defined by in the .res file.
+         *
+         * @return The json object.
+         */
+        public JSONObject getMetadata()
+        {
+            return JSON.parse(this.metadata);
+        }
+
+        public long getLength()
+        {
+            return this.length;
+        }
+    }
+
+    /**
+     * Resolves the URLs created by {@link ResourcePack#getUrl(Entry)} to the entries of this pack.
+     */
+    private class PackUrlHandler extends URLStreamHandler
+    {
+        /**
+         * @see java.net.URLStreamHandler#openConnection(java.net.URL)
+         */
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException
+        {
+            Entry entry = null;
+
+            try
+            {
+                int index = Integer.parseInt(url.getPath().substring(1));
+
+                if (index >= 0 && index < ResourcePack.this.indexedEntries.size())
+                {
+                    entry = ResourcePack.this.indexedEntries.get(index);
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                // reported below
+            }
+
+            if (entry == null)
+            {
+                throw new IOException("No entry for '" + url + "' in resource pack '" + ResourcePack.this.file.getAbsolutePath() + "'.");
+            }
+
+            return new URLConnection(url)
+            {
+                @Override
+                public void connect()
+                {
+                    this.connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException
+                {
+                    return openStream(entry);
+                }
+
+                @Override
+                public long getContentLengthLong()
+                {
+                    return entry.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * A stream over a mapped buffer that supports marking.
+     */
+    private static class BufferInputStream extends InputStream
+    {
+        private ByteBuffer buffer;
+        private int mark;
+
+        private BufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+        {
+            if (length == 0)
+            {
+                return 0;
+            }
+
+            if (!this.buffer.hasRemaining())
+            {
+                return -1;
+            }
+
+            length = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            int skipped = (int)Math.max(Math.min(n, this.buffer.remaining()), 0);
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available()
+        {
+            return this.buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit)
+        {
+            this.mark = this.buffer.position();
+        }
+
+        @Override
+        public synchronized void reset()
+        {
+            this.buffer.position(this.mark);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package bt.game.resource.load.pack;
+
+import bt.game.resource.load.impl.JsonResourceLoader;
+import bt.io.json.JSON;
+import bt.log.Log;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles json (.res) resource files into binary {@link ResourcePack}s.
+ *
+ * <p>
+ * Images are decoded, cropped according to their 'ratio' and stored as raw ARGB pixels. Sounds are decoded to PCM and
+ * stored as WAVE files. Fonts are stored unchanged. Entries that can not be packed, i.e. images that are part of an
+ * atlas, gifs, files, bitmap fonts and animations, are kept in a json resource file inside the pack and are loaded
+ * like regular .res entries by the {@link bt.game.resource.load.impl.PackResourceLoader PackResourceLoader}.
+ * </p>
+ *
+ * <p>
+ * The resource files and the resources they reference are read from the classpath, exactly like the
+ * {@link bt.game.resource.load.impl.JsonResourceLoader JsonResourceLoader} does.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ResourcePackCompiler
+{
+    private String resourceDir;
+
+    /**
+     * Creates a new compiler.
+     *
+     * @param resourceDir The classpath directory which contains the json (.res) files.
+     */
+    public ResourcePackCompiler(String resourceDir)
+    {
+        this.resourceDir = resourceDir;
+    }
+
+    /**
+     * Compiles the resource file with the given name into a pack.
+     *
+     * @param name     The name of the resource file without the .res ending.
+     * @param packFile The file to write the pack to. An existing file is overwritten.
+     * @throws IOException if a resource could not be read or the pack could not be written.
+     */
+    public void compile(String name, File packFile) throws IOException
+    {
+        Log.entry(name, packFile);
+
+        JSONObject json = readJson(name).getJSONObject("resource");
+        JSONObject residual = new JSONObject();
+        List<PackEntry> entries = new ArrayList<>();
+
+        for (String key : json.keySet())
+        {
+            if (!key.equals("images") && !key.equals("sounds") && !key.equals("fonts"))
+            {
+                residual.put(key, json.getJSONArray(key));
+            }
+        }
+
+        if (json.has("images"))
+        {
+            JSONArray imageArray = json.getJSONArray("images");
+            JSONArray atlasImages = new JSONArray();
+
+            for (int i = 0; i < imageArray.length(); i++)
+            {
+                JSONObject imageObj = imageArray.getJSONObject(i);
+
+                if (imageObj.has("atlas"))
+                {
+                    atlasImages.put(imageObj);
+                }
+                else
+                {
+                    entries.add(packImage(imageObj));
+                }
+            }
+
+            residual.put("images", atlasImages);
+        }
+
+        if (json.has("sounds"))
+        {
+            JSONArray soundArray = json.getJSONArray("sounds");
+
+            for (int i = 0; i < soundArray.length(); i++)
+            {
+                entries.add(packSound(soundArray.getJSONObject(i)));
+            }
+        }
+
+        if (json.has("fonts"))
+        {
+            JSONArray fontArray = json.getJSONArray("fonts");
+
+            for (int i = 0; i < fontArray.length(); i++)
+            {
+                JSONObject fontObj = fontArray.getJSONObject(i);
+                entries.add(new PackEntry(ResourcePack.TYPE_FONT, fontObj, readBytes(fontObj.getString("path"))));
+            }
+        }
+
+        JSONObject resourceFile = new JSONObject();
+        resourceFile.put("resource", residual);
+        entries.add(new PackEntry(ResourcePack.TYPE_RESOURCE_FILE, "", "{}", resourceFile.toString().getBytes("UTF-8")));
+
+        write(entries, packFile);
+        Log.info(String.format("[%s] Compiled %d resources into pack '%s'.", name, entries.size() - 1, packFile.getAbsolutePath()));
+
+        Log.exit();
+    }
+
+    private PackEntry packImage(JSONObject obj) throws IOException
+    {
+        BufferedImage image = (BufferedImage)JsonResourceLoader.decodeImage(obj.getString("path"),
+                                                                            obj.has("ratio") ? obj.getString("ratio") : null)
+                                                               .getImage();
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteBuffer pixels = ByteBuffer.allocate(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer ints = pixels.asIntBuffer();
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++)
+        {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            ints.put(row);
+        }
+
+        JSONObject metadata = JSON.parse(obj.toString());
+        metadata.put("width", width);
+        metadata.put("height", height);
+
+        return new PackEntry(ResourcePack.TYPE_IMAGE, obj.getString("alias"), metadata.toString(), pixels.array());
+    }
+
+    /**
+     * Decodes the sound to PCM and writes it as a WAVE file, so that it can be played without a decoder.
+     */
+    private PackEntry packSound(JSONObject obj) throws IOException
+    {
+        URL url = ResourcePackCompiler.class.getResource(obj.getString("path"));
+
+        if (url == null)
+        {
+            throw new IOException("Resource not found: " + obj.getString("path"));
+        }
+
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(url))
+        {
+            AudioFormat format = source.getFormat();
+            AudioInputStream pcm = source;
+
+            if (!format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED)
+                && !format.getEncoding().equals(AudioFormat.Encoding.PCM_UNSIGNED))
+            {
+                format = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                                         format.getSampleRate(),
+                                         16,
+                                         format.getChannels(),
+                                         format.getChannels() * 2,
+                                         format.getSampleRate(),
+                                         false);
+                pcm = AudioSystem.getAudioInputStream(format, source);
+            }
+
+            // the length of decoded streams is often unknown, but the WAVE writer needs it
+            byte[] samples = pcm.readAllBytes();
+            ByteArrayOutputStream wave = new ByteArrayOutputStream(samples.length + 64);
+
+            AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(samples), format, samples.length / format.getFrameSize()),
+                              AudioFileFormat.Type.WAVE,
+                              wave);
+
+            return new PackEntry(ResourcePack.TYPE_SOUND, obj, wave.toByteArray());
+        }
+        catch (UnsupportedAudioFileException e)
+        {
+            throw new IOException("Unsupported sound '" + obj.getString("path") + "'.", e);
+        }
+    }
+
+    /**
+     * Writes the index and the aligned data of all entries.
+     */
+    private void write(List<PackEntry> entries, File packFile) throws IOException
+    {
+        // the size of the index does not depend on the offsets, so it is written once to measure it
+        byte[] index = writeIndex(entries);
+        long offset = align(index.length);
+
+        for (PackEntry entry : entries)
+        {
+            entry.offset = offset;
+            offset = align(offset + entry.data.length);
+        }
+
+        index = writeIndex(entries);
+
+        if (packFile.getParentFile() != null)
+        {
+            packFile.getParentFile().mkdirs();
+        }
+
+        try (RandomAccessFile out = new RandomAccessFile(packFile, "rw"))
+        {
+            out.setLength(0);
+            out.write(index);
+
+            for (PackEntry entry : entries)
+            {
+                out.seek(entry.offset);
+                out.write(entry.data);
+            }
+        }
+    }
+
+    private byte[] writeIndex(List<PackEntry> entries) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeInt(ResourcePack.MAGIC);
+            out.writeInt(ResourcePack.VERSION);
+            out.writeInt(entries.size());
+
+            for (PackEntry entry : entries)
+            {
+                out.writeByte(entry.type);
+                out.writeUTF(entry.alias);
+                out.writeUTF(entry.metadata);
+                out.writeLong(entry.offset);
+                out.writeLong(entry.data.length);
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static long align(long offset)
+    {
+        return (offset + ResourcePack.ALIGNMENT - 1) / ResourcePack.ALIGNMENT * ResourcePack.ALIGNMENT;
+    }
+
+    private JSONObject readJson(String name) throws IOException
+    {
+        String path = this.resourceDir + "/" + name + ".res";
+
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(path))
+        {
+            if (stream == null)
+            {
+                throw new IOException("Resource file not found: " + path);
+            }
+
+            return JSON.parse(new BufferedReader(new InputStreamReader(stream, "UTF-8")).lines()
+                                                                                         .collect(Collectors.joining("\n")));
+        }
+    }
+
+    private byte[] readBytes(String path) throws IOException
+    {
+        try (InputStream in = open(path))
+        {
+            return in.readAllBytes();
+        }
+    }
+
+    private InputStream open(String path) throws IOException
+    {
+        InputStream in = ResourcePackCompiler.class.getResourceAsStream(path);
+
+        if (in == null)
+        {
+            throw new IOException("Resource not found: " + path);
+        }
+
+        return in;
+    }
+
+    private static class PackEntry
+    {
+        private byte type;
+        private String alias;
+        private String metadata;
+        private byte[] data;
+        private long offset;
+
+        private PackEntry(byte type, JSONObject obj, byte[] data)
+        {
+            this(type, obj.getString("alias"), obj.toString(), data);
+        }
+
+        private PackEntry(byte type, String alias, String metadata, byte[] data)
+        {
+            this.type = type;
+            this.alias = alias;
+            this.metadata = metadata;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package bt.game.resource.render.batch;
+
+import java.awt.*;
+
+/**
+ * Executes the commands that were recorded in a {@link RenderCommandBuffer}.
+ *
+ * @author &#8904
+ */
+public interface RenderBackend
+{
+    /**
+     * Draws all commands of the given buffer onto the given graphics in the order defined by
+     * {@link RenderCommandBuffer#getSortedOrder()}.
+     *
+     * <p>
+     * Implementations must leave the transform and composite of the graphics unchanged.
+     * </p>
+     *
+     * @param g      The graphics to draw on.
+     * @param buffer The buffer that contains the commands.
+     */
+    public void execute(Graphics2D g, RenderCommandBuffer buffer);
+}
@@ -0,0 +1,584 @@
+package bt.game.resource.render.batch;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records image draw commands of a frame so that a {@link RenderBackend} can execute them in one go.
+ *
+ * <p>
+ * While a buffer is active (between {@link #begin(Graphics2D)} and {@link #end()}) renderables that support batching
+ * (i.e. {@link bt.game.resource.render.impl.RenderableImage RenderableImage}) submit a command instead of drawing
+ * directly. Commands are stored in preallocated parallel arrays which are reused across frames and only grow if a frame
+ * contains more commands than ever before.
+ * </p>
+ *
+ * <p>
+ * Every command stores the Z value that was set via {@link #setZ(double)} when it was submitted. The backend draws the
+ * commands sorted by that value. Commands with the same Z keep the order in which they were submitted.
+ * </p>
+ *
+ * <p>
+ * Anything that draws directly on the graphics while a buffer is active needs to call {@link #flushActive()} first,
+ * otherwise it will end up below images that were submitted before it.
+ * </p>
+ *
+ * <p>
+ * The transform of the graphics is read once after every flush instead of for every command, since reading it creates
+ * a copy. Anything that changes the transform while a buffer is active and submits afterwards without flushing needs
+ * to call {@link #transformChangedActive()}, otherwise its commands are drawn with the previous transform.
+ * </p>
+ *
+ * <p>
+ * Recorded commands reference images until they are executed. Images that are replaced while a buffer is active, i.e.
+ * scaled copies, have to be flushed via {@link #flushImageLater(Image)}, otherwise they may draw nothing.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class RenderCommandBuffer
+{
+    /** The number of commands that a new buffer can hold before it needs to grow. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static RenderCommandBuffer active;
+
+    private RenderBackend backend;
+    private RenderCommandBuffer previous;
+    private Graphics2D graphics;
+    private double currentZ;
+    private int count;
+
+    private Image[] images;
+    private int[] dest;
+    private int[] source;
+    private double[] rotation;
+    private float[] alpha;
+    private double[] z;
+    private double[] transforms;
+    private int[] order;
+    private int[] sortTemp;
+    private double[] matrix;
+    private AffineTransform transform;
+    private boolean matrixValid;
+    private List<Image> pendingFlushes;
+
+    /**
+     * Creates a new buffer with {@link #DEFAULT_CAPACITY}.
+     *
+     * @param backend The backend that executes the recorded commands.
+     */
+    public RenderCommandBuffer(RenderBackend backend)
+    {
+        this(backend, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param backend  The backend that executes the recorded commands.
+     * @param capacity The number of commands that can be stored before the buffer needs to grow.
+     */
+    public RenderCommandBuffer(RenderBackend backend, int capacity)
+    {
+        this.backend = backend;
+        this.matrix = new double[6];
+        this.pendingFlushes = new ArrayList<>();
+        allocate(Math.max(capacity, 16));
+    }
+
+    /**
+     * Gets the buffer that is currently recording.
+     *
+     * @return The active buffer or null if no buffer is active.
+     */
+    public static RenderCommandBuffer getActive()
+    {
+        return active;
+    }
+
+    /**
+     * Executes all commands of the active buffer, if there is one.
+     */
+    public static void flushActive()
+    {
+        RenderCommandBuffer buffer = active;
+
+        if (buffer != null)
+        {
+            buffer.flush();
+        }
+    }
+
+    /**
+     * Flushes the given image once the commands of the active buffer, which may still reference it, have been executed.
+     * Without an active buffer the image is flushed right away.
+     *
+     * @param image The image that is not used anymore.
+     */
+    public static void flushImageLater(Image image)
+    {
+        RenderCommandBuffer buffer = active;
+
+        if (buffer == null)
+        {
+            image.flush();
+        }
+        else
+        {
+            buffer.pendingFlushes.add(image);
+        }
+    }
+
+    /**
+     * Notifies the active buffer, if there is one, that the transform of its graphics has changed.
+     */
+    public static void transformChangedActive()
+    {
+        RenderCommandBuffer buffer = active;
+
+        if (buffer != null)
+        {
+            buffer.transformChanged();
+        }
+    }
+
+    /**
+     * Notifies this buffer that the transform of its graphics has changed, so that it is read again for the next
+     * command.
+     */
+    public void transformChanged()
+    {
+        this.matrixValid = false;
+    }
+
+    /**
+     * Makes this buffer the active buffer. Commands will be executed on the given graphics.
+     *
+     * @param g The graphics to draw on.
+     */
+    public void begin(Graphics2D g)
+    {
+        this.graphics = g;
+        this.count = 0;
+        this.currentZ = 0;
+        this.matrixValid = false;
+        this.previous = active;
+        active = this;
+    }
+
+    /**
+     * Executes all remaining commands and makes the buffer that was active before {@link #begin(Graphics2D)} the active
+     * buffer again.
+     */
+    public void end()
+    {
+        flush();
+        this.graphics = null;
+        this.transform = null;
+        active = this.previous;
+        this.previous = null;
+    }
+
+    /**
+     * Executes all recorded commands via the backend and clears the buffer.
+     */
+    public void flush()
+    {
+        if (this.count > 0 && this.graphics != null)
+        {
+            this.backend.execute(this.graphics, this);
+        }
+
+        Arrays.fill(this.images, 0, this.count, null);
+        this.count = 0;
+        flushPendingImages();
+
+        // whoever flushed is about to draw directly and may change the transform for that
+        this.matrixValid = false;
+    }
+
+    /**
+     * Sets the Z value for all following commands.
+     *
+     * @param z The Z value.
+     */
+    public void setZ(double z)
+    {
+        this.currentZ = z;
+    }
+
+    /**
+     * Gets the backend of this buffer.
+     *
+     * @return The backend.
+     */
+    public RenderBackend getBackend()
+    {
+        return this.backend;
+    }
+
+    /**
+     * Records a command that draws the whole image.
+     *
+     * @see #submit(Graphics2D, Image, int, int, int, int, int, int, int, int, double, double, double, float)
+     */
+    public boolean submit(Graphics2D g, Image image, int x, int y, int w, int h, double rotation, double centerX, double centerY, float alpha)
+    {
+        return submit(g, image, x, y, w, h, -1, -1, -1, -1, rotation, centerX, centerY, alpha);
+    }
+
+    /**
+     * Records a command that draws a part of the image.
+     *
+     * <p>
+     * The current transform of the given graphics is stored with the command. It is only read if it was not read since
+     * the last {@link #flush()} or {@link #transformChanged()}.
+     * </p>
+     *
+     * @param g        The graphics that the caller would have drawn on.
+     * @param image    The image to draw.
+     * @param x        The x pixel position of the destination.
+     * @param y        The y pixel position of the destination.
+     * @param w        The width of the destination in pixels.
+     * @param h        The height of the destination in pixels.
+     * @param sx       The x pixel position of the source area or -1 to draw the whole image.
+     * @param sy       The y pixel position of the source area.
+     * @param sw       The width of the source area in pixels.
+     * @param sh       The height of the source area in pixels.
+     * @param rotation The rotation in radians.
+     * @param centerX  The x pixel position of the rotation center.
+     * @param centerY  The y pixel position of the rotation center.
+     * @param alpha    The alpha value used to draw the image.
+     * @return true if the command was recorded, false if the given graphics is not the one that this buffer draws on
+     *         and the caller needs to draw by itself.
+     */
+    public boolean submit(Graphics2D g, Image image, int x, int y, int w, int h, int sx, int sy, int sw, int sh, double rotation, double centerX, double centerY, float alpha)
+    {
+        if (g != this.graphics)
+        {
+            return false;
+        }
+
+        if (this.count == this.images.length)
+        {
+            allocate(this.images.length * 2);
+        }
+
+        int i = this.count++;
+        this.images[i] = image;
+        this.dest[i * 4] = x;
+        this.dest[i * 4 + 1] = y;
+        this.dest[i * 4 + 2] = w;
+        this.dest[i * 4 + 3] = h;
+        this.source[i * 4] = sx;
+        this.source[i * 4 + 1] = sy;
+        this.source[i * 4 + 2] = sw;
+        this.source[i * 4 + 3] = sh;
+        this.rotation[i * 3] = rotation;
+        this.rotation[i * 3 + 1] = centerX;
+        this.rotation[i * 3 + 2] = centerY;
+        this.alpha[i] = alpha;
+        this.z[i] = this.currentZ;
+
+        readTransform();
+        System.arraycopy(this.matrix, 0, this.transforms, i * 6, 6);
+
+        return true;
+    }
+
+    /**
+     * Gets the type of the current transform of the given graphics. The transform is only read if the given graphics is
+     * not the one that this buffer draws on or if it was not read since the last {@link #flush()} or
+     * {@link #transformChanged()}.
+     *
+     * @param g The graphics.
+     * @return The {@link AffineTransform#getType() type} of the transform.
+     */
+    public int getTransformType(Graphics2D g)
+    {
+        if (g != this.graphics)
+        {
+            return g.getTransform().getType();
+        }
+
+        readTransform();
+        return this.transform.getType();
+    }
+
+    /**
+     * Reads the transform of the graphics unless it is still known.
+     */
+    private void readTransform()
+    {
+        if (!this.matrixValid)
+        {
+            this.transform = this.graphics.getTransform();
+            this.transform.getMatrix(this.matrix);
+            this.matrixValid = true;
+        }
+    }
+
+    /**
+     * Gets the number of recorded commands.
+     *
+     * @return The number of commands.
+     */
+    public int size()
+    {
+        return this.count;
+    }
+
+    /**
+     * Gets the indices of all commands sorted by their Z value. Commands with equal Z keep their submission order.
+     *
+     * <p>
+     * The returned array is reused and may be longer than {@link #size()}.
+     * </p>
+     *
+     * @return The sorted indices.
+     */
+    public int[] getSortedOrder()
+    {
+        boolean sorted = true;
+
+        for (int i = 0; i < this.count; i++)
+        {
+            this.order[i] = i;
+
+            if (i > 0 && this.z[i] < this.z[i - 1])
+            {
+                sorted = false;
+            }
+        }
+
+        if (!sorted)
+        {
+            mergeSort();
+        }
+
+        return this.order;
+    }
+
+    public Image getImage(int index)
+    {
+        return this.images[index];
+    }
+
+    public float getAlpha(int index)
+    {
+        return this.alpha[index];
+    }
+
+    public double getRotation(int index)
+    {
+        return this.rotation[index * 3];
+    }
+
+    public double getRotationCenterX(int index)
+    {
+        return this.rotation[index * 3 + 1];
+    }
+
+    public double getRotationCenterY(int index)
+    {
+        return this.rotation[index * 3 + 2];
+    }
+
+    public double getZ(int index)
+    {
+        return this.z[index];
+    }
+
+    /**
+     * Copies the transform that the graphics had when the command was submitted into the given transform.
+     *
+     * @param index  The index of the command.
+     * @param target The transform to set.
+     */
+    public void getBaseTransform(int index, AffineTransform target)
+    {
+        int o = index * 6;
+        target.setTransform(this.transforms[o],
+                            this.transforms[o + 1],
+                            this.transforms[o + 2],
+                            this.transforms[o + 3],
+                            this.transforms[o + 4],
+                            this.transforms[o + 5]);
+    }
+
+    /**
+     * Indicates whether the two commands were submitted with the same transform.
+     *
+     * @param first  The index of the first command.
+     * @param second The index of the second command.
+     * @return true if both transforms are equal.
+     */
+    public boolean hasSameBaseTransform(int first, int second)
+    {
+        int a = first * 6;
+        int b = second * 6;
+
+        for (int i = 0; i < 6; i++)
+        {
+            if (this.transforms[a + i] != this.transforms[b + i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the bounds of the destination area of the command before its transforms are applied.
+     *
+     * @param index  The index of the command.
+     * @param target The rectangle to set.
+     */
+    public void getDestination(int index, Rectangle target)
+    {
+        int o = index * 4;
+        target.setBounds(this.dest[o], this.dest[o + 1], this.dest[o + 2], this.dest[o + 3]);
+    }
+
+    /**
+     * Draws the image of the given command at its destination. Transform and composite of the graphics are not
+     * modified.
+     *
+     * @param g     The graphics to draw on.
+     * @param index The index of the command.
+     */
+    public void draw(Graphics2D g, int index)
+    {
+        int o = index * 4;
+        Image image = this.images[index];
+        int x = this.dest[o];
+        int y = this.dest[o + 1];
+        int w = this.dest[o + 2];
+        int h = this.dest[o + 3];
+
+        if (this.source[o] < 0)
+        {
+            if (image.getWidth(null) == w && image.getHeight(null) == h)
+            {
+                g.drawImage(image, x, y, null);
+            }
+            else
+            {
+                g.drawImage(image, x, y, w, h, null);
+            }
+        }
+        else
+        {
+            int sx = this.source[o];
+            int sy = this.source[o + 1];
+
+            g.drawImage(image,
+                        x,
+                        y,
+                        x + w,
+                        y + h,
+                        sx,
+                        sy,
+                        sx + this.source[o + 2],
+                        sy + this.source[o + 3],
+                        null);
+        }
+    }
+
+    /**
+     * Flushes the images that were {@link #flushImageLater(Image) replaced} before the commands were executed. If the
+     * buffer that was active before this one still has commands, the images are handed to it instead.
+     */
+    private void flushPendingImages()
+    {
+        if (this.pendingFlushes.isEmpty())
+        {
+            return;
+        }
+
+        if (this.previous != null && this.previous.count > 0)
+        {
+            this.previous.pendingFlushes.addAll(this.pendingFlushes);
+        }
+        else
+        {
+            for (Image image : this.pendingFlushes)
+            {
+                image.flush();
+            }
+        }
+
+        this.pendingFlushes.clear();
+    }
+
+    private void allocate(int capacity)
+    {
+        if (this.images == null)
+        {
+            this.images = new Image[capacity];
+            this.dest = new int[capacity * 4];
+            this.source = new int[capacity * 4];
+            this.rotation = new double[capacity * 3];
+            this.alpha = new float[capacity];
+            this.z = new double[capacity];
+            this.transforms = new double[capacity * 6];
+        }
+        else
+        {
+            this.images = Arrays.copyOf(this.images, capacity);
+            this.dest = Arrays.copyOf(this.dest, capacity * 4);
+            this.source = Arrays.copyOf(this.source, capacity * 4);
+            this.rotation = Arrays.copyOf(this.rotation, capacity * 3);
+            this.alpha = Arrays.copyOf(this.alpha, capacity);
+            this.z = Arrays.copyOf(this.z, capacity);
+            this.transforms = Arrays.copyOf(this.transforms, capacity * 6);
+        }
+
+        this.order = new int[capacity];
+        this.sortTemp = new int[capacity];
+    }
+
+    /**
+     * Stable bottom up merge sort of the order array by Z.
+     */
+    private void mergeSort()
+    {
+        int[] src = this.order;
+        int[] dst = this.sortTemp;
+
+        for (int width = 1; width < this.count; width *= 2)
+        {
+            for (int lo = 0; lo < this.count; lo += width * 2)
+            {
+                int mid = Math.min(lo + width, this.count);
+                int hi = Math.min(lo + width * 2, this.count);
+                int left = lo;
+                int right = mid;
+
+                for (int k = lo; k < hi; k++)
+                {
+                    if (left < mid && (right >= hi || this.z[src[left]] <= this.z[src[right]]))
+                    {
+                        dst[k] = src[left++];
+                    }
+                    else
+                    {
+                        dst[k] = src[right++];
+                    }
+                }
+            }
+
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+
+        this.order = src;
+        this.sortTemp = dst;
+    }
+}
@@ -0,0 +1,81 @@
+package bt.game.resource.render.batch;
+
+import bt.game.util.image.AlphaComposites;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+
+/**
+ * A {@link RenderBackend} that draws all commands one after another on the calling thread.
+ *
+ * <p>
+ * Consecutive commands that share the same base transform and alpha are drawn without touching the state of the
+ * graphics in between. Only rotated commands need to modify the transform for themselves.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class SequentialRenderBackend implements RenderBackend
+{
+    private AffineTransform baseTransform;
+
+    public SequentialRenderBackend()
+    {
+        this.baseTransform = new AffineTransform();
+    }
+
+    /**
+     * @see bt.game.resource.render.batch.RenderBackend#execute(java.awt.Graphics2D, bt.game.resource.render.batch.RenderCommandBuffer)
+     */
+    @Override
+    public void execute(Graphics2D g, RenderCommandBuffer buffer)
+    {
+        int count = buffer.size();
+
+        if (count == 0)
+        {
+            return;
+        }
+
+        int[] order = buffer.getSortedOrder();
+        AffineTransform origTransform = g.getTransform();
+        Composite origComposite = g.getComposite();
+        int previous = -1;
+        float currentAlpha = -1;
+
+        for (int k = 0; k < count; k++)
+        {
+            int i = order[k];
+
+            if (previous == -1 || !buffer.hasSameBaseTransform(i, previous))
+            {
+                buffer.getBaseTransform(i, this.baseTransform);
+                g.setTransform(this.baseTransform);
+            }
+
+            float alpha = buffer.getAlpha(i);
+
+            if (alpha != currentAlpha)
+            {
+                g.setComposite(AlphaComposites.srcOver(alpha));
+                currentAlpha = alpha;
+            }
+
+            if (buffer.getRotation(i) != 0)
+            {
+                g.rotate(buffer.getRotation(i), buffer.getRotationCenterX(i), buffer.getRotationCenterY(i));
+                buffer.draw(g, i);
+                g.setTransform(this.baseTransform);
+            }
+            else
+            {
+                buffer.draw(g, i);
+            }
+
+            previous = i;
+        }
+
+        g.setComposite(origComposite);
+        g.setTransform(origTransform);
+    }
+}
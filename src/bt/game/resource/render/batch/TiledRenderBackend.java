@@ -0,0 +1,363 @@
+package bt.game.resource.render.batch;
+
+import bt.game.util.image.AlphaComposites;
+import bt.log.Log;
+import bt.types.Killable;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link RenderBackend} that draws the commands of a frame with multiple threads.
+ *
+ * <p>
+ * The area covered by the commands is split into horizontal bands. Every worker draws into its own band of a shared
+ * offscreen image, using its own graphics that are clipped to the band. Only the commands that intersect the band are
+ * drawn, in the same Z order as the {@link SequentialRenderBackend}. Once all bands are finished the image is drawn
+ * onto the target graphics in a single call.
+ * </p>
+ *
+ * <p>
+ * Two bands are created per thread, so that a band with many sprites does not keep the other threads waiting. Frames
+ * with fewer than {@link #setMinCommands(int) a minimum number} of commands are drawn sequentially, since splitting them
+ * costs more than it saves.
+ * </p>
+ *
+ * <p>
+ * Java2D software loops draw into a {@link BufferedImage} without any global lock, which is what allows the bands to be
+ * drawn in parallel. Images that are drawn by the commands are only read.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class TiledRenderBackend implements RenderBackend, Killable
+{
+    /** The number of commands that a frame needs to have to be drawn in parallel by default. */
+    public static final int DEFAULT_MIN_COMMANDS = 64;
+
+    private ExecutorService executor;
+    private SequentialRenderBackend fallback;
+    private List<Band> bands;
+    private int minCommands = DEFAULT_MIN_COMMANDS;
+    private BufferedImage frame;
+    private int[] bounds;
+    private double[] corners;
+    private Rectangle area;
+    private Rectangle destination;
+    private AffineTransform transform;
+    private AffineTransform identity;
+
+    /**
+     * Creates a new backend.
+     *
+     * @param threads The number of threads that draw in parallel.
+     */
+    public TiledRenderBackend(int threads)
+    {
+        int count = Math.max(threads, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = Executors.newFixedThreadPool(count,
+                                                     r ->
+                                                     {
+                                                         Thread thread = new Thread(r, "Render-" + threadNumber.incrementAndGet());
+                                                         thread.setDaemon(true);
+                                                         return thread;
+                                                     });
+        this.fallback = new SequentialRenderBackend();
+        this.bands = new ArrayList<>();
+
+        for (int i = 0; i < count * 2; i++)
+        {
+            this.bands.add(new Band());
+        }
+
+        this.bounds = new int[RenderCommandBuffer.DEFAULT_CAPACITY * 4];
+        this.corners = new double[8];
+        this.area = new Rectangle();
+        this.destination = new Rectangle();
+        this.transform = new AffineTransform();
+        this.identity = new AffineTransform();
+    }
+
+    /**
+     * Sets the number of commands that a frame needs to have to be drawn in parallel.
+     *
+     * @param minCommands The minimum number of commands.
+     */
+    public void setMinCommands(int minCommands)
+    {
+        this.minCommands = minCommands;
+    }
+
+    public int getMinCommands()
+    {
+        return this.minCommands;
+    }
+
+    /**
+     * @see bt.game.resource.render.batch.RenderBackend#execute(java.awt.Graphics2D, bt.game.resource.render.batch.RenderCommandBuffer)
+     */
+    @Override
+    public synchronized void execute(Graphics2D g, RenderCommandBuffer buffer)
+    {
+        int count = buffer.size();
+
+        if (count < this.minCommands || this.executor.isShutdown())
+        {
+            this.fallback.execute(g, buffer);
+            return;
+        }
+
+        int[] order = buffer.getSortedOrder();
+
+        if (!calculateBounds(g, buffer, count))
+        {
+            return;
+        }
+
+        Rectangle area = this.area;
+
+        if (this.frame == null || this.frame.getWidth() < area.width || this.frame.getHeight() < area.height)
+        {
+            if (this.frame != null)
+            {
+                this.frame.flush();
+            }
+
+            this.frame = new BufferedImage(Math.max(area.width, this.frame == null ? 0 : this.frame.getWidth()),
+                                           Math.max(area.height, this.frame == null ? 0 : this.frame.getHeight()),
+                                           BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        RenderingHints hints = g.getRenderingHints();
+        int bandHeight = (area.height + this.bands.size() - 1) / this.bands.size();
+
+        for (int i = 0; i < this.bands.size(); i++)
+        {
+            int y = i * bandHeight;
+            this.bands.get(i).set(buffer, order, count, y, Math.max(Math.min(bandHeight, area.height - y), 0), hints);
+        }
+
+        try
+        {
+            for (Future<Void> result : this.executor.invokeAll(this.bands))
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (ExecutionException e)
+        {
+            // the frame misses the failed band, so the commands are drawn sequentially instead of blitting it
+            Log.error("Failed to render band", e);
+            this.fallback.execute(g, buffer);
+            return;
+        }
+
+        AffineTransform origTransform = g.getTransform();
+        Composite origComposite = g.getComposite();
+
+        // the frame is in device pixels
+        g.setTransform(this.identity);
+        g.setComposite(AlphaComposite.SrcOver);
+        g.drawImage(this.frame,
+                    area.x,
+                    area.y,
+                    area.x + area.width,
+                    area.y + area.height,
+                    0,
+                    0,
+                    area.width,
+                    area.height,
+                    null);
+        g.setComposite(origComposite);
+        g.setTransform(origTransform);
+    }
+
+    /**
+     * Stops all worker threads. Frames are drawn sequentially afterwards.
+     *
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public synchronized void kill()
+    {
+        this.executor.shutdownNow();
+
+        if (this.frame != null)
+        {
+            this.frame.flush();
+            this.frame = null;
+        }
+    }
+
+    /**
+     * Calculates the device space bounds of every command and their union, limited to the clip of the given graphics.
+     *
+     * @return false if no command is visible.
+     */
+    private boolean calculateBounds(Graphics2D g, RenderCommandBuffer buffer, int count)
+    {
+        if (this.bounds.length < count * 4)
+        {
+            this.bounds = Arrays.copyOf(this.bounds, Math.max(count * 4, this.bounds.length * 2));
+        }
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        Rectangle dest = this.destination;
+
+        for (int i = 0; i < count; i++)
+        {
+            buffer.getBaseTransform(i, this.transform);
+
+            if (buffer.getRotation(i) != 0)
+            {
+                this.transform.rotate(buffer.getRotation(i), buffer.getRotationCenterX(i), buffer.getRotationCenterY(i));
+            }
+
+            buffer.getDestination(i, dest);
+            this.corners[0] = dest.x;
+            this.corners[1] = dest.y;
+            this.corners[2] = dest.x + dest.width;
+            this.corners[3] = dest.y;
+            this.corners[4] = dest.x;
+            this.corners[5] = dest.y + dest.height;
+            this.corners[6] = dest.x + dest.width;
+            this.corners[7] = dest.y + dest.height;
+            this.transform.transform(this.corners, 0, this.corners, 0, 4);
+
+            double x1 = Math.min(Math.min(this.corners[0], this.corners[2]), Math.min(this.corners[4], this.corners[6]));
+            double y1 = Math.min(Math.min(this.corners[1], this.corners[3]), Math.min(this.corners[5], this.corners[7]));
+            double x2 = Math.max(Math.max(this.corners[0], this.corners[2]), Math.max(this.corners[4], this.corners[6]));
+            double y2 = Math.max(Math.max(this.corners[1], this.corners[3]), Math.max(this.corners[5], this.corners[7]));
+
+            int o = i * 4;
+            this.bounds[o] = (int)Math.floor(x1) - 1;
+            this.bounds[o + 1] = (int)Math.floor(y1) - 1;
+            this.bounds[o + 2] = (int)Math.ceil(x2) + 1;
+            this.bounds[o + 3] = (int)Math.ceil(y2) + 1;
+
+            minX = Math.min(minX, this.bounds[o]);
+            minY = Math.min(minY, this.bounds[o + 1]);
+            maxX = Math.max(maxX, this.bounds[o + 2]);
+            maxY = Math.max(maxY, this.bounds[o + 3]);
+        }
+
+        this.area.setBounds(minX, minY, maxX - minX, maxY - minY);
+
+        Shape clip = g.getClip();
+
+        if (clip != null)
+        {
+            Rectangle deviceClip = g.getTransform().createTransformedShape(clip).getBounds();
+            Rectangle.intersect(this.area, deviceClip, this.area);
+        }
+
+        return !this.area.isEmpty();
+    }
+
+    /**
+     * Draws the commands that intersect one horizontal band of the frame.
+     */
+    private class Band implements Callable<Void>
+    {
+        private RenderCommandBuffer buffer;
+        private int[] order;
+        private int count;
+        private int y;
+        private int height;
+        private RenderingHints hints;
+        private AffineTransform bandTransform = new AffineTransform();
+        private AffineTransform baseTransform = new AffineTransform();
+
+        private void set(RenderCommandBuffer buffer, int[] order, int count, int y, int height, RenderingHints hints)
+        {
+            this.buffer = buffer;
+            this.order = order;
+            this.count = count;
+            this.y = y;
+            this.height = height;
+            this.hints = hints;
+        }
+
+        /**
+         * @see java.util.concurrent.Callable#call()
+         */
+        @Override
+        public Void call()
+        {
+            if (this.height <= 0)
+            {
+                return null;
+            }
+
+            Rectangle area = TiledRenderBackend.this.area;
+            int[] bounds = TiledRenderBackend.this.bounds;
+            int top = area.y + this.y;
+            int bottom = top + this.height;
+
+            Graphics2D g = TiledRenderBackend.this.frame.createGraphics();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, this.y, area.width, this.height);
+            g.clipRect(0, this.y, area.width, this.height);
+            g.setRenderingHints(this.hints);
+
+            float currentAlpha = -1;
+
+            for (int k = 0; k < this.count; k++)
+            {
+                int i = this.order[k];
+                int o = i * 4;
+
+                if (bounds[o + 3] <= top || bounds[o + 1] >= bottom || bounds[o + 2] <= area.x || bounds[o] >= area.x + area.width)
+                {
+                    continue;
+                }
+
+                this.buffer.getBaseTransform(i, this.baseTransform);
+                this.bandTransform.setToTranslation(-area.x, -area.y);
+                this.bandTransform.concatenate(this.baseTransform);
+
+                if (this.buffer.getRotation(i) != 0)
+                {
+                    this.bandTransform.rotate(this.buffer.getRotation(i),
+                                              this.buffer.getRotationCenterX(i),
+                                              this.buffer.getRotationCenterY(i));
+                }
+
+                g.setTransform(this.bandTransform);
+
+                float alpha = this.buffer.getAlpha(i);
+
+                if (alpha != currentAlpha)
+                {
+                    g.setComposite(AlphaComposites.srcOver(alpha));
+                    currentAlpha = alpha;
+                }
+
+                this.buffer.draw(g, i);
+            }
+
+            g.dispose();
+            return null;
+        }
+    }
+}
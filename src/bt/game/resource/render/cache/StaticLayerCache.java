@@ -0,0 +1,570 @@
+package bt.game.resource.render.cache;
+
+import bt.game.core.container.abstr.GameContainer;
+import bt.game.core.scene.cam.Camera;
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.resource.render.intf.Renderable;
+import bt.game.util.image.CompatibleImages;
+import bt.game.util.unit.Unit;
+import bt.types.Killable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the content of {@link Renderable#isStatic() static} renderables as pre-rendered chunk images.
+ *
+ * <p>
+ * The world is split into square chunks of {@link #CHUNK_SIZE} pixels. A chunk is rendered once, when it first becomes
+ * visible, by drawing every member that overlaps it. After that, rendering the layer only draws the chunk images that
+ * intersect the visible area.
+ * </p>
+ *
+ * <p>
+ * Chunks take {@code CHUNK_SIZE * CHUNK_SIZE * 4} bytes each and there is usually one layer per z plane, so all layers
+ * share one {@link #setGlobalCapacity(int) budget} of chunks. The least recently used chunk of any layer is discarded
+ * once it is exceeded. A layer can additionally be limited to a smaller number of chunks of its own.
+ * </p>
+ *
+ * <p>
+ * Chunks are rebuilt lazily:
+ * <ul>
+ * <li>{@link #invalidate(Renderable)} discards the chunks that overlap the old or new bounds of a changed member.</li>
+ * <li>{@link #invalidateAll()} discards every chunk.</li>
+ * <li>All chunks are discarded automatically when the {@link Unit#getRatio() unit ratio} changes.</li>
+ * <li>{@link #invalidateAllLayers()} discards the chunks of every layer, i.e. when a shared image changed.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * The bounds of a member are taken from its position and size. Members without a size are treated as covering every
+ * chunk. Content that is drawn outside of the bounds of a member (i.e. because of a rotation) may be cut off at chunk
+ * borders.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class StaticLayerCache implements Killable
+{
+    /** The width and height of a chunk in pixels. */
+    public static final int CHUNK_SIZE = 512;
+
+    /** The number of chunks that are kept by all layers together by default. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final Object lock = new Object();
+    private static int globalCapacity = DEFAULT_CAPACITY;
+
+    /** The chunks of all layers in least recently used order. */
+    private static final Map<ChunkKey, BufferedImage> chunks = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChunkKey, BufferedImage> eldest)
+        {
+            if (size() > globalCapacity)
+            {
+                eldest.getKey().layer.chunkCount--;
+                eldest.getValue().flush();
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    /** Incremented by {@link #invalidateAllLayers()}, layers with an older epoch discard their chunks. */
+    private static final AtomicLong epoch = new AtomicLong();
+
+    private List<Renderable> members;
+    private Map<Renderable, Rectangle> memberBounds;
+    private int capacity;
+    private int chunkCount;
+    private double lastUnitRatio;
+    private long lastFrame = -1;
+    private long lastEpoch = epoch.get();
+
+    /**
+     * Creates a new cache that is only limited by the {@link #setGlobalCapacity(int) global capacity}.
+     */
+    public StaticLayerCache()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity The maximum number of chunks that are kept by this layer. The
+     *                 {@link #setGlobalCapacity(int) global capacity} applies as well.
+     */
+    public StaticLayerCache(int capacity)
+    {
+        this.members = new CopyOnWriteArrayList<>();
+        this.memberBounds = new HashMap<>();
+        this.lastUnitRatio = Unit.getRatio();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the number of chunks that are kept by all layers together. The least recently used chunks are discarded
+     * right away if more are kept.
+     *
+     * @param capacity The number of chunks.
+     */
+    public static void setGlobalCapacity(int capacity)
+    {
+        synchronized (lock)
+        {
+            globalCapacity = capacity;
+            Iterator<Map.Entry<ChunkKey, BufferedImage>> ite = chunks.entrySet().iterator();
+
+            while (chunks.size() > globalCapacity && ite.hasNext())
+            {
+                Map.Entry<ChunkKey, BufferedImage> eldest = ite.next();
+                eldest.getKey().layer.chunkCount--;
+                eldest.getValue().flush();
+                ite.remove();
+            }
+        }
+    }
+
+    public static int getGlobalCapacity()
+    {
+        synchronized (lock)
+        {
+            return globalCapacity;
+        }
+    }
+
+    /**
+     * Discards the chunks of all layers before they are drawn the next time. This needs to be called when the content of
+     * a renderable that may be a member of any layer changes, i.e. when a {@link bt.game.resource.render.impl.StreamedImage
+     * StreamedImage} replaces its placeholder.
+     */
+    public static void invalidateAllLayers()
+    {
+        epoch.incrementAndGet();
+    }
+
+    /**
+     * Calculates the area of the world in pixels that is visible through the given camera.
+     *
+     * @param camera The camera or null if the graphics are not translated.
+     * @param target The rectangle to set.
+     * @return The given rectangle.
+     */
+    public static Rectangle getVisibleArea(Camera camera, Rectangle target)
+    {
+        int x = 0;
+        int y = 0;
+
+        if (camera != null)
+        {
+            x = (int)Unit.toPixels(camera.getXUnits());
+            y = (int)Unit.toPixels(camera.getYUnits());
+        }
+
+        target.setBounds(x,
+                         y,
+                         (int)Math.ceil(GameContainer.width().pixels()),
+                         (int)Math.ceil(GameContainer.height().pixels()));
+        return target;
+    }
+
+    /**
+     * Adds a member to this layer. The chunks that it overlaps are rebuilt.
+     *
+     * @param member The renderable to add.
+     */
+    public void add(Renderable member)
+    {
+        this.members.add(member);
+        invalidate(member);
+    }
+
+    /**
+     * Removes a member from this layer. The chunks that it overlapped are rebuilt.
+     *
+     * @param member The renderable to remove.
+     */
+    public void remove(Renderable member)
+    {
+        if (this.members.remove(member))
+        {
+            Rectangle bounds;
+
+            synchronized (lock)
+            {
+                bounds = this.memberBounds.remove(member);
+            }
+
+            discardChunks(bounds);
+        }
+    }
+
+    /**
+     * Indicates whether the given renderable is a member of this layer.
+     *
+     * @param member The renderable.
+     * @return true if it was added and not removed since.
+     */
+    public boolean contains(Renderable member)
+    {
+        return this.members.contains(member);
+    }
+
+    /**
+     * Indicates whether this layer has any members.
+     *
+     * @return true if there are no members.
+     */
+    public boolean isEmpty()
+    {
+        return this.members.isEmpty();
+    }
+
+    /**
+     * Discards the chunks that overlap the bounds that the given member had when it was last added or invalidated, and
+     * the chunks that overlap its current bounds. This needs to be called whenever a member moves or changes its
+     * appearance.
+     *
+     * @param member The member that changed.
+     */
+    public void invalidate(Renderable member)
+    {
+        Rectangle newBounds = getBounds(member);
+        Rectangle oldBounds;
+
+        synchronized (lock)
+        {
+            oldBounds = this.memberBounds.put(member, newBounds);
+        }
+
+        discardChunks(oldBounds);
+        discardChunks(newBounds);
+    }
+
+    /**
+     * Discards all chunks. They are rebuilt when they become visible again.
+     */
+    public void invalidateAll()
+    {
+        synchronized (lock)
+        {
+            Iterator<Map.Entry<ChunkKey, BufferedImage>> ite = chunks.entrySet().iterator();
+
+            while (this.chunkCount > 0 && ite.hasNext())
+            {
+                Map.Entry<ChunkKey, BufferedImage> entry = ite.next();
+
+                if (entry.getKey().layer == this)
+                {
+                    entry.getValue().flush();
+                    ite.remove();
+                    this.chunkCount--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the chunks that intersect the given area, building missing chunks first.
+     *
+     * @param g              The graphics to draw on. It is expected to be translated by the camera.
+     * @param visibleArea    The visible area of the world in pixels.
+     * @param debugRendering true to outline the chunks.
+     */
+    public void render(Graphics2D g, Rectangle visibleArea, boolean debugRendering)
+    {
+        // chunks are drawn directly
+        RenderCommandBuffer.flushActive();
+
+        if (this.lastUnitRatio != Unit.getRatio())
+        {
+            this.lastUnitRatio = Unit.getRatio();
+            invalidateAll();
+            refreshMemberBounds();
+        }
+
+        long currentEpoch = epoch.get();
+
+        if (this.lastEpoch != currentEpoch)
+        {
+            this.lastEpoch = currentEpoch;
+            invalidateAll();
+        }
+
+        int firstX = Math.floorDiv(visibleArea.x, CHUNK_SIZE);
+        int firstY = Math.floorDiv(visibleArea.y, CHUNK_SIZE);
+        int lastX = Math.floorDiv(visibleArea.x + visibleArea.width - 1, CHUNK_SIZE);
+        int lastY = Math.floorDiv(visibleArea.y + visibleArea.height - 1, CHUNK_SIZE);
+
+        for (int cy = firstY; cy <= lastY; cy++)
+        {
+            for (int cx = firstX; cx <= lastX; cx++)
+            {
+                BufferedImage chunk = getChunk(cx, cy);
+
+                if (chunk != null)
+                {
+                    g.drawImage(chunk, cx * CHUNK_SIZE, cy * CHUNK_SIZE, null);
+                }
+
+                if (debugRendering)
+                {
+                    g.setColor(Color.CYAN);
+                    g.drawRect(cx * CHUNK_SIZE, cy * CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws this layer like {@link #render(Graphics2D, Rectangle, boolean)}, but only once per given frame number.
+     * Further calls with the same frame number do nothing.
+     *
+     * @param g              The graphics to draw on.
+     * @param visibleArea    The visible area of the world in pixels.
+     * @param frame          The number of the current frame.
+     * @param debugRendering true to outline the chunks.
+     * @return true if the layer was drawn.
+     */
+    public boolean renderOnce(Graphics2D g, Rectangle visibleArea, long frame, boolean debugRendering)
+    {
+        if (this.lastFrame == frame)
+        {
+            return false;
+        }
+
+        this.lastFrame = frame;
+        render(g, visibleArea, debugRendering);
+        return true;
+    }
+
+    /**
+     * Draws the content of the chunk with the given bounds. The graphics are translated so that world pixel positions
+     * can be used.
+     *
+     * <p>
+     * The default implementation renders all members that overlap the chunk in the order in which they were added.
+     * Subclasses can override this to cache content that is not made of renderables.
+     * </p>
+     *
+     * @param g           The graphics of the chunk image.
+     * @param chunkBounds The area of the world in pixels that the chunk covers.
+     */
+    protected void renderContent(Graphics2D g, Rectangle chunkBounds)
+    {
+        for (Renderable member : this.members)
+        {
+            if (!member.shouldRender())
+            {
+                continue;
+            }
+
+            Rectangle bounds;
+
+            synchronized (lock)
+            {
+                bounds = this.memberBounds.get(member);
+            }
+
+            if (bounds == null || bounds.isEmpty() || bounds.intersects(chunkBounds))
+            {
+                member.render(g, false);
+            }
+        }
+    }
+
+    /**
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public void kill()
+    {
+        invalidateAll();
+        this.members.clear();
+
+        synchronized (lock)
+        {
+            this.memberBounds.clear();
+        }
+    }
+
+    private BufferedImage getChunk(int cx, int cy)
+    {
+        ChunkKey key = new ChunkKey(this, cx, cy);
+        BufferedImage chunk;
+
+        synchronized (lock)
+        {
+            chunk = chunks.get(key);
+        }
+
+        if (chunk == null)
+        {
+            Rectangle chunkBounds = new Rectangle(cx * CHUNK_SIZE, cy * CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE);
+            chunk = CompatibleImages.createCompatibleImage(CHUNK_SIZE, CHUNK_SIZE, Transparency.TRANSLUCENT);
+
+            Graphics2D cg = chunk.createGraphics();
+            cg.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                RenderingHints.VALUE_ANTIALIAS_ON);
+            cg.translate(-chunkBounds.x, -chunkBounds.y);
+            cg.clip(chunkBounds);
+            renderContent(cg, chunkBounds);
+            cg.dispose();
+
+            synchronized (lock)
+            {
+                BufferedImage old = chunks.put(key, chunk);
+
+                if (old == null)
+                {
+                    this.chunkCount++;
+                }
+                else
+                {
+                    old.flush();
+                }
+
+                if (this.chunkCount > this.capacity)
+                {
+                    discardEldestChunk();
+                }
+            }
+        }
+
+        return chunk;
+    }
+
+    private void discardChunks(Rectangle bounds)
+    {
+        if (bounds == null)
+        {
+            return;
+        }
+
+        if (bounds.isEmpty())
+        {
+            invalidateAll();
+            return;
+        }
+
+        int firstX = Math.floorDiv(bounds.x, CHUNK_SIZE);
+        int firstY = Math.floorDiv(bounds.y, CHUNK_SIZE);
+        int lastX = Math.floorDiv(bounds.x + bounds.width - 1, CHUNK_SIZE);
+        int lastY = Math.floorDiv(bounds.y + bounds.height - 1, CHUNK_SIZE);
+
+        synchronized (lock)
+        {
+            Iterator<Map.Entry<ChunkKey, BufferedImage>> ite = chunks.entrySet().iterator();
+
+            while (this.chunkCount > 0 && ite.hasNext())
+            {
+                Map.Entry<ChunkKey, BufferedImage> entry = ite.next();
+                ChunkKey key = entry.getKey();
+
+                if (key.layer == this && key.cx >= firstX && key.cx <= lastX && key.cy >= firstY && key.cy <= lastY)
+                {
+                    entry.getValue().flush();
+                    ite.remove();
+                    this.chunkCount--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the least recently used chunk of this layer. Needs to be called while holding the lock.
+     */
+    private void discardEldestChunk()
+    {
+        Iterator<Map.Entry<ChunkKey, BufferedImage>> ite = chunks.entrySet().iterator();
+
+        while (ite.hasNext())
+        {
+            Map.Entry<ChunkKey, BufferedImage> entry = ite.next();
+
+            if (entry.getKey().layer == this)
+            {
+                entry.getValue().flush();
+                ite.remove();
+                this.chunkCount--;
+                return;
+            }
+        }
+    }
+
+    private void refreshMemberBounds()
+    {
+        for (Renderable member : this.members)
+        {
+            Rectangle bounds = getBounds(member);
+
+            synchronized (lock)
+            {
+                this.memberBounds.put(member, bounds);
+            }
+        }
+    }
+
+    private static Rectangle getBounds(Renderable member)
+    {
+        double x = Unit.toPixels(member.getXUnits());
+        double y = Unit.toPixels(member.getYUnits());
+        double w = Unit.toPixels(member.getWUnits());
+        double h = Unit.toPixels(member.getHUnits());
+
+        if (w <= 0 || h <= 0)
+        {
+            return new Rectangle();
+        }
+
+        int x1 = (int)Math.floor(x);
+        int y1 = (int)Math.floor(y);
+
+        return new Rectangle(x1, y1, (int)Math.ceil(x + w) - x1, (int)Math.ceil(y + h) - y1);
+    }
+
+    /**
+     * Identifies a chunk of a layer in the shared chunk map.
+     */
+    private static class ChunkKey
+    {
+        private StaticLayerCache layer;
+        private int cx;
+        private int cy;
+
+        private ChunkKey(StaticLayerCache layer, int cx, int cy)
+        {
+            this.layer = layer;
+            this.cx = cx;
+            this.cy = cy;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof ChunkKey))
+            {
+                return false;
+            }
+
+            ChunkKey other = (ChunkKey)obj;
+            return this.layer == other.layer && this.cx == other.cx && this.cy == other.cy;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (System.identityHashCode(this.layer) * 31 + this.cx) * 31 + this.cy;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package bt.game.resource.render.cache;
+
+import bt.game.util.image.CompatibleImages;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches derived fonts and pre-rendered text images, so that texts which do not change are not laid out again every
+ * frame.
+ *
+ * <p>
+ * Derived fonts are mapped to the font and transform that they were derived with. Text images are mapped to the text,
+ * font, scale of the transform and color. The translation of a transform is ignored for text images, so texts that
+ * only differ in their position share an image. Drawing a cached text image is a single image draw call.
+ * </p>
+ *
+ * <p>
+ * Both caches discard their least recently used entries. The font cache keeps a fixed number of fonts, the image cache
+ * keeps images until their combined size exceeds a {@link #setMaxBytes(long) memory limit}. Texts whose image would
+ * take up more than a quarter of that limit are not cached.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class TextCache
+{
+    /** The number of derived fonts that are kept. */
+    public static final int FONT_CAPACITY = 256;
+
+    /** The default memory limit for text images in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final TextCache instance = new TextCache();
+
+    /**
+     * Gets the cache that is shared by all texts.
+     *
+     * @return The instance.
+     */
+    public static TextCache get()
+    {
+        return TextCache.instance;
+    }
+
+    private Map<FontKey, Font> fonts;
+    private Map<TextKey, TextImage> images;
+    private FontRenderContext renderContext;
+    private FontKey fontLookup;
+    private TextKey textLookup;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long bytes;
+
+    /**
+     * Creates a new, empty cache.
+     */
+    public TextCache()
+    {
+        this.fonts = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FontKey, Font> eldest)
+            {
+                return size() > FONT_CAPACITY;
+            }
+        };
+        this.images = new LinkedHashMap<>(16, 0.75f, true);
+        this.renderContext = new FontRenderContext(null, true, true);
+        this.fontLookup = new FontKey();
+        this.textLookup = new TextKey();
+    }
+
+    /**
+     * Gets the given font derived with the given transform. The font is only derived if it is not cached yet.
+     *
+     * @param font      The base font.
+     * @param transform The transform or null to return the font itself.
+     * @return The derived font.
+     */
+    public synchronized Font deriveFont(Font font, AffineTransform transform)
+    {
+        if (transform == null || transform.isIdentity())
+        {
+            return font;
+        }
+
+        this.fontLookup.set(font, transform);
+        Font derived = this.fonts.get(this.fontLookup);
+
+        if (derived == null)
+        {
+            derived = font.deriveFont(transform);
+            FontKey key = new FontKey();
+            key.set(font, transform);
+            this.fonts.put(key, derived);
+        }
+
+        return derived;
+    }
+
+    /**
+     * Gets an image of the given text, rendered with antialiasing and fractional metrics. The image is only rendered if
+     * it is not cached yet.
+     *
+     * <p>
+     * The translation of the given transform is not part of the image. It has to be added to the
+     * {@link TextImage#getOffsetX() offset} of the image by the caller.
+     * </p>
+     *
+     * @param text      The text.
+     * @param font      The base font.
+     * @param transform The transform that the font is derived with or null.
+     * @param color     The color of the text.
+     * @return The image or null if the text is empty or too large to be cached.
+     */
+    public synchronized TextImage getTextImage(String text, Font font, AffineTransform transform, Color color)
+    {
+        if (text == null || text.isEmpty())
+        {
+            return null;
+        }
+
+        this.textLookup.set(text, font, transform, color);
+        TextImage image = this.images.get(this.textLookup);
+
+        if (image == null)
+        {
+            AffineTransform scale = null;
+
+            if (transform != null)
+            {
+                scale = new AffineTransform(transform.getScaleX(),
+                                            transform.getShearY(),
+                                            transform.getShearX(),
+                                            transform.getScaleY(),
+                                            0,
+                                            0);
+            }
+
+            image = createTextImage(text, deriveFont(font, scale), color);
+
+            if (image == null)
+            {
+                return null;
+            }
+
+            TextKey key = new TextKey();
+            key.set(text, font, transform, color);
+            this.images.put(key, image);
+            this.bytes += image.getBytes();
+            trim();
+        }
+
+        return image;
+    }
+
+    /**
+     * Sets the combined size of the text images after which the least recently used images are discarded.
+     *
+     * @param maxBytes The limit in bytes.
+     */
+    public synchronized void setMaxBytes(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    public synchronized long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+
+    /**
+     * Gets the combined size of all cached text images.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long getBytes()
+    {
+        return this.bytes;
+    }
+
+    /**
+     * Discards all cached fonts and images.
+     */
+    public synchronized void clear()
+    {
+        for (TextImage image : this.images.values())
+        {
+            image.getImage().flush();
+        }
+
+        this.images.clear();
+        this.fonts.clear();
+        this.bytes = 0;
+    }
+
+    private TextImage createTextImage(String text, Font font, Color color)
+    {
+        GlyphVector glyphs = font.createGlyphVector(this.renderContext, text);
+        Rectangle bounds = glyphs.getPixelBounds(this.renderContext, 0, 0);
+
+        if (bounds.isEmpty())
+        {
+            return null;
+        }
+
+        // one pixel on each side for antialiased edges
+        bounds.grow(1, 1);
+
+        if ((long)bounds.width * bounds.height * 4 > this.maxBytes / 4)
+        {
+            return null;
+        }
+
+        BufferedImage image = CompatibleImages.createCompatibleImage(bounds.width,
+                                                                     bounds.height,
+                                                                     Transparency.TRANSLUCENT);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                           RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+                           RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g.setColor(color);
+        g.drawGlyphVector(glyphs, -bounds.x, -bounds.y);
+        g.dispose();
+
+        return new TextImage(image, bounds.x, bounds.y);
+    }
+
+    private void trim()
+    {
+        Iterator<TextImage> ite = this.images.values().iterator();
+
+        while (this.bytes > this.maxBytes && ite.hasNext())
+        {
+            TextImage image = ite.next();
+            this.bytes -= image.getBytes();
+            image.getImage().flush();
+            ite.remove();
+        }
+    }
+
+    /**
+     * A pre-rendered text.
+     *
+     * @author &#8904
+     */
+    public static class TextImage
+    {
+        private BufferedImage image;
+        private int offsetX;
+        private int offsetY;
+
+        private TextImage(BufferedImage image, int offsetX, int offsetY)
+        {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+
+        public BufferedImage getImage()
+        {
+            return this.image;
+        }
+
+        /**
+         * Gets the x position of the image relative to the position that the text would be drawn at via
+         * {@link Graphics2D#drawString(String, int, int)}.
+         *
+         * @return The offset in pixels.
+         */
+        public int getOffsetX()
+        {
+            return this.offsetX;
+        }
+
+        /**
+         * Gets the y position of the image relative to the baseline of the text.
+         *
+         * @return The offset in pixels.
+         */
+        public int getOffsetY()
+        {
+            return this.offsetY;
+        }
+
+        private long getBytes()
+        {
+            return (long)this.image.getWidth() * this.image.getHeight() * 4;
+        }
+    }
+
+    private static class FontKey
+    {
+        private Font font;
+        private double[] matrix = new double[6];
+        private int hash;
+
+        private void set(Font font, AffineTransform transform)
+        {
+            this.font = font;
+            transform.getMatrix(this.matrix);
+            this.hash = font.hashCode() * 31 + Arrays.hashCode(this.matrix);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof FontKey))
+            {
+                return false;
+            }
+
+            FontKey other = (FontKey)obj;
+            return this.font.equals(other.font) && Arrays.equals(this.matrix, other.matrix);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+    }
+
+    private static class TextKey
+    {
+        private String text;
+        private Font font;
+        private double scaleX;
+        private double shearY;
+        private double shearX;
+        private double scaleY;
+        private int rgb;
+        private int hash;
+
+        private void set(String text, Font font, AffineTransform transform, Color color)
+        {
+            this.text = text;
+            this.font = font;
+            this.scaleX = transform == null ? 1 : transform.getScaleX();
+            this.shearY = transform == null ? 0 : transform.getShearY();
+            this.shearX = transform == null ? 0 : transform.getShearX();
+            this.scaleY = transform == null ? 1 : transform.getScaleY();
+            this.rgb = color.getRGB();
+
+            int hash = text.hashCode();
+            hash = hash * 31 + font.hashCode();
+            hash = hash * 31 + Double.hashCode(this.scaleX);
+            hash = hash * 31 + Double.hashCode(this.shearY);
+            hash = hash * 31 + Double.hashCode(this.shearX);
+            hash = hash * 31 + Double.hashCode(this.scaleY);
+            this.hash = hash * 31 + this.rgb;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof TextKey))
+            {
+                return false;
+            }
+
+            TextKey other = (TextKey)obj;
+            return this.rgb == other.rgb
+                    && this.scaleX == other.scaleX
+                    && this.shearY == other.shearY
+                    && this.shearX == other.shearX
+                    && this.scaleY == other.scaleY
+                    && this.text.equals(other.text)
+                    && this.font.equals(other.font);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+    }
+}
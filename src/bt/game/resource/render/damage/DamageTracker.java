@@ -0,0 +1,228 @@
+package bt.game.resource.render.damage;
+
+import bt.game.core.scene.cam.Camera;
+import bt.game.resource.render.intf.Renderable;
+import bt.game.util.unit.Unit;
+
+import java.awt.*;
+
+/**
+ * Collects the areas of the screen that need to be rendered again because something in them changed.
+ *
+ * <p>
+ * Renderables report changes via the static methods of this class. Reports are ignored unless a tracker is
+ * {@link #setActive(DamageTracker) active}, so reporting is cheap when dirty rendering is not used. The renderer takes
+ * the union of all reported areas once per frame via {@link #takeDamage(Rectangle)}, renders only that area and skips
+ * frames without any damage.
+ * </p>
+ *
+ * <p>
+ * Positions given in units or world pixels are converted to screen pixels by subtracting the position of the
+ * {@link Camera#currentCamera current camera}. A small margin is added to every area to cover anti aliased edges.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class DamageTracker
+{
+    /** The number of pixels that every reported area is extended by on each side. */
+    public static final int MARGIN = 2;
+
+    private static volatile DamageTracker active;
+
+    private Rectangle damage;
+    private boolean fullDamage;
+
+    /**
+     * Creates a new tracker. The first frame is fully damaged.
+     */
+    public DamageTracker()
+    {
+        this.damage = new Rectangle();
+        this.fullDamage = true;
+    }
+
+    /**
+     * Gets the tracker that receives reports.
+     *
+     * @return The active tracker or null if dirty rendering is not used.
+     */
+    public static DamageTracker getActive()
+    {
+        return active;
+    }
+
+    /**
+     * Sets the tracker that receives reports.
+     *
+     * @param tracker The tracker or null to ignore all reports.
+     */
+    public static void setActive(DamageTracker tracker)
+    {
+        active = tracker;
+    }
+
+    /**
+     * Reports that the area covered by the given renderable changed, based on its position and size. Renderables
+     * without a size damage the whole screen.
+     *
+     * @param renderable The changed renderable.
+     */
+    public static void report(Renderable renderable)
+    {
+        if (active != null)
+        {
+            reportUnits(renderable.getXUnits(),
+                        renderable.getYUnits(),
+                        renderable.getWUnits(),
+                        renderable.getHUnits());
+        }
+    }
+
+    /**
+     * Reports that the given area of the world changed.
+     *
+     * @param x The x position in units.
+     * @param y The y position in units.
+     * @param w The width in units.
+     * @param h The height in units.
+     */
+    public static void reportUnits(double x, double y, double w, double h)
+    {
+        if (active != null)
+        {
+            reportWorldPixels(Unit.toPixels(x), Unit.toPixels(y), Unit.toPixels(w), Unit.toPixels(h));
+        }
+    }
+
+    /**
+     * Reports that the given area of the world changed.
+     *
+     * @param x The x position in pixels.
+     * @param y The y position in pixels.
+     * @param w The width in pixels.
+     * @param h The height in pixels.
+     */
+    public static void reportWorldPixels(double x, double y, double w, double h)
+    {
+        DamageTracker tracker = active;
+
+        if (tracker != null)
+        {
+            Camera camera = Camera.currentCamera;
+
+            if (camera != null)
+            {
+                x -= (int)Unit.toPixels(camera.getXUnits());
+                y -= (int)Unit.toPixels(camera.getYUnits());
+            }
+
+            tracker.damage(x, y, w, h);
+        }
+    }
+
+    /**
+     * Reports that the given area of the screen changed, regardless of the camera position.
+     *
+     * @param x The x position in pixels.
+     * @param y The y position in pixels.
+     * @param w The width in pixels.
+     * @param h The height in pixels.
+     */
+    public static void reportScreenPixels(double x, double y, double w, double h)
+    {
+        DamageTracker tracker = active;
+
+        if (tracker != null)
+        {
+            tracker.damage(x, y, w, h);
+        }
+    }
+
+    /**
+     * Reports that the whole screen changed.
+     */
+    public static void reportAll()
+    {
+        DamageTracker tracker = active;
+
+        if (tracker != null)
+        {
+            tracker.damageAll();
+        }
+    }
+
+    /**
+     * Adds the given area of the screen to the damage of the next frame.
+     *
+     * @param x The x position in pixels.
+     * @param y The y position in pixels.
+     * @param w The width in pixels. A width or height of 0 or less damages the whole screen.
+     * @param h The height in pixels.
+     */
+    public synchronized void damage(double x, double y, double w, double h)
+    {
+        if (this.fullDamage)
+        {
+            return;
+        }
+
+        if (w <= 0 || h <= 0)
+        {
+            this.fullDamage = true;
+            return;
+        }
+
+        int x1 = (int)Math.floor(x) - MARGIN;
+        int y1 = (int)Math.floor(y) - MARGIN;
+        int x2 = (int)Math.ceil(x + w) + MARGIN;
+        int y2 = (int)Math.ceil(y + h) + MARGIN;
+
+        if (this.damage.isEmpty())
+        {
+            this.damage.setBounds(x1, y1, x2 - x1, y2 - y1);
+        }
+        else
+        {
+            this.damage.add(x1, y1);
+            this.damage.add(x2, y2);
+        }
+    }
+
+    /**
+     * Damages the whole screen for the next frame.
+     */
+    public synchronized void damageAll()
+    {
+        this.fullDamage = true;
+    }
+
+    /**
+     * Indicates whether anything was damaged since the last call to {@link #takeDamage(Rectangle)}.
+     *
+     * @return true if the next frame needs to be rendered.
+     */
+    public synchronized boolean hasDamage()
+    {
+        return this.fullDamage || !this.damage.isEmpty();
+    }
+
+    /**
+     * Gets the damaged area, limited to the given screen area, and resets the damage.
+     *
+     * @param screen The whole screen area. The damaged part of it is stored in this rectangle.
+     * @return The given rectangle, which may be empty if nothing on the screen was damaged.
+     */
+    public synchronized Rectangle takeDamage(Rectangle screen)
+    {
+        if (!this.fullDamage)
+        {
+            Rectangle.intersect(screen, this.damage, screen);
+        }
+
+        this.fullDamage = false;
+        this.damage.setBounds(0, 0, 0, 0);
+
+        return screen;
+    }
+}
@@ -21,18 +21,36 @@ public class AdvancedRenderableImage extends BaseRenderable
 
     @Override
     public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               x.pixels(),
+               y.pixels(),
+               w.pixels(),
+               h.pixels(),
+               this.context.set(alpha, rotation, rotationOffsetX.pixels(), rotationOffsetY.pixels(), debugRendering));
+    }
+
+    @Override
+    public void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               Unit.toPixels(x),
+               Unit.toPixels(y),
+               Unit.toPixels(w),
+               Unit.toPixels(h),
+               this.context.set(alpha, rotation, Unit.toPixels(rotationOffsetX), Unit.toPixels(rotationOffsetY), debugRendering));
+    }
+
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
     {
         this.scene.getResourceLoader()
                   .getRenderable(this.imageName)
-                  .render(alpha,
-                          g,
+                  .render(g,
                           x,
                           y,
                           w,
                           h,
-                          rotation,
-                          rotationOffsetX,
-                          rotationOffsetY,
-                          debugRendering);
+                          context);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package bt.game.resource.render.impl;
 
+import bt.game.resource.render.damage.DamageTracker;
 import bt.game.resource.render.intf.Renderable;
 import bt.game.util.unit.Unit;
 
@@ -11,6 +12,8 @@ public abstract class BaseRenderable implements Renderable
     protected Unit h;
     protected Unit z;
     protected boolean shouldRender;
+    protected boolean isStatic;
+    protected RenderContext context;
 
     public BaseRenderable()
     {
@@ -20,6 +23,7 @@ public abstract class BaseRenderable implements Renderable
         this.h = Unit.forUnits(64);
         this.z = Unit.zero();
         this.shouldRender = true;
+        this.context = new RenderContext();
     }
 
     /**
@@ -38,6 +42,7 @@ public abstract class BaseRenderable implements Renderable
     public void setZ(Unit z)
     {
         this.z = z;
+        reportDamage();
     }
 
     @Override
@@ -49,7 +54,9 @@ public abstract class BaseRenderable implements Renderable
     @Override
     public void setX(Unit x)
     {
+        reportDamage();
         this.x = x;
+        reportDamage();
     }
 
     @Override
@@ -61,7 +68,9 @@ public abstract class BaseRenderable implements Renderable
     @Override
     public void setY(Unit y)
     {
+        reportDamage();
         this.y = y;
+        reportDamage();
     }
 
     /**
@@ -79,6 +88,11 @@ public abstract class BaseRenderable implements Renderable
     @Override
     public void shouldRender(boolean shouldRender)
     {
+        if (shouldRender != this.shouldRender)
+        {
+            reportDamage();
+        }
+
         this.shouldRender = shouldRender;
     }
 
@@ -91,7 +105,9 @@ public abstract class BaseRenderable implements Renderable
     @Override
     public void setW(Unit w)
     {
+        reportDamage();
         this.w = w;
+        reportDamage();
     }
 
     @Override
@@ -103,6 +119,85 @@ public abstract class BaseRenderable implements Renderable
     @Override
     public void setH(Unit h)
     {
+        reportDamage();
         this.h = h;
+        reportDamage();
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#getZUnits()
+     */
+    @Override
+    public double getZUnits()
+    {
+        return this.z.units();
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#getXUnits()
+     */
+    @Override
+    public double getXUnits()
+    {
+        return this.x.units();
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#getYUnits()
+     */
+    @Override
+    public double getYUnits()
+    {
+        return this.y.units();
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#getWUnits()
+     */
+    @Override
+    public double getWUnits()
+    {
+        return this.w.units();
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#getHUnits()
+     */
+    @Override
+    public double getHUnits()
+    {
+        return this.h.units();
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#isStatic()
+     */
+    @Override
+    public boolean isStatic()
+    {
+        return this.isStatic;
+    }
+
+    /**
+     * Sets whether this renderable is static. This only has an effect if it is set before the renderable is added to
+     * an object handler.
+     *
+     * @param isStatic true if this renderable never moves or changes its appearance.
+     */
+    public void setStatic(boolean isStatic)
+    {
+        this.isStatic = isStatic;
+    }
+
+    /**
+     * Reports the area that this renderable currently covers to the active {@link DamageTracker}, so that it is
+     * rendered again during dirty rendering. Called whenever the position, size or appearance changes.
+     */
+    protected void reportDamage()
+    {
+        if (DamageTracker.getActive() != null && this.x != null && this.y != null && this.w != null && this.h != null)
+        {
+            DamageTracker.report(this);
+        }
     }
 }
@@ -0,0 +1,25 @@
+package bt.game.resource.render.impl;
+
+/**
+ * Defines how the pixel data of a {@link RenderableImage} is stored to allow Java2D to accelerate drawing it.
+ *
+ * @author &#8904
+ */
+public enum ImageAcceleration
+{
+    /**
+     * The image is used exactly as it was loaded.
+     */
+    NONE,
+
+    /**
+     * The image is copied into a format that matches the {@link java.awt.GraphicsConfiguration} of the screen.
+     */
+    COMPATIBLE,
+
+    /**
+     * Like {@link #COMPATIBLE}, but the scaled image is additionally kept in a {@link java.awt.image.VolatileImage}
+     * that is restored automatically if its contents are lost.
+     */
+    VOLATILE
+}
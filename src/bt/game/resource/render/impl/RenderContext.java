@@ -0,0 +1,139 @@
+package bt.game.resource.render.impl;
+
+import bt.game.resource.render.intf.Renderable;
+
+import java.awt.*;
+
+/**
+ * Holds the parameters for {@link Renderable#render(Graphics2D, double, double, double, double, RenderContext)} that
+ * are not part of the position and size.
+ *
+ * <p>
+ * Instances are mutable and meant to be reused. A renderable that passes a context to another renderable usually keeps
+ * one instance for that purpose and updates it via {@link #set(float, double, double, double, boolean)} before every
+ * call. A context should only be read during the render call it was passed to.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class RenderContext
+{
+    private float alpha;
+    private double rotation;
+    private double rotationOffsetX;
+    private double rotationOffsetY;
+    private boolean debugRendering;
+
+    /**
+     * Creates a new context with an alpha of 1, no rotation and debug rendering turned off.
+     */
+    public RenderContext()
+    {
+        reset();
+    }
+
+    /**
+     * Resets all values to an alpha of 1, no rotation and debug rendering turned off.
+     *
+     * @return This instance for chaining.
+     */
+    public RenderContext reset()
+    {
+        return set(1, 0, 0, 0, false);
+    }
+
+    /**
+     * Sets all values at once.
+     *
+     * @param alpha           The alpha value between 0 and 1.
+     * @param rotation        The clockwise rotation in degrees.
+     * @param rotationOffsetX The x offset of the rotation center from the center of the rendered area in pixels.
+     * @param rotationOffsetY The y offset of the rotation center from the center of the rendered area in pixels.
+     * @param debugRendering  true to render debug information.
+     * @return This instance for chaining.
+     */
+    public RenderContext set(float alpha, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        this.alpha = alpha;
+        this.rotation = rotation;
+        this.rotationOffsetX = rotationOffsetX;
+        this.rotationOffsetY = rotationOffsetY;
+        this.debugRendering = debugRendering;
+        return this;
+    }
+
+    /**
+     * Sets the alpha value.
+     *
+     * @param alpha The alpha value between 0 and 1.
+     * @return This instance for chaining.
+     */
+    public RenderContext alpha(float alpha)
+    {
+        this.alpha = alpha;
+        return this;
+    }
+
+    /**
+     * Sets the rotation.
+     *
+     * @param rotation The clockwise rotation in degrees.
+     * @return This instance for chaining.
+     */
+    public RenderContext rotation(double rotation)
+    {
+        this.rotation = rotation;
+        return this;
+    }
+
+    /**
+     * Sets the offset of the rotation center from the center of the rendered area.
+     *
+     * @param rotationOffsetX The x offset in pixels.
+     * @param rotationOffsetY The y offset in pixels.
+     * @return This instance for chaining.
+     */
+    public RenderContext rotationOffset(double rotationOffsetX, double rotationOffsetY)
+    {
+        this.rotationOffsetX = rotationOffsetX;
+        this.rotationOffsetY = rotationOffsetY;
+        return this;
+    }
+
+    /**
+     * Sets whether debug information should be rendered.
+     *
+     * @param debugRendering true to render debug information.
+     * @return This instance for chaining.
+     */
+    public RenderContext debugRendering(boolean debugRendering)
+    {
+        this.debugRendering = debugRendering;
+        return this;
+    }
+
+    public float getAlpha()
+    {
+        return this.alpha;
+    }
+
+    public double getRotation()
+    {
+        return this.rotation;
+    }
+
+    public double getRotationOffsetX()
+    {
+        return this.rotationOffsetX;
+    }
+
+    public double getRotationOffsetY()
+    {
+        return this.rotationOffsetY;
+    }
+
+    public boolean isDebugRendering()
+    {
+        return this.debugRendering;
+    }
+}
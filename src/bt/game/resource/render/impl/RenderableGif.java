@@ -1,15 +1,95 @@
 package bt.game.resource.render.impl;
 
+import bt.game.core.scene.cam.Camera;
+import bt.game.resource.render.damage.DamageTracker;
+import bt.game.resource.render.impl.anim.AnimationClip;
+
 import javax.swing.ImageIcon;
+import java.awt.*;
 
 /**
+ * An image that was loaded from a GIF.
+ *
+ * <p>
+ * GIFs that were decoded into an {@link AnimationClip} keep animating when they are rendered as an image, just like GIFs
+ * that were loaded as toolkit images. Their frames follow the wall clock, starting with the first render, and do not
+ * stop while the game is paused. To play the clip with the game clock, i.e. with time scales or frame actions, use an
+ * {@link bt.game.resource.render.impl.anim.Animation Animation} instead.
+ * </p>
+ *
  * @author &#8904
  *
  */
 public class RenderableGif extends RenderableImage
 {
+    private AnimationClip clip;
+    private long startTime = -1;
+
     public RenderableGif(ImageIcon image)
     {
         super(image.getImage());
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a new gif that plays the given clip.
+     *
+     * @param clip The decoded frames of the gif.
+     */
+    public RenderableGif(AnimationClip clip)
+    {
+        super(clip.getFrame(0).getImage());
+        this.clip = clip;
+    }
+
+    /**
+     * Gets the decoded frames of this gif.
+     *
+     * @return The clip or null if this gif was created from an {@link ImageIcon}.
+     */
+    public AnimationClip getClip()
+    {
+        return this.clip;
+    }
+
+    /**
+     * Renders the frame of the clip that matches the time since this gif was first rendered. The rendered area is
+     * reported as damaged, so that the next frame is drawn during dirty rendering as well.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#render(java.awt.Graphics2D, double, double, double, double, bt.game.resource.render.impl.RenderContext)
+     */
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        if (this.clip == null || this.clip.getFrameCount() < 2 || this.clip.getDuration() <= 0)
+        {
+            super.render(g, x, y, w, h, context);
+            return;
+        }
+
+        long now = System.nanoTime() / 1000000;
+
+        if (this.startTime < 0)
+        {
+            this.startTime = now;
+        }
+
+        long time = (now - this.startTime) % this.clip.getDuration();
+        int index = 0;
+
+        while (index < this.clip.getFrameCount() - 1 && time >= this.clip.getFrameEnd(index))
+        {
+            index++;
+        }
+
+        this.clip.getFrame(index).render(g, x, y, w, h, context);
+
+        if (Camera.currentCamera == null || !Camera.currentCamera.isTranslated())
+        {
+            DamageTracker.reportScreenPixels(x, y, w, h);
+        }
+        else
+        {
+            DamageTracker.reportWorldPixels(x, y, w, h);
+        }
+    }
+}
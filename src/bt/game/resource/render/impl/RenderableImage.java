@@ -1,35 +1,45 @@
 package bt.game.resource.render.impl;
 
+import bt.game.resource.render.batch.RenderCommandBuffer;
 import bt.game.resource.render.intf.Renderable;
+import bt.game.util.image.AlphaComposites;
+import bt.game.util.image.BoxBlur;
+import bt.game.util.image.CompatibleImages;
+import bt.game.util.image.MipChain;
 import bt.game.util.shape.ShapeRenderer;
 import bt.game.util.unit.Unit;
 import bt.types.Killable;
 import bt.utils.NumberUtils;
-import com.twelvemonkeys.image.ConvolveWithEdgeOp;
 import org.dyn4j.geometry.Geometry;
 import org.dyn4j.geometry.Shape;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.awt.image.BufferedImageOp;
-import java.awt.image.Kernel;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author &#8904
  */
 public class RenderableImage implements Renderable, Killable
 {
+    /** The number of blurred instances that are cached by {@link #blurred(int)}. */
+    public static final int BLUR_CACHE_SIZE = 8;
+
     protected Image image;
     protected Image scaledImage;
     protected AffineTransform transform;
-    protected Unit lastWidth;
-    protected Unit lastHeight;
+    protected double lastWidth = Double.NaN;
+    protected double lastHeight = Double.NaN;
     protected double lastUnitRatio = Unit.getRatio();
     protected Unit z;
     protected boolean shouldRender;
-    protected RenderableImage blurredImage;
-    protected int blurredRadius = 0;
+    protected Map<Integer, RenderableImage> blurredImages;
+    protected ImageAcceleration acceleration = ImageAcceleration.NONE;
+    protected int transparency = Transparency.TRANSLUCENT;
+    protected MipChain mipChain;
+    protected RenderContext context;
 
     public RenderableImage(Image image)
     {
@@ -38,6 +48,21 @@ public class RenderableImage implements Renderable, Killable
         this.transform = new AffineTransform();
         this.z = Unit.zero();
         this.shouldRender = true;
+        this.context = new RenderContext();
+        this.blurredImages = new LinkedHashMap<>(BLUR_CACHE_SIZE, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RenderableImage> eldest)
+            {
+                if (size() > BLUR_CACHE_SIZE)
+                {
+                    eldest.getValue().kill();
+                    return true;
+                }
+
+                return false;
+            }
+        };
     }
 
     /**
@@ -108,48 +133,118 @@ public class RenderableImage implements Renderable, Killable
     }
 
     /**
-     * Returns a blurred instance of this image. Unless the radius is being changed this method will return the same image instance everytime.
+     * Returns a version of this image whose pixel data is stored in a format that Java2D can accelerate, wrapped in a
+     * new {@link RenderableImage} instance.
+     *
      * <p>
-     * The returned RenderableImage copies the Z and the {@link #shouldRender()} settting. It also shares
-     * the same image data as this instance, which means that changes to the underlying image can affect both
-     * RenderabelImages.
+     * The format is chosen to match the {@link GraphicsConfiguration} of the screen. Whether the new image is opaque or
+     * translucent depends on the actual alpha values of the underlying image. Scaled versions of the returned image
+     * will be converted the same way.
+     * </p>
+     *
+     * <p>
+     * The returned RenderableImage copies the Z and the {@link #shouldRender()} settting. If the underlying image
+     * already has a compatible format the image data is shared with this instance.
+     * </p>
+     *
+     * @param acceleration The way the image data should be stored. {@link ImageAcceleration#NONE} returns this instance.
+     * @return The converted RenderableImage.
+     * @throws UnsupportedOperationException if the underlying image is not an instance of {@link BufferedImage}.
+     */
+    public RenderableImage accelerated(ImageAcceleration acceleration)
+    {
+        if (acceleration == ImageAcceleration.NONE)
+        {
+            return this;
+        }
+
+        if (this.image instanceof BufferedImage)
+        {
+            int transparency = CompatibleImages.getTransparency((BufferedImage)this.image);
+            BufferedImage compatible = CompatibleImages.toCompatibleImage(this.image, transparency);
+            RenderableImage acceleratedImage;
+
+            if (acceleration == ImageAcceleration.VOLATILE)
+            {
+                acceleratedImage = new VolatileRenderableImage(compatible);
+            }
+            else
+            {
+                acceleratedImage = new RenderableImage(compatible);
+            }
+
+            acceleratedImage.acceleration = acceleration;
+            acceleratedImage.transparency = transparency;
+            acceleratedImage.setZ(this.z);
+            acceleratedImage.shouldRender(this.shouldRender);
+            acceleratedImage.setMipmapped(isMipmapped());
+            return acceleratedImage;
+        }
+        else
+        {
+            throw new UnsupportedOperationException("Only instances of BufferedImage can be accelerated.");
+        }
+    }
+
+    /**
+     * Gets the underlying unscaled image.
+     *
+     * @return The image.
+     */
+    public Image getImage()
+    {
+        return this.image;
+    }
+
+    /**
+     * Gets the way the pixel data of this image is stored.
+     *
+     * @return The acceleration of this image.
+     */
+    public ImageAcceleration getAcceleration()
+    {
+        return this.acceleration;
+    }
+
+    /**
+     * Returns a blurred instance of this image.
+     * <p>
+     * Blurred instances are cached for the {@link #BLUR_CACHE_SIZE} most recently used radii, so that animating the
+     * radius back and forth does not blur the image again on every frame.
+     * </p>
+     * <p>
+     * The returned RenderableImage copies the Z and the {@link #shouldRender()} settting.
+     * </p>
      *
      * @param radius The radius of the blur. The higher the number the stronger the blur.
      * @return The blurred instance.
      * @throws UnsupportedOperationException if the underlying image is not an instance of {@link BufferedImage}.
+     * @see BoxBlur
      */
     public RenderableImage blurred(int radius)
     {
-        if (this.blurredImage == null || radius != this.blurredRadius)
+        if (!(this.image instanceof BufferedImage))
         {
-            if (this.image instanceof BufferedImage)
-            {
-                this.blurredRadius = radius;
-                int size = radius * 2 + 1;
-                float weight = 1.0f / (size * size);
-                float[] data = new float[size * size];
-
-                for (int i = 0; i < data.length; i++)
-                {
-                    data[i] = weight;
-                }
+            throw new UnsupportedOperationException("Only instances of BufferedImage can be blurred.");
+        }
 
-                Kernel kernel = new Kernel(size, size, data);
+        RenderableImage blurredImage;
 
-                BufferedImageOp op = new ConvolveWithEdgeOp(kernel, ConvolveWithEdgeOp.EDGE_REFLECT, null);
+        synchronized (this.blurredImages)
+        {
+            blurredImage = this.blurredImages.get(radius);
 
-                this.blurredImage = new RenderableImage(op.filter((BufferedImage)this.image, null));
-            }
-            else
+            if (blurredImage == null)
             {
-                throw new UnsupportedOperationException("Only instances of BufferedImage can be blurred.");
+                blurredImage = new RenderableImage(BoxBlur.blur((BufferedImage)this.image, radius));
+                this.blurredImages.put(radius, blurredImage);
             }
         }
 
-        this.blurredImage.setZ(this.z);
-        this.blurredImage.shouldRender(this.shouldRender);
+        blurredImage.setZ(this.z);
+        blurredImage.shouldRender(this.shouldRender);
 
-        return this.blurredImage;
+        return blurredImage;
     }
 
     /**
@@ -167,47 +262,94 @@ public class RenderableImage implements Renderable, Killable
     @Override
     public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
     {
-        AffineTransform origTransform = g.getTransform();
-        Composite origComposite = g.getComposite();
+        render(g,
+               x.pixels(),
+               y.pixels(),
+               w.pixels(),
+               h.pixels(),
+               this.context.set(alpha, rotation, rotationOffsetX.pixels(), rotationOffsetY.pixels(), debugRendering));
+    }
 
-        this.transform.setToRotation(Math.toRadians(rotation),
-                                     (x.pixels() + w.pixels() / 2) + rotationOffsetX.pixels(),
-                                     (y.pixels() + h.pixels() / 2) + rotationOffsetY.pixels());
+    /**
+     * Renders this instance like {@link #render(float, Graphics2D, Unit, Unit, Unit, Unit, double, Unit, Unit, boolean)}
+     * with all positions and sizes given in units.
+     *
+     * @see bt.game.resource.render.intf.Renderable#render(float, java.awt.Graphics2D, double, double, double, double, double, double, double, boolean)
+     */
+    @Override
+    public void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               Unit.toPixels(x),
+               Unit.toPixels(y),
+               Unit.toPixels(w),
+               Unit.toPixels(h),
+               this.context.set(alpha, rotation, Unit.toPixels(rotationOffsetX), Unit.toPixels(rotationOffsetY), debugRendering));
+    }
 
-        g.transform(this.transform);
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+    /**
+     * Renders this instance like {@link #render(float, Graphics2D, Unit, Unit, Unit, Unit, double, Unit, Unit, boolean)}
+     * with all positions and sizes given in pixels. This is the method that all other render methods of this class
+     * end up in.
+     *
+     * @see bt.game.resource.render.intf.Renderable#render(java.awt.Graphics2D, double, double, double, double, bt.game.resource.render.impl.RenderContext)
+     */
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        float alpha = context.getAlpha();
+        double rotation = context.getRotation();
+        boolean debugRendering = context.isDebugRendering();
 
-        if (!w.equals(this.lastWidth) || !h.equals(this.lastHeight) || this.lastUnitRatio != Unit.getRatio())
+        if (w != this.lastWidth || h != this.lastHeight || this.lastUnitRatio != Unit.getRatio())
         {
             this.lastUnitRatio = Unit.getRatio();
-
-            if (this.scaledImage != null)
-            {
-                this.scaledImage.flush();
-                this.scaledImage = null;
-            }
-
-            this.scaledImage = this.image.getScaledInstance((int)w.pixels(),
-                                                            (int)h.pixels(),
-                                                            Image.SCALE_SMOOTH);
+            rescale((int)w, (int)h);
             this.lastHeight = h;
             this.lastWidth = w;
         }
 
-        g.drawImage(this.scaledImage,
-                    (int)x.pixels(),
-                    (int)y.pixels(),
-                    null);
+        double centerX = (x + w / 2) + context.getRotationOffsetX();
+        double centerY = (y + h / 2) + context.getRotationOffsetY();
+        RenderCommandBuffer buffer = RenderCommandBuffer.getActive();
+
+        if (buffer != null && !debugRendering && submitScaledImage(buffer,
+                                                                   g,
+                                                                   (int)x,
+                                                                   (int)y,
+                                                                   (int)w,
+                                                                   (int)h,
+                                                                   Math.toRadians(rotation),
+                                                                   centerX,
+                                                                   centerY,
+                                                                   alpha))
+        {
+            return;
+        }
+
+        RenderCommandBuffer.flushActive();
+
+        AffineTransform origTransform = g.getTransform();
+        Composite origComposite = g.getComposite();
+
+        this.transform.setToRotation(Math.toRadians(rotation),
+                                     centerX,
+                                     centerY);
+
+        g.transform(this.transform);
+        g.setComposite(AlphaComposites.srcOver(alpha));
+
+        drawScaledImage(g, (int)x, (int)y);
 
         if (debugRendering)
         {
-            Shape sh = Geometry.createRectangle(w.units(),
-                                                h.units());
+            Shape sh = Geometry.createRectangle(Unit.toUnits(w),
+                                                Unit.toUnits(h));
             AffineTransform ot = g.getTransform();
             AffineTransform lt = new AffineTransform();
 
-            lt.translate(x.pixels() + w.pixels() / 2,
-                         y.pixels() + h.pixels() / 2);
+            lt.translate(x + w / 2,
+                         y + h / 2);
 
             g.transform(lt);
 
@@ -221,6 +363,129 @@ public class RenderableImage implements Renderable, Killable
         g.setTransform(origTransform);
     }
 
+    /**
+     * Sets whether this image should use a {@link MipChain} when it is scaled down.
+     *
+     * <p>
+     * If enabled, scaling starts from the smallest halved version of the image that is still at least as big as the
+     * target size instead of from the full size image. The halved versions are generated once when they are first
+     * needed. This makes rescaling cheaper and reduces aliasing for images that are drawn much smaller than their
+     * original size.
+     * </p>
+     *
+     * @param mipmapped true to enable mipmapping.
+     * @throws UnsupportedOperationException if the underlying image is not an instance of {@link BufferedImage}.
+     */
+    public void setMipmapped(boolean mipmapped)
+    {
+        if (mipmapped == isMipmapped())
+        {
+            return;
+        }
+
+        if (mipmapped)
+        {
+            if (!(this.image instanceof BufferedImage))
+            {
+                throw new UnsupportedOperationException("Only instances of BufferedImage can be mipmapped.");
+            }
+
+            this.mipChain = new MipChain((BufferedImage)this.image);
+        }
+        else
+        {
+            this.mipChain.flush();
+            this.mipChain = null;
+        }
+
+        // force a rescale with the new source
+        this.lastWidth = Double.NaN;
+        this.lastHeight = Double.NaN;
+    }
+
+    /**
+     * Indicates whether this image uses a {@link MipChain} when it is scaled down.
+     *
+     * @return true if mipmapping is enabled.
+     */
+    public boolean isMipmapped()
+    {
+        return this.mipChain != null;
+    }
+
+    /**
+     * Replaces the cached scaled image with a version of the underlying image that has the given size.
+     *
+     * <p>
+     * If this image is {@link #accelerated(ImageAcceleration) accelerated} the scaled image is converted to a
+     * compatible format as well.
+     * </p>
+     *
+     * @param width  The new width in pixels.
+     * @param height The new height in pixels.
+     */
+    protected void rescale(int width, int height)
+    {
+        if (this.scaledImage != null && this.scaledImage != this.image)
+        {
+            // a shared image can be drawn at another size before the buffer executed the command of the previous one
+            RenderCommandBuffer.flushImageLater(this.scaledImage);
+        }
+
+        Image source = this.image;
+
+        if (this.mipChain != null)
+        {
+            source = this.mipChain.getLevelFor(width, height);
+        }
+
+        this.scaledImage = source.getScaledInstance(width,
+                                                    height,
+                                                    Image.SCALE_SMOOTH);
+
+        if (this.acceleration != ImageAcceleration.NONE)
+        {
+            Image scaled = this.scaledImage;
+            this.scaledImage = CompatibleImages.toCompatibleImage(scaled, this.transparency);
+            scaled.flush();
+        }
+    }
+
+    /**
+     * Draws the cached scaled image at the given pixel position.
+     *
+     * @param g The graphics to draw on.
+     * @param x The x position in pixels.
+     * @param y The y position in pixels.
+     */
+    protected void drawScaledImage(Graphics2D g, int x, int y)
+    {
+        g.drawImage(this.scaledImage,
+                    x,
+                    y,
+                    null);
+    }
+
+    /**
+     * Records a command for the cached scaled image in the given buffer instead of drawing it.
+     *
+     * @param buffer   The active buffer.
+     * @param g        The graphics that the image would have been drawn on.
+     * @param x        The x position in pixels.
+     * @param y        The y position in pixels.
+     * @param w        The width in pixels.
+     * @param h        The height in pixels.
+     * @param rotation The rotation in radians.
+     * @param centerX  The x pixel position of the rotation center.
+     * @param centerY  The y pixel position of the rotation center.
+     * @param alpha    The alpha value.
+     * @return true if the command was recorded, false if the image needs to be drawn directly.
+     */
+    protected boolean submitScaledImage(RenderCommandBuffer buffer, Graphics2D g, int x, int y, int w, int h, double rotation, double centerX, double centerY, float alpha)
+    {
+        return buffer.submit(g, this.scaledImage, x, y, w, h, rotation, centerX, centerY, alpha);
+    }
+
     /**
      * @see bt.runtime.Killable#kill()
      */
@@ -229,14 +494,24 @@ public class RenderableImage implements Renderable, Killable
     {
         this.image.flush();
 
-        if (this.scaledImage != null)
+        if (this.mipChain != null)
+        {
+            this.mipChain.flush();
+        }
+
+        if (this.scaledImage != null && this.scaledImage != this.image)
         {
             this.scaledImage.flush();
         }
 
-        if (this.blurredImage != null)
+        synchronized (this.blurredImages)
         {
-            this.blurredImage.kill();
+            for (RenderableImage blurredImage : this.blurredImages.values())
+            {
+                blurredImage.kill();
+            }
+
+            this.blurredImages.clear();
         }
     }
 
@@ -298,6 +573,36 @@ public class RenderableImage implements Renderable, Killable
         return Unit.forUnits(this.image.getHeight(null));
     }
 
+    @Override
+    public double getZUnits()
+    {
+        return this.z.units();
+    }
+
+    @Override
+    public double getXUnits()
+    {
+        return 0;
+    }
+
+    @Override
+    public double getYUnits()
+    {
+        return 0;
+    }
+
+    @Override
+    public double getWUnits()
+    {
+        return this.image.getWidth(null);
+    }
+
+    @Override
+    public double getHUnits()
+    {
+        return this.image.getHeight(null);
+    }
+
     @Override
     public void setH(Unit h)
     {
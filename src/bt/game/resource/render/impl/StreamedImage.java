@@ -0,0 +1,243 @@
+package bt.game.resource.render.impl;
+
+import bt.game.resource.render.cache.StaticLayerCache;
+import bt.game.resource.render.damage.DamageTracker;
+import bt.game.util.unit.Unit;
+
+import java.awt.*;
+
+/**
+ * An image whose content is still being decoded in the background.
+ *
+ * <p>
+ * Until the decoded image is {@link #complete(RenderableImage) set}, a placeholder is rendered in its place. Afterwards
+ * all rendering, sizes and derived images are delegated to the decoded image, so references to this instance do not
+ * need to be replaced once loading has finished.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class StreamedImage extends RenderableImage
+{
+    private RenderableImage placeholder;
+    private volatile RenderableImage loaded;
+    private Boolean mipmapped;
+
+    /**
+     * Creates a new instance that renders the given placeholder until the image is loaded.
+     *
+     * @param placeholder The placeholder.
+     */
+    public StreamedImage(RenderableImage placeholder)
+    {
+        super(placeholder.getImage());
+        this.placeholder = placeholder;
+    }
+
+    /**
+     * Sets the decoded image. The next frame renders it instead of the placeholder. Static layers that already contain
+     * the placeholder are rebuilt.
+     *
+     * @param image The decoded image.
+     */
+    public void complete(RenderableImage image)
+    {
+        synchronized (this)
+        {
+            if (this.mipmapped != null)
+            {
+                image.setMipmapped(this.mipmapped);
+                this.mipmapped = null;
+            }
+
+            this.loaded = image;
+        }
+
+        StaticLayerCache.invalidateAllLayers();
+        DamageTracker.reportAll();
+    }
+
+    /**
+     * Indicates whether the decoded image has been set.
+     *
+     * @return true if the image is loaded.
+     */
+    public boolean isLoaded()
+    {
+        return this.loaded != null;
+    }
+
+    /**
+     * Gets the image that is currently rendered.
+     *
+     * @return The decoded image or the placeholder.
+     */
+    public RenderableImage getCurrent()
+    {
+        RenderableImage loaded = this.loaded;
+        return loaded == null ? this.placeholder : loaded;
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#getImage()
+     */
+    @Override
+    public Image getImage()
+    {
+        return getCurrent().getImage();
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#getAcceleration()
+     */
+    @Override
+    public ImageAcceleration getAcceleration()
+    {
+        return getCurrent().getAcceleration();
+    }
+
+    /**
+     * Crops the decoded image or the placeholder if it is not loaded yet.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#crop(int, int, int, int)
+     */
+    @Override
+    public RenderableImage crop(int x, int y, int w, int h)
+    {
+        return getCurrent().crop(x, y, w, h);
+    }
+
+    /**
+     * Crops the decoded image or the placeholder if it is not loaded yet.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#crop(bt.game.resource.render.impl.Cropping, int, int)
+     */
+    @Override
+    public RenderableImage crop(Cropping cropStrat, int widthParts, int heightParts)
+    {
+        return getCurrent().crop(cropStrat, widthParts, heightParts);
+    }
+
+    /**
+     * Converts the decoded image or the placeholder if it is not loaded yet.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#accelerated(bt.game.resource.render.impl.ImageAcceleration)
+     */
+    @Override
+    public RenderableImage accelerated(ImageAcceleration acceleration)
+    {
+        return getCurrent().accelerated(acceleration);
+    }
+
+    /**
+     * Blurs the decoded image or the placeholder if it is not loaded yet.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#blurred(int)
+     */
+    @Override
+    public RenderableImage blurred(int radius)
+    {
+        return getCurrent().blurred(radius);
+    }
+
+    /**
+     * Sets mipmapping of the decoded image. If it is not loaded yet, the setting is applied once it is, since the
+     * placeholder is shared.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#setMipmapped(boolean)
+     */
+    @Override
+    public synchronized void setMipmapped(boolean mipmapped)
+    {
+        RenderableImage loaded = this.loaded;
+
+        if (loaded == null)
+        {
+            this.mipmapped = mipmapped;
+        }
+        else
+        {
+            loaded.setMipmapped(mipmapped);
+        }
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#isMipmapped()
+     */
+    @Override
+    public synchronized boolean isMipmapped()
+    {
+        RenderableImage loaded = this.loaded;
+
+        if (loaded == null)
+        {
+            return this.mipmapped != null ? this.mipmapped : this.placeholder.isMipmapped();
+        }
+
+        return loaded.isMipmapped();
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#getW()
+     */
+    @Override
+    public Unit getW()
+    {
+        return getCurrent().getW();
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#getH()
+     */
+    @Override
+    public Unit getH()
+    {
+        return getCurrent().getH();
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#getWUnits()
+     */
+    @Override
+    public double getWUnits()
+    {
+        return getCurrent().getWUnits();
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#getHUnits()
+     */
+    @Override
+    public double getHUnits()
+    {
+        return getCurrent().getHUnits();
+    }
+
+    /**
+     * Renders the decoded image or the placeholder if it is not loaded yet.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#render(java.awt.Graphics2D, double, double, double, double,
+     * bt.game.resource.render.impl.RenderContext)
+     */
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        getCurrent().render(g, x, y, w, h, context);
+    }
+
+    /**
+     * Kills the decoded image. The placeholder is shared and thus not killed.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#kill()
+     */
+    @Override
+    public void kill()
+    {
+        RenderableImage loaded = this.loaded;
+
+        if (loaded != null)
+        {
+            loaded.kill();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package bt.game.resource.render.impl;
+
+import bt.game.resource.render.batch.RenderCommandBuffer;
+
+import java.awt.*;
+import java.awt.image.VolatileImage;
+
+/**
+ * A {@link RenderableImage} that keeps its scaled image in video memory.
+ *
+ * <p>
+ * The contents of a {@link VolatileImage} can be lost at any time (i.e. when the display mode changes or another
+ * application takes over the screen). Before every draw the image is validated against the configuration of the
+ * target graphics and restored from the scaled image if necessary.
+ * </p>
+ *
+ * <p>
+ * Instances are created via {@link RenderableImage#accelerated(ImageAcceleration)}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class VolatileRenderableImage extends RenderableImage
+{
+    protected VolatileImage volatileImage;
+    protected boolean volatileChanged;
+
+    protected VolatileRenderableImage(Image image)
+    {
+        super(image);
+        this.acceleration = ImageAcceleration.VOLATILE;
+        this.volatileChanged = true;
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#rescale(int, int)
+     */
+    @Override
+    protected void rescale(int width, int height)
+    {
+        super.rescale(width, height);
+        this.volatileChanged = true;
+    }
+
+    /**
+     * Draws the volatile copy of the scaled image, restoring it first if its contents were lost.
+     *
+     * <p>
+     * If the volatile image can not be restored within a few attempts the scaled image is drawn directly instead.
+     * </p>
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#drawScaledImage(java.awt.Graphics2D, int, int)
+     */
+    @Override
+    protected void drawScaledImage(Graphics2D g, int x, int y)
+    {
+        GraphicsConfiguration config = g.getDeviceConfiguration();
+        int attempts = 0;
+
+        do
+        {
+            if (++attempts > 3)
+            {
+                super.drawScaledImage(g, x, y);
+                return;
+            }
+
+            validateVolatileImage(config);
+            g.drawImage(this.volatileImage, x, y, null);
+        }
+        while (this.volatileImage.contentsLost());
+    }
+
+    /**
+     * Validates the volatile image against the configuration of the given graphics and records it. If its contents are
+     * lost before the buffer is executed they are restored on the next frame.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#submitScaledImage(bt.game.resource.render.batch.RenderCommandBuffer, java.awt.Graphics2D, int, int, int, int, double, double, double, float)
+     */
+    @Override
+    protected boolean submitScaledImage(RenderCommandBuffer buffer, Graphics2D g, int x, int y, int w, int h, double rotation, double centerX, double centerY, float alpha)
+    {
+        validateVolatileImage(g.getDeviceConfiguration());
+        return buffer.submit(g, this.volatileImage, x, y, w, h, rotation, centerX, centerY, alpha);
+    }
+
+    /**
+     * Makes sure that the volatile image exists, matches the size of the scaled image and the given configuration and
+     * contains the scaled image.
+     *
+     * @param config The configuration of the surface that the image will be drawn on.
+     */
+    protected void validateVolatileImage(GraphicsConfiguration config)
+    {
+        int width = this.scaledImage.getWidth(null);
+        int height = this.scaledImage.getHeight(null);
+
+        if (this.volatileImage == null
+                || this.volatileImage.getWidth() != width
+                || this.volatileImage.getHeight() != height)
+        {
+            createVolatileImage(config, width, height);
+        }
+
+        int state = this.volatileImage.validate(config);
+
+        if (state == VolatileImage.IMAGE_INCOMPATIBLE)
+        {
+            createVolatileImage(config, width, height);
+        }
+        else if (state == VolatileImage.IMAGE_RESTORED)
+        {
+            this.volatileChanged = true;
+        }
+
+        if (this.volatileChanged)
+        {
+            Graphics2D g = this.volatileImage.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(this.scaledImage, 0, 0, null);
+            g.dispose();
+            this.volatileChanged = false;
+        }
+    }
+
+    private void createVolatileImage(GraphicsConfiguration config, int width, int height)
+    {
+        if (this.volatileImage != null)
+        {
+            RenderCommandBuffer.flushImageLater(this.volatileImage);
+        }
+
+        this.volatileImage = config.createCompatibleVolatileImage(Math.max(width, 1),
+                                                                  Math.max(height, 1),
+                                                                  this.transparency);
+        this.volatileChanged = true;
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#kill()
+     */
+    @Override
+    public void kill()
+    {
+        super.kill();
+
+        if (this.volatileImage != null)
+        {
+            this.volatileImage.flush();
+            this.volatileImage = null;
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package bt.game.resource.render.impl.anim;
 
 import bt.game.core.obj.intf.Tickable;
+import bt.game.core.scene.cam.Camera;
 import bt.game.core.scene.intf.Scene;
 import bt.game.resource.load.intf.ResourceLoader;
+import bt.game.resource.render.damage.DamageTracker;
 import bt.game.resource.render.impl.BaseRenderable;
+import bt.game.resource.render.impl.RenderContext;
 import bt.game.resource.render.impl.RenderableImage;
 import bt.game.util.unit.Unit;
+import bt.types.Killable;
 
 import java.awt.*;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,12 +19,24 @@ import java.util.Map;
  * A class to render an animation consisting of multiple {@link RenderableImages}. This class offers options to execute
  * actions at specific frames and at the end of the animation.
  *
+ * <p>
+ * The frames and their timing are held by an {@link AnimationClip}, which can be shared by any number of animations.
+ * An animation itself only holds its playback state.
+ * </p>
+ *
+ * <p>
+ * Once an animation has been {@link #setup(Scene) set up} with a scene it is advanced by the {@link AnimationSystem} of
+ * that scene. Its own {@link #tick(double) tick} only advances animations that do not belong to a system. The system
+ * keeps advancing looping animations until they are {@link #stop() stopped} or {@link #kill() killed}, so owners of an
+ * animation need to kill it together with themselves.
+ * </p>
+ *
  * @author &#8904
  */
-public class Animation extends BaseRenderable implements Tickable
+public class Animation extends BaseRenderable implements Tickable, Killable
 {
     private ResourceLoader resourceLoader;
-    private RenderableImage[] images;
+    private AnimationClip clip;
     private String[] imageNames;
     private int currentIndex = -1;
     private double rotation;
@@ -29,13 +44,25 @@ public class Animation extends BaseRenderable implements Tickable
     private Map<Integer, Runnable> onFrame;
     private boolean loop;
     private Runnable onEnd;
-    private long interval;
-    private long lastTime;
+    private boolean started;
+    private boolean outOfSync;
+    private double elapsed;
     private long time;
     private Unit rotationOffsetX = Unit.zero();
     private Unit rotationOffsetY = Unit.zero();
     private boolean imageChanged;
+    private double lastRenderX;
+    private double lastRenderY;
+    private double lastRenderW;
+    private double lastRenderH;
+    private boolean lastRenderScreenSpace;
     private ImageEmitter imageEmitter;
+    private String groupName;
+
+    AnimationSystem system;
+    AnimationSystem.Group group;
+    int systemIndex = -1;
+    long renderedFrame;
 
     /**
      * Creates a new animation.
@@ -70,46 +97,62 @@ public class Animation extends BaseRenderable implements Tickable
 
         this.resourceLoader = resourceLoader;
         this.imageNames = images;
-        this.onFrame = new HashMap<>();
         this.time = time;
     }
 
     /**
-     * Gathers the images from the recource loader of the set scene, calculates the interval between images based on the
-     * number of gathered {@link RenderableImage}s and resets the timer and image index.
+     * Creates a new animation that plays the given clip. No resources are looked up, so this is the cheapest way to
+     * create an animation.
+     *
+     * <p>
+     * Before this animation can be used {@link #setup(Scene)} must be called.
+     * </p>
+     *
+     * @param clip The clip to play.
+     */
+    public Animation(AnimationClip clip)
+    {
+        this.clip = clip;
+        this.imageNames = clip.getImageNames();
+        this.time = clip.getDuration();
+    }
+
+    /**
+     * Gathers the images from the recource loader of the set scene, if this animation was not created from an
+     * {@link AnimationClip}, resets the timer and image index and adds this animation to the
+     * {@link Scene#getAnimationSystem() animation system} of the scene.
      * <p>
      * This method needs to be the last call to finish the setup for the animation. No further initial settigns
      * should be changed after this.
      */
     public void setup(Scene scene)
     {
-        this.images = Arrays.stream(this.imageNames)
-                            .map(this.resourceLoader::getRenderable)
-                            .filter(RenderableImage.class::isInstance)
-                            .map(RenderableImage.class::cast)
-                            .toArray(RenderableImage[]::new);
-
-        if (this.images.length != this.imageNames.length)
+        if (this.clip == null)
         {
-            throw new IllegalArgumentException(
-                    "Unable to receive enough RenderableImages from the resource loader. Some image names are not mapped to instances of RenderableImage.");
+            this.clip = AnimationClip.resolve(this.resourceLoader, this.time, this.imageNames);
         }
 
-        this.interval = this.time / this.images.length;
-        this.lastTime = 0;
+        this.started = false;
+        this.outOfSync = false;
+        this.elapsed = 0;
         this.currentIndex = -1;
 
         if (this.imageEmitter != null)
         {
             this.imageEmitter.registerToScene(scene);
         }
+
+        if (scene != null && scene.getAnimationSystem() != null)
+        {
+            scene.getAnimationSystem().add(this);
+        }
     }
 
     /**
      * Sets the total time this animation takes in milliseconds.
      *
      * <p>
-     * This will recalculate the interval between images. This method should not be called before {@link #setup()}.
+     * The frames of the clip are stretched proportionally. The shared clip itself is not modified.
      * </p>
      *
      * @param time
@@ -117,7 +160,6 @@ public class Animation extends BaseRenderable implements Tickable
     public void setTime(long time)
     {
         this.time = time;
-        this.interval = time / this.images.length;
     }
 
     /**
@@ -202,6 +244,27 @@ public class Animation extends BaseRenderable implements Tickable
         this.loop = loop;
     }
 
+    /**
+     * Sets the group of this animation. All animations of a group share a time scale, see
+     * {@link AnimationSystem#setTimeScale(String, double)}.
+     *
+     * @param group The name of the group or null to only use the global time scale.
+     */
+    public void setGroup(String group)
+    {
+        this.groupName = group;
+
+        if (this.system != null)
+        {
+            this.group = this.system.getGroup(group);
+        }
+    }
+
+    public String getGroup()
+    {
+        return this.groupName;
+    }
+
     /**
      * Sets an action that will be executed at the specified frame.
      *
@@ -214,6 +277,11 @@ public class Animation extends BaseRenderable implements Tickable
      */
     public void onFrame(int frame, Runnable action)
     {
+        if (this.onFrame == null)
+        {
+            this.onFrame = new HashMap<>();
+        }
+
         this.onFrame.put(frame,
                          action);
     }
@@ -249,45 +317,227 @@ public class Animation extends BaseRenderable implements Tickable
      * If a non looping animation has played all images it will trigger the {@link #onEnd} action if any is specified.
      * </p>
      *
+     * <p>
+     * This does nothing if the animation belongs to an {@link AnimationSystem}, since the system advances it instead.
+     * </p>
+     *
      * @see bt.game.core.obj.intf.Tickable#tick()
      */
     @Override
     public void tick(double delta)
     {
-        if (this.imageEmitter != null)
+        if (this.system == null)
         {
-            this.imageEmitter.tick(delta);
+            update(delta, true);
         }
+    }
 
+    /**
+     * Advances this animation by the given time.
+     *
+     * @param delta   The time in seconds.
+     * @param visible false if only the elapsed time should be advanced, without switching images or running frame
+     *                actions.
+     */
+    void update(double delta, boolean visible)
+    {
         calculateNewRotation(delta);
 
-        if (this.currentIndex < this.images.length && System.currentTimeMillis() - this.lastTime >= this.interval
-                || this.lastTime == 0)
+        if (!this.started)
         {
-            this.lastTime = System.currentTimeMillis();
+            this.started = true;
+            this.elapsed = 0;
+            enterFrame(0);
+            return;
+        }
 
-            this.currentIndex++;
-            this.imageChanged = true;
+        if (isFinished())
+        {
+            return;
+        }
+
+        this.elapsed += delta * 1000;
 
-            if (this.currentIndex >= this.images.length)
+        if (visible)
+        {
+            if (this.outOfSync)
             {
-                if (this.loop)
-                {
-                    this.currentIndex = 0;
-                }
-                else if (this.onEnd != null)
-                {
-                    this.onEnd.run();
-                    return;
-                }
+                sync();
             }
 
-            Runnable action = this.onFrame.get(this.currentIndex);
+            advance();
+        }
+        else
+        {
+            skip();
+        }
+    }
+
+    /**
+     * Removes this animation from its {@link AnimationSystem}, so that it is not advanced anymore. It keeps its current
+     * frame and is added to the system again by {@link #reset()}.
+     */
+    public void stop()
+    {
+        AnimationSystem system = this.system;
+
+        if (system != null)
+        {
+            system.remove(this);
+        }
+    }
+
+    /**
+     * Stops this animation and drops its frame and end actions.
+     *
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public void kill()
+    {
+        stop();
+        this.onFrame = null;
+        this.onEnd = null;
+    }
+
+    /**
+     * Indicates whether this animation has played all of its frames. Looping animations never finish.
+     *
+     * @return true if a non looping animation has ended.
+     */
+    public boolean isFinished()
+    {
+        return !this.loop && this.clip != null && this.currentIndex >= this.clip.getFrameCount();
+    }
+
+    /**
+     * Moves to the frame that matches the elapsed time. Every frame that is passed runs its action, so no action is
+     * skipped if a tick takes longer than a frame.
+     */
+    private void advance()
+    {
+        int frameCount = this.clip.getFrameCount();
+
+        // at most one pass through all frames per tick, so that very short animations can not stall the tick
+        for (int steps = 0; steps <= frameCount && this.currentIndex < frameCount; steps++)
+        {
+            if (getClipTime() < this.clip.getFrameEnd(this.currentIndex))
+            {
+                return;
+            }
+
+            if (this.currentIndex + 1 < frameCount)
+            {
+                enterFrame(this.currentIndex + 1);
+            }
+            else if (this.loop)
+            {
+                this.elapsed = Math.max(this.elapsed - Math.max(this.time, 1), 0);
+                enterFrame(0);
+            }
+            else
+            {
+                end();
+                return;
+            }
+        }
+    }
 
-            if (action != null)
+    /**
+     * Advances only the elapsed time of an offscreen animation. The frame is corrected by {@link #sync()} once the
+     * animation is visible again.
+     */
+    private void skip()
+    {
+        if (this.loop)
+        {
+            if (this.time > 0)
             {
-                action.run();
+                this.elapsed %= this.time;
             }
+
+            this.outOfSync = true;
+        }
+        else if (this.elapsed >= this.time)
+        {
+            end();
+        }
+        else
+        {
+            this.outOfSync = true;
+        }
+    }
+
+    /**
+     * Moves to the frame that matches the elapsed time without running any frame actions.
+     */
+    private void sync()
+    {
+        this.outOfSync = false;
+
+        double clipTime = getClipTime();
+        int index = 0;
+
+        while (index < this.clip.getFrameCount() - 1 && clipTime >= this.clip.getFrameEnd(index))
+        {
+            index++;
+        }
+
+        if (index != this.currentIndex)
+        {
+            this.currentIndex = index;
+            this.imageChanged = true;
+            reportFrameDamage();
+        }
+    }
+
+    private void end()
+    {
+        this.currentIndex = this.clip.getFrameCount();
+        this.imageChanged = true;
+        reportFrameDamage();
+
+        if (this.onEnd != null)
+        {
+            this.onEnd.run();
+        }
+    }
+
+    /**
+     * Reports the area that this animation was last rendered to as damaged, in the same space that it was rendered in.
+     */
+    private void reportFrameDamage()
+    {
+        if (this.lastRenderScreenSpace)
+        {
+            DamageTracker.reportScreenPixels(this.lastRenderX, this.lastRenderY, this.lastRenderW, this.lastRenderH);
+        }
+        else
+        {
+            DamageTracker.reportWorldPixels(this.lastRenderX, this.lastRenderY, this.lastRenderW, this.lastRenderH);
+        }
+    }
+
+    /**
+     * Gets the elapsed time scaled to the duration of the clip.
+     */
+    private double getClipTime()
+    {
+        long duration = this.clip.getDuration();
+        return this.time == duration || this.time <= 0 ? this.elapsed : this.elapsed * duration / this.time;
+    }
+
+    private void enterFrame(int index)
+    {
+        this.currentIndex = index;
+        this.imageChanged = true;
+        reportFrameDamage();
+
+        Runnable action = this.onFrame == null ? null : this.onFrame.get(index);
+
+        if (action != null)
+        {
+            action.run();
         }
     }
 
@@ -298,30 +548,74 @@ public class Animation extends BaseRenderable implements Tickable
     @Override
     public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
     {
-        if (this.currentIndex >= 0 && this.currentIndex < this.images.length)
+        render(g,
+               x.pixels(),
+               y.pixels(),
+               w.pixels(),
+               h.pixels(),
+               this.context.set(alpha, rotation, rotationOffsetX.pixels(), rotationOffsetY.pixels(), debugRendering));
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#render(float, java.awt.Graphics2D, double, double, double, double, double, double, double, boolean)
+     */
+    @Override
+    public void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               Unit.toPixels(x),
+               Unit.toPixels(y),
+               Unit.toPixels(w),
+               Unit.toPixels(h),
+               this.context.set(alpha, rotation, Unit.toPixels(rotationOffsetX), Unit.toPixels(rotationOffsetY), debugRendering));
+    }
+
+    /**
+     * Renders the current frame with the rotation of this animation and an alpha of 1.
+     *
+     * @see bt.game.resource.render.intf.Renderable#render(java.awt.Graphics2D, double, double, double, double, bt.game.resource.render.impl.RenderContext)
+     */
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        this.lastRenderX = x;
+        this.lastRenderY = y;
+        this.lastRenderW = w;
+        this.lastRenderH = h;
+        this.lastRenderScreenSpace = Camera.currentCamera == null || !Camera.currentCamera.isTranslated();
+
+        if (this.system != null)
+        {
+            this.renderedFrame = this.system.getFrame();
+        }
+
+        if (this.currentIndex >= 0 && this.currentIndex < this.clip.getFrameCount())
         {
-            this.images[this.currentIndex].render(g,
-                                                  x,
-                                                  y,
-                                                  w,
-                                                  h,
-                                                  this.rotation,
-                                                  this.rotationOffsetX,
-                                                  this.rotationOffsetY,
-                                                  debugRendering);
+            RenderableImage frame = this.clip.getFrame(this.currentIndex);
+
+            frame.render(g,
+                         x,
+                         y,
+                         w,
+                         h,
+                         this.context.set(1,
+                                          this.rotation,
+                                          this.rotationOffsetX.pixels(),
+                                          this.rotationOffsetY.pixels(),
+                                          context.isDebugRendering()));
 
             if (this.imageChanged && this.imageEmitter != null)
             {
                 this.imageChanged = false;
                 this.imageEmitter.setZ(this.z);
-                this.imageEmitter.emit(new EmitterImage(this.images[this.currentIndex],
-                                                        x,
-                                                        y,
-                                                        w,
-                                                        h,
-                                                        this.rotation,
-                                                        this.rotationOffsetX,
-                                                        this.rotationOffsetY));
+                this.imageEmitter.emit(frame,
+                                       Unit.toUnits(x),
+                                       Unit.toUnits(y),
+                                       Unit.toUnits(w),
+                                       Unit.toUnits(h),
+                                       this.rotation,
+                                       this.rotationOffsetX.units(),
+                                       this.rotationOffsetY.units());
             }
         }
     }
@@ -332,6 +626,24 @@ public class Animation extends BaseRenderable implements Tickable
     public void reset()
     {
         this.currentIndex = 0;
+        this.elapsed = 0;
+        this.outOfSync = false;
+
+        if (this.system != null)
+        {
+            this.system.add(this);
+        }
+    }
+
+    /**
+     * Gets the clip that this animation plays.
+     *
+     * @return The clip or null if this animation was created from image names and {@link #setup(Scene)} was not called
+     *         yet.
+     */
+    public AnimationClip getClip()
+    {
+        return this.clip;
     }
 
     /**
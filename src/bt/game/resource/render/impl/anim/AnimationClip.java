@@ -0,0 +1,159 @@
+package bt.game.resource.render.impl.anim;
+
+import bt.game.resource.load.intf.ResourceLoader;
+import bt.game.resource.render.impl.RenderableImage;
+
+import java.util.Arrays;
+
+/**
+ * The immutable data of an animation: its frames and how long each of them is shown.
+ *
+ * <p>
+ * A clip is resolved once and then shared by all {@link Animation} instances that play it. Each animation only keeps
+ * its own playback state (elapsed time, current frame, loop settings), so creating an animation from a clip does not
+ * look up any resources.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class AnimationClip
+{
+    private String[] imageNames;
+    private RenderableImage[] frames;
+    private long[] frameEnds;
+
+    /**
+     * Creates a new clip whose frames are all shown for the same time.
+     *
+     * @param imageNames The resource names of the frames.
+     * @param frames     The frames.
+     * @param duration   The total time of the clip in milliseconds.
+     */
+    public AnimationClip(String[] imageNames, RenderableImage[] frames, long duration)
+    {
+        this(imageNames, frames, uniformFrameTimes(frames.length, duration));
+    }
+
+    /**
+     * Creates a new clip.
+     *
+     * @param imageNames The resource names of the frames.
+     * @param frames     The frames.
+     * @param frameTimes The time that each frame is shown in milliseconds.
+     */
+    public AnimationClip(String[] imageNames, RenderableImage[] frames, long[] frameTimes)
+    {
+        if (frames.length == 0)
+        {
+            throw new IllegalArgumentException("Must pass at least one frame.");
+        }
+
+        if (frameTimes.length != frames.length)
+        {
+            throw new IllegalArgumentException("Must pass exactly one time per frame.");
+        }
+
+        this.imageNames = imageNames == null ? new String[frames.length] : imageNames.clone();
+        this.frames = frames.clone();
+        this.frameEnds = new long[frameTimes.length];
+
+        long end = 0;
+
+        for (int i = 0; i < frameTimes.length; i++)
+        {
+            end += Math.max(frameTimes[i], 0);
+            this.frameEnds[i] = end;
+        }
+    }
+
+    /**
+     * Creates a clip from the images with the given names. Every frame is shown for the same time.
+     *
+     * @param resourceLoader The resource loader that the images are taken from.
+     * @param duration       The total time of the clip in milliseconds.
+     * @param imageNames     The names that the {@link RenderableImage}s are mapped by.
+     * @return The clip.
+     * @throws IllegalArgumentException if a name is not mapped to a {@link RenderableImage}.
+     */
+    public static AnimationClip resolve(ResourceLoader resourceLoader, long duration, String... imageNames)
+    {
+        RenderableImage[] frames = Arrays.stream(imageNames)
+                                         .map(resourceLoader::getRenderable)
+                                         .filter(RenderableImage.class::isInstance)
+                                         .map(RenderableImage.class::cast)
+                                         .toArray(RenderableImage[]::new);
+
+        if (frames.length != imageNames.length)
+        {
+            throw new IllegalArgumentException(
+                    "Unable to receive enough RenderableImages from the resource loader. Some image names are not mapped to instances of RenderableImage.");
+        }
+
+        return new AnimationClip(imageNames, frames, duration);
+    }
+
+    private static long[] uniformFrameTimes(int count, long duration)
+    {
+        long[] times = new long[count];
+        Arrays.fill(times, count == 0 ? 0 : duration / count);
+        return times;
+    }
+
+    /**
+     * Gets the frame at the given index.
+     *
+     * @param index The zero based index.
+     * @return The frame.
+     */
+    public RenderableImage getFrame(int index)
+    {
+        return this.frames[index];
+    }
+
+    public int getFrameCount()
+    {
+        return this.frames.length;
+    }
+
+    /**
+     * Gets the time at which the frame at the given index ends, relative to the start of the clip.
+     *
+     * @param index The zero based index.
+     * @return The time in milliseconds.
+     */
+    public long getFrameEnd(int index)
+    {
+        return this.frameEnds[index];
+    }
+
+    /**
+     * Gets the time that the frame at the given index is shown.
+     *
+     * @param index The zero based index.
+     * @return The time in milliseconds.
+     */
+    public long getFrameTime(int index)
+    {
+        return index == 0 ? this.frameEnds[0] : this.frameEnds[index] - this.frameEnds[index - 1];
+    }
+
+    /**
+     * Gets the total time of this clip.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getDuration()
+    {
+        return this.frameEnds[this.frameEnds.length - 1];
+    }
+
+    /**
+     * Gets the resource names of the frames.
+     *
+     * @return A copy of the names.
+     */
+    public String[] getImageNames()
+    {
+        return this.imageNames.clone();
+    }
+}
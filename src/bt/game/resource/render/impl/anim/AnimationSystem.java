@@ -0,0 +1,294 @@
+package bt.game.resource.render.impl.anim;
+
+import bt.game.core.scene.intf.Scene;
+import bt.types.Killable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Advances all animations of a scene with the tick delta of that scene.
+ *
+ * <p>
+ * Animations that are {@link Animation#setup(Scene) set up} with a scene are added to its system and are no longer
+ * advanced by their own {@link Animation#tick(double) tick}. Since the system is ticked by the scene, animations stop
+ * while the game is paused.
+ * </p>
+ *
+ * <p>
+ * The elapsed time of every animation is multiplied with a global time scale and the time scale of the group that the
+ * animation belongs to (see {@link Animation#setGroup(String)}). A scale of 0 freezes the animations, a scale of 2 plays
+ * them at double speed.
+ * </p>
+ *
+ * <p>
+ * Animations that were not rendered during the last frame are considered offscreen. Only their time is advanced, they do
+ * not switch images and do not run {@link Animation#onFrame(int, Runnable) frame actions}. Once they are rendered again
+ * they continue with the frame that matches their elapsed time. {@link Animation#onEnd(Runnable) End actions} are run
+ * regardless. Non looping animations are removed from the system once they have ended, all others once they are
+ * {@link Animation#stop() stopped} or {@link Animation#kill() killed}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class AnimationSystem implements Killable
+{
+    private Animation[] animations;
+    private int count;
+    private boolean ticking;
+    private boolean hasRemovals;
+    private long frame;
+    private double timeScale = 1;
+    private Map<String, Group> groups;
+
+    /**
+     * Creates a new, empty system.
+     */
+    public AnimationSystem()
+    {
+        this.animations = new Animation[64];
+        this.groups = new HashMap<>();
+    }
+
+    /**
+     * Adds the given animation to this system. Animations that already belong to this system are ignored.
+     *
+     * @param animation The animation to add.
+     */
+    public synchronized void add(Animation animation)
+    {
+        if (animation.system == this && animation.systemIndex >= 0)
+        {
+            return;
+        }
+
+        if (animation.system != null && animation.system != this)
+        {
+            animation.system.remove(animation);
+        }
+
+        if (this.count == this.animations.length)
+        {
+            this.animations = Arrays.copyOf(this.animations, this.count * 2);
+        }
+
+        animation.system = this;
+        animation.group = getGroup(animation.getGroup());
+        animation.renderedFrame = this.frame;
+        animation.systemIndex = this.count;
+        this.animations[this.count++] = animation;
+    }
+
+    /**
+     * Removes the given animation from this system. The animation is not advanced anymore until it is added again.
+     *
+     * @param animation The animation to remove.
+     */
+    public synchronized void remove(Animation animation)
+    {
+        int index = animation.systemIndex;
+
+        if (animation.system != this || index < 0)
+        {
+            return;
+        }
+
+        animation.systemIndex = -1;
+
+        if (this.ticking)
+        {
+            // the slot is compacted after the tick, so that the iteration does not skip or repeat animations
+            this.animations[index] = null;
+            this.hasRemovals = true;
+        }
+        else
+        {
+            Animation last = this.animations[--this.count];
+            this.animations[index] = last;
+            this.animations[this.count] = null;
+
+            if (last != animation)
+            {
+                last.systemIndex = index;
+            }
+        }
+    }
+
+    /**
+     * Advances all animations of this system.
+     *
+     * @param delta The time since the last tick in seconds.
+     */
+    public synchronized void tick(double delta)
+    {
+        this.ticking = true;
+
+        try
+        {
+            int count = this.count;
+            long lastFrame = this.frame - 1;
+
+            for (int i = 0; i < count; i++)
+            {
+                Animation animation = this.animations[i];
+
+                if (animation == null)
+                {
+                    continue;
+                }
+
+                Group group = animation.group;
+                double scale = group == null ? this.timeScale : this.timeScale * group.timeScale;
+
+                animation.update(delta * scale, animation.renderedFrame >= lastFrame);
+
+                if (animation.isFinished() && animation.systemIndex >= 0)
+                {
+                    remove(animation);
+                }
+            }
+        }
+        finally
+        {
+            this.ticking = false;
+
+            if (this.hasRemovals)
+            {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Notifies this system that a frame has been rendered. Animations that were not rendered during the frame are
+     * considered offscreen for the following ticks.
+     */
+    public synchronized void frameRendered()
+    {
+        this.frame++;
+    }
+
+    /**
+     * Gets the number of the frame that is currently rendered.
+     *
+     * @return The frame number.
+     */
+    long getFrame()
+    {
+        return this.frame;
+    }
+
+    /**
+     * Sets the time scale that is applied to all animations of this system.
+     *
+     * @param timeScale The scale. 1 plays animations at their normal speed.
+     */
+    public void setTimeScale(double timeScale)
+    {
+        this.timeScale = timeScale;
+    }
+
+    public double getTimeScale()
+    {
+        return this.timeScale;
+    }
+
+    /**
+     * Sets the time scale of the given group. It is applied in addition to the {@link #setTimeScale(double) global time
+     * scale}.
+     *
+     * @param group     The name of the group.
+     * @param timeScale The scale. 1 plays animations at their normal speed.
+     */
+    public synchronized void setTimeScale(String group, double timeScale)
+    {
+        getGroup(group).timeScale = timeScale;
+    }
+
+    /**
+     * Gets the time scale of the given group.
+     *
+     * @param group The name of the group.
+     * @return The scale or 1 if none was set for the group.
+     */
+    public synchronized double getTimeScale(String group)
+    {
+        Group g = this.groups.get(group);
+        return g == null ? 1 : g.timeScale;
+    }
+
+    /**
+     * Gets the number of animations that are advanced by this system.
+     *
+     * @return The number of animations.
+     */
+    public synchronized int size()
+    {
+        int size = 0;
+
+        for (int i = 0; i < this.count; i++)
+        {
+            if (this.animations[i] != null)
+            {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Removes all animations from this system.
+     *
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public synchronized void kill()
+    {
+        for (int i = 0; i < this.count; i++)
+        {
+            if (this.animations[i] != null)
+            {
+                this.animations[i].systemIndex = -1;
+                this.animations[i] = null;
+            }
+        }
+
+        this.count = 0;
+        this.hasRemovals = false;
+    }
+
+    synchronized Group getGroup(String name)
+    {
+        return name == null ? null : this.groups.computeIfAbsent(name, n -> new Group());
+    }
+
+    private void compact()
+    {
+        int target = 0;
+
+        for (int i = 0; i < this.count; i++)
+        {
+            Animation animation = this.animations[i];
+
+            if (animation != null)
+            {
+                animation.systemIndex = target;
+                this.animations[target++] = animation;
+            }
+        }
+
+        Arrays.fill(this.animations, target, this.count, null);
+        this.count = target;
+        this.hasRemovals = false;
+    }
+
+    /**
+     * The shared time scale of a named group of animations.
+     */
+    static class Group
+    {
+        private double timeScale = 1;
+    }
+}
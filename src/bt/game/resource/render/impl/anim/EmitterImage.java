@@ -2,6 +2,7 @@ package bt.game.resource.render.impl.anim;
 
 import bt.game.core.obj.intf.Tickable;
 import bt.game.resource.render.impl.BaseRenderable;
+import bt.game.resource.render.impl.RenderContext;
 import bt.game.resource.render.impl.RenderableImage;
 import bt.game.util.unit.Unit;
 import bt.utils.NumberUtils;
@@ -38,10 +39,38 @@ public class EmitterImage extends BaseRenderable implements Tickable
     @Override
     public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
     {
-        this.image.render(NumberUtils.clamp((float)this.currentAlpha, 0, 1),
-                          g, this.x, this.y, this.w, this.h,
-                          this.rotation, this.rotationOffsetX,
-                          this.rotationOffsetY, debugRendering);
+        render(g,
+               x.pixels(),
+               y.pixels(),
+               w.pixels(),
+               h.pixels(),
+               this.context.set(alpha, rotation, rotationOffsetX.pixels(), rotationOffsetY.pixels(), debugRendering));
+    }
+
+    @Override
+    public void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               Unit.toPixels(x),
+               Unit.toPixels(y),
+               Unit.toPixels(w),
+               Unit.toPixels(h),
+               this.context.set(alpha, rotation, Unit.toPixels(rotationOffsetX), Unit.toPixels(rotationOffsetY), debugRendering));
+    }
+
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        this.image.render(g,
+                          this.x.pixels(),
+                          this.y.pixels(),
+                          this.w.pixels(),
+                          this.h.pixels(),
+                          this.context.set(NumberUtils.clamp((float)this.currentAlpha, 0, 1),
+                                           this.rotation,
+                                           this.rotationOffsetX.pixels(),
+                                           this.rotationOffsetY.pixels(),
+                                           context.isDebugRendering()));
     }
 
     @Override
@@ -54,4 +83,24 @@ public class EmitterImage extends BaseRenderable implements Tickable
     {
         return this.currentAlpha;
     }
+
+    public RenderableImage getImage()
+    {
+        return this.image;
+    }
+
+    public double getRotation()
+    {
+        return this.rotation;
+    }
+
+    public Unit getRotationOffsetX()
+    {
+        return this.rotationOffsetX;
+    }
+
+    public Unit getRotationOffsetY()
+    {
+        return this.rotationOffsetY;
+    }
 }
@@ -0,0 +1,233 @@
+package bt.game.resource.render.impl.anim;
+
+import bt.game.resource.render.impl.RenderableImage;
+import bt.game.util.image.CompatibleImages;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decodes animated GIFs into {@link AnimationClip clips}.
+ *
+ * <p>
+ * The frames are read one after another with the ImageIO GIF reader and drawn onto a canvas of the logical screen size
+ * of the GIF, honoring the frame offsets and disposal methods. Every frame of the resulting clip is a full, compatible
+ * copy of that canvas, so all frames have the same size and can be packed into a
+ * {@link bt.game.resource.render.impl.atlas.TextureAtlas TextureAtlas} like regular images. The delays of the frames
+ * become the frame times of the clip.
+ * </p>
+ *
+ * <p>
+ * Unlike GIFs that are loaded as toolkit images, decoded GIFs do not animate on their own. They are played by an
+ * {@link Animation} and thus follow the game clock.
+ * </p>
+ *
+ * @author &#8904
+ */
+public final class GifDecoder
+{
+    /** The time in milliseconds that frames without a usable delay are shown, matching common browsers. */
+    public static final long DEFAULT_FRAME_TIME = 100;
+
+    private static final String IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+    private static final String STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+
+    private GifDecoder()
+    {
+    }
+
+    /**
+     * Decodes the given GIF.
+     *
+     * <p>
+     * The frames are named <i>name#index</i>, so that they can be mapped by a resource loader under those names.
+     * </p>
+     *
+     * @param in   The stream to read the GIF from. It is closed afterwards.
+     * @param name The name used for the frames.
+     * @return The clip.
+     * @throws IOException if the stream could not be read or does not contain a GIF.
+     */
+    public static AnimationClip decode(InputStream in, String name) throws IOException
+    {
+        if (in == null)
+        {
+            throw new IOException("No input stream given for GIF '" + name + "'.");
+        }
+
+        List<RenderableImage> frames = new ArrayList<>();
+        List<Long> frameTimes = new ArrayList<>();
+
+        try (InputStream source = in;
+             ImageInputStream stream = ImageIO.createImageInputStream(source))
+        {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+
+            if (!readers.hasNext())
+            {
+                throw new IOException("No GIF reader available.");
+            }
+
+            ImageReader reader = readers.next();
+
+            try
+            {
+                reader.setInput(stream, false, false);
+
+                BufferedImage canvas = null;
+                BufferedImage previous = null;
+
+                // the number of frames is not requested up front, since that would read the whole stream twice
+                for (int i = 0; ; i++)
+                {
+                    BufferedImage image;
+
+                    try
+                    {
+                        image = reader.read(i);
+                    }
+                    catch (IndexOutOfBoundsException e)
+                    {
+                        break;
+                    }
+
+                    Node imageRoot = reader.getImageMetadata(i).getAsTree(IMAGE_FORMAT);
+                    Node descriptor = child(imageRoot, "ImageDescriptor");
+                    Node control = child(imageRoot, "GraphicControlExtension");
+
+                    int x = intAttribute(descriptor, "imageLeftPosition", 0);
+                    int y = intAttribute(descriptor, "imageTopPosition", 0);
+                    String disposal = control == null ? "none" : attribute(control, "disposalMethod", "none");
+                    int delay = control == null ? 0 : intAttribute(control, "delayTime", 0);
+
+                    if (canvas == null)
+                    {
+                        Dimension size = screenSize(reader.getStreamMetadata(), image, x, y);
+                        canvas = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+                    }
+
+                    if (disposal.equals("restoreToPrevious"))
+                    {
+                        previous = copy(canvas, previous);
+                    }
+
+                    Graphics2D g = canvas.createGraphics();
+                    g.drawImage(image, x, y, null);
+
+                    BufferedImage frame = CompatibleImages.toCompatibleImage(canvas);
+
+                    // the canvas is drawn on again, so every frame needs its own copy
+                    frames.add(new RenderableImage(frame == canvas ? copy(canvas, null) : frame));
+
+                    // delays are given in hundredths of a second, tiny delays are treated like browsers do
+                    frameTimes.add(delay <= 1 ? DEFAULT_FRAME_TIME : delay * 10L);
+
+                    if (disposal.equals("restoreToBackgroundColor"))
+                    {
+                        g.setComposite(AlphaComposite.Clear);
+                        g.fillRect(x, y, image.getWidth(), image.getHeight());
+                    }
+                    else if (disposal.equals("restoreToPrevious") && previous != null)
+                    {
+                        g.setComposite(AlphaComposite.Src);
+                        g.drawImage(previous, 0, 0, null);
+                    }
+
+                    g.dispose();
+                }
+            }
+            finally
+            {
+                reader.dispose();
+            }
+        }
+
+        if (frames.isEmpty())
+        {
+            throw new IOException("GIF '" + name + "' does not contain any frames.");
+        }
+
+        String[] names = new String[frames.size()];
+        long[] times = new long[frames.size()];
+
+        for (int i = 0; i < names.length; i++)
+        {
+            names[i] = name + "#" + i;
+            times[i] = frameTimes.get(i);
+        }
+
+        return new AnimationClip(names, frames.toArray(new RenderableImage[0]), times);
+    }
+
+    private static Dimension screenSize(IIOMetadata streamMetadata, BufferedImage firstFrame, int x, int y)
+    {
+        int width = 0;
+        int height = 0;
+
+        if (streamMetadata != null)
+        {
+            Node screen = child(streamMetadata.getAsTree(STREAM_FORMAT), "LogicalScreenDescriptor");
+            width = intAttribute(screen, "logicalScreenWidth", 0);
+            height = intAttribute(screen, "logicalScreenHeight", 0);
+        }
+
+        // some encoders write an empty or too small logical screen
+        return new Dimension(Math.max(width, x + firstFrame.getWidth()), Math.max(height, y + firstFrame.getHeight()));
+    }
+
+    private static BufferedImage copy(BufferedImage source, BufferedImage target)
+    {
+        if (target == null)
+        {
+            target = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g = target.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return target;
+    }
+
+    private static Node child(Node parent, String name)
+    {
+        if (parent == null)
+        {
+            return null;
+        }
+
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (node.getNodeName().equals(name))
+            {
+                return node;
+            }
+        }
+
+        return null;
+    }
+
+    private static String attribute(Node node, String name, String defaultValue)
+    {
+        NamedNodeMap attributes = node == null ? null : node.getAttributes();
+        Node attribute = attributes == null ? null : attributes.getNamedItem(name);
+        return attribute == null ? defaultValue : attribute.getNodeValue();
+    }
+
+    private static int intAttribute(Node node, String name, int defaultValue)
+    {
+        String value = attribute(node, name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
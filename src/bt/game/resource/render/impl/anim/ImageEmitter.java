@@ -1,32 +1,73 @@
 package bt.game.resource.render.impl.anim;
 
-import bt.game.core.obj.intf.Tickable;
 import bt.game.core.scene.intf.Scene;
-import bt.game.resource.render.impl.BaseRenderable;
+import bt.game.resource.render.impl.RenderableImage;
+import bt.game.resource.render.impl.particle.ParticleGroup;
 import bt.game.util.unit.Unit;
 
-import java.awt.*;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-
-public class ImageEmitter extends BaseRenderable implements Tickable
+/**
+ * Leaves fading copies of the images of an {@link Animation} behind.
+ *
+ * <p>
+ * The copies are kept as particles of a {@link ParticleGroup}, so emitting an image does not allocate anything once the
+ * group has grown to its working size. If more images are visible at the same time than the group can hold, the oldest
+ * ones are dropped.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ImageEmitter extends ParticleGroup
 {
-    private List<EmitterImage> emittedImages;
     private double alphaLoss = -1;
     private Scene scene;
 
     public ImageEmitter(double alphaLoss, Unit z)
     {
-        this.emittedImages = new LinkedList<>();
+        this(alphaLoss, z, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new emitter.
+     *
+     * @param alphaLoss The amount of alpha that emitted images lose each second.
+     * @param z         The z value that the images are drawn at.
+     * @param capacity  The maximum number of images that are visible at the same time.
+     */
+    public ImageEmitter(double alphaLoss, Unit z, int capacity)
+    {
+        super(capacity);
         this.alphaLoss = alphaLoss;
         this.z = z;
     }
 
-    public synchronized void emit(EmitterImage image)
+    public void emit(EmitterImage image)
     {
-        image.setAlphaLoss(this.alphaLoss);
-        this.emittedImages.add(image);
+        emit(image.getImage(),
+             image.getXUnits(),
+             image.getYUnits(),
+             image.getWUnits(),
+             image.getHUnits(),
+             image.getRotation(),
+             image.getRotationOffsetX().units(),
+             image.getRotationOffsetY().units());
+    }
+
+    /**
+     * Emits an image with the alpha loss of this emitter.
+     *
+     * @param image           The image.
+     * @param x               The x position in units.
+     * @param y               The y position in units.
+     * @param w               The width in units.
+     * @param h               The height in units.
+     * @param rotation        The rotation in degrees.
+     * @param rotationOffsetX The x offset of the rotation center in units.
+     * @param rotationOffsetY The y offset of the rotation center in units.
+     */
+    public void emit(RenderableImage image, double x, double y, double w, double h, double rotation,
+                     double rotationOffsetX, double rotationOffsetY)
+    {
+        spawn(image, x, y, w, h, rotation, rotationOffsetX, rotationOffsetY, (float)this.alphaLoss);
     }
 
     public void registerToScene(Scene scene)
@@ -39,34 +80,4 @@ public class ImageEmitter extends BaseRenderable implements Tickable
     {
         this.scene.getObjectHandler().removeObject(this);
     }
-
-    @Override
-    public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
-    {
-        for (EmitterImage image : this.emittedImages)
-        {
-            image.render(g, debugRendering);
-        }
-    }
-
-    @Override
-    public synchronized void tick(double delta)
-    {
-        if (this.emittedImages.size() > 0)
-        {
-            Iterator<EmitterImage> ite = this.emittedImages.iterator();
-            EmitterImage image;
-
-            while (ite.hasNext())
-            {
-                image = ite.next();
-                image.tick(delta);
-
-                if (image.getCurrentAlpha() <= 0)
-                {
-                    ite.remove();
-                }
-            }
-        }
-    }
 }
@@ -0,0 +1,208 @@
+package bt.game.resource.render.impl.atlas;
+
+import bt.game.util.image.CompatibleImages;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Packs multiple images into as few {@link TextureAtlas} sheets as possible.
+ *
+ * <p>
+ * Images are sorted by height and placed next to each other in rows (shelves). If an image does not fit into the
+ * current sheet a new sheet is started. Every image is surrounded by a padding that repeats its edge pixels, so that
+ * filtering while scaling does not pick up pixels of neighbouring images.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class AtlasBuilder
+{
+    /** The default maximum width and height of a sheet in pixels. */
+    public static final int DEFAULT_MAX_SIZE = 2048;
+
+    /** The default number of pixels between two images on a sheet. */
+    public static final int DEFAULT_PADDING = 2;
+
+    private String name;
+    private int maxSize;
+    private int padding;
+    private Map<String, BufferedImage> images;
+
+    /**
+     * Creates a new builder with {@link #DEFAULT_MAX_SIZE} and {@link #DEFAULT_PADDING}.
+     *
+     * @param name The name of the created atlases. Additional sheets will append their index to this name.
+     */
+    public AtlasBuilder(String name)
+    {
+        this(name, DEFAULT_MAX_SIZE, DEFAULT_PADDING);
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param name    The name of the created atlases. Additional sheets will append their index to this name.
+     * @param maxSize The maximum width and height of a sheet in pixels.
+     * @param padding The number of pixels between two images on a sheet.
+     */
+    public AtlasBuilder(String name, int maxSize, int padding)
+    {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.padding = padding;
+        this.images = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds an image that should be packed.
+     *
+     * @param regionName The name that the region will be mapped by in the atlas.
+     * @param image      The image.
+     * @return This instance for chaining.
+     * @throws IllegalArgumentException if the image (including padding) is larger than the maximum sheet size.
+     */
+    public AtlasBuilder add(String regionName, BufferedImage image)
+    {
+        if (image.getWidth() + this.padding * 2 > this.maxSize || image.getHeight() + this.padding * 2 > this.maxSize)
+        {
+            throw new IllegalArgumentException(String.format("Image '%s' (%dx%d) does not fit into an atlas of size %d.",
+                                                             regionName,
+                                                             image.getWidth(),
+                                                             image.getHeight(),
+                                                             this.maxSize));
+        }
+
+        this.images.put(regionName, image);
+        return this;
+    }
+
+    /**
+     * Packs all added images.
+     *
+     * @return The created atlases. Each atlas contains a single sheet.
+     */
+    public List<TextureAtlas> build()
+    {
+        List<Entry<String, BufferedImage>> sorted = new ArrayList<>(this.images.entrySet());
+        sorted.sort(Comparator.comparingInt((Entry<String, BufferedImage> e) -> e.getValue().getHeight())
+                              .thenComparingInt(e -> e.getValue().getWidth())
+                              .reversed());
+
+        List<Map<String, Rectangle>> sheets = new ArrayList<>();
+        List<Dimension> sheetSizes = new ArrayList<>();
+        Map<String, Rectangle> current = null;
+        Dimension currentSize = null;
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+
+        for (Entry<String, BufferedImage> entry : sorted)
+        {
+            int w = entry.getValue().getWidth() + this.padding * 2;
+            int h = entry.getValue().getHeight() + this.padding * 2;
+
+            if (current != null && shelfX + w > this.maxSize)
+            {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+
+            if (current == null || shelfY + h > this.maxSize)
+            {
+                current = new LinkedHashMap<>();
+                currentSize = new Dimension();
+                sheets.add(current);
+                sheetSizes.add(currentSize);
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+            }
+
+            current.put(entry.getKey(), new Rectangle(shelfX + this.padding,
+                                                      shelfY + this.padding,
+                                                      entry.getValue().getWidth(),
+                                                      entry.getValue().getHeight()));
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            currentSize.width = Math.max(currentSize.width, shelfX);
+            currentSize.height = Math.max(currentSize.height, shelfY + h);
+        }
+
+        List<TextureAtlas> atlases = new ArrayList<>();
+
+        for (int i = 0; i < sheets.size(); i++)
+        {
+            atlases.add(createAtlas(i == 0 ? this.name : this.name + "#" + i, sheets.get(i), sheetSizes.get(i)));
+        }
+
+        return atlases;
+    }
+
+    private TextureAtlas createAtlas(String atlasName, Map<String, Rectangle> regions, Dimension size)
+    {
+        int transparency = Transparency.OPAQUE;
+
+        for (String regionName : regions.keySet())
+        {
+            transparency = Math.max(transparency, CompatibleImages.getTransparency(this.images.get(regionName)));
+        }
+
+        BufferedImage sheet = CompatibleImages.createCompatibleImage(size.width, size.height, transparency);
+        Graphics2D g = sheet.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+
+        for (Entry<String, Rectangle> region : regions.entrySet())
+        {
+            drawPadded(g, this.images.get(region.getKey()), region.getValue());
+        }
+
+        g.dispose();
+
+        // regions are ordered like they were added, not like they were packed
+        Map<String, Rectangle> orderedRegions = new LinkedHashMap<>();
+
+        for (String regionName : this.images.keySet())
+        {
+            if (regions.containsKey(regionName))
+            {
+                orderedRegions.put(regionName, regions.get(regionName));
+            }
+        }
+
+        return new TextureAtlas(atlasName, sheet, orderedRegions);
+    }
+
+    private void drawPadded(Graphics2D g, BufferedImage image, Rectangle r)
+    {
+        int p = this.padding;
+        int w = r.width;
+        int h = r.height;
+
+        g.drawImage(image, r.x, r.y, null);
+
+        if (p == 0)
+        {
+            return;
+        }
+
+        // edges
+        g.drawImage(image, r.x - p, r.y, r.x, r.y + h, 0, 0, 1, h, null);
+        g.drawImage(image, r.x + w, r.y, r.x + w + p, r.y + h, w - 1, 0, w, h, null);
+        g.drawImage(image, r.x, r.y - p, r.x + w, r.y, 0, 0, w, 1, null);
+        g.drawImage(image, r.x, r.y + h, r.x + w, r.y + h + p, 0, h - 1, w, h, null);
+
+        // corners
+        g.drawImage(image, r.x - p, r.y - p, r.x, r.y, 0, 0, 1, 1, null);
+        g.drawImage(image, r.x + w, r.y - p, r.x + w + p, r.y, w - 1, 0, w, 1, null);
+        g.drawImage(image, r.x - p, r.y + h, r.x, r.y + h + p, 0, h - 1, 1, h, null);
+        g.drawImage(image, r.x + w, r.y + h, r.x + w + p, r.y + h + p, w - 1, h - 1, w, h, null);
+    }
+}
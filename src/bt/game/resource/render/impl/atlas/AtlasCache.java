@@ -0,0 +1,185 @@
+package bt.game.resource.render.impl.atlas;
+
+import bt.game.resource.load.cache.CacheFiles;
+import bt.game.util.image.CompatibleImages;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Stores packed {@link TextureAtlas atlases} on disk so that later startups can skip reading the single images and
+ * packing them.
+ *
+ * <p>
+ * Each cached atlas is identified by the resource file that defines it, its name and a key that should change whenever
+ * the source images change (see {@link #createKey(String...)}). Atlases with the same name in different resource files
+ * are cached independently. A cache entry consists of a layout file (atlas.name-key.atlas) and one png per sheet
+ * (atlas.name-key-index.png), named by {@link CacheFiles}. Older entries of the same atlas are deleted when a new one is
+ * saved.
+ * </p>
+ *
+ * <p>
+ * Since entries only depend on the source images, a cache directory that was filled during the build can be shipped
+ * with the game.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class AtlasCache
+{
+    private static final String NAMESPACE = "atlas";
+
+    private File directory;
+
+    /**
+     * Creates a new cache that uses the given directory. The directory is created if it does not exist.
+     *
+     * @param directory The cache directory.
+     */
+    public AtlasCache(File directory)
+    {
+        this.directory = directory;
+        this.directory.mkdirs();
+    }
+
+    /**
+     * Creates a key by hashing the given parts.
+     *
+     * @param parts Anything that describes the source images of an atlas, i.e. paths, sizes and modification times.
+     * @return The hex string of the hash.
+     */
+    public static String createKey(String... parts)
+    {
+        return CacheFiles.createKey(parts);
+    }
+
+    /**
+     * Loads the cached atlases for the given name and key.
+     *
+     * @param resourceFile The name of the resource file that defines the atlas.
+     * @param name         The name of the atlas.
+     * @param key          The key of the expected cache entry.
+     * @return The cached atlases or null if there is no entry for the given name and key.
+     * @throws IOException if the entry exists but could not be read.
+     */
+    public List<TextureAtlas> load(String resourceFile, String name, String key) throws IOException
+    {
+        name = qualify(resourceFile, name);
+        File layoutFile = new File(this.directory, fileName(name, key) + ".atlas");
+
+        if (!layoutFile.exists())
+        {
+            return null;
+        }
+
+        Properties layout = new Properties();
+
+        try (InputStream in = new FileInputStream(layoutFile))
+        {
+            layout.load(in);
+        }
+
+        int sheetCount = Integer.parseInt(layout.getProperty("sheets"));
+        List<TextureAtlas> atlases = new ArrayList<>();
+
+        for (int i = 0; i < sheetCount; i++)
+        {
+            File sheetFile = new File(this.directory, fileName(name, key) + "-" + i + ".png");
+            BufferedImage sheet = ImageIO.read(sheetFile);
+
+            if (sheet == null)
+            {
+                throw new IOException("Failed to read atlas sheet " + sheetFile.getAbsolutePath());
+            }
+
+            Map<String, Rectangle> regions = new LinkedHashMap<>();
+            String[] regionNames = layout.getProperty("sheet." + i + ".regions", "").split(",");
+
+            for (String regionName : regionNames)
+            {
+                if (regionName.isEmpty())
+                {
+                    continue;
+                }
+
+                String[] bounds = layout.getProperty("region." + regionName).split(",");
+                regions.put(regionName, new Rectangle(Integer.parseInt(bounds[0]),
+                                                      Integer.parseInt(bounds[1]),
+                                                      Integer.parseInt(bounds[2]),
+                                                      Integer.parseInt(bounds[3])));
+            }
+
+            atlases.add(new TextureAtlas(layout.getProperty("sheet." + i + ".name"),
+                                         CompatibleImages.toCompatibleImage(sheet),
+                                         regions));
+        }
+
+        return atlases;
+    }
+
+    /**
+     * Saves the given atlases and deletes older entries of the same atlas.
+     *
+     * <p>
+     * Region names must not contain commas.
+     * </p>
+     *
+     * @param resourceFile The name of the resource file that defines the atlas.
+     * @param name         The name of the atlas.
+     * @param key          The key of the new cache entry.
+     * @param atlases      The atlases to save.
+     * @throws IOException if the entry could not be written.
+     */
+    public void save(String resourceFile, String name, String key, List<TextureAtlas> atlases) throws IOException
+    {
+        name = qualify(resourceFile, name);
+        CacheFiles.deleteEntries(this.directory, NAMESPACE, name);
+
+
+        Properties layout = new Properties();
+        layout.setProperty("sheets", String.valueOf(atlases.size()));
+
+        for (int i = 0; i < atlases.size(); i++)
+        {
+            TextureAtlas atlas = atlases.get(i);
+            ImageIO.write(atlas.getSheet(), "png", new File(this.directory, fileName(name, key) + "-" + i + ".png"));
+
+            layout.setProperty("sheet." + i + ".name", atlas.getName());
+            layout.setProperty("sheet." + i + ".regions", String.join(",", atlas.getRegionNames()));
+
+            for (String regionName : atlas.getRegionNames())
+            {
+                Rectangle bounds = atlas.getRegionBounds(regionName);
+                layout.setProperty("region." + regionName, bounds.x + "," + bounds.y + "," + bounds.width + "," + bounds.height);
+            }
+        }
+
+        // the layout is written last so that an interrupted save does not leave a valid looking entry
+        try (OutputStream out = new FileOutputStream(new File(this.directory, fileName(name, key) + ".atlas")))
+        {
+            layout.store(out, name);
+        }
+    }
+
+    private String qualify(String resourceFile, String name)
+    {
+        return resourceFile + "/" + name;
+    }
+
+    private String fileName(String name, String key)
+    {
+        return CacheFiles.fileName(NAMESPACE, name, key);
+    }
+}
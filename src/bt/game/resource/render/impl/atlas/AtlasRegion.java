@@ -0,0 +1,117 @@
+package bt.game.resource.render.impl.atlas;
+
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.resource.render.impl.RenderableImage;
+
+import java.awt.*;
+
+/**
+ * A {@link RenderableImage} that draws a rectangular region of the sheet of a {@link TextureAtlas}.
+ *
+ * <p>
+ * Instead of keeping a scaled copy of its image, a region scales directly from the shared sheet while drawing. All
+ * regions of an atlas therefore read from the same block of memory.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class AtlasRegion extends RenderableImage
+{
+    protected TextureAtlas atlas;
+    protected Rectangle bounds;
+    protected int scaledWidth;
+    protected int scaledHeight;
+
+    /**
+     * Creates a new region.
+     *
+     * @param atlas  The atlas that contains the region.
+     * @param bounds The pixel bounds of the region on the sheet of the atlas.
+     */
+    public AtlasRegion(TextureAtlas atlas, Rectangle bounds)
+    {
+        super(atlas.getSheet().getSubimage(bounds.x, bounds.y, bounds.width, bounds.height));
+        this.atlas = atlas;
+        this.bounds = new Rectangle(bounds);
+        this.scaledWidth = bounds.width;
+        this.scaledHeight = bounds.height;
+    }
+
+    /**
+     * Gets the atlas that this region belongs to.
+     *
+     * @return The atlas.
+     */
+    public TextureAtlas getAtlas()
+    {
+        return this.atlas;
+    }
+
+    /**
+     * Only remembers the new size, the region is scaled while drawing.
+     *
+     * @see bt.game.resource.render.impl.RenderableImage#rescale(int, int)
+     */
+    @Override
+    protected void rescale(int width, int height)
+    {
+        this.scaledWidth = width;
+        this.scaledHeight = height;
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#drawScaledImage(java.awt.Graphics2D, int, int)
+     */
+    @Override
+    protected void drawScaledImage(Graphics2D g, int x, int y)
+    {
+        boolean scaled = this.scaledWidth != this.bounds.width || this.scaledHeight != this.bounds.height;
+        Object interpolation = null;
+
+        if (scaled)
+        {
+            // the default nearest neighbor scaling would look much worse than the smoothly scaled copies of plain images
+            interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+
+        g.drawImage(this.atlas.getSheet(),
+                    x,
+                    y,
+                    x + this.scaledWidth,
+                    y + this.scaledHeight,
+                    this.bounds.x,
+                    this.bounds.y,
+                    this.bounds.x + this.bounds.width,
+                    this.bounds.y + this.bounds.height,
+                    null);
+
+        if (scaled)
+        {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                               interpolation == null ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR : interpolation);
+        }
+    }
+
+    /**
+     * @see bt.game.resource.render.impl.RenderableImage#submitScaledImage(bt.game.resource.render.batch.RenderCommandBuffer, java.awt.Graphics2D, int, int, int, int, double, double, double, float)
+     */
+    @Override
+    protected boolean submitScaledImage(RenderCommandBuffer buffer, Graphics2D g, int x, int y, int w, int h, double rotation, double centerX, double centerY, float alpha)
+    {
+        return buffer.submit(g,
+                             this.atlas.getSheet(),
+                             x,
+                             y,
+                             this.scaledWidth,
+                             this.scaledHeight,
+                             this.bounds.x,
+                             this.bounds.y,
+                             this.bounds.width,
+                             this.bounds.height,
+                             rotation,
+                             centerX,
+                             centerY,
+                             alpha);
+    }
+}
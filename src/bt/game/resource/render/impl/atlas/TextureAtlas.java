@@ -0,0 +1,111 @@
+package bt.game.resource.render.impl.atlas;
+
+import bt.types.Killable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A single sheet image that contains multiple named images (regions).
+ *
+ * <p>
+ * Atlases are usually created by an {@link AtlasBuilder}. The regions of an atlas can be drawn via
+ * {@link AtlasRegion} instances which all share the image data of the sheet.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class TextureAtlas implements Killable
+{
+    private String name;
+    private BufferedImage sheet;
+    private Map<String, Rectangle> regions;
+
+    /**
+     * Creates a new atlas.
+     *
+     * @param name    The name of this atlas.
+     * @param sheet   The image that contains all regions.
+     * @param regions The bounds of each region on the sheet mapped by the region name.
+     */
+    public TextureAtlas(String name, BufferedImage sheet, Map<String, Rectangle> regions)
+    {
+        this.name = name;
+        this.sheet = sheet;
+        this.regions = new LinkedHashMap<>(regions);
+    }
+
+    /**
+     * Gets the name of this atlas.
+     *
+     * @return The name.
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Gets the sheet image that contains all regions.
+     *
+     * @return The sheet.
+     */
+    public BufferedImage getSheet()
+    {
+        return this.sheet;
+    }
+
+    /**
+     * Gets the names of all regions in this atlas in the order they were added.
+     *
+     * @return An unmodifiable set of the region names.
+     */
+    public Set<String> getRegionNames()
+    {
+        return Collections.unmodifiableSet(this.regions.keySet());
+    }
+
+    /**
+     * Gets the pixel bounds of the region with the given name on the sheet.
+     *
+     * @param regionName The name of the region.
+     * @return The bounds or null if there is no region with that name.
+     */
+    public Rectangle getRegionBounds(String regionName)
+    {
+        return this.regions.get(regionName);
+    }
+
+    /**
+     * Creates a new renderable for the region with the given name.
+     *
+     * @param regionName The name of the region.
+     * @return The region or null if there is no region with that name.
+     */
+    public AtlasRegion getRegion(String regionName)
+    {
+        Rectangle bounds = this.regions.get(regionName);
+
+        if (bounds == null)
+        {
+            return null;
+        }
+
+        return new AtlasRegion(this, bounds);
+    }
+
+    /**
+     * Flushes the sheet image. Regions of this atlas should not be rendered afterwards.
+     *
+     * @see bt.runtime.Killable#kill()
+     */
+    @Override
+    public void kill()
+    {
+        this.sheet.flush();
+    }
+}
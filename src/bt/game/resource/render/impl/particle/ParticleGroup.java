@@ -0,0 +1,339 @@
+package bt.game.resource.render.impl.particle;
+
+import bt.game.core.obj.intf.Tickable;
+import bt.game.resource.render.damage.DamageTracker;
+import bt.game.resource.render.impl.BaseRenderable;
+import bt.game.resource.render.impl.RenderContext;
+import bt.game.resource.render.impl.RenderableImage;
+import bt.game.util.unit.Unit;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * A group of fading image particles that are stored in a ring buffer of primitive arrays.
+ *
+ * <p>
+ * Every particle is a sprite with a position, size, rotation, alpha and alpha loss per second. The values are kept in
+ * one array per property instead of one object per particle, so spawning a particle does not allocate anything and a
+ * tick is a single loop over the arrays. The arrays grow until they reach the capacity of the group and are reused
+ * afterwards.
+ * </p>
+ *
+ * <p>
+ * Particles are spawned at the end of the ring and expire from its start, once their alpha reaches 0. Particles that
+ * fade out faster than older ones are not drawn anymore, but keep their slot until all older particles have expired.
+ * If the group is full, spawning a particle replaces the oldest one.
+ * </p>
+ *
+ * <p>
+ * Particles are drawn through {@link RenderableImage#render(Graphics2D, double, double, double, double, RenderContext)},
+ * so they are batched into the active {@link bt.game.resource.render.batch.RenderCommandBuffer RenderCommandBuffer}
+ * instead of changing the composite and transform of the graphics for each of them.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ParticleGroup extends BaseRenderable implements Tickable
+{
+    /** The default maximum number of particles in a group. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int INITIAL_SIZE = 32;
+
+    private int capacity;
+    private int head;
+    private int count;
+    private double[] x;
+    private double[] y;
+    private double[] w;
+    private double[] h;
+    private double[] rotation;
+    private double[] rotationOffsetX;
+    private double[] rotationOffsetY;
+    private float[] alpha;
+    private float[] alphaLoss;
+    private RenderableImage[] sprites;
+
+    /**
+     * Creates a new group that holds up to {@link #DEFAULT_CAPACITY} particles.
+     */
+    public ParticleGroup()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new group.
+     *
+     * @param capacity The maximum number of particles.
+     */
+    public ParticleGroup(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be greater than 0.");
+        }
+
+        this.capacity = capacity;
+        allocate(Math.min(capacity, INITIAL_SIZE));
+    }
+
+    /**
+     * Spawns a new particle with an alpha of 1.
+     *
+     * @param sprite          The image of the particle.
+     * @param x               The x position in units.
+     * @param y               The y position in units.
+     * @param w               The width in units.
+     * @param h               The height in units.
+     * @param rotation        The rotation in degrees.
+     * @param rotationOffsetX The x offset of the rotation center from the center of the particle in units.
+     * @param rotationOffsetY The y offset of the rotation center from the center of the particle in units.
+     * @param alphaLoss       The amount of alpha that the particle loses each second. 0 to never fade.
+     */
+    public synchronized void spawn(RenderableImage sprite, double x, double y, double w, double h, double rotation,
+                                   double rotationOffsetX, double rotationOffsetY, float alphaLoss)
+    {
+        if (this.count == this.sprites.length && this.count < this.capacity)
+        {
+            allocate(Math.min(this.count * 2, this.capacity));
+        }
+
+        int i;
+
+        if (this.count == this.capacity)
+        {
+            // replace the oldest particle
+            i = this.head;
+            this.head = next(this.head);
+        }
+        else
+        {
+            i = index(this.count++);
+        }
+
+        this.sprites[i] = sprite;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.w[i] = w;
+        this.h[i] = h;
+        this.rotation[i] = rotation;
+        this.rotationOffsetX[i] = rotationOffsetX;
+        this.rotationOffsetY[i] = rotationOffsetY;
+        this.alpha[i] = 1;
+        this.alphaLoss[i] = alphaLoss;
+
+        DamageTracker.reportWorldPixels(Unit.toPixels(x), Unit.toPixels(y), Unit.toPixels(w), Unit.toPixels(h));
+    }
+
+    /**
+     * Fades all particles and removes the ones that have expired.
+     *
+     * @see bt.game.core.obj.intf.Tickable#tick(double)
+     */
+    @Override
+    public synchronized void tick(double delta)
+    {
+        if (this.count == 0)
+        {
+            return;
+        }
+
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        float[] alpha = this.alpha;
+        float[] alphaLoss = this.alphaLoss;
+
+        for (int k = 0, i = this.head; k < this.count; k++, i = next(i))
+        {
+            if (alphaLoss[i] == 0 || alpha[i] <= 0)
+            {
+                continue;
+            }
+
+            alpha[i] -= alphaLoss[i] * delta;
+
+            // the union of all fading particles is repainted, rotated particles are covered by their rotation radius
+            double radiusX = this.w[i] / 2;
+            double radiusY = this.h[i] / 2;
+            double centerX = this.x[i] + radiusX;
+            double centerY = this.y[i] + radiusY;
+
+            if (this.rotation[i] != 0)
+            {
+                centerX += this.rotationOffsetX[i];
+                centerY += this.rotationOffsetY[i];
+                radiusX = Math.hypot(radiusX + Math.abs(this.rotationOffsetX[i]), radiusY + Math.abs(this.rotationOffsetY[i]));
+                radiusY = radiusX;
+            }
+
+            minX = Math.min(minX, centerX - radiusX);
+            minY = Math.min(minY, centerY - radiusY);
+            maxX = Math.max(maxX, centerX + radiusX);
+            maxY = Math.max(maxY, centerY + radiusY);
+        }
+
+        while (this.count > 0 && alpha[this.head] <= 0)
+        {
+            this.sprites[this.head] = null;
+            this.head = next(this.head);
+            this.count--;
+        }
+
+        if (maxX >= minX)
+        {
+            DamageTracker.reportWorldPixels(Unit.toPixels(minX),
+                                            Unit.toPixels(minY),
+                                            Unit.toPixels(maxX - minX),
+                                            Unit.toPixels(maxY - minY));
+        }
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#render(float, java.awt.Graphics2D, bt.game.util.unit.Unit,
+     * bt.game.util.unit.Unit, bt.game.util.unit.Unit, bt.game.util.unit.Unit, double, bt.game.util.unit.Unit,
+     * bt.game.util.unit.Unit, boolean)
+     */
+    @Override
+    public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               x.pixels(),
+               y.pixels(),
+               w.pixels(),
+               h.pixels(),
+               this.context.set(alpha, rotation, rotationOffsetX.pixels(), rotationOffsetY.pixels(), debugRendering));
+    }
+
+    /**
+     * @see bt.game.resource.render.intf.Renderable#render(float, java.awt.Graphics2D, double, double, double, double,
+     * double, double, double, boolean)
+     */
+    @Override
+    public void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               Unit.toPixels(x),
+               Unit.toPixels(y),
+               Unit.toPixels(w),
+               Unit.toPixels(h),
+               this.context.set(alpha, rotation, Unit.toPixels(rotationOffsetX), Unit.toPixels(rotationOffsetY), debugRendering));
+    }
+
+    /**
+     * Draws all visible particles, oldest first. The given bounds are ignored since every particle has its own.
+     *
+     * @see bt.game.resource.render.intf.Renderable#render(java.awt.Graphics2D, double, double, double, double,
+     * bt.game.resource.render.impl.RenderContext)
+     */
+    @Override
+    public synchronized void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        boolean debugRendering = context.isDebugRendering();
+        float opacity = context.getAlpha();
+
+        for (int k = 0, i = this.head; k < this.count; k++, i = next(i))
+        {
+            float alpha = this.alpha[i];
+
+            if (alpha <= 0)
+            {
+                continue;
+            }
+
+            this.sprites[i].render(g,
+                                   Unit.toPixels(this.x[i]),
+                                   Unit.toPixels(this.y[i]),
+                                   Unit.toPixels(this.w[i]),
+                                   Unit.toPixels(this.h[i]),
+                                   this.context.set(Math.min(alpha, 1) * opacity,
+                                                    this.rotation[i],
+                                                    Unit.toPixels(this.rotationOffsetX[i]),
+                                                    Unit.toPixels(this.rotationOffsetY[i]),
+                                                    debugRendering));
+        }
+    }
+
+    /**
+     * Removes all particles.
+     */
+    public synchronized void clear()
+    {
+        Arrays.fill(this.sprites, null);
+        this.head = 0;
+        this.count = 0;
+    }
+
+    /**
+     * Gets the number of particles that have not expired yet.
+     *
+     * @return The number of particles.
+     */
+    public synchronized int size()
+    {
+        return this.count;
+    }
+
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    private int index(int offset)
+    {
+        int i = this.head + offset;
+        return i >= this.sprites.length ? i - this.sprites.length : i;
+    }
+
+    private int next(int i)
+    {
+        return i + 1 == this.sprites.length ? 0 : i + 1;
+    }
+
+    /**
+     * Resizes the arrays and moves the particles to their start, so that the ring does not wrap around.
+     */
+    private void allocate(int size)
+    {
+        double[] x = new double[size];
+        double[] y = new double[size];
+        double[] w = new double[size];
+        double[] h = new double[size];
+        double[] rotation = new double[size];
+        double[] rotationOffsetX = new double[size];
+        double[] rotationOffsetY = new double[size];
+        float[] alpha = new float[size];
+        float[] alphaLoss = new float[size];
+        RenderableImage[] sprites = new RenderableImage[size];
+
+        for (int k = 0; k < this.count; k++)
+        {
+            int i = index(k);
+            x[k] = this.x[i];
+            y[k] = this.y[i];
+            w[k] = this.w[i];
+            h[k] = this.h[i];
+            rotation[k] = this.rotation[i];
+            rotationOffsetX[k] = this.rotationOffsetX[i];
+            rotationOffsetY[k] = this.rotationOffsetY[i];
+            alpha[k] = this.alpha[i];
+            alphaLoss[k] = this.alphaLoss[i];
+            sprites[k] = this.sprites[i];
+        }
+
+        this.x = x;
+        this.y = y;
+        this.w = w;
+        this.h = h;
+        this.rotation = rotation;
+        this.rotationOffsetX = rotationOffsetX;
+        this.rotationOffsetY = rotationOffsetY;
+        this.alpha = alpha;
+        this.alphaLoss = alphaLoss;
+        this.sprites = sprites;
+        this.head = 0;
+    }
+}
@@ -1,6 +1,11 @@
 package bt.game.resource.render.impl.text;
 
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.resource.render.cache.TextCache;
+import bt.game.resource.render.cache.TextCache.TextImage;
 import bt.game.resource.render.impl.BaseRenderable;
+import bt.game.resource.render.impl.RenderContext;
+import bt.game.resource.render.impl.text.bitmap.BitmapFont;
 import bt.game.resource.render.impl.text.multi.TextBox;
 import bt.game.resource.render.impl.text.single.FilledText;
 import bt.game.resource.render.impl.text.single.FixedText;
@@ -12,6 +17,7 @@ import org.dyn4j.geometry.Shape;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 
 /**
  * Base class for text that can be rendered on the screen.
@@ -72,6 +78,16 @@ public abstract class RenderableText extends BaseRenderable
      */
     protected boolean shouldRecalculate;
 
+    /**
+     * Indicates whether this text is drawn as a pre-rendered image from the {@link TextCache}.
+     */
+    protected boolean imageCaching = true;
+
+    /**
+     * The bitmap font that this text is drawn with or null to draw it with {@link #font}.
+     */
+    protected BitmapFont bitmapFont;
+
     /**
      * Creates a new instance.
      *
@@ -140,6 +156,7 @@ public abstract class RenderableText extends BaseRenderable
     {
         this.text = text;
         this.shouldRecalculate = true;
+        reportDamage();
     }
 
     /**
@@ -161,6 +178,7 @@ public abstract class RenderableText extends BaseRenderable
     {
         this.font = font;
         this.shouldRecalculate = true;
+        reportDamage();
     }
 
     /**
@@ -181,6 +199,7 @@ public abstract class RenderableText extends BaseRenderable
     public void setColor(Color color)
     {
         this.color = color;
+        reportDamage();
     }
 
     /**
@@ -203,6 +222,7 @@ public abstract class RenderableText extends BaseRenderable
         if (centered != this.xCentered)
         {
             this.shouldRecalculate = true;
+            reportDamage();
         }
         this.xCentered = centered;
     }
@@ -227,10 +247,72 @@ public abstract class RenderableText extends BaseRenderable
         if (centered != this.yCentered)
         {
             this.shouldRecalculate = true;
+            reportDamage();
         }
         this.yCentered = centered;
     }
 
+    /**
+     * Indicates whether this text is drawn as a cached image.
+     *
+     * @return
+     */
+    public boolean isImageCaching()
+    {
+        return this.imageCaching;
+    }
+
+    /**
+     * Sets whether this text is drawn as a pre-rendered image from the {@link TextCache}.
+     *
+     * <p>
+     * A cached text costs a single image draw per frame and can be batched with other images. Texts that change
+     * frequently (i.e. counters) should not use the cache, since every new text has to be rendered into a new image.
+     * Texts are always drawn directly if the graphics are scaled, so that they stay sharp.
+     * </p>
+     *
+     * @param imageCaching true (the default) to use cached images.
+     */
+    public void setImageCaching(boolean imageCaching)
+    {
+        this.imageCaching = imageCaching;
+    }
+
+    /**
+     * The bitmap font that is used for rendering.
+     *
+     * @return The font or null if the text is drawn via {@link Graphics2D#drawString(String, int, int) drawString}.
+     */
+    public BitmapFont getBitmapFont()
+    {
+        return this.bitmapFont;
+    }
+
+    /**
+     * Sets a bitmap font to draw this text with. The {@link #setFont(Font) font} is set to the font that the bitmap font
+     * was baked from, so that the text is measured the same way.
+     *
+     * <p>
+     * Bitmap fonts draw every character as an image, which is much cheaper than laying out the text for texts that
+     * change often.
+     * </p>
+     *
+     * @param bitmapFont The font or null to draw the text via {@link Graphics2D#drawString(String, int, int)
+     *                   drawString}.
+     */
+    public void setBitmapFont(BitmapFont bitmapFont)
+    {
+        this.bitmapFont = bitmapFont;
+
+        if (bitmapFont != null)
+        {
+            this.font = bitmapFont.getFont();
+        }
+
+        this.shouldRecalculate = true;
+        reportDamage();
+    }
+
     /**
      * @see bt.game.resource.render.intf.Renderable#getZ()
      */
@@ -240,6 +322,22 @@ public abstract class RenderableText extends BaseRenderable
         return Unit.zero();
     }
 
+    /**
+     * Renders this text with positions and sizes given in units.
+     *
+     * @see bt.game.resource.render.intf.Renderable#render(float, java.awt.Graphics2D, double, double, double, double, double, double, double, boolean)
+     */
+    @Override
+    public void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(g,
+               Unit.toPixels(x),
+               Unit.toPixels(y),
+               Unit.toPixels(w),
+               Unit.toPixels(h),
+               this.context.set(alpha, rotation, Unit.toPixels(rotationOffsetX), Unit.toPixels(rotationOffsetY), debugRendering));
+    }
+
     /**
      * Renders this instance at the position x|y with a width of w and a height of h.
      *
@@ -249,8 +347,36 @@ public abstract class RenderableText extends BaseRenderable
     @Override
     public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
     {
-        this.x = x;
-        this.y = y;
+        render(g,
+               x.pixels(),
+               y.pixels(),
+               w.pixels(),
+               h.pixels(),
+               this.context.set(alpha, rotation, rotationOffsetX.pixels(), rotationOffsetY.pixels(), debugRendering));
+    }
+
+    /**
+     * Renders this text with positions and sizes given in pixels.
+     *
+     * <p>
+     * The text keeps its position and size as {@link Unit} instances. New instances are only created if a value differs
+     * from the one used in the last call, so a text that does not move does not allocate anything.
+     * </p>
+     *
+     * <p>
+     * Unless {@link #setImageCaching(boolean) image caching} is disabled, the text is drawn as a pre-rendered image from
+     * the {@link TextCache}. Derived fonts are taken from the cache as well. Texts with a
+     * {@link #setBitmapFont(BitmapFont) bitmap font} are drawn glyph by glyph from its sheet instead.
+     * </p>
+     *
+     * @see bt.game.resource.render.intf.Renderable#render(java.awt.Graphics2D, double, double, double, double, bt.game.resource.render.impl.RenderContext)
+     */
+    @Override
+    public void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        double rotation = context.getRotation();
+
+        updatePosition(x, y);
 
         if (this.font == null)
         {
@@ -266,45 +392,60 @@ public abstract class RenderableText extends BaseRenderable
         g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
                            RenderingHints.VALUE_FRACTIONALMETRICS_ON);
 
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
-
         // only do this if the scaling really needs to be adjusted
         if (this.shouldRecalculate
-                || !w.equals(this.w)
-                || !h.equals(this.h)
+                || Unit.toUnits(w) != this.w.units()
+                || Unit.toUnits(h) != this.h.units()
                 || this.lastUnitRatio != Unit.getRatio())
         {
-            doScaling(g, x, y, w, h);
+            doScaling(g, this.x, this.y, toUnit(this.w, w), toUnit(this.h, h));
 
             this.shouldRecalculate = false;
         }
 
-        g.rotate(Math.toRadians(rotation),
-                 (x.pixels() + w.pixels() / 2) + rotationOffsetX.pixels(),
-                 (y.pixels() + h.pixels() / 2) + rotationOffsetY.pixels());
+        g.setFont(originalFont);
 
-        g.setFont(this.font.deriveFont(this.transform));
+        double centerX = (x + w / 2) + context.getRotationOffsetX();
+        double centerY = (y + h / 2) + context.getRotationOffsetY();
 
-        if (this.color != null)
+        if (this.bitmapFont != null)
         {
-            g.setColor(this.color);
+            renderBitmapText(g, x, y, centerX, centerY, context);
         }
+        else if (!renderCachedImage(g, x, y, w, h, centerX, centerY, context))
+        {
+            // text is drawn directly, so anything that was submitted before it has to be drawn first
+            RenderCommandBuffer.flushActive();
 
-        g.drawString(this.text,
-                     (int)x.pixels(),
-                     (int)y.pixels());
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, context.getAlpha()));
+            g.rotate(Math.toRadians(rotation), centerX, centerY);
+            g.setFont(TextCache.get().deriveFont(this.font, this.transform));
 
-        g.setFont(originalFont);
+            if (this.color != null)
+            {
+                g.setColor(this.color);
+            }
+
+            g.drawString(this.text,
+                         (int)x,
+                         (int)y);
+
+            g.setFont(originalFont);
+            g.rotate(Math.toRadians(-rotation), centerX, centerY);
+        }
 
-        if (debugRendering)
+        if (context.isDebugRendering())
         {
-            Shape sh = Geometry.createRectangle(w.units(),
-                                                h.units());
+            RenderCommandBuffer.flushActive();
+
+            Shape sh = Geometry.createRectangle(Unit.toUnits(w),
+                                                Unit.toUnits(h));
             AffineTransform ot = g.getTransform();
             AffineTransform lt = new AffineTransform();
 
-            lt.translate(x.pixels() + w.pixels() / 2,
-                         y.pixels() + h.pixels() / 2);
+            lt.rotate(Math.toRadians(rotation), centerX, centerY);
+            lt.translate(x + w / 2,
+                         y + h / 2);
 
             g.transform(lt);
 
@@ -312,10 +453,139 @@ public abstract class RenderableText extends BaseRenderable
 
             g.setTransform(ot);
         }
+    }
+
+    /**
+     * Draws this text with the {@link #bitmapFont}. The transform of the text is applied to the position and size of the
+     * glyphs.
+     */
+    private void renderBitmapText(Graphics2D g, double x, double y, double centerX, double centerY, RenderContext context)
+    {
+        double scale = this.font.getSize2D() / this.bitmapFont.getSize();
+        double scaleX = scale;
+        double scaleY = scale;
+        double penX = (int)x;
+        double penY = (int)y;
+
+        if (this.transform != null)
+        {
+            // i.e. filled texts stretch their width and height independently
+            scaleX *= this.transform.getScaleX();
+            scaleY *= this.transform.getScaleY();
+            penX += this.transform.getTranslateX();
+            penY += this.transform.getTranslateY();
+        }
+
+        this.bitmapFont.drawString(g,
+                                   this.text,
+                                   penX,
+                                   penY,
+                                   scaleX,
+                                   scaleY,
+                                   this.color == null ? g.getColor() : this.color,
+                                   context.getAlpha(),
+                                   Math.toRadians(context.getRotation()),
+                                   centerX,
+                                   centerY);
+    }
+
+    /**
+     * Draws this text as an image from the {@link TextCache}. The image is submitted to the
+     * {@link RenderCommandBuffer#getActive() active command buffer} if there is one.
+     *
+     * @return false if the text could not be drawn as an image and needs to be drawn directly.
+     */
+    private boolean renderCachedImage(Graphics2D g, double x, double y, double w, double h, double centerX, double centerY, RenderContext context)
+    {
+        if (!this.imageCaching || this.text == null)
+        {
+            return false;
+        }
+
+        RenderCommandBuffer buffer = RenderCommandBuffer.getActive();
+
+        // the active buffer knows the transform already, so it does not have to be copied for every text
+        int transformType = buffer == null ? g.getTransform().getType() : buffer.getTransformType(g);
+
+        if ((transformType & ~AffineTransform.TYPE_TRANSLATION) != 0)
+        {
+            return false;
+        }
+
+        Color color = this.color == null ? g.getColor() : this.color;
+        TextImage image = TextCache.get().getTextImage(this.text, this.font, this.transform, color);
+
+        if (image == null)
+        {
+            return false;
+        }
+
+        int imageX = (int)x + image.getOffsetX();
+        int imageY = (int)y + image.getOffsetY();
+
+        if (this.transform != null)
+        {
+            imageX += (int)Math.round(this.transform.getTranslateX());
+            imageY += (int)Math.round(this.transform.getTranslateY());
+        }
+
+        BufferedImage img = image.getImage();
+        double rotation = Math.toRadians(context.getRotation());
+
+        if (buffer == null
+                || !buffer.submit(g,
+                                  img,
+                                  imageX,
+                                  imageY,
+                                  img.getWidth(),
+                                  img.getHeight(),
+                                  rotation,
+                                  centerX,
+                                  centerY,
+                                  context.getAlpha()))
+        {
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, context.getAlpha()));
+            g.rotate(rotation, centerX, centerY);
+            g.drawImage(img, imageX, imageY, null);
+            g.rotate(-rotation, centerX, centerY);
+        }
+
+        return true;
+    }
+
+    /**
+     * Sets the position of this text to the given pixel values. The current {@link Unit} instances are kept if they
+     * already hold these values. A changed position is reported as damage.
+     *
+     * @param x The x position in pixels.
+     * @param y The y position in pixels.
+     */
+    protected void updatePosition(double x, double y)
+    {
+        Unit newX = toUnit(this.x, x);
+        Unit newY = toUnit(this.y, y);
+
+        if (newX != this.x || newY != this.y)
+        {
+            // the new position is damaged for the next frame, since this one is already being rendered
+            reportDamage();
+            this.x = newX;
+            this.y = newY;
+            reportDamage();
+        }
+    }
 
-        g.rotate(Math.toRadians(-rotation),
-                 x.pixels() + w.pixels() / 2,
-                 y.pixels() + h.pixels() / 2);
+    /**
+     * Returns the given unit if it holds the given amount of pixels, otherwise a new instance with that value.
+     *
+     * @param current The unit to reuse.
+     * @param pixels  The value in pixels.
+     * @return A unit that holds the given value.
+     */
+    protected static Unit toUnit(Unit current, double pixels)
+    {
+        double units = Unit.toUnits(pixels);
+        return current != null && current.units() == units ? current : Unit.forUnits(units);
     }
 
     /**
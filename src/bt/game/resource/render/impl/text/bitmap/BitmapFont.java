@@ -0,0 +1,617 @@
+package bt.game.resource.render.impl.text.bitmap;
+
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.util.image.AlphaComposites;
+import bt.game.util.image.CompatibleImages;
+import bt.types.Killable;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A font whose glyphs were rendered once into a single sheet image, so that strings can be drawn as a sequence of image
+ * draws instead of being laid out and rasterized every frame.
+ *
+ * <p>
+ * Bitmap fonts are meant for texts that change often, like scores, timers or frame rates. They are created from a
+ * regular font via {@link #bake(Font, float, String)}, which renders every given character in white and measures the
+ * kerning between all pairs of characters. Colored text is drawn from a tinted copy of the sheet, which is created once
+ * per color.
+ * </p>
+ *
+ * <p>
+ * Glyphs are drawn via the {@link RenderCommandBuffer#getActive() active command buffer} if there is one, so they are
+ * batched together with other images.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class BitmapFont implements Killable
+{
+    /** The printable ASCII characters, which are baked if no characters are given. */
+    public static final String DEFAULT_CHARACTERS;
+
+    /** The width of a baked sheet in pixels. */
+    public static final int SHEET_WIDTH = 512;
+
+    /** The number of tinted sheets that are kept. */
+    public static final int TINT_CAPACITY = 8;
+
+    static
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (char c = 32; c < 127; c++)
+        {
+            sb.append(c);
+        }
+
+        DEFAULT_CHARACTERS = sb.toString();
+    }
+
+    private Font font;
+    private BufferedImage sheet;
+    private Map<Character, Glyph> glyphs;
+    private float[] kerning;
+    private float ascent;
+    private float descent;
+    private Map<Integer, BufferedImage> tintedSheets;
+    private int lastTint;
+    private BufferedImage lastTintedSheet;
+
+    /**
+     * Creates a new font from already baked data.
+     *
+     * @param font    The font that the glyphs were baked from, derived to the baked size.
+     * @param sheet   The image that contains all glyphs in white.
+     * @param glyphs  The glyphs. Their indices have to match the order of the collection.
+     * @param kerning The kerning between all pairs of glyphs in pixels, indexed by
+     *                <code>first.index * glyphCount + second.index</code>.
+     * @param ascent  The ascent of the font in pixels.
+     * @param descent The descent of the font in pixels.
+     */
+    public BitmapFont(Font font, BufferedImage sheet, Collection<Glyph> glyphs, float[] kerning, float ascent, float descent)
+    {
+        this.font = font;
+        this.sheet = sheet;
+        this.kerning = kerning;
+        this.ascent = ascent;
+        this.descent = descent;
+        this.glyphs = new LinkedHashMap<>();
+
+        for (Glyph glyph : glyphs)
+        {
+            this.glyphs.put(glyph.getCharacter(), glyph);
+        }
+
+        this.tintedSheets = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest)
+            {
+                if (size() > TINT_CAPACITY)
+                {
+                    eldest.getValue().flush();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Renders the given characters of the given font into a new bitmap font.
+     *
+     * @param font       The font.
+     * @param pixelSize  The size that the glyphs are rendered in. Drawing the font much larger than this will make it
+     *                   look blurry.
+     * @param characters The characters to include or null for {@link #DEFAULT_CHARACTERS}. Characters that the font
+     *                   can not display are skipped.
+     * @return The baked font.
+     */
+    public static BitmapFont bake(Font font, float pixelSize, String characters)
+    {
+        if (characters == null)
+        {
+            characters = DEFAULT_CHARACTERS;
+        }
+
+        Font sized = font.deriveFont(pixelSize);
+        FontRenderContext renderContext = new FontRenderContext(null, true, true);
+        List<Glyph> glyphs = new ArrayList<>();
+        List<GlyphVector> vectors = new ArrayList<>();
+        List<Rectangle> bounds = new ArrayList<>();
+
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+
+        for (int i = 0; i < characters.length(); i++)
+        {
+            char c = characters.charAt(i);
+
+            if (characters.indexOf(c) != i || !sized.canDisplay(c))
+            {
+                continue;
+            }
+
+            GlyphVector vector = sized.createGlyphVector(renderContext, String.valueOf(c));
+            Rectangle pixelBounds = vector.getPixelBounds(renderContext, 0, 0);
+
+            if (!pixelBounds.isEmpty())
+            {
+                // one pixel on each side for antialiased edges
+                pixelBounds.grow(1, 1);
+            }
+
+            if (x + pixelBounds.width > SHEET_WIDTH)
+            {
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+
+            glyphs.add(new Glyph(c,
+                                 glyphs.size(),
+                                 x,
+                                 y,
+                                 pixelBounds.width,
+                                 pixelBounds.height,
+                                 pixelBounds.x,
+                                 pixelBounds.y,
+                                 vector.getGlyphMetrics(0).getAdvance()));
+            vectors.add(vector);
+            bounds.add(pixelBounds);
+
+            x += pixelBounds.width;
+            rowHeight = Math.max(rowHeight, pixelBounds.height);
+        }
+
+        BufferedImage sheet = CompatibleImages.createCompatibleImage(SHEET_WIDTH,
+                                                                     Math.max(y + rowHeight, 1),
+                                                                     Transparency.TRANSLUCENT);
+        Graphics2D g = sheet.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                           RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+                           RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g.setColor(Color.WHITE);
+
+        for (int i = 0; i < glyphs.size(); i++)
+        {
+            Glyph glyph = glyphs.get(i);
+            Rectangle pixelBounds = bounds.get(i);
+            g.drawGlyphVector(vectors.get(i), glyph.getX() - pixelBounds.x, glyph.getY() - pixelBounds.y);
+        }
+
+        g.dispose();
+
+        float[] kerning = measureKerning(sized, glyphs, renderContext);
+        TextLayout metrics = new TextLayout(characters.isEmpty() ? " " : characters, sized, renderContext);
+
+        return new BitmapFont(sized, sheet, glyphs, kerning, metrics.getAscent(), metrics.getDescent());
+    }
+
+    /**
+     * Measures the kerning between all pairs of the given glyphs as the difference between the advance of the pair and
+     * the advances of the single glyphs.
+     */
+    private static float[] measureKerning(Font font, List<Glyph> glyphs, FontRenderContext renderContext)
+    {
+        int count = glyphs.size();
+        float[] kerning = new float[count * count];
+        Font kerned = font.deriveFont(Collections.singletonMap(TextAttribute.KERNING, TextAttribute.KERNING_ON));
+
+        for (Glyph first : glyphs)
+        {
+            for (Glyph second : glyphs)
+            {
+                String pair = new String(new char[] { first.getCharacter(), second.getCharacter() });
+                float advance = new TextLayout(pair, kerned, renderContext).getAdvance();
+                float value = advance - first.getAdvance() - second.getAdvance();
+
+                if (Math.abs(value) > 0.01f)
+                {
+                    kerning[first.getIndex() * count + second.getIndex()] = value;
+                }
+            }
+        }
+
+        return kerning;
+    }
+
+    /**
+     * Draws the given text.
+     *
+     * @param g        The graphics to draw on.
+     * @param text     The text.
+     * @param x        The x position of the start of the baseline in pixels.
+     * @param y        The y position of the baseline in pixels.
+     * @param scale    The factor that the baked glyphs are scaled by.
+     * @param color    The color of the text.
+     * @param alpha    The alpha value used to draw the text.
+     * @param rotation The rotation in radians.
+     * @param centerX  The x pixel position of the rotation center.
+     * @param centerY  The y pixel position of the rotation center.
+     */
+    public void drawString(Graphics2D g, String text, double x, double y, double scale, Color color, float alpha, double rotation, double centerX, double centerY)
+    {
+        drawString(g, text, x, y, scale, scale, color, alpha, rotation, centerX, centerY);
+    }
+
+    /**
+     * Draws the given text with separate horizontal and vertical scales, i.e. to stretch it to a given width and height.
+     *
+     * @param g        The graphics to draw on.
+     * @param text     The text.
+     * @param x        The x position of the start of the baseline in pixels.
+     * @param y        The y position of the baseline in pixels.
+     * @param scaleX   The factor that the width of the baked glyphs and the advances between them are scaled by.
+     * @param scaleY   The factor that the height of the baked glyphs is scaled by.
+     * @param color    The color of the text.
+     * @param alpha    The alpha value used to draw the text.
+     * @param rotation The rotation in radians.
+     * @param centerX  The x pixel position of the rotation center.
+     * @param centerY  The y pixel position of the rotation center.
+     */
+    public void drawString(Graphics2D g, String text, double x, double y, double scaleX, double scaleY, Color color, float alpha, double rotation, double centerX, double centerY)
+    {
+        if (text == null || text.isEmpty())
+        {
+            return;
+        }
+
+        BufferedImage image = getSheet(color);
+        RenderCommandBuffer buffer = RenderCommandBuffer.getActive();
+        boolean direct = buffer == null;
+        Composite origComposite = null;
+
+        double pen = x;
+        Glyph previous = null;
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            Glyph glyph = this.glyphs.get(text.charAt(i));
+
+            if (glyph == null)
+            {
+                previous = null;
+                continue;
+            }
+
+            if (previous != null)
+            {
+                pen += getKerning(previous, glyph) * scaleX;
+            }
+
+            if (glyph.getWidth() > 0)
+            {
+                int dx = (int)Math.round(pen + glyph.getOffsetX() * scaleX);
+                int dy = (int)Math.round(y + glyph.getOffsetY() * scaleY);
+                int dw = (int)Math.round(glyph.getWidth() * scaleX);
+                int dh = (int)Math.round(glyph.getHeight() * scaleY);
+
+                if (!direct && !buffer.submit(g,
+                                              image,
+                                              dx,
+                                              dy,
+                                              dw,
+                                              dh,
+                                              glyph.getX(),
+                                              glyph.getY(),
+                                              glyph.getWidth(),
+                                              glyph.getHeight(),
+                                              rotation,
+                                              centerX,
+                                              centerY,
+                                              alpha))
+                {
+                    direct = true;
+                }
+
+                if (direct)
+                {
+                    if (origComposite == null)
+                    {
+                        origComposite = g.getComposite();
+                        g.setComposite(AlphaComposites.srcOver(alpha));
+                        g.rotate(rotation, centerX, centerY);
+                    }
+
+                    g.drawImage(image,
+                                dx,
+                                dy,
+                                dx + dw,
+                                dy + dh,
+                                glyph.getX(),
+                                glyph.getY(),
+                                glyph.getX() + glyph.getWidth(),
+                                glyph.getY() + glyph.getHeight(),
+                                null);
+                }
+            }
+
+            pen += glyph.getAdvance() * scaleX;
+            previous = glyph;
+        }
+
+        if (origComposite != null)
+        {
+            g.rotate(-rotation, centerX, centerY);
+            g.setComposite(origComposite);
+        }
+    }
+
+    /**
+     * Calculates the width of the given text including kerning.
+     *
+     * @param text The text.
+     * @return The width in pixels at the baked size.
+     */
+    public float getStringWidth(String text)
+    {
+        float width = 0;
+        Glyph previous = null;
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            Glyph glyph = this.glyphs.get(text.charAt(i));
+
+            if (glyph == null)
+            {
+                previous = null;
+                continue;
+            }
+
+            if (previous != null)
+            {
+                width += getKerning(previous, glyph);
+            }
+
+            width += glyph.getAdvance();
+            previous = glyph;
+        }
+
+        return width;
+    }
+
+    /**
+     * Gets the kerning between the two given glyphs.
+     *
+     * @param first  The left glyph.
+     * @param second The right glyph.
+     * @return The amount in pixels that the right glyph is moved by.
+     */
+    public float getKerning(Glyph first, Glyph second)
+    {
+        return this.kerning[first.getIndex() * this.glyphs.size() + second.getIndex()];
+    }
+
+    /**
+     * Gets the glyph of the given character.
+     *
+     * @param c The character.
+     * @return The glyph or null if the character was not baked.
+     */
+    public Glyph getGlyph(char c)
+    {
+        return this.glyphs.get(c);
+    }
+
+    /**
+     * Gets all glyphs in the order of their indices.
+     *
+     * @return The glyphs.
+     */
+    public Collection<Glyph> getGlyphs()
+    {
+        return Collections.unmodifiableCollection(this.glyphs.values());
+    }
+
+    /**
+     * Gets the font that was baked, derived to the baked size.
+     *
+     * @return The font.
+     */
+    public Font getFont()
+    {
+        return this.font;
+    }
+
+    /**
+     * Gets the size that the glyphs were baked in.
+     *
+     * @return The size in pixels.
+     */
+    public float getSize()
+    {
+        return this.font.getSize2D();
+    }
+
+    public float getAscent()
+    {
+        return this.ascent;
+    }
+
+    public float getDescent()
+    {
+        return this.descent;
+    }
+
+    /**
+     * Gets the sheet that contains all glyphs in white.
+     *
+     * @return The sheet.
+     */
+    public BufferedImage getSheet()
+    {
+        return this.sheet;
+    }
+
+    /**
+     * Gets the kerning table.
+     *
+     * @return The kerning between all pairs of glyphs in pixels.
+     * @see #BitmapFont(Font, BufferedImage, Collection, float[], float, float)
+     */
+    public float[] getKerningTable()
+    {
+        return this.kerning;
+    }
+
+    /**
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public synchronized void kill()
+    {
+        for (BufferedImage tinted : this.tintedSheets.values())
+        {
+            tinted.flush();
+        }
+
+        this.tintedSheets.clear();
+        this.lastTintedSheet = null;
+        this.sheet.flush();
+    }
+
+    /**
+     * Gets a copy of the sheet in the given color. Copies are created once per color.
+     */
+    private synchronized BufferedImage getSheet(Color color)
+    {
+        if (color == null || color.getRGB() == Color.WHITE.getRGB())
+        {
+            return this.sheet;
+        }
+
+        int rgb = color.getRGB();
+
+        if (this.lastTintedSheet != null && this.lastTint == rgb)
+        {
+            return this.lastTintedSheet;
+        }
+
+        BufferedImage tinted = this.tintedSheets.get(rgb);
+
+        if (tinted == null)
+        {
+            tinted = CompatibleImages.createCompatibleImage(this.sheet.getWidth(),
+                                                            this.sheet.getHeight(),
+                                                            Transparency.TRANSLUCENT);
+            Graphics2D g = tinted.createGraphics();
+            g.drawImage(this.sheet, 0, 0, null);
+            g.setComposite(AlphaComposite.SrcIn);
+            g.setColor(color);
+            g.fillRect(0, 0, tinted.getWidth(), tinted.getHeight());
+            g.dispose();
+
+            this.tintedSheets.put(rgb, tinted);
+        }
+
+        this.lastTint = rgb;
+        this.lastTintedSheet = tinted;
+
+        return tinted;
+    }
+
+    /**
+     * The position of a single character on the sheet and its metrics.
+     *
+     * @author &#8904
+     */
+    public static class Glyph
+    {
+        private char character;
+        private int index;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+        private int offsetX;
+        private int offsetY;
+        private float advance;
+
+        /**
+         * Creates a new glyph.
+         *
+         * @param character The character.
+         * @param index     The index of the glyph within its font.
+         * @param x         The x position on the sheet.
+         * @param y         The y position on the sheet.
+         * @param width     The width on the sheet.
+         * @param height    The height on the sheet.
+         * @param offsetX   The x position of the image relative to the pen position.
+         * @param offsetY   The y position of the image relative to the baseline.
+         * @param advance   The distance that the pen moves after this glyph.
+         */
+        public Glyph(char character, int index, int x, int y, int width, int height, int offsetX, int offsetY, float advance)
+        {
+            this.character = character;
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.advance = advance;
+        }
+
+        public char getCharacter()
+        {
+            return this.character;
+        }
+
+        public int getIndex()
+        {
+            return this.index;
+        }
+
+        public int getX()
+        {
+            return this.x;
+        }
+
+        public int getY()
+        {
+            return this.y;
+        }
+
+        public int getWidth()
+        {
+            return this.width;
+        }
+
+        public int getHeight()
+        {
+            return this.height;
+        }
+
+        public int getOffsetX()
+        {
+            return this.offsetX;
+        }
+
+        public int getOffsetY()
+        {
+            return this.offsetY;
+        }
+
+        public float getAdvance()
+        {
+            return this.advance;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package bt.game.resource.render.impl.text.bitmap;
+
+import bt.game.resource.load.cache.CacheFiles;
+import bt.game.resource.render.impl.atlas.AtlasCache;
+import bt.game.resource.render.impl.text.bitmap.BitmapFont.Glyph;
+import bt.game.util.image.CompatibleImages;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Stores baked {@link BitmapFont bitmap fonts} on disk so that later startups can skip rendering the glyphs and
+ * measuring their kerning.
+ *
+ * <p>
+ * Each cached font is identified by its name and a key that should change whenever the source font, size or characters
+ * change (see {@link AtlasCache#createKey(String...)}). A cache entry consists of a metrics file (font.name-key.font) and
+ * the glyph sheet (font.name-key.png), named by {@link CacheFiles}. Older entries for the same name are deleted when a
+ * new one is saved.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class BitmapFontCache
+{
+    private static final String NAMESPACE = "font";
+
+    private File directory;
+
+    /**
+     * Creates a new cache that uses the given directory. The directory is created if it does not exist.
+     *
+     * @param directory The cache directory.
+     */
+    public BitmapFontCache(File directory)
+    {
+        this.directory = directory;
+        this.directory.mkdirs();
+    }
+
+    /**
+     * Loads the cached bitmap font for the given name and key.
+     *
+     * @param name The name of the font.
+     * @param key  The key of the expected cache entry.
+     * @param font The font that was baked, derived to the baked size.
+     * @return The cached font or null if there is no entry for the given name and key.
+     * @throws IOException if the entry exists but could not be read.
+     */
+    public BitmapFont load(String name, String key, Font font) throws IOException
+    {
+        File metricsFile = new File(this.directory, fileName(name, key) + ".font");
+
+        if (!metricsFile.exists())
+        {
+            return null;
+        }
+
+        Properties metrics = new Properties();
+
+        try (InputStream in = new FileInputStream(metricsFile))
+        {
+            metrics.load(in);
+        }
+
+        File sheetFile = new File(this.directory, fileName(name, key) + ".png");
+        BufferedImage sheet = ImageIO.read(sheetFile);
+
+        if (sheet == null)
+        {
+            throw new IOException("Failed to read glyph sheet " + sheetFile.getAbsolutePath());
+        }
+
+        int count = Integer.parseInt(metrics.getProperty("glyphs"));
+        List<Glyph> glyphs = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            String[] values = metrics.getProperty("glyph." + i).split(",");
+            glyphs.add(new Glyph((char)Integer.parseInt(values[0]),
+                                 i,
+                                 Integer.parseInt(values[1]),
+                                 Integer.parseInt(values[2]),
+                                 Integer.parseInt(values[3]),
+                                 Integer.parseInt(values[4]),
+                                 Integer.parseInt(values[5]),
+                                 Integer.parseInt(values[6]),
+                                 Float.parseFloat(values[7])));
+        }
+
+        float[] kerning = new float[count * count];
+        String kerningValues = metrics.getProperty("kerning", "");
+
+        for (String pair : kerningValues.split(";"))
+        {
+            if (pair.isEmpty())
+            {
+                continue;
+            }
+
+            String[] values = pair.split(",");
+            kerning[Integer.parseInt(values[0])] = Float.parseFloat(values[1]);
+        }
+
+        return new BitmapFont(font.deriveFont(Float.parseFloat(metrics.getProperty("size"))),
+                              CompatibleImages.toCompatibleImage(sheet),
+                              glyphs,
+                              kerning,
+                              Float.parseFloat(metrics.getProperty("ascent")),
+                              Float.parseFloat(metrics.getProperty("descent")));
+    }
+
+    /**
+     * Saves the given bitmap font and deletes older entries with the same name.
+     *
+     * @param name The name of the font.
+     * @param key  The key of the new cache entry.
+     * @param font The font to save.
+     * @throws IOException if the entry could not be written.
+     */
+    public void save(String name, String key, BitmapFont font) throws IOException
+    {
+        CacheFiles.deleteEntries(this.directory, NAMESPACE, name);
+
+
+        ImageIO.write(font.getSheet(), "png", new File(this.directory, fileName(name, key) + ".png"));
+
+        Properties metrics = new Properties();
+        metrics.setProperty("size", String.valueOf(font.getSize()));
+        metrics.setProperty("ascent", String.valueOf(font.getAscent()));
+        metrics.setProperty("descent", String.valueOf(font.getDescent()));
+        metrics.setProperty("glyphs", String.valueOf(font.getGlyphs().size()));
+
+        for (Glyph glyph : font.getGlyphs())
+        {
+            metrics.setProperty("glyph." + glyph.getIndex(),
+                                (int)glyph.getCharacter() + ","
+                                        + glyph.getX() + ","
+                                        + glyph.getY() + ","
+                                        + glyph.getWidth() + ","
+                                        + glyph.getHeight() + ","
+                                        + glyph.getOffsetX() + ","
+                                        + glyph.getOffsetY() + ","
+                                        + glyph.getAdvance());
+        }
+
+        StringBuilder kerning = new StringBuilder();
+        float[] table = font.getKerningTable();
+
+        for (int i = 0; i < table.length; i++)
+        {
+            if (table[i] != 0)
+            {
+                kerning.append(i).append(',').append(table[i]).append(';');
+            }
+        }
+
+        metrics.setProperty("kerning", kerning.toString());
+
+        // the metrics are written last so that an interrupted save does not leave a valid looking entry
+        try (OutputStream out = new FileOutputStream(new File(this.directory, fileName(name, key) + ".font")))
+        {
+            metrics.store(out, name);
+        }
+    }
+
+    private String fileName(String name, String key)
+    {
+        return CacheFiles.fileName(NAMESPACE, name, key);
+    }
+}
@@ -1,6 +1,11 @@
 package bt.game.resource.render.impl.text.multi;
 
+import bt.game.resource.render.batch.RenderCommandBuffer;
+import bt.game.resource.render.cache.TextCache;
+import bt.game.resource.render.damage.DamageTracker;
+import bt.game.resource.render.impl.RenderContext;
 import bt.game.resource.render.impl.text.RenderableText;
+import bt.game.resource.render.impl.text.bitmap.BitmapFont;
 import bt.game.resource.render.impl.text.single.FixedText;
 import bt.game.util.shape.ShapeRenderer;
 import bt.game.util.unit.Unit;
@@ -9,8 +14,11 @@ import org.dyn4j.geometry.Shape;
 
 import java.awt.*;
 import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
 import java.awt.font.LineMetrics;
+import java.awt.font.TextAttribute;
 import java.awt.geom.AffineTransform;
+import java.text.AttributedString;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,6 +31,14 @@ import java.util.List;
  * The rendered text will never exceed the bounds of the given width unless a single is wider than the bounds.
  * </p>
  *
+ * <p>
+ * The text is wrapped with a {@link LineBreakMeasurer} paragraph by paragraph. Changing the text only wraps the
+ * paragraphs that actually changed again, and the row objects are reused. This keeps {@link #append(String)} cheap,
+ * i.e. for dialogue that is revealed one character at a time. If a {@link #setMaxLines(int) maximum number of rows} is
+ * set, all rows are still kept and the displayed ones can be changed via {@link #setScrollOffset(int)} without wrapping
+ * the text again.
+ * </p>
+ *
  * @author &#8904
  */
 public class TextBox extends RenderableText
@@ -32,6 +48,32 @@ public class TextBox extends RenderableText
      */
     private List<FixedText> lines = new ArrayList<>();
 
+    /**
+     * The wrapped paragraphs of the last layout, used to only wrap changed paragraphs again.
+     */
+    private List<Paragraph> paragraphs = new ArrayList<>();
+
+    /**
+     * The font and width that the paragraphs were wrapped with.
+     */
+    private Font layoutFont;
+    private double layoutWidth;
+
+    /**
+     * Indicates whether the text changed and needs to be wrapped again.
+     */
+    private boolean shouldLayout = true;
+
+    /**
+     * The index of the first displayed row.
+     */
+    private int scrollOffset;
+
+    /**
+     * Indicates whether the last rows are displayed automatically whenever the text changes.
+     */
+    private boolean autoScroll;
+
     /**
      * The maximum number of rows to display. -1 indicates an unlimited number.
      */
@@ -77,6 +119,7 @@ public class TextBox extends RenderableText
     public void setLineSpacing(Unit lineSpacing)
     {
         this.lineSpacing = lineSpacing;
+        reportDamage();
     }
 
     /**
@@ -89,6 +132,7 @@ public class TextBox extends RenderableText
     public void setMaxLines(int maxLines)
     {
         this.maxLines = maxLines;
+        reportDamage();
     }
 
     /**
@@ -105,6 +149,7 @@ public class TextBox extends RenderableText
     {
         this.maxLines = maxLines;
         this.centerInMaxLines = center;
+        reportDamage();
     }
 
     /**
@@ -115,6 +160,138 @@ public class TextBox extends RenderableText
     public void ignoreLineBreaks(boolean ignoreLineBreaks)
     {
         this.lineBreak = !ignoreLineBreaks;
+        this.paragraphs.clear();
+        this.shouldLayout = true;
+        reportDamage();
+    }
+
+    /**
+     * Sets the text of this box. Only the paragraphs that differ from the previous text are wrapped again.
+     *
+     * @see bt.game.resource.render.impl.text.RenderableText#setText(java.lang.String)
+     */
+    @Override
+    public void setText(String text)
+    {
+        this.text = text;
+        this.shouldLayout = true;
+        reportDamage();
+    }
+
+    /**
+     * Appends the given text to the text of this box. Only the last paragraph is wrapped again.
+     *
+     * @param text The text to append.
+     */
+    public void append(String text)
+    {
+        setText(this.text == null ? text : this.text + text);
+    }
+
+    /**
+     * Sets the color of this box and all of its rows.
+     *
+     * @see bt.game.resource.render.impl.text.RenderableText#setColor(java.awt.Color)
+     */
+    @Override
+    public void setColor(Color color)
+    {
+        super.setColor(color);
+
+        if (this.lines != null)
+        {
+            for (FixedText line : this.lines)
+            {
+                line.setColor(color);
+            }
+        }
+    }
+
+    /**
+     * Sets the index of the first displayed row. This has no effect unless a {@link #setMaxLines(int) maximum number
+     * of rows} is set.
+     *
+     * @param scrollOffset The index of the first row.
+     */
+    public void setScrollOffset(int scrollOffset)
+    {
+        this.scrollOffset = Math.max(scrollOffset, 0);
+        reportDamage();
+    }
+
+    public int getScrollOffset()
+    {
+        return this.scrollOffset;
+    }
+
+    /**
+     * Sets whether the last rows should be displayed whenever the text changes. This has no effect unless a
+     * {@link #setMaxLines(int) maximum number of rows} is set.
+     *
+     * @param autoScroll true to always show the end of the text.
+     */
+    public void setAutoScroll(boolean autoScroll)
+    {
+        this.autoScroll = autoScroll;
+        this.shouldLayout = true;
+    }
+
+    public boolean isAutoScroll()
+    {
+        return this.autoScroll;
+    }
+
+    /**
+     * Sets whether the rows of this box are drawn as cached images.
+     *
+     * @see bt.game.resource.render.impl.text.RenderableText#setImageCaching(boolean)
+     */
+    @Override
+    public void setImageCaching(boolean imageCaching)
+    {
+        super.setImageCaching(imageCaching);
+
+        for (FixedText line : this.lines)
+        {
+            line.setImageCaching(imageCaching);
+        }
+    }
+
+    /**
+     * Sets the bitmap font of this box and all of its rows.
+     *
+     * @see bt.game.resource.render.impl.text.RenderableText#setBitmapFont(bt.game.resource.render.impl.text.bitmap.BitmapFont)
+     */
+    @Override
+    public void setBitmapFont(BitmapFont bitmapFont)
+    {
+        super.setBitmapFont(bitmapFont);
+
+        for (FixedText line : this.lines)
+        {
+            line.setBitmapFont(bitmapFont);
+        }
+    }
+
+    /**
+     * Reports the area of all rows, the height of this box is the height of a single row.
+     *
+     * @see bt.game.resource.render.impl.BaseRenderable#reportDamage()
+     */
+    @Override
+    protected void reportDamage()
+    {
+        if (DamageTracker.getActive() != null
+                && this.x != null && this.y != null && this.w != null && this.h != null
+                && this.lineSpacing != null && this.lines != null)
+        {
+            int rows = Math.max(this.maxLines > 0 ? this.maxLines : this.lines.size(), 1);
+
+            DamageTracker.reportUnits(this.x.units(),
+                                      this.y.units(),
+                                      this.w.units(),
+                                      (this.h.units() + this.lineSpacing.units()) * rows);
+        }
     }
 
     /**
@@ -123,15 +300,35 @@ public class TextBox extends RenderableText
      * @return
      */
     public int getLineCount()
+    {
+        int count = Math.max(this.lines.size() - getFirstLine(), 0);
+        return this.maxLines > 0 ? Math.min(count, this.maxLines) : count;
+    }
+
+    /**
+     * Gets the number of rows that the text was wrapped into, including rows that are not displayed because of the
+     * {@link #setMaxLines(int) maximum number of rows}.
+     *
+     * @return
+     */
+    public int getTotalLineCount()
     {
         return this.lines.size();
     }
 
+    /**
+     * Renders the lines of this box. The given height is used for every single line.
+     *
+     * @see bt.game.resource.render.impl.text.RenderableText#render(java.awt.Graphics2D, double, double, double, double, bt.game.resource.render.impl.RenderContext)
+     */
     @Override
-    public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit lineHeight, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
+    public void render(Graphics2D g, double x, double y, double w, double lineHeight, RenderContext context)
     {
-        this.x = x;
-        this.y = y;
+        float alpha = context.getAlpha();
+        double rotation = context.getRotation();
+        boolean debugRendering = context.isDebugRendering();
+
+        updatePosition(x, y);
 
         if (this.font == null)
         {
@@ -153,15 +350,22 @@ public class TextBox extends RenderableText
         if (this.shouldRecalculate
                 || this.lastUnitRatio != Unit.getRatio())
         {
-            doScaling(g, x, y, w, lineHeight);
-            g.setFont(this.font.deriveFont(this.transform));
-            generateLines(g, w, lineHeight);
+            doScaling(g, this.x, this.y, toUnit(this.w, w), toUnit(this.h, lineHeight));
             this.shouldRecalculate = false;
+            this.shouldLayout = true;
+        }
+
+        if (this.shouldLayout)
+        {
+            g.setFont(TextCache.get().deriveFont(this.font, this.transform));
+            generateLines(g, this.w, this.h);
+            this.shouldLayout = false;
         }
 
         g.rotate(Math.toRadians(rotation),
-                 (x.pixels() + w.pixels() / 2) + rotationOffsetX.pixels(),
-                 (y.pixels() + lineHeight.pixels() / 2) + rotationOffsetY.pixels());
+                 (x + w / 2) + context.getRotationOffsetX(),
+                 (y + lineHeight / 2) + context.getRotationOffsetY());
+        RenderCommandBuffer.transformChangedActive();
 
         g.setFont(originalFont);
 
@@ -170,28 +374,36 @@ public class TextBox extends RenderableText
             g.setColor(this.color);
         }
 
-        if (this.maxLines > 0 && this.lines.size() < this.maxLines && this.centerInMaxLines)
+        double lineStep = lineHeight + this.lineSpacing.pixels();
+        double firstLineY = y;
+        int firstLine = getFirstLine();
+        int lineCount = getLineCount();
+
+        if (this.maxLines > 0 && lineCount < this.maxLines && this.centerInMaxLines)
         {
             // add half of the spare space to the top and therefore move the lines down to center them
-            y = y.addUnits(lineHeight.addUnits(this.lineSpacing).multiplyWith(this.maxLines - this.lines.size()).divideBy(2));
+            firstLineY += lineStep * (this.maxLines - lineCount) / 2;
         }
 
-        for (int i = 0; i < this.lines.size(); i++)
+        // the given context is not read anymore, so it can be reused for the lines
+        RenderContext lineContext = this.context.set(1, 0, 0, 0, debugRendering);
+
+        for (int i = 0; i < lineCount; i++)
         {
-            var line = this.lines.get(i);
-            line.render(g, x, y.addUnits(lineHeight.addUnits(this.lineSpacing).multiplyWith(i)), w, lineHeight, debugRendering);
+            var line = this.lines.get(firstLine + i);
+            line.render(g, x, firstLineY + lineStep * i, w, lineHeight, lineContext);
         }
 
         g.setFont(originalFont);
 
         if (debugRendering)
         {
-            Shape sh = Geometry.createRectangle(w.units(), lineHeight.units());
+            Shape sh = Geometry.createRectangle(Unit.toUnits(w), Unit.toUnits(lineHeight));
             AffineTransform ot = g.getTransform();
             AffineTransform lt = new AffineTransform();
 
-            lt.translate(x.pixels() + w.pixels() / 2,
-                         y.pixels() + lineHeight.pixels() / 2);
+            lt.translate(x + w / 2,
+                         firstLineY + lineHeight / 2);
 
             g.transform(lt);
 
@@ -201,8 +413,9 @@ public class TextBox extends RenderableText
         }
 
         g.rotate(Math.toRadians(-rotation),
-                 x.pixels() + w.pixels() / 2,
-                 y.pixels() + lineHeight.pixels() / 2);
+                 x + w / 2,
+                 firstLineY + lineHeight / 2);
+        RenderCommandBuffer.transformChangedActive();
     }
 
     @Override
@@ -240,73 +453,210 @@ public class TextBox extends RenderableText
         this.w = w;
     }
 
+    /**
+     * Wraps the text into rows that fit into the given width, using the font of the given graphics.
+     *
+     * <p>
+     * Paragraphs that are equal to the paragraph at the same index in the last layout keep their rows, as long as font
+     * and width did not change. Existing row objects are reused and only receive a new text if their text changed.
+     * </p>
+     *
+     * @param g
+     * @param w
+     * @param lineHeight
+     */
     protected void generateLines(Graphics2D g, Unit w, Unit lineHeight)
     {
-        this.lines = new ArrayList<>();
-        String[] words = this.text.split(" ");
         Font font = g.getFont();
         FontRenderContext renderContext = g.getFontRenderContext();
+        double width = w.pixels();
+
+        if (!font.equals(this.layoutFont) || width != this.layoutWidth)
+        {
+            this.paragraphs.clear();
+            this.layoutFont = font;
+            this.layoutWidth = width;
+        }
 
-        String currentText = "";
-        String tempText = "";
-        String word = "";
-        boolean addedLast = false;
+        String text = this.text == null ? "" : this.text;
 
-        for (int i = 0; i < words.length; i++)
+        if (!this.lineBreak)
         {
-            word = words[i];
-            tempText += " " + word;
-            tempText = tempText.trim();
+            text = text.replace('\n', ' ');
+        }
 
-            if (word.isEmpty())
+        int oldLineCount = this.lines.size();
+        int lineIndex = 0;
+        int paragraphIndex = 0;
+        int start = 0;
+
+        while (start <= text.length())
+        {
+            if (start > 0 && start == text.length())
             {
-                continue;
+                // a trailing line break does not start another row
+                break;
             }
 
-            double width = font.getStringBounds(tempText, renderContext).getWidth();
+            int end = text.indexOf('\n', start);
 
-            if (width > w.pixels())
+            if (end < 0)
             {
-                createAndAddLine(currentText, lineHeight);
+                end = text.length();
+            }
 
-                tempText = " " + word;
-                tempText = tempText.trim();
+            String paragraphText = text.substring(start, end);
+            Paragraph paragraph = paragraphIndex < this.paragraphs.size() ? this.paragraphs.get(paragraphIndex) : null;
 
-                // this makes sure that the last line is still generated even if its only a single word
-                addedLast = i != words.length - 1;
-            }
-            else
+            if (paragraph == null || !paragraph.text.equals(paragraphText))
             {
-                addedLast = false;
+                paragraph = wrap(paragraphText, font, renderContext, width);
+
+                if (paragraphIndex < this.paragraphs.size())
+                {
+                    this.paragraphs.set(paragraphIndex, paragraph);
+                }
+                else
+                {
+                    this.paragraphs.add(paragraph);
+                }
             }
 
-            currentText = tempText;
-
-            if (this.lineBreak && word.endsWith("\n"))
+            for (String lineText : paragraph.lines)
             {
-                createAndAddLine(currentText, lineHeight);
-                currentText = "";
-                tempText = "";
-                addedLast = true;
+                setLine(lineIndex++, lineText, lineHeight);
             }
+
+            paragraphIndex++;
+            start = end + 1;
+        }
+
+        while (this.paragraphs.size() > paragraphIndex)
+        {
+            this.paragraphs.remove(this.paragraphs.size() - 1);
         }
 
-        if (!addedLast)
+        while (this.lines.size() > lineIndex)
         {
-            createAndAddLine(currentText, lineHeight);
+            this.lines.remove(this.lines.size() - 1);
+        }
+
+        if (this.autoScroll && this.maxLines > 0)
+        {
+            this.scrollOffset = Math.max(this.lines.size() - this.maxLines, 0);
+        }
+
+        if (this.lines.size() != oldLineCount)
+        {
+            reportDamage();
         }
     }
 
-    protected void createAndAddLine(String text, Unit lineHeight)
+    /**
+     * Creates a new row.
+     *
+     * @param text       The text of the row.
+     * @param lineHeight The height of the row.
+     * @return The row.
+     */
+    protected FixedText createLine(String text, Unit lineHeight)
     {
         var line = new FixedText(text, FixedText.FIXED_HEIGHT, lineHeight);
         line.setXCentered(this.xCentered);
         line.setYCentered(this.yCentered);
         line.setColor(this.color);
+        line.setImageCaching(this.imageCaching);
+
+        if (this.bitmapFont != null)
+        {
+            line.setBitmapFont(this.bitmapFont);
+        }
+
+        return line;
+    }
+
+    private void setLine(int index, String text, Unit lineHeight)
+    {
+        if (index < this.lines.size())
+        {
+            FixedText line = this.lines.get(index);
+
+            if (!text.equals(line.getText()))
+            {
+                line.setText(text);
+            }
+
+            line.setXCentered(this.xCentered);
+            line.setYCentered(this.yCentered);
+        }
+        else
+        {
+            this.lines.add(createLine(text, lineHeight));
+        }
+    }
+
+    private int getFirstLine()
+    {
+        return this.maxLines > 0 ? Math.min(this.scrollOffset, Math.max(this.lines.size() - 1, 0)) : 0;
+    }
+
+    /**
+     * Wraps a single paragraph. Words are only split if they do not fit into an empty row.
+     */
+    private static Paragraph wrap(String text, Font font, FontRenderContext renderContext, double width)
+    {
+        Paragraph paragraph = new Paragraph(text);
+
+        if (text.isEmpty())
+        {
+            paragraph.lines.add(text);
+            return paragraph;
+        }
+
+        AttributedString attributed = new AttributedString(text);
+        attributed.addAttribute(TextAttribute.FONT, font);
+
+        LineBreakMeasurer measurer = new LineBreakMeasurer(attributed.getIterator(), renderContext);
+        float wrappingWidth = (float)Math.max(width, 1);
+        int position = 0;
+
+        while (position < text.length())
+        {
+            int next = measurer.nextOffset(wrappingWidth, text.length(), true);
+
+            if (next == position)
+            {
+                // the next word does not fit into an empty row, so it gets a row of its own
+                while (next < text.length() && text.charAt(next) != ' ')
+                {
+                    next++;
+                }
+
+                while (next < text.length() && text.charAt(next) == ' ')
+                {
+                    next++;
+                }
+            }
+
+            measurer.setPosition(next);
+            paragraph.lines.add(text.substring(position, next).trim());
+            position = next;
+        }
+
+        return paragraph;
+    }
+
+    /**
+     * The rows of a wrapped paragraph.
+     */
+    private static class Paragraph
+    {
+        private String text;
+        private List<String> lines = new ArrayList<>(2);
 
-        if (this.maxLines < 0 || this.lines.size() < this.maxLines)
+        private Paragraph(String text)
         {
-            this.lines.add(line);
+            this.text = text;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package bt.game.resource.render.intf;
 
+import bt.game.resource.render.impl.RenderContext;
 import bt.game.util.unit.Unit;
 
 import java.awt.*;
@@ -13,6 +14,73 @@ public interface Renderable
 {
     public void render(float alpha, Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering);
 
+    /**
+     * Renders this object with positions and sizes given in units.
+     *
+     * <p>
+     * This does the same as the {@link Unit} based method but does not require the caller to create Unit instances.
+     * The default implementation wraps the values and calls
+     * {@link #render(float, Graphics2D, Unit, Unit, Unit, Unit, double, Unit, Unit, boolean)}. Implementations that
+     * render often should override this method and let the Unit based method call it instead.
+     * </p>
+     *
+     * @param alpha           The alpha value between 0 and 1.
+     * @param g               The graphics to render on.
+     * @param x               The x position in units.
+     * @param y               The y position in units.
+     * @param w               The width in units.
+     * @param h               The height in units.
+     * @param rotation        The rotation in degrees.
+     * @param rotationOffsetX The x offset of the rotation center from the center of the object in units.
+     * @param rotationOffsetY The y offset of the rotation center from the center of the object in units.
+     * @param debugRendering  true to render debug information.
+     */
+    public default void render(float alpha, Graphics2D g, double x, double y, double w, double h, double rotation, double rotationOffsetX, double rotationOffsetY, boolean debugRendering)
+    {
+        render(alpha,
+               g,
+               Unit.forUnits(x),
+               Unit.forUnits(y),
+               Unit.forUnits(w),
+               Unit.forUnits(h),
+               rotation,
+               Unit.forUnits(rotationOffsetX),
+               Unit.forUnits(rotationOffsetY),
+               debugRendering);
+    }
+
+    /**
+     * Renders this object with positions and sizes given in pixels. All other parameters are taken from the given
+     * context.
+     *
+     * <p>
+     * This is the core render method of renderables that render often. It does not require any objects to be created
+     * by the caller if it reuses its context. The default implementation converts the values to units and calls
+     * {@link #render(float, Graphics2D, double, double, double, double, double, double, double, boolean)}.
+     * Implementations that override this method should let the other render methods call it.
+     * </p>
+     *
+     * @param g       The graphics to render on.
+     * @param x       The x position in pixels.
+     * @param y       The y position in pixels.
+     * @param w       The width in pixels.
+     * @param h       The height in pixels.
+     * @param context The alpha, rotation and debug settings. The context is only read during this call.
+     */
+    public default void render(Graphics2D g, double x, double y, double w, double h, RenderContext context)
+    {
+        render(context.getAlpha(),
+               g,
+               Unit.toUnits(x),
+               Unit.toUnits(y),
+               Unit.toUnits(w),
+               Unit.toUnits(h),
+               context.getRotation(),
+               Unit.toUnits(context.getRotationOffsetX()),
+               Unit.toUnits(context.getRotationOffsetY()),
+               context.isDebugRendering());
+    }
+
     public default void render(Graphics2D g, Unit x, Unit y, Unit w, Unit h, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
     {
         render(1, g, x, y, w, h, rotation, rotationOffsetX, rotationOffsetY, debugRendering);
@@ -70,7 +138,7 @@ public interface Renderable
 
     public default void render(float alpha, Graphics2D g, Unit x, Unit y, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
     {
-        render(alpha, g, x, y, getW(), getH(), rotation, Unit.zero(), Unit.zero(), debugRendering);
+        render(alpha, g, x.units(), y.units(), getWUnits(), getHUnits(), rotation, 0, 0, debugRendering);
     }
 
     public default void render(Graphics2D g, Unit x, Unit y, double rotation, Unit rotationOffsetX, Unit rotationOffsetY, boolean debugRendering)
@@ -130,7 +198,7 @@ public interface Renderable
 
     public default void render(float alpha, Graphics2D g, double rotation, boolean debugRendering)
     {
-        render(alpha, g, getX(), getY(), rotation, debugRendering);
+        render(alpha, g, getXUnits(), getYUnits(), getWUnits(), getHUnits(), rotation, 0, 0, debugRendering);
     }
 
     public default void render(Graphics2D g, double rotation, boolean debugRendering)
@@ -196,6 +264,56 @@ public interface Renderable
 
     public void setH(Unit h);
 
+    /**
+     * Gets the Z position of this object in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public default double getZUnits()
+    {
+        return getZ().units();
+    }
+
+    /**
+     * Gets the x position of this object in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public default double getXUnits()
+    {
+        return getX().units();
+    }
+
+    /**
+     * Gets the y position of this object in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public default double getYUnits()
+    {
+        return getY().units();
+    }
+
+    /**
+     * Gets the width of this object in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public default double getWUnits()
+    {
+        return getW().units();
+    }
+
+    /**
+     * Gets the height of this object in units without creating a {@link Unit} instance.
+     *
+     * @return
+     */
+    public default double getHUnits()
+    {
+        return getH().units();
+    }
+
     /**
      * A hint to the object handler whether this object should be rendered.
      *
@@ -209,4 +327,21 @@ public interface Renderable
      * @param shouldRender
      */
     public void shouldRender(boolean shouldRender);
+
+    /**
+     * A hint to the object handler that this object never moves or changes its appearance.
+     *
+     * <p>
+     * Static objects are rendered once into cached chunk images by a
+     * {@link bt.game.resource.render.cache.StaticLayerCache StaticLayerCache} instead of being rendered every frame. If
+     * a static object changes anyway, the object handler needs to be notified via
+     * {@link bt.game.core.obj.hand.impl.BaseObjectHandler#invalidateStatic(Renderable) invalidateStatic}.
+     * </p>
+     *
+     * @return true if this object is static. The default implementation returns false.
+     */
+    public default boolean isStatic()
+    {
+        return false;
+    }
 }
\ No newline at end of file
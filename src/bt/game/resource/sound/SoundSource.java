@@ -21,8 +21,8 @@ import bt.utils.NumberUtils;
 public class SoundSource implements Tickable
 {
     protected Scene scene;
-    protected Unit x;
-    protected Unit y;
+    protected double x;
+    protected double y;
     protected GameObject volumeTarget;
     protected GameObject attachTarget;
     protected Sound sound;
@@ -52,8 +52,8 @@ public class SoundSource implements Tickable
         this.scene = scene;
         this.volumeTarget = volumeTarget;
         this.sound = sound;
-        this.x = x;
-        this.y = y;
+        this.x = x.units();
+        this.y = y.units();
         this.maxDistance = maxDistance;
         this.scene.getObjectHandler().addObject(this);
         this.minVolume = 0f;
@@ -100,11 +100,10 @@ public class SoundSource implements Tickable
     {
         if (this.volumeTarget != null && this.sound != null)
         {
-            Unit targetX = this.volumeTarget.getCenterX();
-            Unit targetY = this.volumeTarget.getCenterY();
+            double distX = this.volumeTarget.getCenterXUnits() - this.x;
+            double distY = this.volumeTarget.getCenterYUnits() - this.y;
 
-            double distance = Math.sqrt((targetX.units() - this.x.units()) * (targetX.units() - this.x.units())
-                                                + (targetY.units() - this.y.units()) * (targetY.units() - this.y.units()));
+            double distance = Math.sqrt(distX * distX + distY * distY);
 
             // taking unaffected distance into account
             // essentially moving the center of the volumeTarget closer to the sound
@@ -272,7 +271,7 @@ public class SoundSource implements Tickable
      */
     public Unit getX()
     {
-        return this.x;
+        return Unit.forUnits(this.x);
     }
 
     /**
@@ -282,7 +281,7 @@ public class SoundSource implements Tickable
      */
     public void setX(Unit x)
     {
-        this.x = x;
+        this.x = x.units();
     }
 
     /**
@@ -292,7 +291,7 @@ public class SoundSource implements Tickable
      */
     public Unit getY()
     {
-        return this.y;
+        return Unit.forUnits(this.y);
     }
 
     /**
@@ -302,7 +301,7 @@ public class SoundSource implements Tickable
      */
     public void setY(Unit y)
     {
-        this.y = y;
+        this.y = y.units();
     }
 
     /**
@@ -326,8 +325,8 @@ public class SoundSource implements Tickable
     {
         if (this.attachTarget != null)
         {
-            setX(this.attachTarget.getCenterX());
-            setY(this.attachTarget.getCenterY());
+            this.x = this.attachTarget.getCenterXUnits();
+            this.y = this.attachTarget.getCenterYUnits();
         }
 
         updateVolume();
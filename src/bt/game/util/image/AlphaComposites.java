@@ -0,0 +1,52 @@
+package bt.game.util.image;
+
+import java.awt.*;
+
+/**
+ * Shared {@link AlphaComposite#SRC_OVER} composites for every alpha value that a surface can store.
+ *
+ * <p>
+ * {@link AlphaComposite#getInstance(int, float)} creates a new composite for every alpha value other than 1, which adds
+ * up when thousands of faded images are drawn per frame. Since the alpha is quantized to 8 bits during blending anyway,
+ * this class hands out one of 256 precreated instances instead.
+ * </p>
+ *
+ * @author &#8904
+ */
+public final class AlphaComposites
+{
+    private static final AlphaComposite[] srcOver = new AlphaComposite[256];
+
+    static
+    {
+        for (int i = 0; i < srcOver.length; i++)
+        {
+            srcOver[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, i / 255f);
+        }
+    }
+
+    private AlphaComposites()
+    {
+    }
+
+    /**
+     * Gets the source over composite with the given alpha.
+     *
+     * @param alpha The alpha value. Values outside of 0 to 1 are clamped.
+     * @return The shared composite.
+     */
+    public static AlphaComposite srcOver(float alpha)
+    {
+        if (alpha >= 1)
+        {
+            return srcOver[255];
+        }
+
+        if (alpha <= 0)
+        {
+            return srcOver[0];
+        }
+
+        return srcOver[(int)(alpha * 255 + 0.5f)];
+    }
+}
@@ -0,0 +1,162 @@
+package bt.game.util.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
+
+/**
+ * A blur that approximates a gaussian blur by applying multiple box blurs.
+ *
+ * <p>
+ * Each box blur is split into a horizontal and a vertical pass that use a running sum, so the cost per pixel does not
+ * depend on the radius. Both passes read rows and write the result transposed, which turns the vertical pass into
+ * another row pass. Rows are processed in parallel bands. Pixels outside of the image are mirrored at the edges.
+ * </p>
+ *
+ * @author &#8904
+ */
+public final class BoxBlur
+{
+    /** The default number of box blurs that are applied. Three passes are already close to a gaussian blur. */
+    public static final int DEFAULT_PASSES = 3;
+
+    private static final int MIN_BAND_HEIGHT = 32;
+
+    private BoxBlur()
+    {
+    }
+
+    /**
+     * Blurs the given image with {@link #DEFAULT_PASSES} box blurs.
+     *
+     * @param image  The image to blur. It is not modified.
+     * @param radius The strength of the blur. This is the radius of a single box blur with the same strength.
+     * @return A new blurred image of type {@link BufferedImage#TYPE_INT_ARGB_PRE}.
+     */
+    public static BufferedImage blur(BufferedImage image, int radius)
+    {
+        return blur(image, radius, DEFAULT_PASSES);
+    }
+
+    /**
+     * Blurs the given image with the given number of box blurs.
+     *
+     * <p>
+     * The radius of each box blur is chosen so that all passes together spread the image as much as a single box blur
+     * with the given radius (equal variance). If that radius is too small to be split, a single pass is used.
+     * </p>
+     *
+     * @param image  The image to blur. It is not modified.
+     * @param radius The strength of the blur. This is the radius of a single box blur with the same strength.
+     * @param passes The number of box blurs to apply.
+     * @return A new blurred image of type {@link BufferedImage#TYPE_INT_ARGB_PRE}.
+     */
+    public static BufferedImage blur(BufferedImage image, int radius, int passes)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = result.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        if (radius <= 0 || passes <= 0)
+        {
+            return result;
+        }
+
+        // variance of a box with radius r is r(r+1)/3
+        double passVariance = radius * (radius + 1) / (double)passes;
+        int passRadius = (int)Math.round((Math.sqrt(1 + 4 * passVariance) - 1) / 2);
+
+        if (passRadius == 0)
+        {
+            passRadius = radius;
+            passes = 1;
+        }
+
+        int[] pixels = ((DataBufferInt)result.getRaster().getDataBuffer()).getData();
+        int[] temp = new int[pixels.length];
+
+        for (int i = 0; i < passes; i++)
+        {
+            blurRows(pixels, temp, width, height, passRadius);
+            blurRows(temp, pixels, height, width, passRadius);
+        }
+
+        return result;
+    }
+
+    /**
+     * Blurs every row of src and writes the result transposed into dst.
+     */
+    private static void blurRows(int[] src, int[] dst, int width, int height, int radius)
+    {
+        int bands = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), height / MIN_BAND_HEIGHT));
+        int bandHeight = (height + bands - 1) / bands;
+
+        IntStream.range(0, bands)
+                 .parallel()
+                 .forEach(band ->
+                          {
+                              int end = Math.min(height, (band + 1) * bandHeight);
+
+                              for (int y = band * bandHeight; y < end; y++)
+                              {
+                                  blurRow(src, dst, y, width, height, radius);
+                              }
+                          });
+    }
+
+    private static void blurRow(int[] src, int[] dst, int y, int width, int height, int radius)
+    {
+        int offset = y * width;
+        int size = radius * 2 + 1;
+        int a = 0;
+        int r = 0;
+        int g = 0;
+        int b = 0;
+
+        for (int i = -radius; i <= radius; i++)
+        {
+            int pixel = src[offset + reflect(i, width)];
+            a += pixel >>> 24;
+            r += (pixel >> 16) & 0xFF;
+            g += (pixel >> 8) & 0xFF;
+            b += pixel & 0xFF;
+        }
+
+        for (int x = 0; x < width; x++)
+        {
+            dst[x * height + y] = ((a + size / 2) / size) << 24
+                    | ((r + size / 2) / size) << 16
+                    | ((g + size / 2) / size) << 8
+                    | ((b + size / 2) / size);
+
+            int in = src[offset + reflect(x + radius + 1, width)];
+            int out = src[offset + reflect(x - radius, width)];
+            a += (in >>> 24) - (out >>> 24);
+            r += ((in >> 16) & 0xFF) - ((out >> 16) & 0xFF);
+            g += ((in >> 8) & 0xFF) - ((out >> 8) & 0xFF);
+            b += (in & 0xFF) - (out & 0xFF);
+        }
+    }
+
+    /**
+     * Mirrors the given index into the range [0, length).
+     */
+    private static int reflect(int index, int length)
+    {
+        if (index >= 0 && index < length)
+        {
+            return index;
+        }
+
+        int period = length * 2;
+        index = Math.floorMod(index, period);
+        return index < length ? index : period - 1 - index;
+    }
+}
@@ -0,0 +1,177 @@
+package bt.game.util.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+
+/**
+ * Utility methods to convert images into formats that match the screens {@link GraphicsConfiguration}.
+ *
+ * <p>
+ * Java2D can only accelerate drawing of images whose layout matches the one of the target surface. Images as they are
+ * returned by ImageIO (i.e. TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR_PRE or indexed images) are drawn through slow software
+ * loops instead.
+ * </p>
+ *
+ * @author &#8904
+ */
+public final class CompatibleImages
+{
+    private CompatibleImages()
+    {
+    }
+
+    /**
+     * Gets the configuration of the default screen device.
+     *
+     * @return The configuration or null if the environment is headless.
+     */
+    public static GraphicsConfiguration getGraphicsConfiguration()
+    {
+        if (GraphicsEnvironment.isHeadless())
+        {
+            return null;
+        }
+
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                                  .getDefaultScreenDevice()
+                                  .getDefaultConfiguration();
+    }
+
+    /**
+     * Determines the transparency that is actually needed to display the given image by scanning its alpha values.
+     *
+     * <p>
+     * An image with an alpha channel that only contains fully opaque pixels is reported as {@link Transparency#OPAQUE}.
+     * </p>
+     *
+     * @param image The image to check.
+     * @return Either {@link Transparency#OPAQUE}, {@link Transparency#BITMASK} or {@link Transparency#TRANSLUCENT}.
+     */
+    public static int getTransparency(BufferedImage image)
+    {
+        if (!image.getColorModel().hasAlpha())
+        {
+            return Transparency.OPAQUE;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        int transparency = Transparency.OPAQUE;
+
+        for (int y = 0; y < height; y++)
+        {
+            image.getRGB(0, y, width, 1, row, 0, width);
+
+            for (int x = 0; x < width; x++)
+            {
+                int alpha = row[x] >>> 24;
+
+                if (alpha != 0 && alpha != 255)
+                {
+                    return Transparency.TRANSLUCENT;
+                }
+                else if (alpha == 0)
+                {
+                    transparency = Transparency.BITMASK;
+                }
+            }
+        }
+
+        return transparency;
+    }
+
+    /**
+     * Creates an empty image with the given size and transparency that matches the screens configuration.
+     *
+     * <p>
+     * If the environment is headless an integer based image is created instead.
+     * </p>
+     *
+     * @param width        The width in pixels.
+     * @param height       The height in pixels.
+     * @param transparency The transparency of the image, see {@link Transparency}.
+     * @return The created image.
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency)
+    {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+
+        if (config == null)
+        {
+            return new BufferedImage(width,
+                                     height,
+                                     transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        return config.createCompatibleImage(width, height, transparency);
+    }
+
+    /**
+     * Indicates whether the given image already has the layout that the screen uses for the given transparency.
+     *
+     * @param image        The image to check.
+     * @param transparency The required transparency.
+     * @return true if the image does not need to be converted.
+     */
+    public static boolean isCompatible(BufferedImage image, int transparency)
+    {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+
+        if (config == null)
+        {
+            return image.getType() == (transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        ColorModel model = config.getColorModel(transparency);
+        return image.getColorModel().equals(model) && model.isCompatibleRaster(image.getRaster());
+    }
+
+    /**
+     * Copies the given image into a format that matches the screens configuration. The transparency is chosen based on
+     * the actual alpha content of the image.
+     *
+     * <p>
+     * If the given image is already compatible it is returned as is.
+     * </p>
+     *
+     * @param image The image to convert.
+     * @return The compatible image.
+     */
+    public static BufferedImage toCompatibleImage(BufferedImage image)
+    {
+        return toCompatibleImage(image, getTransparency(image));
+    }
+
+    /**
+     * Copies the given image into a format that matches the screens configuration and the given transparency.
+     *
+     * <p>
+     * If the given image is already compatible it is returned as is.
+     * </p>
+     *
+     * @param image        The image to convert.
+     * @param transparency The transparency of the new image, see {@link Transparency}.
+     * @return The compatible image.
+     */
+    public static BufferedImage toCompatibleImage(Image image, int transparency)
+    {
+        if (image instanceof BufferedImage && isCompatible((BufferedImage)image, transparency))
+        {
+            return (BufferedImage)image;
+        }
+
+        BufferedImage compatible = createCompatibleImage(image.getWidth(null),
+                                                         image.getHeight(null),
+                                                         transparency);
+        Graphics2D g = compatible.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        return compatible;
+    }
+}
@@ -0,0 +1,118 @@
+package bt.game.util.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chain of successively halved versions of an image.
+ *
+ * <p>
+ * Level 0 is the original image, every following level has half the width and height of the previous one (rounded up)
+ * until a size of 1x1 is reached. Levels are generated once on first use.
+ * </p>
+ *
+ * <p>
+ * Scaling an image down by a large factor is expensive and prone to aliasing because every output pixel only samples
+ * a few of the many source pixels. Starting from the smallest level that is still at least as big as the target
+ * keeps the final scale factor below two.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class MipChain
+{
+    private List<BufferedImage> levels;
+    private int transparency;
+
+    /**
+     * Creates a new chain for the given image. No levels are generated yet.
+     *
+     * @param image The original image.
+     */
+    public MipChain(BufferedImage image)
+    {
+        this.levels = new ArrayList<>();
+        this.levels.add(image);
+        this.transparency = image.getColorModel().getTransparency();
+    }
+
+    /**
+     * Gets the level with the given index, generating it and all levels before it if necessary.
+     *
+     * @param level The index of the level. Indices beyond the 1x1 level return the 1x1 level.
+     * @return The image of the level.
+     */
+    public synchronized BufferedImage getLevel(int level)
+    {
+        while (this.levels.size() <= level)
+        {
+            BufferedImage last = this.levels.get(this.levels.size() - 1);
+
+            if (last.getWidth() == 1 && last.getHeight() == 1)
+            {
+                return last;
+            }
+
+            this.levels.add(halve(last));
+        }
+
+        return this.levels.get(level);
+    }
+
+    /**
+     * Gets the smallest level whose width and height are both at least the given size.
+     *
+     * @param width  The target width in pixels.
+     * @param height The target height in pixels.
+     * @return The image of the chosen level. This is the original image if the target is bigger than the original.
+     */
+    public BufferedImage getLevelFor(int width, int height)
+    {
+        BufferedImage original = this.levels.get(0);
+        int level = 0;
+        int levelWidth = original.getWidth();
+        int levelHeight = original.getHeight();
+
+        while ((levelWidth > 1 || levelHeight > 1)
+                && (levelWidth + 1) / 2 >= width
+                && (levelHeight + 1) / 2 >= height)
+        {
+            levelWidth = (levelWidth + 1) / 2;
+            levelHeight = (levelHeight + 1) / 2;
+            level++;
+        }
+
+        return getLevel(level);
+    }
+
+    /**
+     * Flushes all generated levels. The original image is not flushed.
+     */
+    public synchronized void flush()
+    {
+        for (int i = 1; i < this.levels.size(); i++)
+        {
+            this.levels.get(i).flush();
+        }
+
+        this.levels.subList(1, this.levels.size()).clear();
+    }
+
+    private BufferedImage halve(BufferedImage image)
+    {
+        BufferedImage half = CompatibleImages.createCompatibleImage((image.getWidth() + 1) / 2,
+                                                                    (image.getHeight() + 1) / 2,
+                                                                    this.transparency);
+        Graphics2D g = half.createGraphics();
+
+        // bilinear sampling at exactly half the size averages each 2x2 block
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, half.getWidth(), half.getHeight(), null);
+        g.dispose();
+
+        return half;
+    }
+}
@@ -20,6 +20,7 @@ import org.dyn4j.geometry.Shape;
 import org.dyn4j.geometry.Slice;
 import org.dyn4j.geometry.Vector2;
 
+import bt.game.resource.render.batch.RenderCommandBuffer;
 import bt.game.util.unit.Unit;
 
 /**
@@ -45,6 +46,8 @@ public final class ShapeRenderer
      */
     public static void render(Graphics2D g, Shape shape, Color color)
     {
+        RenderCommandBuffer.flushActive();
+
         // no-op
         if (shape == null)
             return;
@@ -103,6 +106,7 @@ public final class ShapeRenderer
 
     public static void render(Graphics2D g, Body body, Color color)
     {
+        RenderCommandBuffer.flushActive();
         AffineTransform ot = g.getTransform();
         AffineTransform lt = new AffineTransform();
         lt.translate(body.getTransform().getTranslationX() * Unit.getRatio(),
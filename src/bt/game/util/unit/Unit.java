@@ -37,6 +37,30 @@ public class Unit
         return Unit.ratio;
     }
 
+    /**
+     * Converts the given amount of units to pixels using the current ratio without creating a Unit instance.
+     *
+     * @param units
+     *
+     * @return
+     */
+    public static double toPixels(double units)
+    {
+        return units * Unit.ratio;
+    }
+
+    /**
+     * Converts the given amount of pixels to units using the current ratio without creating a Unit instance.
+     *
+     * @param pixels
+     *
+     * @return
+     */
+    public static double toUnits(double pixels)
+    {
+        return pixels / Unit.ratio;
+    }
+
     /**
      * Returns a constant instance with a unit and pixel value of zero.
      *